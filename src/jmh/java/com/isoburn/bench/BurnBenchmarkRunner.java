@@ -0,0 +1,165 @@
+package com.isoburn.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.isoburn.IsoBurnSpringApp;
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.service.DiskBackend;
+import com.isoburn.service.IsoBurnService;
+import com.isoburn.service.WimSplitService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs full {@link IsoBurnService} burns of synthetic ISO trees into throttled
+ * image-file drives and reports per-phase timing, throughput, CPU time and
+ * peak heap for each profile. With {@code bench.source-seek-ms} the source is
+ * charged a seek for every out-of-order file, and each profile is burned once
+ * per entry in {@code bench.copy-orders} to compare copy scheduling. Phases
+ * that overlap are reported with the wall-clock time the overlap saved; set
+ * {@code bench.parallel-phases=false} to run them one after another.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec@burn-benchmarks \
+ *     -Dbench.profiles=windows,ubuntu,mixed -Dbench.scale=1.0 -Dbench.bandwidth-mbps=30
+ * </pre>
+ */
+public class BurnBenchmarkRunner {
+
+    public record PhaseTiming(String phase, long millis, long overlapSavedMillis) {}
+
+    public record ProfileResult(String profile, boolean success, String message, long files, long bytes,
+                                long wallMillis, List<PhaseTiming> phases, double copyThroughputMBps,
+                                long cpuMillis, long peakHeapBytes) {}
+
+    public static void main(String[] args) throws Exception {
+        String[] profiles = System.getProperty("bench.profiles", "windows,ubuntu,mixed").split(",");
+        String[] copyOrders = System.getProperty("bench.copy-orders", "extent").split(",");
+        double scale = Double.parseDouble(System.getProperty("bench.scale", "1.0"));
+        long seed = Long.parseLong(System.getProperty("bench.seed", "42"));
+        Path workDir = Paths.get(System.getProperty("bench.work-dir", "target/burn-bench"));
+        Path output = Paths.get(System.getProperty("bench.output", "target/burn-bench-result.json"));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(IsoBurnSpringApp.class)
+            .web(WebApplicationType.NONE)
+            .headless(true)
+            .run("--isoburn.disk-backend=image",
+                "--isoburn.image-backend.root=" + workDir.resolve("drives").toAbsolutePath(),
+                "--isoburn.image-backend.drive-count=1",
+                "--isoburn.image-backend.bandwidth-mbps=" + System.getProperty("bench.bandwidth-mbps", "30"),
+                "--isoburn.image-backend.latency-ms=" + System.getProperty("bench.latency-ms", "0"),
+                "--isoburn.image-backend.source-seek-ms=" + System.getProperty("bench.source-seek-ms", "0"),
+                "--isoburn.parallel-phases=" + System.getProperty("bench.parallel-phases", "true"),
+                "--isoburn.history.file=");
+
+        try {
+            IsoBurnService burnService = context.getBean(IsoBurnService.class);
+            DiskBackend backend = context.getBean(DiskBackend.class);
+            boolean wimlib = context.getBean(WimSplitService.class).isWimlibInstalled();
+            SyntheticIsoGenerator generator = new SyntheticIsoGenerator(seed, scale);
+
+            List<ProfileResult> results = new ArrayList<>();
+            for (String name : profiles) {
+                Path source = generator.generate(SyntheticIsoGenerator.profile(name.trim()),
+                    workDir.resolve("sources"));
+                RemovableDrive drive = backend.detectDrives().get(0);
+                for (String order : copyOrders) {
+                    ReflectionTestUtils.setField(burnService, "copyOrder", order.trim());
+                    String label = copyOrders.length > 1 ? name.trim() + "/" + order.trim() : name.trim();
+                    results.add(runProfile(label, source, drive, burnService, wimlib));
+                }
+            }
+
+            printTable(results);
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(output.toFile(), results);
+            System.out.println("Results written to " + output.toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static ProfileResult runProfile(String name, Path source, RemovableDrive drive,
+                                            IsoBurnService burnService, boolean wimlib) throws IOException {
+        long[] counts = countTree(source);
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+
+        // Without wimlib the large WIM is copied whole; image volumes have no FAT32 size limit
+        BurnResult result = burnService.burn(source.toFile(), drive, true, wimlib, progress -> {});
+
+        long end = System.nanoTime();
+        long cpuMillis = (os.getProcessCpuTime() - cpuStart) / 1_000_000;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        BurnReport report = result.getReport();
+        List<PhaseTiming> phases = report.getPhaseMillis().entrySet().stream()
+            .map(e -> new PhaseTiming(e.getKey(), e.getValue(),
+                report.getPhaseOverlapMillis().getOrDefault(e.getKey(), 0L)))
+            .toList();
+        long copyMillis = report.getPhaseMillis().getOrDefault(BurnProgress.Phase.COPYING.name(), 0L);
+        double throughput = copyMillis > 0 ? (counts[1] / 1_000_000.0) / (copyMillis / 1000.0) : 0;
+
+        return new ProfileResult(name, result.isSuccess(), result.getMessage(), counts[0], counts[1],
+            (end - start) / 1_000_000, phases, throughput, cpuMillis, peakHeap);
+    }
+
+    private static long[] countTree(Path root) throws IOException {
+        long files = 0;
+        long bytes = 0;
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.filter(Files::isRegularFile).toList()) {
+                files++;
+                bytes += Files.size(p);
+            }
+        }
+        return new long[]{files, bytes};
+    }
+
+    private static void printTable(List<ProfileResult> results) {
+        System.out.printf("%n%-18s %-7s %8s %12s %10s %10s %10s %12s%n",
+            "Profile", "Result", "Files", "MB", "Wall ms", "MB/s", "CPU ms", "Peak heap MB");
+        for (ProfileResult r : results) {
+            System.out.printf("%-18s %-7s %8d %12.1f %10d %10.1f %10d %12.1f%n",
+                r.profile(), r.success() ? "ok" : "FAILED", r.files(), r.bytes() / 1_000_000.0,
+                r.wallMillis(), r.copyThroughputMBps(), r.cpuMillis(), r.peakHeapBytes() / 1_000_000.0);
+            for (PhaseTiming phase : r.phases()) {
+                if (phase.overlapSavedMillis() > 0) {
+                    System.out.printf("    %-14s %10d ms  (%d ms overlapped)%n", phase.phase(), phase.millis(),
+                        phase.overlapSavedMillis());
+                } else {
+                    System.out.printf("    %-14s %10d ms%n", phase.phase(), phase.millis());
+                }
+            }
+            if (!r.success()) {
+                System.out.println("    " + r.message());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.isoburn.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible extracted-ISO trees for the end-to-end burn benchmark.
+ * The same profile, seed and scale always produce byte-identical trees, and a
+ * completed tree is reused on later runs.
+ */
+public class SyntheticIsoGenerator {
+
+    private static final String MARKER_SUFFIX = ".complete";
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+    private static final long GB = 1024 * MB;
+
+    public record FileGroup(String directory, String namePattern, int count, long minSize, long maxSize) {}
+
+    public record Profile(String name, List<FileGroup> groups) {}
+
+    public static final Profile WINDOWS = new Profile("windows", List.of(
+        new FileGroup("", "setup%d.exe", 1, 90 * KB, 90 * KB),
+        new FileGroup("boot", "boot%d.sdi", 8, 16 * KB, 3 * MB),
+        new FileGroup("efi/boot", "bootx64_%d.efi", 2, 1 * MB, 3 * MB),
+        new FileGroup("sources", "file%d.dll", 900, 10 * KB, 30 * MB),
+        new FileGroup("sources", "boot%d.wim", 1, 600 * MB, 600 * MB),
+        new FileGroup("sources", "install.wim", 1, 5 * GB, 5 * GB),
+        new FileGroup("support/lang", "lang%d.cab", 120, 100 * KB, 8 * MB)
+    ));
+
+    public static final Profile UBUNTU = new Profile("ubuntu", List.of(
+        new FileGroup("casper", "filesystem.squashfs", 1, 1536 * MB, 1536 * MB),
+        new FileGroup("casper", "vmlinuz%d", 2, 14 * MB, 14 * MB),
+        new FileGroup("boot/grub", "module%d.mod", 300, 2 * KB, 200 * KB),
+        new FileGroup("pool/main", "package%d.deb", 30_000, 1 * KB, 64 * KB),
+        new FileGroup("dists/stable", "Packages%d", 40, 10 * KB, 2 * MB)
+    ));
+
+    public static final Profile MIXED = new Profile("mixed", List.of(
+        new FileGroup("data/small", "s%d.bin", 5_000, 1 * KB, 256 * KB),
+        new FileGroup("data/medium", "m%d.bin", 200, 1 * MB, 20 * MB),
+        new FileGroup("data/large", "l%d.bin", 6, 200 * MB, 700 * MB)
+    ));
+
+    public static Profile profile(String name) {
+        return switch (name) {
+            case "windows" -> WINDOWS;
+            case "ubuntu" -> UBUNTU;
+            case "mixed" -> MIXED;
+            default -> throw new IllegalArgumentException("Unknown profile: " + name);
+        };
+    }
+
+    private final long seed;
+    private final double scale;
+
+    public SyntheticIsoGenerator(long seed, double scale) {
+        this.seed = seed;
+        this.scale = scale;
+    }
+
+    /**
+     * Generates the profile under {@code baseDir/<name>} unless a complete tree
+     * for the same seed and scale is already there. Returns the tree root.
+     */
+    public Path generate(Profile profile, Path baseDir) throws IOException {
+        Path root = baseDir.resolve(profile.name());
+        Path marker = baseDir.resolve(profile.name() + MARKER_SUFFIX);
+        String signature = profile + " seed=" + seed + " scale=" + scale;
+
+        if (Files.exists(marker) && Files.readString(marker).equals(signature)) {
+            return root;
+        }
+
+        Files.deleteIfExists(marker);
+        deleteTree(root);
+        Files.createDirectories(root);
+
+        Random random = new Random(seed);
+        byte[] block = new byte[BLOCK_SIZE];
+        random.nextBytes(block);
+
+        long fileIndex = 0;
+        for (FileGroup group : profile.groups()) {
+            Path dir = group.directory().isEmpty() ? root : root.resolve(group.directory());
+            Files.createDirectories(dir);
+
+            int count = Math.max(1, (int) Math.round(group.count() * Math.min(1.0, scale)));
+            for (int i = 0; i < count; i++) {
+                long size = group.minSize() + (group.maxSize() > group.minSize()
+                    ? (long) (random.nextDouble() * (group.maxSize() - group.minSize()))
+                    : 0);
+                size = Math.max(1, (long) (size * scale));
+                String name = group.namePattern().contains("%d")
+                    ? String.format(group.namePattern(), i)
+                    : group.namePattern();
+                writeFile(dir.resolve(name), size, block, fileIndex++);
+            }
+        }
+
+        Files.writeString(marker, signature);
+        return root;
+    }
+
+    // Each 1 MB block is stamped with the file and block index so no two blocks are identical
+    private static void writeFile(Path file, long size, byte[] block, long fileIndex) throws IOException {
+        ByteBuffer stamp = ByteBuffer.wrap(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long remaining = size;
+            long blockIndex = 0;
+            while (remaining > 0) {
+                stamp.putLong(0, fileIndex).putLong(8, blockIndex++);
+                int n = (int) Math.min(block.length, remaining);
+                out.write(block, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            for (Path p : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
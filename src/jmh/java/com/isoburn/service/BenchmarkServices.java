@@ -0,0 +1,40 @@
+package com.isoburn.service;
+
+import com.isoburn.jfr.BurnFlightRecorder;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.BurnHistoryStore;
+import com.isoburn.util.BurnReportWriter;
+import com.isoburn.util.DriveManifestStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds services for microbenchmarks without a Spring context. Only the copy
+ * and size paths are exercised; an unthrottled image backend supplies the
+ * source reads.
+ */
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    static IsoBurnService isoBurnService() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CommandExecutor executor = new CommandExecutor(registry);
+        BurnReportWriter reportWriter = new BurnReportWriter();
+        BufferPool bufferPool = new BufferPool(registry, 256);
+        ImageFileDiskBackend backend = new ImageFileDiskBackend();
+        IoLimiter ioLimiter = new IoLimiter(backend);
+        ioLimiter.init();
+        IsoBurnService service = new IsoBurnService(executor, new WimSplitService(executor, registry),
+            backend, registry, reportWriter, new BurnFlightRecorder(reportWriter),
+            new DriveManifestStore(), new IsoDownloadService(bufferPool), new ImageCacheService(bufferPool),
+            bufferPool, new DriveProbeService(backend, bufferPool), new BurnPredictor(new BurnHistoryStore()),
+            ioLimiter);
+        // Measure the copy loop itself; CopyFileBenchmark opts into other flush policies
+        ReflectionTestUtils.setField(service, "flushPolicy", "none");
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,147 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.util.IoBudget;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-file copy throughput of {@code copyFileWithProgress} at several buffer
+ * sizes, against NIO channel transfer and {@code Files.copy} as baselines. The
+ * {@code open-*} and {@code output-stream-*} strategies copy with the same 8 MiB
+ * loop and differ only in how the target is opened: one CREATE|WRITE|TRUNCATE
+ * open as the burn does now, an open followed by a separate truncate, or
+ * {@code Files.newOutputStream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyFileBenchmark {
+
+    @Param({"stream-64k", "stream-1m", "stream-8m", "transfer-to", "files-copy",
+        "open-8m", "open-truncate-8m", "output-stream-8m"})
+    public String strategy;
+
+    @Param({"65536", "67108864"})
+    public long fileSize;
+
+    @Param({"none"})
+    public String flushPolicy;
+
+    private Path workDir;
+    private Path source;
+    private Path target;
+    private IsoBurnService service;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("isoburn-copy-bench");
+        source = workDir.resolve("source.bin");
+        target = workDir.resolve("target.bin");
+        writeRandomFile(source, fileSize);
+
+        service = BenchmarkServices.isoBurnService();
+        if (strategy.startsWith("stream-")) {
+            ReflectionTestUtils.setField(service, "copyBufferSizeKb", bufferSizeKb(strategy));
+            ReflectionTestUtils.setField(service, "flushPolicy", flushPolicy);
+            service.init();
+        }
+        buffer = ByteBuffer.allocate(8192 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public long copy() throws IOException {
+        switch (strategy) {
+            case "transfer-to" -> {
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                     FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long position = 0;
+                    while (position < fileSize) {
+                        position += in.transferTo(position, fileSize - position, out);
+                    }
+                }
+            }
+            case "files-copy" -> Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            case "open-8m" -> {
+                try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    copyInto(out);
+                }
+            }
+            case "open-truncate-8m" -> {
+                try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    out.truncate(0);
+                    copyInto(out);
+                }
+            }
+            case "output-stream-8m" -> {
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                     OutputStream out = Files.newOutputStream(target)) {
+                    while (in.read(buffer.clear()) != -1) {
+                        out.write(buffer.array(), 0, buffer.position());
+                    }
+                }
+            }
+            default -> service.copyFileWithProgress(source, target,
+                new CopyProgress(Phase.COPYING, "Copying", fileSize, progress -> {}),
+                IoBudget.unlimited(), null);
+        }
+        return Files.size(target);
+    }
+
+    private void copyInto(FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            while (in.read(buffer.clear()) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+    }
+
+    private static int bufferSizeKb(String strategy) {
+        return switch (strategy) {
+            case "stream-64k" -> 64;
+            case "stream-1m" -> 1024;
+            default -> 8192;
+        };
+    }
+
+    static void writeRandomFile(Path file, long size) throws IOException {
+        Random random = new Random(42);
+        byte[] chunk = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long remaining = size;
+            while (remaining > 0) {
+                random.nextBytes(chunk);
+                int n = (int) Math.min(chunk.length, remaining);
+                out.write(chunk, 0, n);
+                remaining -= n;
+            }
+        }
+    }
+}
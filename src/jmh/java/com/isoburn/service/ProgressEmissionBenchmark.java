@@ -0,0 +1,73 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.util.IoBudget;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cost of progress bookkeeping in the copy loop. A small buffer forces many
+ * loop iterations per file; the "queue" consumer stands in for handing every
+ * update to the FX thread the way MainController does with Platform.runLater.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressEmissionBenchmark {
+
+    @Param({"none", "queue"})
+    public String consumer;
+
+    @Param({"4"})
+    public int bufferSizeKb;
+
+    private static final long FILE_SIZE = 16L * 1024 * 1024;
+
+    private Path workDir;
+    private Path source;
+    private Path target;
+    private IsoBurnService service;
+    private Consumer<BurnProgress> callback;
+    private ConcurrentLinkedQueue<BurnProgress> queue;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("isoburn-progress-bench");
+        source = workDir.resolve("source.bin");
+        target = workDir.resolve("target.bin");
+        CopyFileBenchmark.writeRandomFile(source, FILE_SIZE);
+
+        service = BenchmarkServices.isoBurnService();
+        ReflectionTestUtils.setField(service, "copyBufferSizeKb", bufferSizeKb);
+
+        queue = new ConcurrentLinkedQueue<>();
+        callback = "queue".equals(consumer) ? queue::add : progress -> {};
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public int copyWithProgress() throws IOException {
+        queue.clear();
+        service.copyFileWithProgress(source, target,
+            new CopyProgress(Phase.COPYING, "Copying", FILE_SIZE, callback),
+            IoBudget.unlimited(), null);
+        return queue.size();
+    }
+}
@@ -0,0 +1,33 @@
+package com.isoburn.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-line cost of parsing {@code wimlib-imagex split} output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WimProgressParseBenchmark {
+
+    private static final String[] LINES = {
+        "Splitting WIM: 1024 MiB of 5312 MiB (19%) written, part 1 of 2",
+        "Splitting WIM: 3800 MiB of 5312 MiB (71%) written, part 1 of 2",
+        "Finished writing split WIM part 1 of 2",
+        "Splitting WIM: 5312 MiB of 5312 MiB (100%) written, part 2 of 2",
+        "Finished writing split WIM part 2 of 2"
+    };
+
+    @Benchmark
+    public void parseLines(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(WimSplitService.parseProgressPercent(line));
+        }
+    }
+}
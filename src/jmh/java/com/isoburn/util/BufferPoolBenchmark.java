@@ -0,0 +1,56 @@
+package com.isoburn.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting an 8 MiB copy buffer per file, as {@code copyFileWithProgress}
+ * does: a fresh heap array or direct buffer each time against a lease from
+ * {@link BufferPool}. Run with {@code -t 4} to see contention on the pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BufferPoolBenchmark {
+
+    private static final int BUFFER_SIZE = 8 * 1024 * 1024;
+
+    private BufferPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new BufferPool(new SimpleMeterRegistry(), 256);
+    }
+
+    @Benchmark
+    public byte heapArray() {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        buffer[BUFFER_SIZE - 1] = 1;
+        return buffer[BUFFER_SIZE - 1];
+    }
+
+    @Benchmark
+    public byte directBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.put(BUFFER_SIZE - 1, (byte) 1);
+        return buffer.get(BUFFER_SIZE - 1);
+    }
+
+    @Benchmark
+    public byte pooled() throws IOException {
+        ByteBuffer buffer = pool.acquire(BUFFER_SIZE);
+        try {
+            buffer.put(BUFFER_SIZE - 1, (byte) 1);
+            return buffer.get(BUFFER_SIZE - 1);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.isoburn.util;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decompression time of multi-piece gzip, xz and zstd images at one and
+ * several threads. Each image is made of independently compressed 4 MiB
+ * pieces, as produced by {@code pigz --independent}, {@code xz -T} and
+ * {@code zstd --rsyncable}-style frame splitting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageDecompressorBenchmark {
+
+    private static final int PIECE_SIZE = 4 * 1024 * 1024;
+
+    @Param({"gzip", "xz", "zstd"})
+    public String format;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"67108864"})
+    public int imageSize;
+
+    private Path workDir;
+    private Path source;
+    private Path target;
+    private final BufferPool bufferPool = new BufferPool(new SimpleMeterRegistry(), 256);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("isoburn-decompress-bench");
+        source = workDir.resolve("image." + format);
+        target = workDir.resolve("image.img");
+
+        // Low-entropy bytes so the image compresses roughly like a real one
+        byte[] image = new byte[imageSize];
+        Random random = new Random(42);
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) random.nextInt(16);
+        }
+        try (OutputStream out = Files.newOutputStream(source)) {
+            if (format.equals("xz")) {
+                try (XZOutputStream xz = new XZOutputStream(out, new LZMA2Options(1))) {
+                    for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                        xz.write(image, offset, Math.min(PIECE_SIZE, image.length - offset));
+                        xz.endBlock();
+                    }
+                }
+                return;
+            }
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                byte[] piece = Arrays.copyOfRange(image, offset, Math.min(offset + PIECE_SIZE, image.length));
+                out.write(format.equals("zstd") ? Zstd.compress(piece) : gzip(piece));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        return new ImageDecompressor(threads, bufferPool).decompress(source, target, bytes -> { }, () -> false);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
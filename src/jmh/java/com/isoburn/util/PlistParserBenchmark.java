@@ -0,0 +1,58 @@
+package com.isoburn.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse cost of recorded {@code diskutil list -plist}, {@code diskutil info -plist}
+ * and {@code hdiutil mount -plist} output.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlistParserBenchmark {
+
+    private final PlistParser parser = new PlistParser();
+
+    private String diskutilList;
+    private String diskutilInfo;
+    private String hdiutilMount;
+
+    @Setup
+    public void setUp() throws IOException {
+        diskutilList = load("/plist/diskutil-list.plist");
+        diskutilInfo = load("/plist/diskutil-info.plist");
+        hdiutilMount = load("/plist/hdiutil-mount.plist");
+    }
+
+    @Benchmark
+    public Object parseDiskutilList() throws Exception {
+        return parser.parseDiskutilList(diskutilList);
+    }
+
+    @Benchmark
+    public Object parseDiskInfo() throws Exception {
+        return parser.parseDiskInfo(diskutilInfo);
+    }
+
+    @Benchmark
+    public Object parseHdiutilMountPoint() throws Exception {
+        return parser.parseHdiutilMountPoint(hdiutilMount);
+    }
+
+    private static String load(String resource) throws IOException {
+        try (InputStream in = PlistParserBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing resource: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
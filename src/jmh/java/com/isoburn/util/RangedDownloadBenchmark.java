@@ -0,0 +1,159 @@
+package com.isoburn.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download time of {@link RangedDownloader} against an in-process HTTP server
+ * that adds a fixed latency to every request and caps each connection's
+ * bandwidth, the way a distant mirror does. The received bytes are compared
+ * with the served image so a reordering bug fails the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RangedDownloadBenchmark {
+
+    @Param({"1", "4", "8"})
+    public int connections;
+
+    @Param({"50"})
+    public long latencyMs;
+
+    @Param({"16"})
+    public long connectionMbps;
+
+    @Param({"67108864"})
+    public int imageSize;
+
+    @Param({"4"})
+    public int chunkSizeMb;
+
+    private byte[] image;
+    private HttpServer server;
+    private ExecutorService serverPool;
+    private URI uri;
+    private RangedDownloader downloader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        image = new byte[imageSize];
+        new Random(42).nextBytes(image);
+
+        serverPool = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        server.createContext("/image.iso", this::serve);
+        server.setExecutor(serverPool);
+        server.start();
+        uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/image.iso");
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        downloader = new RangedDownloader(client, connections, chunkSizeMb * 1024 * 1024, Duration.ofSeconds(60),
+            new BufferPool(new SimpleMeterRegistry(), 256));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop(0);
+        serverPool.shutdownNow();
+    }
+
+    @Benchmark
+    public long download() throws Exception {
+        Sink sink = new Sink(imageSize);
+        long length = downloader.download(uri, downloader.probe(uri), sink, bytes -> { }, () -> false);
+        if (!Arrays.equals(sink.data, image)) {
+            throw new IllegalStateException("Downloaded image differs from the served image");
+        }
+        return length;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sleep(latencyMs);
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().set("ETag", "\"bench\"");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(image.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            int start = 0;
+            int end = image.length - 1;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null && range.startsWith("bytes=")) {
+                String[] bounds = range.substring(6).split("-");
+                start = Integer.parseInt(bounds[0]);
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+                exchange.getResponseHeaders().set("Content-Range",
+                    "bytes " + start + "-" + end + "/" + image.length);
+                exchange.sendResponseHeaders(206, end - start + 1);
+            } else {
+                exchange.sendResponseHeaders(200, image.length);
+            }
+
+            BandwidthThrottle throttle = new BandwidthThrottle(connectionMbps * 1024 * 1024, 0);
+            OutputStream out = exchange.getResponseBody();
+            for (int pos = start; pos <= end; pos += 64 * 1024) {
+                int n = Math.min(64 * 1024, end - pos + 1);
+                throttle.acquire(n);
+                out.write(image, pos, n);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Sink implements WritableByteChannel {
+        private final byte[] data;
+        private int position;
+
+        Sink(int size) {
+            this.data = new byte[size];
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.get(data, position, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.isoburn.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of listing a tree shaped like a Linux installer ISO (many small files
+ * spread over nested directories) with {@link SourceManifest#scan}, against
+ * loading the same listing from a saved source index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SourceManifestBenchmark {
+
+    private static final String KEY = "bench.iso:0:0";
+
+    @Param({"1000", "20000"})
+    public int fileCount;
+
+    private Path root;
+    private Path indexFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("isoburn-tree-bench");
+        byte[] content = new byte[512];
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = root.resolve("pool").resolve("d" + (i % 50)).resolve("s" + (i % 7));
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("file" + i + ".deb"), content);
+        }
+        Files.createDirectories(root.resolve("sources"));
+        Files.write(root.resolve("sources/install.wim"), content);
+
+        indexFile = Files.createTempFile("isoburn-source-index", ".idx");
+        SourceManifest.scan(root, IsoLayout.EMPTY, KEY, PathRules.NONE, () -> false).write(indexFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(indexFile);
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public long scan() throws IOException {
+        return SourceManifest.scan(root, IsoLayout.EMPTY, KEY, PathRules.NONE, () -> false).totalFileBytes(true);
+    }
+
+    @Benchmark
+    public long readIndex() {
+        return SourceManifest.read(indexFile, KEY).totalFileBytes(true);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
 
 import java.io.InputStream;
+import java.util.Arrays;
 
 public class IsoBurnApplication extends Application {
 
@@ -19,6 +20,14 @@ public class IsoBurnApplication extends Application {
     private static HostServices hostServices;
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--daemon")) {
+            // No window: the Spring context serves the local HTTP API until the process is stopped
+            new SpringApplicationBuilder(IsoBurnSpringApp.class)
+                    .headless(true)
+                    .properties("isoburn.daemon.enabled=true", "isoburn.ui.enabled=false")
+                    .run(args);
+            return;
+        }
         launch(args);
     }
 
@@ -28,7 +37,7 @@ public class IsoBurnApplication extends Application {
 
     @Override
     public void init() {
-        springContext = new SpringApplicationBuilder(SpringBootApp.class)
+        springContext = new SpringApplicationBuilder(IsoBurnSpringApp.class)
                 .headless(false)
                 .run();
     }
@@ -72,9 +81,4 @@ public class IsoBurnApplication extends Application {
         }
         Platform.exit();
     }
-
-    @org.springframework.boot.autoconfigure.SpringBootApplication
-    @org.springframework.context.annotation.ComponentScan(basePackages = "com.isoburn")
-    public static class SpringBootApp {
-    }
 }
@@ -0,0 +1,393 @@
+package com.isoburn;
+
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.ContentProfile;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.service.DiskBackend;
+import com.isoburn.service.ImageVerifyService;
+import com.isoburn.service.IoLimiter;
+import com.isoburn.service.IsoBurnService;
+import com.isoburn.util.ContentProfileStore;
+import com.isoburn.util.PathRules;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point without JavaFX, for scripted provisioning and the
+ * native-image build ({@code mvn -Pnative native:compile}):
+ *
+ * <pre>
+ * isoburn-cli drives
+ * isoburn-cli burn &lt;image|url&gt; &lt;device&gt; [--raw] [--update] [--test] [--data-only] [--no-split]
+ *             [--include &lt;rule&gt;]... [--exclude &lt;rule&gt;]...
+ *             [--profile &lt;name&gt;] [--save-profile &lt;name&gt;]
+ *             [--read-limit &lt;MB/s&gt;] [--write-limit &lt;MB/s&gt;]
+ * isoburn-cli verify &lt;image&gt; [sha256] [--read-limit &lt;MB/s&gt;]
+ * isoburn-cli profiles &lt;image|url&gt;
+ * </pre>
+ *
+ * Exits with 0 on success, 1 when the burn or check fails, 2 on a usage error and 130
+ * when interrupted. Arguments of the form {@code --isoburn.x=y} set properties
+ * as they do for the GUI.
+ */
+public class IsoBurnCli {
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_CANCELLED = 130;
+
+    private static volatile boolean interrupted;
+
+    public static void main(String[] args) {
+        // The context is started before the arguments are looked at, so the AOT build can start it without any
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(IsoBurnSpringApp.class)
+                .headless(true)
+                .web(WebApplicationType.NONE)
+                .registerShutdownHook(false)
+                .properties("isoburn.ui.enabled=false",
+                        "spring.main.banner-mode=off",
+                        "spring.main.log-startup-info=false",
+                        "logging.level.root=WARN")
+                .run(args);
+
+        int exitCode;
+        try {
+            exitCode = run(context, commandArgs(args));
+        } finally {
+            context.close();
+        }
+        // Exiting again from inside the shutdown would block; the JVM is already on its way out
+        if (!interrupted) {
+            System.exit(exitCode);
+        }
+    }
+
+    private static int run(ConfigurableApplicationContext context, List<String> args) {
+        if (args.isEmpty()) {
+            return usage(System.err);
+        }
+        DiskBackend diskBackend = context.getBean(DiskBackend.class);
+        switch (args.get(0)) {
+            case "drives":
+                return drives(diskBackend);
+            case "burn":
+                return burn(context.getBean(IsoBurnService.class), diskBackend,
+                    context.getBean(ContentProfileStore.class), args.subList(1, args.size()));
+            case "verify":
+                return verify(context.getBean(ImageVerifyService.class), context.getBean(IoLimiter.class),
+                    args.subList(1, args.size()));
+            case "profiles":
+                return profiles(context.getBean(ContentProfileStore.class), args.subList(1, args.size()));
+            case "help":
+                usage(System.out);
+                return EXIT_OK;
+            default:
+                System.err.println("Unknown command: " + args.get(0));
+                return usage(System.err);
+        }
+    }
+
+    private static int drives(DiskBackend diskBackend) {
+        List<RemovableDrive> drives = diskBackend.detectDrives();
+        if (drives.isEmpty()) {
+            System.out.println("No removable drives found");
+        }
+        for (RemovableDrive drive : drives) {
+            System.out.printf("%-10s %s%n", drive.getDeviceIdentifier(), drive);
+        }
+        return EXIT_OK;
+    }
+
+    private static int burn(IsoBurnService burnService, DiskBackend diskBackend, ContentProfileStore profileStore,
+                            List<String> args) {
+        List<String> positional = new ArrayList<>();
+        List<String> include = new ArrayList<>();
+        List<String> exclude = new ArrayList<>();
+        String profileName = null;
+        String saveAs = null;
+        BurnOptions.Builder options = BurnOptions.builder().bootable(true).handleLargeWim(true);
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            if (List.of("--include", "--exclude", "--profile", "--save-profile").contains(arg)) {
+                if (++i == args.size()) {
+                    System.err.println("Missing value for " + arg);
+                    return usage(System.err);
+                }
+                switch (arg) {
+                    case "--include" -> include.add(args.get(i));
+                    case "--exclude" -> exclude.add(args.get(i));
+                    case "--profile" -> profileName = args.get(i);
+                    default -> saveAs = args.get(i);
+                }
+                continue;
+            }
+            if (arg.equals("--read-limit") || arg.equals("--write-limit")) {
+                int mbps = limitArg(args, ++i, arg);
+                if (mbps < 0) {
+                    return usage(System.err);
+                }
+                if (arg.equals("--read-limit")) {
+                    options.readLimitMbps(mbps);
+                } else {
+                    options.writeLimitMbps(mbps);
+                }
+                continue;
+            }
+            switch (arg) {
+                case "--raw" -> options.rawWrite(true);
+                case "--update" -> options.differential(true);
+                case "--test" -> options.probeDrive(true);
+                case "--data-only" -> options.bootable(false);
+                case "--no-split" -> options.handleLargeWim(false);
+                default -> {
+                    if (arg.startsWith("--")) {
+                        System.err.println("Unknown option: " + arg);
+                        return usage(System.err);
+                    }
+                    positional.add(arg);
+                }
+            }
+        }
+        if (positional.size() != 2) {
+            return usage(System.err);
+        }
+
+        String source = positional.get(0);
+        boolean url = source.startsWith("http://") || source.startsWith("https://");
+        if (!url && !new File(source).exists()) {
+            System.err.println("No such image: " + source);
+            return EXIT_USAGE;
+        }
+
+        // A saved profile's rules come first; rules given here add to them
+        String isoName = isoName(source);
+        if (profileName != null) {
+            ContentProfile profile = profileStore.load(isoName, profileName);
+            if (profile == null) {
+                System.err.println("No content profile '" + profileName + "' for " + isoName);
+                return EXIT_USAGE;
+            }
+            include.addAll(0, profile.getIncludeRules());
+            exclude.addAll(0, profile.getExcludeRules());
+        }
+        try {
+            PathRules rules = PathRules.compile(include, exclude);
+            if (!rules.isEmpty()) {
+                System.out.println("Content: " + rules);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return EXIT_USAGE;
+        }
+        options.includeRules(include).excludeRules(exclude);
+        if (saveAs != null && !profileStore.save(ContentProfile.builder()
+                .name(saveAs)
+                .isoName(isoName)
+                .includeRules(include)
+                .excludeRules(exclude)
+                .savedAtEpochMillis(System.currentTimeMillis())
+                .build())) {
+            System.err.println("Could not save content profile '" + saveAs + "'");
+            return EXIT_FAILED;
+        }
+        RemovableDrive drive = diskBackend.detectDrives().stream()
+                .filter(candidate -> positional.get(1).equals(candidate.getDeviceIdentifier()))
+                .findFirst()
+                .orElse(null);
+        if (drive == null) {
+            System.err.println("No such drive: " + positional.get(1));
+            return EXIT_USAGE;
+        }
+
+        // Ctrl-C stops the burn the way Cancel does, and waits for it to wind down
+        Thread main = Thread.currentThread();
+        Thread hook = new Thread(() -> {
+            interrupted = true;
+            burnService.cancel();
+            try {
+                main.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "isoburn-cli-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+
+        System.out.println("Burning " + source + " to " + drive.getDisplayName());
+        ProgressPrinter printer = new ProgressPrinter();
+        BurnResult result = url
+                ? burnService.burn(URI.create(source), drive, options.build(), printer::print)
+                : burnService.burn(new File(source), drive, options.build(), printer::print);
+
+        if (!interrupted) {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        }
+        if (result.isSuccess()) {
+            System.out.printf("%s (%d s)%n", result.getMessage(), result.getDurationMillis() / 1000);
+            return EXIT_OK;
+        }
+        System.err.println(result.getMessage() + (result.getErrorDetails() != null ? ": " + result.getErrorDetails() : ""));
+        return interrupted ? EXIT_CANCELLED : EXIT_FAILED;
+    }
+
+    private static int verify(ImageVerifyService verifyService, IoLimiter ioLimiter, List<String> args) {
+        List<String> positional = new ArrayList<>();
+        int readLimitMbps = 0;
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i).equals("--read-limit")) {
+                readLimitMbps = limitArg(args, ++i, "--read-limit");
+                if (readLimitMbps < 0) {
+                    return usage(System.err);
+                }
+            } else if (args.get(i).startsWith("--")) {
+                System.err.println("Unknown option: " + args.get(i));
+                return usage(System.err);
+            } else {
+                positional.add(args.get(i));
+            }
+        }
+        if (positional.isEmpty() || positional.size() > 2) {
+            return usage(System.err);
+        }
+        File image = new File(positional.get(0));
+        if (!image.isFile()) {
+            System.err.println("No such image: " + image);
+            return EXIT_USAGE;
+        }
+
+        Thread main = Thread.currentThread();
+        Thread hook = new Thread(() -> {
+            interrupted = true;
+            try {
+                main.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "isoburn-cli-shutdown");
+        Runtime.getRuntime().addShutdownHook(hook);
+
+        BurnResult result = verifyService.verify(image, positional.size() > 1 ? positional.get(1) : null,
+            ioLimiter.budget(readLimitMbps, 0), new ProgressPrinter()::print, () -> interrupted);
+        if (!interrupted) {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        }
+        if (result.isSuccess()) {
+            System.out.println(result.getMessage());
+            return EXIT_OK;
+        }
+        System.err.println(result.getMessage() + (result.getErrorDetails() != null ? ": " + result.getErrorDetails() : ""));
+        return interrupted ? EXIT_CANCELLED : EXIT_FAILED;
+    }
+
+    // MB/s, 0 for none; -1 after reporting a missing or malformed value
+    private static int limitArg(List<String> args, int index, String option) {
+        if (index >= args.size()) {
+            System.err.println("Missing value for " + option);
+            return -1;
+        }
+        try {
+            int mbps = Integer.parseInt(args.get(index));
+            if (mbps >= 0) {
+                return mbps;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        System.err.println(option + " takes a whole number of MB/s, 0 for no limit: " + args.get(index));
+        return -1;
+    }
+
+    private static int profiles(ContentProfileStore profileStore, List<String> args) {
+        if (args.size() != 1) {
+            return usage(System.err);
+        }
+        String isoName = isoName(args.get(0));
+        List<ContentProfile> profiles = profileStore.list(isoName);
+        if (profiles.isEmpty()) {
+            System.out.println("No content profiles for " + isoName);
+        }
+        for (ContentProfile profile : profiles) {
+            System.out.printf("%-20s include %s, exclude %s%n", profile.getName(), profile.getIncludeRules(),
+                profile.getExcludeRules());
+        }
+        return EXIT_OK;
+    }
+
+    // Profiles belong to the image's file name, which for a URL is its last path segment
+    private static String isoName(String source) {
+        String path = source.startsWith("http://") || source.startsWith("https://")
+            ? URI.create(source).getPath() : source;
+        return new File(path).getName();
+    }
+
+    // Spring's own --property=value arguments are not commands
+    private static List<String> commandArgs(String[] args) {
+        List<String> commandArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (!(arg.startsWith("--") && arg.contains("="))) {
+                commandArgs.add(arg);
+            }
+        }
+        return commandArgs;
+    }
+
+    private static int usage(PrintStream out) {
+        out.println("Usage: isoburn-cli drives");
+        out.println("       isoburn-cli burn <image|url> <device> [--raw] [--update] [--test] [--data-only] [--no-split]");
+        out.println("                   [--include <rule>]... [--exclude <rule>]... [--profile <name>] [--save-profile <name>]");
+        out.println("                   [--read-limit <MB/s>] [--write-limit <MB/s>]");
+        out.println("       isoburn-cli verify <image> [sha256] [--read-limit <MB/s>]");
+        out.println("       isoburn-cli profiles <image|url>");
+        out.println();
+        out.println("  --raw        write the image block by block instead of copying its files");
+        out.println("  --update     only rewrite files that changed since the last burn to the drive");
+        out.println("  --test       test the drive's speed and real capacity first");
+        out.println("  --data-only  do not make the drive bootable");
+        out.println("  --no-split   do not split an install.wim larger than FAT32 allows");
+        out.println("  --include, --exclude  glob (support/**, *.chm) or regex:<pattern> choosing the files burned");
+        out.println("  --profile    add the rules saved under this name for the image");
+        out.println("  --save-profile  save the rules under this name for the image");
+        out.println("  --read-limit, --write-limit  cap this burn's source reads or drive writes, in MB/s");
+        out.println("  verify       check the image's SHA-256 against the one given or its .sha256 file");
+        out.println("  --isoburn.<property>=<value> overrides application.properties");
+        return EXIT_USAGE;
+    }
+
+    /*
+     * One line per phase and message, plus a percentage line at most every
+     * whole percent, so output stays readable when piped to a log.
+     */
+    private static final class ProgressPrinter {
+        private BurnProgress.Phase phase;
+        private String message;
+        private int percent = -1;
+
+        synchronized void print(BurnProgress progress) {
+            if (progress.getPhase() != phase) {
+                phase = progress.getPhase();
+                percent = -1;
+                System.out.println("[" + phase.getDescription() + "]");
+            }
+            if (progress.getMessage() != null && !progress.getMessage().equals(message)) {
+                message = progress.getMessage();
+                System.out.println("  " + message);
+            }
+            double overall = progress.getOverallPercentage();
+            int current = (int) (overall >= 0 ? overall : progress.getPercentage());
+            if (current > percent) {
+                percent = current;
+                String eta = progress.getEtaMillis() >= 0 ? ", " + (progress.getEtaMillis() + 999) / 1000 + " s left" : "";
+                System.out.println("  " + current + "%" + eta);
+            }
+        }
+    }
+}
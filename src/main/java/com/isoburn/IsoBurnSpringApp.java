@@ -0,0 +1,14 @@
+package com.isoburn;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ComponentScan;
+
+/**
+ * Spring configuration shared by the JavaFX application, the daemon and the
+ * command line. Kept apart from {@link IsoBurnApplication} so that starting
+ * the context does not load JavaFX classes.
+ */
+@SpringBootApplication
+@ComponentScan(basePackages = "com.isoburn")
+public class IsoBurnSpringApp {
+}
@@ -0,0 +1,42 @@
+package com.isoburn.config;
+
+import com.isoburn.model.BurnJob;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.ContentProfile;
+import com.isoburn.model.DriveManifest;
+import com.isoburn.model.RemovableDrive;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * What the native image needs beyond what Spring AOT finds on its own: the
+ * models Jackson reads and writes (burn reports, burn history, drive
+ * manifests, content profiles, daemon jobs), the JDK's XML parser messages
+ * used by {@code PlistParser}, and the zstd library loaded through JNI.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final String[] ZSTD_STREAMS = {
+        "com.github.luben.zstd.ZstdInputStreamNoFinalizer",
+        "com.github.luben.zstd.ZstdOutputStreamNoFinalizer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+            BurnReport.class, DriveManifest.class, BurnJob.class, RemovableDrive.class, ContentProfile.class);
+
+        hints.resources().registerResourceBundle("com.sun.org.apache.xerces.internal.impl.msg.XMLMessages");
+        hints.resources().registerResourceBundle("com.sun.org.apache.xerces.internal.impl.msg.DOMMessages");
+
+        // zstd-jni unpacks its library from the jar and reads the stream positions back from native code
+        hints.resources().registerPattern("darwin/*/libzstd-jni-*");
+        hints.resources().registerPattern("linux/*/libzstd-jni-*");
+        for (String stream : ZSTD_STREAMS) {
+            hints.jni().registerType(TypeReference.of(stream), MemberCategory.DECLARED_FIELDS);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.isoburn.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.BurnJob;
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.ContentProfile;
+import com.isoburn.model.IoLimits;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.service.BurnJobService;
+import com.isoburn.service.DiskBackend;
+import com.isoburn.service.IoLimiter;
+import com.isoburn.util.ContentProfileStore;
+import com.isoburn.util.PathRules;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local HTTP API of daemon mode ({@code --daemon}): lists drives, queues and
+ * cancels burn and verification jobs, adjusts I/O limits, keeps content
+ * profiles, and streams job changes as Server-Sent Events.
+ *
+ * <p>Connections are accepted and requests read by the server's selector
+ * thread; a small pool runs the handlers. Each job change is serialized once
+ * and queued on every subscriber, and each event stream has a virtual writer
+ * thread of its own: the server's writes block, so a subscriber that stops
+ * reading stalls only its own stream, and a stalled writer costs no platform
+ * thread. Progress updates of a job replace the one still waiting, so a slow
+ * subscriber gets the latest state rather than a growing backlog, and one
+ * that falls too far behind is dropped.
+ *
+ * <p>The server writes to the socket inside a synchronized method, which on
+ * JDK 21 pins a blocked virtual writer to its carrier thread. A write that
+ * makes no progress for {@code isoburn.daemon.stall-seconds} is therefore
+ * interrupted, which closes the connection and frees the carrier.
+ *
+ * <p>Burn jobs run strictly one at a time, whatever their target drive; see
+ * {@link BurnJobService}.
+ */
+@Component
+@ConditionalOnProperty(name = "isoburn.daemon.enabled", havingValue = "true")
+public class DaemonController implements BurnJobService.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(DaemonController.class);
+
+    private record SubmitRequest(String source, String device, BurnOptions options, String profile) {}
+
+    private record VerifyRequest(String source, String sha256, Integer readLimitMbps) {}
+
+    private record ApiError(String error) {}
+
+    private final BurnJobService jobService;
+    private final DiskBackend diskBackend;
+    private final ContentProfileStore profileStore;
+    private final IoLimiter ioLimiter;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<EventStream> streams = ConcurrentHashMap.newKeySet();
+    private final ThreadFactory streamWriters = Thread.ofVirtual().name("isoburn-events-", 1).factory();
+
+    @Value("${isoburn.daemon.address:127.0.0.1}")
+    private String address;
+
+    @Value("${isoburn.daemon.port:8787}")
+    private int port;
+
+    @Value("${isoburn.daemon.threads:4}")
+    private int threads;
+
+    @Value("${isoburn.daemon.heartbeat-seconds:15}")
+    private int heartbeatSeconds;
+
+    @Value("${isoburn.daemon.max-pending-events:1000}")
+    private int maxPendingEvents;
+
+    @Value("${isoburn.daemon.stall-seconds:10}")
+    private int stallSeconds;
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private ScheduledExecutorService heartbeat;
+
+    public DaemonController(BurnJobService jobService, DiskBackend diskBackend, ContentProfileStore profileStore,
+                            IoLimiter ioLimiter) {
+        this.jobService = jobService;
+        this.diskBackend = diskBackend;
+        this.profileStore = profileStore;
+        this.ioLimiter = ioLimiter;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        handlers = Executors.newFixedThreadPool(threads, namedThreads("isoburn-http-"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(namedThreads("isoburn-heartbeat-"));
+
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext("/api/", this::handle);
+        server.setExecutor(handlers);
+        server.start();
+
+        jobService.addListener(this);
+        heartbeat.scheduleAtFixedRate(() -> streams.forEach(stream -> stream.offer("heartbeat", ": heartbeat\n\n")),
+            heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        heartbeat.scheduleWithFixedDelay(() -> streams.forEach(stream -> stream.dropIfStalled(stallSeconds)),
+            1, 1, TimeUnit.SECONDS);
+        log.info("Daemon API listening on http://{}:{}/api/", address, server.getAddress().getPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobService.removeListener(this);
+        if (server != null) {
+            server.stop(0);
+        }
+        streams.forEach(EventStream::abort);
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        if (handlers != null) {
+            handlers.shutdownNow();
+        }
+    }
+
+    @Override
+    public void jobChanged(BurnJob job) {
+        publish(job, "job", job.getId() + ":" + job.getState());
+    }
+
+    @Override
+    public void progress(BurnJob job) {
+        publish(job, "progress", job.getId() + ":progress");
+    }
+
+    private void publish(BurnJob job, String type, String key) {
+        if (streams.isEmpty()) {
+            return;
+        }
+        String event;
+        try {
+            event = "event: " + type + "\ndata: " + objectMapper.writeValueAsString(job) + "\n\n";
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize burn job {}: {}", job.getId(), e.getMessage());
+            return;
+        }
+        for (EventStream stream : streams) {
+            if (stream.jobId == null || stream.jobId.equals(job.getId())) {
+                stream.offer(key, event);
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            // Browsers send an Origin with every cross-site request; only local non-browser clients are served
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                respond(exchange, 403, new ApiError("Cross-origin requests are not allowed"));
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String resource = path.length > 2 ? path[2] : "";
+
+            if (resource.equals("drives") && path.length == 3 && method.equals("GET")) {
+                respond(exchange, 200, diskBackend.detectDrives());
+            } else if (resource.equals("jobs") && path.length == 3 && method.equals("GET")) {
+                respond(exchange, 200, jobService.jobs());
+            } else if (resource.equals("jobs") && path.length == 3 && method.equals("POST")) {
+                submit(exchange);
+            } else if (resource.equals("jobs") && path.length == 4 && method.equals("GET")) {
+                BurnJob job = jobService.job(path[3]);
+                respond(exchange, job != null ? 200 : 404, job != null ? job : new ApiError("No such job"));
+            } else if (resource.equals("jobs") && path.length == 4 && method.equals("DELETE")) {
+                BurnJob job = jobService.cancel(path[3]);
+                respond(exchange, job != null ? 200 : 404, job != null ? job : new ApiError("No such job"));
+            } else if (resource.equals("jobs") && path.length == 5 && path[4].equals("limits")
+                    && method.equals("PUT")) {
+                IoLimits limits = readJson(exchange, IoLimits.class);
+                if (limits != null) {
+                    BurnJob job = jobService.setLimits(path[3], limits);
+                    respond(exchange, job != null ? 200 : 404, job != null ? job : new ApiError("No such job"));
+                }
+            } else if (resource.equals("verify") && path.length == 3 && method.equals("POST")) {
+                verify(exchange);
+            } else if (resource.equals("limits") && path.length == 3 && method.equals("GET")) {
+                respond(exchange, 200, ioLimiter.limits());
+            } else if (resource.equals("limits") && path.length == 3 && method.equals("PUT")) {
+                setLimits(exchange);
+            } else if (resource.equals("events") && path.length == 3 && method.equals("GET")) {
+                subscribe(exchange);
+            } else if (resource.equals("profiles") && path.length == 3 && method.equals("GET")) {
+                String query = exchange.getRequestURI().getQuery();
+                respond(exchange, 200, query != null && query.startsWith("image=")
+                    ? profileStore.list(query.substring(6)) : new ApiError("Expected ?image=<file name>"));
+            } else if (resource.equals("profiles") && path.length == 3 && method.equals("POST")) {
+                saveProfile(exchange);
+            } else {
+                respond(exchange, 404, new ApiError("Not found: " + method + " " + exchange.getRequestURI().getPath()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Daemon request failed: {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            respond(exchange, 500, new ApiError(e.getMessage()));
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        SubmitRequest request = readJson(exchange, SubmitRequest.class);
+        if (request == null) {
+            return;
+        }
+
+        if (request.source() == null || request.source().isBlank() || request.device() == null) {
+            respond(exchange, 400, new ApiError("Both source and device are required"));
+            return;
+        }
+        boolean url = request.source().startsWith("http://") || request.source().startsWith("https://");
+        if (!url && !new File(request.source()).exists()) {
+            respond(exchange, 400, new ApiError("No such image: " + request.source()));
+            return;
+        }
+        List<RemovableDrive> drives = diskBackend.detectDrives();
+        if (drives.stream().noneMatch(drive -> request.device().equals(drive.getDeviceIdentifier()))) {
+            respond(exchange, 400, new ApiError("No such drive: " + request.device()));
+            return;
+        }
+
+        BurnOptions options = request.options() != null ? request.options()
+            : BurnOptions.builder().bootable(true).handleLargeWim(true).build();
+        // A saved profile's rules come first; rules in the options add to them
+        if (request.profile() != null) {
+            String isoName = new File(url ? URI.create(request.source()).getPath() : request.source()).getName();
+            ContentProfile profile = profileStore.load(isoName, request.profile());
+            if (profile == null) {
+                respond(exchange, 400, new ApiError("No content profile '" + request.profile() + "' for " + isoName));
+                return;
+            }
+            options.setIncludeRules(concat(profile.getIncludeRules(), options.getIncludeRules()));
+            options.setExcludeRules(concat(profile.getExcludeRules(), options.getExcludeRules()));
+        }
+        try {
+            PathRules.compile(options.getIncludeRules(), options.getExcludeRules());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, new ApiError(e.getMessage()));
+            return;
+        }
+        respond(exchange, 202, jobService.submit(request.source(), request.device(), options));
+    }
+
+    private void verify(HttpExchange exchange) throws IOException {
+        VerifyRequest request = readJson(exchange, VerifyRequest.class);
+        if (request == null) {
+            return;
+        }
+        if (request.source() == null || !new File(request.source()).isFile()) {
+            respond(exchange, 400, new ApiError("No such image: " + request.source()));
+            return;
+        }
+        BurnOptions options = BurnOptions.builder()
+                .readLimitMbps(request.readLimitMbps() != null ? Math.max(0, request.readLimitMbps()) : 0)
+                .build();
+        respond(exchange, 202, jobService.verify(request.source(), request.sha256(), options));
+    }
+
+    private void setLimits(HttpExchange exchange) throws IOException {
+        IoLimits limits = readJson(exchange, IoLimits.class);
+        if (limits == null) {
+            return;
+        }
+        if (limits.getVerifyShare() != null && !(limits.getVerifyShare() > 0 && limits.getVerifyShare() <= 1)) {
+            respond(exchange, 400, new ApiError("verifyShare must be above 0 and at most 1"));
+            return;
+        }
+        respond(exchange, 200, ioLimiter.setLimits(limits));
+    }
+
+    private void saveProfile(HttpExchange exchange) throws IOException {
+        ContentProfile profile = readJson(exchange, ContentProfile.class);
+        if (profile == null) {
+            return;
+        }
+        if (profile.getName() == null || profile.getName().isBlank() || profile.getIsoName() == null) {
+            respond(exchange, 400, new ApiError("Both name and isoName are required"));
+            return;
+        }
+        profile.setSavedAtEpochMillis(System.currentTimeMillis());
+        try {
+            if (!profileStore.save(profile)) {
+                respond(exchange, 500, new ApiError("Could not save content profile " + profile.getName()));
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, new ApiError(e.getMessage()));
+            return;
+        }
+        respond(exchange, 201, profile);
+    }
+
+    // Returns null, having responded with the error, when the body is not JSON of the type
+    private <T> T readJson(HttpExchange exchange, Class<T> type) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.startsWith("application/json")) {
+            respond(exchange, 415, new ApiError("Expected application/json"));
+            return null;
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            T value = objectMapper.readValue(body, type);
+            if (value == null) {
+                respond(exchange, 400, new ApiError("Invalid request: empty body"));
+            }
+            return value;
+        } catch (JsonProcessingException e) {
+            respond(exchange, 400, new ApiError("Invalid request: " + e.getOriginalMessage()));
+            return null;
+        }
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first != null ? first : List.of());
+        all.addAll(second != null ? second : List.of());
+        return all;
+    }
+
+    private void subscribe(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String jobId = query != null && query.startsWith("job=") ? query.substring(4) : null;
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        EventStream stream = new EventStream(exchange, jobId);
+        streams.add(stream);
+        stream.writer.start();
+
+        // Current state first, so a subscriber needs no separate request to catch up
+        for (BurnJob job : jobService.jobs()) {
+            if (jobId == null || jobId.equals(job.getId())) {
+                stream.offer(job.getId() + ":" + job.getState(),
+                    "event: job\ndata: " + objectMapper.writeValueAsString(job) + "\n\n");
+            }
+        }
+        stream.offer("heartbeat", ": connected\n\n");
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /*
+     * Events waiting for one subscriber, keyed so that a newer progress update
+     * of a job replaces the older one in place of queueing behind it. The
+     * stream's writer thread sends them and, once the stream is closed or its
+     * client gone, closes the exchange; only it ever blocks on the client.
+     */
+    private final class EventStream {
+        private final HttpExchange exchange;
+        private final String jobId;
+        private final Map<String, String> pending = new LinkedHashMap<>();
+        // A lock rather than a monitor, so a waiting virtual writer releases its carrier thread
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition queued = lock.newCondition();
+        private final Thread writer;
+        private volatile long writingSince;
+        private boolean closed;
+
+        EventStream(HttpExchange exchange, String jobId) {
+            this.exchange = exchange;
+            this.jobId = jobId;
+            this.writer = streamWriters.newThread(this::run);
+        }
+
+        void offer(String key, String event) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                pending.remove(key);
+                pending.put(key, event);
+                if (pending.size() > maxPendingEvents) {
+                    log.warn("Dropping event subscriber {} that stopped reading", exchange.getRemoteAddress());
+                    abort();
+                    return;
+                }
+                queued.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void run() {
+            try {
+                OutputStream out = exchange.getResponseBody();
+                while (true) {
+                    List<String> batch;
+                    lock.lock();
+                    try {
+                        while (pending.isEmpty() && !closed) {
+                            queued.await();
+                        }
+                        if (closed) {
+                            break;
+                        }
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                    } finally {
+                        lock.unlock();
+                    }
+                    writingSince = System.nanoTime();
+                    for (String event : batch) {
+                        out.write(event.getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.flush();
+                    writingSince = 0;
+                }
+            } catch (IOException e) {
+                log.debug("Event subscriber {} disconnected: {}", exchange.getRemoteAddress(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+                exchange.close();
+            }
+        }
+
+        // Stops queueing events; the writer closes the exchange once it is no longer blocked on the client
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                pending.clear();
+                queued.signal();
+            } finally {
+                lock.unlock();
+            }
+            streams.remove(this);
+        }
+
+        // Interrupting a writer blocked on the socket closes the channel, which is what unblocks it
+        void abort() {
+            close();
+            writer.interrupt();
+        }
+
+        void dropIfStalled(int seconds) {
+            long since = writingSince;
+            if (since != 0 && System.nanoTime() - since > TimeUnit.SECONDS.toNanos(seconds)) {
+                log.warn("Dropping event subscriber {} whose writes stalled for {} s", exchange.getRemoteAddress(),
+                    seconds);
+                abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.isoburn.controller;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The newest lines of the log view in a fixed-size ring; older lines are
+ * dropped from the front. {@link #append} may be called from any thread: lines
+ * are queued and moved into the list in one change per FX pulse, so a burst of
+ * messages costs one layout of the visible cells rather than one per line.
+ */
+public class LogLines extends ObservableListBase<String> {
+
+    private final String[] ring;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Executor fxThread;
+
+    private int head;
+    private int size;
+
+    public LogLines(int capacity) {
+        this(capacity, Platform::runLater);
+    }
+
+    // Tests drain on their own thread instead of the FX application thread
+    LogLines(int capacity, Executor fxThread) {
+        this.ring = new String[Math.max(1, capacity)];
+        this.fxThread = fxThread;
+    }
+
+    public void append(String line) {
+        pending.add(line);
+        if (drainScheduled.compareAndSet(false, true)) {
+            fxThread.execute(this::drain);
+        }
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return ring[(head + index) % ring.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<String> batch = new ArrayList<>();
+        String line;
+        while ((line = pending.poll()) != null) {
+            batch.add(line);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Only the newest ring.length lines of a batch can survive it
+        int skipped = Math.max(0, batch.size() - ring.length);
+        int evicted = Math.max(0, size + batch.size() - skipped - ring.length);
+
+        beginChange();
+        if (evicted > 0) {
+            List<String> removed = new ArrayList<>(evicted);
+            for (int i = 0; i < evicted; i++) {
+                removed.add(get(i));
+            }
+            head = (head + evicted) % ring.length;
+            size -= evicted;
+            nextRemove(0, removed);
+        }
+        int from = size;
+        for (int i = skipped; i < batch.size(); i++) {
+            ring[(head + size) % ring.length] = batch.get(i);
+            size++;
+        }
+        nextAdd(from, size);
+        endChange();
+    }
+}
@@ -1,18 +1,32 @@
 package com.isoburn.controller;
 
+import com.isoburn.jfr.ProgressDispatchEvent;
+import com.isoburn.model.BurnEstimate;
+import com.isoburn.model.BurnOptions;
 import com.isoburn.model.BurnProgress;
 import com.isoburn.model.BurnResult;
+import com.isoburn.model.DriveProbeResult;
 import com.isoburn.model.RemovableDrive;
-import com.isoburn.service.DriveDetectionService;
+import com.isoburn.service.BurnPredictor;
+import com.isoburn.service.DiskBackend;
+import com.isoburn.service.DriveProbeService;
 import com.isoburn.service.IsoBurnService;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.stage.FileChooser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import com.isoburn.IsoBurnApplication;
@@ -23,6 +37,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Component
+@ConditionalOnProperty(name = "isoburn.ui.enabled", havingValue = "true", matchIfMissing = true)
 public class MainController {
 
     private static final Logger log = LoggerFactory.getLogger(MainController.class);
@@ -31,30 +46,63 @@ public class MainController {
     @FXML private Button browseButton;
     @FXML private ComboBox<RemovableDrive> driveComboBox;
     @FXML private Button refreshButton;
+    @FXML private Button testDriveButton;
     @FXML private CheckBox bootableCheckBox;
     @FXML private CheckBox handleLargeWimCheckBox;
+    @FXML private CheckBox differentialCheckBox;
+    @FXML private CheckBox rawWriteCheckBox;
+    @FXML private CheckBox probeDriveCheckBox;
     @FXML private ProgressBar progressBar;
     @FXML private Label statusLabel;
     @FXML private Label percentLabel;
     @FXML private Button startButton;
     @FXML private Button cancelButton;
-    @FXML private TextArea logArea;
+    @FXML private ListView<String> logList;
 
-    private final DriveDetectionService driveDetectionService;
+    private final DiskBackend diskBackend;
     private final IsoBurnService isoBurnService;
+    private final DriveProbeService driveProbeService;
+    private final BurnPredictor burnPredictor;
 
+    @Value("${isoburn.log.max-lines:5000}")
+    private int logMaxLines;
+
+    private LogLines logLines;
     private File selectedIsoFile;
     private Task<BurnResult> burnTask;
 
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final KeyCombination COPY = new KeyCodeCombination(KeyCode.C, KeyCombination.SHORTCUT_DOWN);
 
-    public MainController(DriveDetectionService driveDetectionService, IsoBurnService isoBurnService) {
-        this.driveDetectionService = driveDetectionService;
+    public MainController(DiskBackend diskBackend, IsoBurnService isoBurnService,
+                          DriveProbeService driveProbeService, BurnPredictor burnPredictor) {
+        this.diskBackend = diskBackend;
         this.isoBurnService = isoBurnService;
+        this.driveProbeService = driveProbeService;
+        this.burnPredictor = burnPredictor;
     }
 
     @FXML
     public void initialize() {
+        logLines = new LogLines(logMaxLines);
+        logList.setItems(logLines);
+        logList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        logLines.addListener((ListChangeListener<String>) change -> {
+            // Follow new lines unless the user is selecting older ones
+            if (logList.getSelectionModel().isEmpty()) {
+                logList.scrollTo(logLines.size() - 1);
+            }
+        });
+        logList.setOnKeyPressed(event -> {
+            if (COPY.match(event)) {
+                ClipboardContent content = new ClipboardContent();
+                content.putString(String.join("\n", logList.getSelectionModel().getSelectedItems()));
+                Clipboard.getSystemClipboard().setContent(content);
+            }
+        });
+
+        driveComboBox.valueProperty().addListener((observable, previous, drive) -> showEstimate());
+
         appendLog("isoBURN initialized");
         handleRefreshDrives();
     }
@@ -63,8 +111,11 @@ public class MainController {
     public void handleBrowseIso() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Select ISO File");
-        fileChooser.getExtensionFilters().add(
-            new FileChooser.ExtensionFilter("ISO Files", "*.iso", "*.ISO")
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("ISO Files", "*.iso", "*.ISO"),
+            new FileChooser.ExtensionFilter("Disk Images", "*.img", "*.IMG"),
+            new FileChooser.ExtensionFilter("Compressed Images", "*.iso.gz", "*.iso.xz", "*.iso.zst",
+                "*.img.gz", "*.img.xz", "*.img.zst")
         );
 
         File file = fileChooser.showOpenDialog(isoPathField.getScene().getWindow());
@@ -72,6 +123,7 @@ public class MainController {
             selectedIsoFile = file;
             isoPathField.setText(file.getAbsolutePath());
             appendLog("Selected ISO: " + file.getName());
+            showEstimate();
         }
     }
 
@@ -82,13 +134,20 @@ public class MainController {
         Task<List<RemovableDrive>> detectTask = new Task<>() {
             @Override
             protected List<RemovableDrive> call() {
-                return driveDetectionService.detectRemovableDrives();
+                return diskBackend.detectDrives();
             }
         };
 
         detectTask.setOnSucceeded(event -> {
             List<RemovableDrive> drives = detectTask.getValue();
+            drives.forEach(drive -> drive.setProbeResult(driveProbeService.lastResult(drive)));
             driveComboBox.setItems(FXCollections.observableArrayList(drives));
+            for (RemovableDrive drive : drives) {
+                String slowWarning = burnPredictor.slowDriveWarning(drive);
+                if (slowWarning != null) {
+                    appendLog("WARNING: " + drive.getDeviceIdentifier() + ": " + slowWarning);
+                }
+            }
 
             if (drives.isEmpty()) {
                 appendLog("No removable drives found");
@@ -105,6 +164,54 @@ public class MainController {
         new Thread(detectTask).start();
     }
 
+    @FXML
+    public void handleTestDrive() {
+        RemovableDrive drive = driveComboBox.getValue();
+        if (drive == null) {
+            showAlert(Alert.AlertType.WARNING, "No Drive Selected",
+                "Please select a drive to test.");
+            return;
+        }
+        if (!showConfirmation(drive)) {
+            return;
+        }
+
+        setUIBurning(true);
+        cancelButton.setDisable(true);
+        appendLog("Testing " + drive.getDisplayName() + "...");
+        Task<DriveProbeResult> probeTask = new Task<>() {
+            @Override
+            protected DriveProbeResult call() throws Exception {
+                return driveProbeService.probe(drive, progress -> Platform.runLater(() -> onProgressUpdate(progress)),
+                    () -> false);
+            }
+        };
+
+        probeTask.setOnSucceeded(event -> {
+            DriveProbeResult result = probeTask.getValue();
+            setUIBurning(false);
+            statusLabel.setText("Drive tested");
+            progressBar.setProgress(1.0);
+            percentLabel.setText("100%");
+            appendLog("Drive test: " + result.getSummary());
+            String refusal = driveProbeService.refusal(result);
+            if (refusal != null) {
+                appendLog("WARNING: Burns to this drive will be refused: " + refusal);
+            }
+            handleRefreshDrives();
+        });
+
+        probeTask.setOnFailed(event -> {
+            setUIBurning(false);
+            statusLabel.setText("Failed");
+            progressBar.setProgress(0);
+            appendLog("ERROR: Drive test failed: " + probeTask.getException().getMessage());
+            handleRefreshDrives();
+        });
+
+        new Thread(probeTask).start();
+    }
+
     @FXML
     public void handleStart() {
         if (selectedIsoFile == null) {
@@ -158,18 +265,43 @@ public class MainController {
 
         boolean bootable = bootableCheckBox.isSelected();
         boolean handleLargeWim = handleLargeWimCheckBox.isSelected();
+        boolean differential = differentialCheckBox.isSelected();
+        boolean rawWrite = rawWriteCheckBox.isSelected();
+        boolean probeDrive = probeDriveCheckBox.isSelected();
+        BurnOptions options = BurnOptions.builder()
+                .bootable(bootable)
+                .handleLargeWim(handleLargeWim)
+                .differential(differential)
+                .rawWrite(rawWrite)
+                .probeDrive(probeDrive)
+                .build();
 
         appendLog("Starting burn operation...");
         appendLog("ISO: " + isoFile.getName());
         appendLog("Target: " + drive.getDisplayName());
         appendLog("Options: " + (bootable ? "Bootable (UEFI)" : "Data only") +
-                  (handleLargeWim ? ", Handle large WIM" : ""));
+                  (handleLargeWim ? ", Handle large WIM" : "") +
+                  (differential ? ", Update changed files only" : "") +
+                  (rawWrite ? ", Raw write" : "") +
+                  (probeDrive ? ", Test drive first" : ""));
 
         burnTask = new Task<>() {
             @Override
             protected BurnResult call() {
-                return isoBurnService.burn(isoFile, drive, bootable, handleLargeWim, progress -> {
-                    Platform.runLater(() -> onProgressUpdate(progress));
+                return isoBurnService.burn(isoFile, drive, options, progress -> {
+                    ProgressDispatchEvent event = new ProgressDispatchEvent();
+                    event.begin();
+                    long postedAt = System.nanoTime();
+                    Platform.runLater(() -> {
+                        event.queueNanos = System.nanoTime() - postedAt;
+                        onProgressUpdate(progress);
+                        event.end();
+                        if (event.shouldCommit()) {
+                            event.phase = progress.getPhase().name();
+                            event.percentage = progress.getPercentage();
+                            event.commit();
+                        }
+                    });
                 });
             }
         };
@@ -195,9 +327,20 @@ public class MainController {
     private void onProgressUpdate(BurnProgress progress) {
         statusLabel.setText(progress.getPhase().getDescription());
 
-        // Always update progress bar for phases that report percentage
-        if (progress.getPhase() == BurnProgress.Phase.COPYING ||
+        // With burn history the bar shows the whole burn rather than the current phase
+        if (progress.getOverallPercentage() >= 0) {
+            progressBar.setProgress(progress.getOverallPercentage() / 100.0);
+            percentLabel.setText(progress.getEtaMillis() > 0
+                ? String.format("%.0f%% - %s left", progress.getOverallPercentage(), formatMinutes(progress.getEtaMillis()))
+                : String.format("%.0f%%", progress.getOverallPercentage()));
+        } else if (progress.getPhase() == BurnProgress.Phase.DOWNLOADING ||
+            progress.getPhase() == BurnProgress.Phase.DECOMPRESSING ||
+            progress.getPhase() == BurnProgress.Phase.MAPPING ||
+            progress.getPhase() == BurnProgress.Phase.PROBING ||
+            progress.getPhase() == BurnProgress.Phase.COPYING ||
+            progress.getPhase() == BurnProgress.Phase.CACHING ||
             progress.getPhase() == BurnProgress.Phase.SPLITTING_WIM) {
+            // Always update progress bar for phases that report percentage
             progressBar.setProgress(progress.getPercentage() / 100.0);
             percentLabel.setText(String.format("%.0f%%", progress.getPercentage()));
         }
@@ -207,6 +350,23 @@ public class MainController {
         }
     }
 
+    private void showEstimate() {
+        RemovableDrive drive = driveComboBox.getValue();
+        if (selectedIsoFile == null || drive == null || (burnTask != null && burnTask.isRunning())) {
+            return;
+        }
+        BurnEstimate estimate = burnPredictor.estimate(selectedIsoFile, drive, BurnOptions.builder()
+                .differential(differentialCheckBox.isSelected())
+                .rawWrite(rawWriteCheckBox.isSelected())
+                .build());
+        statusLabel.setText(estimate != null ? "Estimated time: " + estimate.getSummary() : "Ready");
+    }
+
+    private static String formatMinutes(long millis) {
+        long seconds = (millis + 999) / 1000;
+        return seconds >= 60 ? String.format("%d min %02d s", seconds / 60, seconds % 60) : seconds + " s";
+    }
+
     private void handleBurnComplete(BurnResult result) {
         setUIBurning(false);
 
@@ -221,6 +381,13 @@ public class MainController {
                 appendLog(String.format("Duration: %d minutes, %d seconds", seconds / 60, seconds % 60));
             }
 
+            if (result.getReport() != null && result.getReport().getBytesWritten() > 0) {
+                appendLog(String.format("Written: %d files, %.1f MB at %.1f MB/s",
+                    result.getReport().getFilesCopied(),
+                    result.getReport().getBytesWritten() / 1_000_000.0,
+                    result.getReport().getWriteThroughputMBps()));
+            }
+
             showAlert(Alert.AlertType.INFORMATION, "Success",
                 "ISO burned successfully!\n\nYou can safely remove the USB drive.");
         } else {
@@ -257,21 +424,20 @@ public class MainController {
         driveComboBox.setDisable(burning);
         browseButton.setDisable(burning);
         refreshButton.setDisable(burning);
+        testDriveButton.setDisable(burning);
         isoPathField.setDisable(burning);
         bootableCheckBox.setDisable(burning);
         handleLargeWimCheckBox.setDisable(burning);
+        differentialCheckBox.setDisable(burning);
+        rawWriteCheckBox.setDisable(burning);
+        probeDriveCheckBox.setDisable(burning);
     }
 
     private void appendLog(String message) {
         String timestamp = LocalDateTime.now().format(TIME_FORMAT);
-        String logLine = "[" + timestamp + "] " + message + "\n";
-
-        if (Platform.isFxApplicationThread()) {
-            logArea.appendText(logLine);
-        } else {
-            Platform.runLater(() -> logArea.appendText(logLine));
-        }
+        logLines.append("[" + timestamp + "] " + message);
 
+        // The full history goes to the rolling log file
         log.info(message);
     }
 
@@ -0,0 +1,76 @@
+package com.isoburn.jfr;
+
+import com.isoburn.model.BurnReport;
+import com.isoburn.util.BurnReportWriter;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Optionally captures a JDK Flight Recorder recording for each burn and saves it
+ * next to the burn report, using the JDK "profile" settings plus the isoBURN events.
+ */
+@Component
+public class BurnFlightRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(BurnFlightRecorder.class);
+
+    private final BurnReportWriter reportWriter;
+
+    @Value("${isoburn.jfr.record-burns:false}")
+    private boolean recordBurns;
+
+    @Value("${isoburn.jfr.settings:profile}")
+    private String settings;
+
+    public BurnFlightRecorder(BurnReportWriter reportWriter) {
+        this.reportWriter = reportWriter;
+    }
+
+    public Recording start() {
+        if (!recordBurns) {
+            return null;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration(settings));
+            recording.setName("isoBURN burn");
+            recording.setToDisk(true);
+            recording.enable(BurnPhaseEvent.class);
+            recording.enable(FileCopyEvent.class);
+            recording.enable(CommandEvent.class);
+            recording.enable(DriveScanEvent.class);
+            recording.enable(ProgressDispatchEvent.class);
+            recording.start();
+            return recording;
+        } catch (Exception e) {
+            log.error("Failed to start flight recording", e);
+            return null;
+        }
+    }
+
+    // Returns the saved recording file, or null when nothing was recorded
+    public Path stop(Recording recording, BurnReport report) {
+        if (recording == null) {
+            return null;
+        }
+        try {
+            recording.stop();
+            Path file = reportWriter.reportFile(report, "jfr");
+            Files.createDirectories(file.getParent());
+            recording.dump(file);
+            log.info("Flight recording written to {}", file);
+            return file;
+        } catch (Exception e) {
+            log.error("Failed to save flight recording", e);
+            return null;
+        } finally {
+            recording.close();
+        }
+    }
+}
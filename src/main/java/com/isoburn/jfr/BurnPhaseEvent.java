@@ -0,0 +1,25 @@
+package com.isoburn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.isoburn.BurnPhase")
+@Label("Burn Phase")
+@Description("One phase of a burn, from its first progress update until the next phase starts")
+@Category({"isoBURN", "Burn"})
+@StackTrace(false)
+public class BurnPhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("ISO")
+    public String isoName;
+
+    @Label("Device")
+    public String deviceIdentifier;
+}
@@ -0,0 +1,25 @@
+package com.isoburn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.isoburn.Command")
+@Label("External Command")
+@Description("One CommandExecutor invocation, from process spawn until its output is drained")
+@Category({"isoBURN", "Command"})
+@StackTrace(false)
+public class CommandEvent extends Event {
+
+    @Label("Executable")
+    public String executable;
+
+    @Label("Command Line")
+    public String commandLine;
+
+    @Label("Exit Code")
+    public int exitCode;
+}
@@ -0,0 +1,19 @@
+package com.isoburn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.isoburn.DriveScan")
+@Label("Drive Scan")
+@Description("One scan for removable drives")
+@Category({"isoBURN", "Drives"})
+@StackTrace(false)
+public class DriveScanEvent extends Event {
+
+    @Label("Drives Found")
+    public int drivesFound;
+}
@@ -0,0 +1,25 @@
+package com.isoburn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.isoburn.FileCopy")
+@Label("File Copy")
+@Description("Copy of a single file to the target volume, emitted for files above isoburn.jfr.file-copy-min-bytes")
+@Category({"isoBURN", "Burn"})
+@StackTrace(false)
+public class FileCopyEvent extends Event {
+
+    @Label("Path")
+    @Description("Path relative to the ISO root")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
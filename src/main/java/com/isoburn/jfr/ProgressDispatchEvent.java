@@ -0,0 +1,28 @@
+package com.isoburn.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.isoburn.ProgressDispatch")
+@Label("Progress Dispatch")
+@Description("A progress update from being posted by the burn thread until the UI has handled it")
+@Category({"isoBURN", "UI"})
+@StackTrace(false)
+public class ProgressDispatchEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Percentage")
+    public double percentage;
+
+    @Label("Queue Time")
+    @Description("Time spent waiting for the FX application thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueNanos;
+}
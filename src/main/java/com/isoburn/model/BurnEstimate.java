@@ -0,0 +1,61 @@
+package com.isoburn.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BurnEstimate {
+    private long totalMillis;
+    private Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private int samples;
+    private String basis;
+
+    public BurnEstimate() {}
+
+    public BurnEstimate(long totalMillis, Map<String, Long> phaseMillis, int samples, String basis) {
+        this.totalMillis = totalMillis;
+        this.phaseMillis = phaseMillis;
+        this.samples = samples;
+        this.basis = basis;
+    }
+
+    // Wall-clock time, less the time phases are expected to overlap
+    public long getTotalMillis() { return totalMillis; }
+    public void setTotalMillis(long totalMillis) { this.totalMillis = totalMillis; }
+
+    public Map<String, Long> getPhaseMillis() { return phaseMillis; }
+    public void setPhaseMillis(Map<String, Long> phaseMillis) { this.phaseMillis = phaseMillis; }
+
+    // Number of earlier burns the estimate is drawn from
+    public int getSamples() { return samples; }
+    public void setSamples(int samples) { this.samples = samples; }
+
+    // Which earlier burns were used, e.g. "this drive model"
+    public String getBasis() { return basis; }
+    public void setBasis(String basis) { this.basis = basis; }
+
+    public String getSummary() {
+        long seconds = (totalMillis + 999) / 1000;
+        String time = seconds >= 60 ? String.format("%d min %02d s", seconds / 60, seconds % 60) : seconds + " s";
+        return String.format("about %s (from %d earlier burn%s on %s)", time, samples, samples == 1 ? "" : "s", basis);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private long totalMillis;
+        private Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        private int samples;
+        private String basis;
+
+        public Builder totalMillis(long totalMillis) { this.totalMillis = totalMillis; return this; }
+        public Builder phaseMillis(Map<String, Long> phaseMillis) { this.phaseMillis = phaseMillis; return this; }
+        public Builder samples(int samples) { this.samples = samples; return this; }
+        public Builder basis(String basis) { this.basis = basis; return this; }
+
+        public BurnEstimate build() {
+            return new BurnEstimate(totalMillis, phaseMillis, samples, basis);
+        }
+    }
+}
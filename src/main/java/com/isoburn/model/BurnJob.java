@@ -0,0 +1,116 @@
+package com.isoburn.model;
+
+public class BurnJob {
+
+    public enum Kind {
+        BURN,
+        VERIFY
+    }
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED,
+        CANCELLED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private String id;
+    private Kind kind = Kind.BURN;
+    private String source;
+    private String deviceIdentifier;
+    private String sha256;
+    private BurnOptions options;
+    private State state;
+    private BurnProgress progress;
+    private BurnResult result;
+    private long submittedAtEpochMillis;
+    private long startedAtEpochMillis;
+    private long finishedAtEpochMillis;
+
+    public BurnJob() {}
+
+    public BurnJob(String id, String source, String deviceIdentifier, BurnOptions options, State state,
+                   long submittedAtEpochMillis) {
+        this.id = id;
+        this.source = source;
+        this.deviceIdentifier = deviceIdentifier;
+        this.options = options;
+        this.state = state;
+        this.submittedAtEpochMillis = submittedAtEpochMillis;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Kind getKind() { return kind; }
+    public void setKind(Kind kind) { this.kind = kind; }
+
+    // An image path on this machine, or an http(s) URL
+    public String getSource() { return source; }
+    public void setSource(String source) { this.source = source; }
+
+    public String getDeviceIdentifier() { return deviceIdentifier; }
+    public void setDeviceIdentifier(String deviceIdentifier) { this.deviceIdentifier = deviceIdentifier; }
+
+    // Checksum a verification job expects; null to use the image's .sha256 file, if any
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public BurnOptions getOptions() { return options; }
+    public void setOptions(BurnOptions options) { this.options = options; }
+
+    public State getState() { return state; }
+    public void setState(State state) { this.state = state; }
+
+    // The latest progress reported while running
+    public BurnProgress getProgress() { return progress; }
+    public void setProgress(BurnProgress progress) { this.progress = progress; }
+
+    public BurnResult getResult() { return result; }
+    public void setResult(BurnResult result) { this.result = result; }
+
+    public long getSubmittedAtEpochMillis() { return submittedAtEpochMillis; }
+    public void setSubmittedAtEpochMillis(long submittedAtEpochMillis) { this.submittedAtEpochMillis = submittedAtEpochMillis; }
+
+    public long getStartedAtEpochMillis() { return startedAtEpochMillis; }
+    public void setStartedAtEpochMillis(long startedAtEpochMillis) { this.startedAtEpochMillis = startedAtEpochMillis; }
+
+    public long getFinishedAtEpochMillis() { return finishedAtEpochMillis; }
+    public void setFinishedAtEpochMillis(long finishedAtEpochMillis) { this.finishedAtEpochMillis = finishedAtEpochMillis; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String id;
+        private Kind kind = Kind.BURN;
+        private String source;
+        private String deviceIdentifier;
+        private String sha256;
+        private BurnOptions options = new BurnOptions();
+        private State state = State.QUEUED;
+        private long submittedAtEpochMillis;
+
+        public Builder id(String id) { this.id = id; return this; }
+        public Builder kind(Kind kind) { this.kind = kind; return this; }
+        public Builder source(String source) { this.source = source; return this; }
+        public Builder deviceIdentifier(String deviceIdentifier) { this.deviceIdentifier = deviceIdentifier; return this; }
+        public Builder sha256(String sha256) { this.sha256 = sha256; return this; }
+        public Builder options(BurnOptions options) { this.options = options; return this; }
+        public Builder state(State state) { this.state = state; return this; }
+        public Builder submittedAtEpochMillis(long submittedAtEpochMillis) { this.submittedAtEpochMillis = submittedAtEpochMillis; return this; }
+
+        public BurnJob build() {
+            BurnJob job = new BurnJob(id, source, deviceIdentifier, options, state, submittedAtEpochMillis);
+            job.setKind(kind);
+            job.setSha256(sha256);
+            return job;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.isoburn.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BurnOptions {
+    private boolean bootable;
+    private boolean handleLargeWim;
+    private boolean differential;
+    private boolean rawWrite;
+    private boolean probeDrive;
+    private List<String> includeRules = new ArrayList<>();
+    private List<String> excludeRules = new ArrayList<>();
+    private int readLimitMbps;
+    private int writeLimitMbps;
+
+    public BurnOptions() {}
+
+    public BurnOptions(boolean bootable, boolean handleLargeWim, boolean differential, boolean rawWrite) {
+        this(bootable, handleLargeWim, differential, rawWrite, false);
+    }
+
+    public BurnOptions(boolean bootable, boolean handleLargeWim, boolean differential, boolean rawWrite,
+                       boolean probeDrive) {
+        this.bootable = bootable;
+        this.handleLargeWim = handleLargeWim;
+        this.differential = differential;
+        this.rawWrite = rawWrite;
+        this.probeDrive = probeDrive;
+    }
+
+    public boolean isBootable() { return bootable; }
+    public void setBootable(boolean bootable) { this.bootable = bootable; }
+
+    public boolean isHandleLargeWim() { return handleLargeWim; }
+    public void setHandleLargeWim(boolean handleLargeWim) { this.handleLargeWim = handleLargeWim; }
+
+    // Update a drive written by an earlier burn in place, rewriting only what changed
+    public boolean isDifferential() { return differential; }
+    public void setDifferential(boolean differential) { this.differential = differential; }
+
+    // Write the image to the whole device byte for byte instead of copying its files to a FAT32 volume
+    public boolean isRawWrite() { return rawWrite; }
+    public void setRawWrite(boolean rawWrite) { this.rawWrite = rawWrite; }
+
+    // Test the drive's speed and real capacity first, refusing it when it falls below the configured minimums
+    public boolean isProbeDrive() { return probeDrive; }
+    public void setProbeDrive(boolean probeDrive) { this.probeDrive = probeDrive; }
+
+    // Globs or "regex:" patterns choosing which files of the image go onto the drive; see PathRules
+    public List<String> getIncludeRules() { return includeRules; }
+    public void setIncludeRules(List<String> includeRules) { this.includeRules = includeRules; }
+
+    public List<String> getExcludeRules() { return excludeRules; }
+    public void setExcludeRules(List<String> excludeRules) { this.excludeRules = excludeRules; }
+
+    // This burn's own read and write bandwidth in MB/s, on top of the shared limits; 0 for none
+    public int getReadLimitMbps() { return readLimitMbps; }
+    public void setReadLimitMbps(int readLimitMbps) { this.readLimitMbps = readLimitMbps; }
+
+    public int getWriteLimitMbps() { return writeLimitMbps; }
+    public void setWriteLimitMbps(int writeLimitMbps) { this.writeLimitMbps = writeLimitMbps; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private boolean bootable;
+        private boolean handleLargeWim;
+        private boolean differential;
+        private boolean rawWrite;
+        private boolean probeDrive;
+        private List<String> includeRules = new ArrayList<>();
+        private List<String> excludeRules = new ArrayList<>();
+        private int readLimitMbps;
+        private int writeLimitMbps;
+
+        public Builder bootable(boolean bootable) { this.bootable = bootable; return this; }
+        public Builder handleLargeWim(boolean handleLargeWim) { this.handleLargeWim = handleLargeWim; return this; }
+        public Builder differential(boolean differential) { this.differential = differential; return this; }
+        public Builder rawWrite(boolean rawWrite) { this.rawWrite = rawWrite; return this; }
+        public Builder probeDrive(boolean probeDrive) { this.probeDrive = probeDrive; return this; }
+        public Builder includeRules(List<String> includeRules) { this.includeRules = includeRules; return this; }
+        public Builder excludeRules(List<String> excludeRules) { this.excludeRules = excludeRules; return this; }
+        public Builder readLimitMbps(int readLimitMbps) { this.readLimitMbps = readLimitMbps; return this; }
+        public Builder writeLimitMbps(int writeLimitMbps) { this.writeLimitMbps = writeLimitMbps; return this; }
+
+        public BurnOptions build() {
+            BurnOptions options = new BurnOptions(bootable, handleLargeWim, differential, rawWrite, probeDrive);
+            options.setIncludeRules(includeRules);
+            options.setExcludeRules(excludeRules);
+            options.setReadLimitMbps(readLimitMbps);
+            options.setWriteLimitMbps(writeLimitMbps);
+            return options;
+        }
+    }
+}
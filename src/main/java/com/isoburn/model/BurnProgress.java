@@ -4,12 +4,20 @@ public class BurnProgress {
 
     public enum Phase {
         PREPARING("Preparing..."),
+        DOWNLOADING("Downloading ISO..."),
+        DECOMPRESSING("Decompressing image..."),
+        VERIFYING("Verifying image..."),
+        MAPPING("Mapping image blocks..."),
+        PROBING("Testing drive..."),
         UNMOUNTING("Unmounting drive..."),
         FORMATTING("Formatting drive..."),
         MOUNTING_ISO("Mounting ISO..."),
+        INDEXING("Indexing source files..."),
         CHECKING_WIM("Checking WIM file size..."),
+        COMPARING("Comparing with drive contents..."),
         SPLITTING_WIM("Splitting WIM file..."),
         COPYING("Copying files..."),
+        CACHING("Saving drive image..."),
         CLEANUP("Cleaning up..."),
         COMPLETE("Complete"),
         ERROR("Error"),
@@ -32,6 +40,8 @@ public class BurnProgress {
     private String message;
     private long bytesTransferred;
     private long totalBytes;
+    private double overallPercentage = -1;
+    private long etaMillis = -1;
 
     public BurnProgress() {}
 
@@ -63,6 +73,13 @@ public class BurnProgress {
     public long getTotalBytes() { return totalBytes; }
     public void setTotalBytes(long totalBytes) { this.totalBytes = totalBytes; }
 
+    // Progress of the whole burn, weighted by the predicted length of each phase; -1 without burn history
+    public double getOverallPercentage() { return overallPercentage; }
+    public void setOverallPercentage(double overallPercentage) { this.overallPercentage = overallPercentage; }
+
+    public long getEtaMillis() { return etaMillis; }
+    public void setEtaMillis(long etaMillis) { this.etaMillis = etaMillis; }
+
     public static BurnProgress of(Phase phase, String message) {
         BurnProgress p = new BurnProgress();
         p.phase = phase;
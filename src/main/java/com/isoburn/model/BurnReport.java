@@ -0,0 +1,90 @@
+package com.isoburn.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BurnReport {
+    private String isoName;
+    private long isoSizeBytes;
+    private String deviceIdentifier;
+    private String driveName;
+    private String driveModel;
+    private long driveSizeBytes;
+    private String busProtocol;
+    private long startedAtEpochMillis;
+    private long durationMillis;
+    private String outcome;
+    private String mode;
+    private Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private Map<String, Long> phaseOverlapMillis = new LinkedHashMap<>();
+    private long bytesWritten;
+    private long filesCopied;
+
+    public BurnReport() {}
+
+    public String getIsoName() { return isoName; }
+    public void setIsoName(String isoName) { this.isoName = isoName; }
+
+    public long getIsoSizeBytes() { return isoSizeBytes; }
+    public void setIsoSizeBytes(long isoSizeBytes) { this.isoSizeBytes = isoSizeBytes; }
+
+    public String getDeviceIdentifier() { return deviceIdentifier; }
+    public void setDeviceIdentifier(String deviceIdentifier) { this.deviceIdentifier = deviceIdentifier; }
+
+    public String getDriveName() { return driveName; }
+    public void setDriveName(String driveName) { this.driveName = driveName; }
+
+    public String getDriveModel() { return driveModel; }
+    public void setDriveModel(String driveModel) { this.driveModel = driveModel; }
+
+    public long getDriveSizeBytes() { return driveSizeBytes; }
+    public void setDriveSizeBytes(long driveSizeBytes) { this.driveSizeBytes = driveSizeBytes; }
+
+    public String getBusProtocol() { return busProtocol; }
+    public void setBusProtocol(String busProtocol) { this.busProtocol = busProtocol; }
+
+    public long getStartedAtEpochMillis() { return startedAtEpochMillis; }
+    public void setStartedAtEpochMillis(long startedAtEpochMillis) { this.startedAtEpochMillis = startedAtEpochMillis; }
+
+    public long getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+
+    public String getOutcome() { return outcome; }
+    public void setOutcome(String outcome) { this.outcome = outcome; }
+
+    // full, update, resume, raw or cached; null when the burn stopped before choosing
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public Map<String, Long> getPhaseMillis() { return phaseMillis; }
+    public void setPhaseMillis(Map<String, Long> phaseMillis) { this.phaseMillis = phaseMillis; }
+
+    // Wall-clock time each phase saved by running alongside others; phaseMillis minus these add up to the burn
+    public Map<String, Long> getPhaseOverlapMillis() { return phaseOverlapMillis; }
+    public void setPhaseOverlapMillis(Map<String, Long> phaseOverlapMillis) { this.phaseOverlapMillis = phaseOverlapMillis; }
+
+    public long getOverlapSavedMillis() {
+        return phaseOverlapMillis.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long getBytesWritten() { return bytesWritten; }
+    public void setBytesWritten(long bytesWritten) { this.bytesWritten = bytesWritten; }
+
+    public long getFilesCopied() { return filesCopied; }
+    public void setFilesCopied(long filesCopied) { this.filesCopied = filesCopied; }
+
+    public double getWriteThroughputMBps() {
+        // Copying and splitting may overlap, so count the time they took together
+        long writeMillis = phaseMillis.getOrDefault(BurnProgress.Phase.COPYING.name(), 0L)
+                         + phaseMillis.getOrDefault(BurnProgress.Phase.SPLITTING_WIM.name(), 0L)
+                         - phaseOverlapMillis.getOrDefault(BurnProgress.Phase.COPYING.name(), 0L)
+                         - phaseOverlapMillis.getOrDefault(BurnProgress.Phase.SPLITTING_WIM.name(), 0L);
+        if (writeMillis == 0) {
+            return 0;
+        }
+        return (bytesWritten / 1_000_000.0) / (writeMillis / 1000.0);
+    }
+}
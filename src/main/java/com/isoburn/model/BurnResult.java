@@ -5,6 +5,7 @@ public class BurnResult {
     private String message;
     private String errorDetails;
     private long durationMillis;
+    private BurnReport report;
 
     public BurnResult() {}
 
@@ -27,6 +28,9 @@ public class BurnResult {
     public long getDurationMillis() { return durationMillis; }
     public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
 
+    public BurnReport getReport() { return report; }
+    public void setReport(BurnReport report) { this.report = report; }
+
     public static BurnResult success(String message) {
         BurnResult r = new BurnResult();
         r.success = true;
@@ -0,0 +1,64 @@
+package com.isoburn.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ContentProfile {
+    private String name;
+    private String isoName;
+    private List<String> includeRules = new ArrayList<>();
+    private List<String> excludeRules = new ArrayList<>();
+    private long savedAtEpochMillis;
+
+    public ContentProfile() {}
+
+    public ContentProfile(String name, String isoName, List<String> includeRules, List<String> excludeRules,
+                          long savedAtEpochMillis) {
+        this.name = name;
+        this.isoName = isoName;
+        this.includeRules = includeRules;
+        this.excludeRules = excludeRules;
+        this.savedAtEpochMillis = savedAtEpochMillis;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    // File name of the image the profile belongs to
+    public String getIsoName() { return isoName; }
+    public void setIsoName(String isoName) { this.isoName = isoName; }
+
+    public List<String> getIncludeRules() { return includeRules; }
+    public void setIncludeRules(List<String> includeRules) { this.includeRules = includeRules; }
+
+    public List<String> getExcludeRules() { return excludeRules; }
+    public void setExcludeRules(List<String> excludeRules) { this.excludeRules = excludeRules; }
+
+    public long getSavedAtEpochMillis() { return savedAtEpochMillis; }
+    public void setSavedAtEpochMillis(long savedAtEpochMillis) { this.savedAtEpochMillis = savedAtEpochMillis; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String name;
+        private String isoName;
+        private List<String> includeRules = new ArrayList<>();
+        private List<String> excludeRules = new ArrayList<>();
+        private long savedAtEpochMillis;
+
+        public Builder name(String name) { this.name = name; return this; }
+        public Builder isoName(String isoName) { this.isoName = isoName; return this; }
+        public Builder includeRules(List<String> includeRules) { this.includeRules = includeRules; return this; }
+        public Builder excludeRules(List<String> excludeRules) { this.excludeRules = excludeRules; return this; }
+        public Builder savedAtEpochMillis(long savedAtEpochMillis) {
+            this.savedAtEpochMillis = savedAtEpochMillis;
+            return this;
+        }
+
+        public ContentProfile build() {
+            return new ContentProfile(name, isoName, includeRules, excludeRules, savedAtEpochMillis);
+        }
+    }
+}
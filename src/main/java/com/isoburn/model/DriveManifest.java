@@ -0,0 +1,74 @@
+package com.isoburn.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Written to the drive at the end of a burn: every file copied from the ISO with
+ * its size and per-chunk hashes. A later differential burn compares it with the
+ * new ISO to decide what has to be rewritten.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DriveManifest {
+
+    public static final int CURRENT_VERSION = 1;
+
+    private int version = CURRENT_VERSION;
+    private String volumeName;
+    private String isoName;
+    private int chunkSize;
+    private long createdAtEpochMillis;
+    private List<Entry> entries = new ArrayList<>();
+
+    public DriveManifest() {}
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    public String getVolumeName() { return volumeName; }
+    public void setVolumeName(String volumeName) { this.volumeName = volumeName; }
+
+    public String getIsoName() { return isoName; }
+    public void setIsoName(String isoName) { this.isoName = isoName; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public long getCreatedAtEpochMillis() { return createdAtEpochMillis; }
+    public void setCreatedAtEpochMillis(long createdAtEpochMillis) { this.createdAtEpochMillis = createdAtEpochMillis; }
+
+    public List<Entry> getEntries() { return entries; }
+    public void setEntries(List<Entry> entries) { this.entries = entries; }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Entry {
+        private String path;
+        private long size;
+        private boolean split;
+        private List<String> chunks = new ArrayList<>();
+
+        public Entry() {}
+
+        public Entry(String path, long size, boolean split, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.split = split;
+            this.chunks = chunks;
+        }
+
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+
+        public long getSize() { return size; }
+        public void setSize(long size) { this.size = size; }
+
+        // True for a source file that was written to the drive as split parts rather than copied
+        public boolean isSplit() { return split; }
+        public void setSplit(boolean split) { this.split = split; }
+
+        public List<String> getChunks() { return chunks; }
+        public void setChunks(List<String> chunks) { this.chunks = chunks; }
+    }
+}
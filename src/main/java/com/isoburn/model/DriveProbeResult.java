@@ -0,0 +1,103 @@
+package com.isoburn.model;
+
+public class DriveProbeResult {
+    private double sequentialWriteMBps;
+    private double sequentialReadMBps;
+    private double randomWriteIops;
+    private double randomReadIops;
+    private long claimedBytes;
+    private long usableBytes;
+    private int sentinels;
+    private int badSentinels;
+    private long durationMillis;
+
+    public DriveProbeResult() {}
+
+    public DriveProbeResult(double sequentialWriteMBps, double sequentialReadMBps, double randomWriteIops,
+                            double randomReadIops, long claimedBytes, long usableBytes, int sentinels,
+                            int badSentinels, long durationMillis) {
+        this.sequentialWriteMBps = sequentialWriteMBps;
+        this.sequentialReadMBps = sequentialReadMBps;
+        this.randomWriteIops = randomWriteIops;
+        this.randomReadIops = randomReadIops;
+        this.claimedBytes = claimedBytes;
+        this.usableBytes = usableBytes;
+        this.sentinels = sentinels;
+        this.badSentinels = badSentinels;
+        this.durationMillis = durationMillis;
+    }
+
+    public double getSequentialWriteMBps() { return sequentialWriteMBps; }
+    public void setSequentialWriteMBps(double sequentialWriteMBps) { this.sequentialWriteMBps = sequentialWriteMBps; }
+
+    public double getSequentialReadMBps() { return sequentialReadMBps; }
+    public void setSequentialReadMBps(double sequentialReadMBps) { this.sequentialReadMBps = sequentialReadMBps; }
+
+    // 4 KiB operations per second at random offsets
+    public double getRandomWriteIops() { return randomWriteIops; }
+    public void setRandomWriteIops(double randomWriteIops) { this.randomWriteIops = randomWriteIops; }
+
+    public double getRandomReadIops() { return randomReadIops; }
+    public void setRandomReadIops(double randomReadIops) { this.randomReadIops = randomReadIops; }
+
+    public long getClaimedBytes() { return claimedBytes; }
+    public void setClaimedBytes(long claimedBytes) { this.claimedBytes = claimedBytes; }
+
+    // Upper bound of the capacity that holds data; equal to claimedBytes when every sentinel read back intact
+    public long getUsableBytes() { return usableBytes; }
+    public void setUsableBytes(long usableBytes) { this.usableBytes = usableBytes; }
+
+    public int getSentinels() { return sentinels; }
+    public void setSentinels(int sentinels) { this.sentinels = sentinels; }
+
+    public int getBadSentinels() { return badSentinels; }
+    public void setBadSentinels(int badSentinels) { this.badSentinels = badSentinels; }
+
+    public long getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
+
+    public boolean isFakeCapacity() {
+        return badSentinels > 0;
+    }
+
+    public String getSummary() {
+        String speed = String.format("W %.1f MB/s, R %.1f MB/s, 4K %.0f/%.0f IOPS",
+            sequentialWriteMBps, sequentialReadMBps, randomWriteIops, randomReadIops);
+        if (isFakeCapacity()) {
+            return String.format("FAKE: ~%.1f of %.1f GB usable; %s",
+                usableBytes / 1_000_000_000.0, claimedBytes / 1_000_000_000.0, speed);
+        }
+        return speed;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private double sequentialWriteMBps;
+        private double sequentialReadMBps;
+        private double randomWriteIops;
+        private double randomReadIops;
+        private long claimedBytes;
+        private long usableBytes;
+        private int sentinels;
+        private int badSentinels;
+        private long durationMillis;
+
+        public Builder sequentialWriteMBps(double sequentialWriteMBps) { this.sequentialWriteMBps = sequentialWriteMBps; return this; }
+        public Builder sequentialReadMBps(double sequentialReadMBps) { this.sequentialReadMBps = sequentialReadMBps; return this; }
+        public Builder randomWriteIops(double randomWriteIops) { this.randomWriteIops = randomWriteIops; return this; }
+        public Builder randomReadIops(double randomReadIops) { this.randomReadIops = randomReadIops; return this; }
+        public Builder claimedBytes(long claimedBytes) { this.claimedBytes = claimedBytes; return this; }
+        public Builder usableBytes(long usableBytes) { this.usableBytes = usableBytes; return this; }
+        public Builder sentinels(int sentinels) { this.sentinels = sentinels; return this; }
+        public Builder badSentinels(int badSentinels) { this.badSentinels = badSentinels; return this; }
+        public Builder durationMillis(long durationMillis) { this.durationMillis = durationMillis; return this; }
+
+        public DriveProbeResult build() {
+            return new DriveProbeResult(sequentialWriteMBps, sequentialReadMBps, randomWriteIops, randomReadIops,
+                claimedBytes, usableBytes, sentinels, badSentinels, durationMillis);
+        }
+    }
+}
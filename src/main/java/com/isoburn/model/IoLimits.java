@@ -0,0 +1,44 @@
+package com.isoburn.model;
+
+public class IoLimits {
+    private Integer readLimitMbps;
+    private Integer writeLimitMbps;
+    private Double verifyShare;
+
+    public IoLimits() {}
+
+    public IoLimits(Integer readLimitMbps, Integer writeLimitMbps, Double verifyShare) {
+        this.readLimitMbps = readLimitMbps;
+        this.writeLimitMbps = writeLimitMbps;
+        this.verifyShare = verifyShare;
+    }
+
+    // MB/s, 0 for no limit; null in an update leaves the limit as it is
+    public Integer getReadLimitMbps() { return readLimitMbps; }
+    public void setReadLimitMbps(Integer readLimitMbps) { this.readLimitMbps = readLimitMbps; }
+
+    public Integer getWriteLimitMbps() { return writeLimitMbps; }
+    public void setWriteLimitMbps(Integer writeLimitMbps) { this.writeLimitMbps = writeLimitMbps; }
+
+    // Fraction of the shared read bandwidth verification gets while burns are running; shared limits only
+    public Double getVerifyShare() { return verifyShare; }
+    public void setVerifyShare(Double verifyShare) { this.verifyShare = verifyShare; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Integer readLimitMbps;
+        private Integer writeLimitMbps;
+        private Double verifyShare;
+
+        public Builder readLimitMbps(Integer readLimitMbps) { this.readLimitMbps = readLimitMbps; return this; }
+        public Builder writeLimitMbps(Integer writeLimitMbps) { this.writeLimitMbps = writeLimitMbps; return this; }
+        public Builder verifyShare(Double verifyShare) { this.verifyShare = verifyShare; return this; }
+
+        public IoLimits build() {
+            return new IoLimits(readLimitMbps, writeLimitMbps, verifyShare);
+        }
+    }
+}
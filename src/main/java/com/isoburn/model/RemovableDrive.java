@@ -8,6 +8,8 @@ public class RemovableDrive {
     private boolean removable;
     private boolean external;
     private String busProtocol;
+    private String model;
+    private DriveProbeResult probeResult;
 
     public RemovableDrive() {}
 
@@ -43,6 +45,14 @@ public class RemovableDrive {
     public String getBusProtocol() { return busProtocol; }
     public void setBusProtocol(String busProtocol) { this.busProtocol = busProtocol; }
 
+    // The device's product name, e.g. "Cruzer Blade"; the name is the volume label and changes with each burn
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
+
+    // Speed and capacity measured by the last drive test, or null when it has not been tested
+    public DriveProbeResult getProbeResult() { return probeResult; }
+    public void setProbeResult(DriveProbeResult probeResult) { this.probeResult = probeResult; }
+
     public boolean isDiskImage() {
         return "Disk Image".equals(busProtocol);
     }
@@ -55,7 +65,7 @@ public class RemovableDrive {
 
     @Override
     public String toString() {
-        return getDisplayName();
+        return probeResult != null ? getDisplayName() + " [" + probeResult.getSummary() + "]" : getDisplayName();
     }
 
     public static Builder builder() {
@@ -70,6 +80,8 @@ public class RemovableDrive {
         private boolean removable;
         private boolean external;
         private String busProtocol;
+        private String model;
+        private DriveProbeResult probeResult;
 
         public Builder deviceIdentifier(String deviceIdentifier) { this.deviceIdentifier = deviceIdentifier; return this; }
         public Builder name(String name) { this.name = name; return this; }
@@ -78,9 +90,15 @@ public class RemovableDrive {
         public Builder removable(boolean removable) { this.removable = removable; return this; }
         public Builder external(boolean external) { this.external = external; return this; }
         public Builder busProtocol(String busProtocol) { this.busProtocol = busProtocol; return this; }
+        public Builder model(String model) { this.model = model; return this; }
+        public Builder probeResult(DriveProbeResult probeResult) { this.probeResult = probeResult; return this; }
 
         public RemovableDrive build() {
-            return new RemovableDrive(deviceIdentifier, name, sizeBytes, mountPoint, removable, external, busProtocol);
+            RemovableDrive drive = new RemovableDrive(deviceIdentifier, name, sizeBytes, mountPoint, removable,
+                external, busProtocol);
+            drive.setModel(model);
+            drive.setProbeResult(probeResult);
+            return drive;
         }
     }
 }
@@ -0,0 +1,354 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnJob;
+import com.isoburn.model.BurnJob.Kind;
+import com.isoburn.model.BurnJob.State;
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.IoLimits;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.IoBudget;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Burn jobs submitted through the daemon API. {@link IsoBurnService} runs one
+ * burn at a time, so jobs wait in submission order and run one after another
+ * on a single worker thread; waiting jobs hold no thread. Verification jobs
+ * have workers of their own and run alongside burns, reading at lower
+ * priority. Listeners are told of every state change and progress update,
+ * with a copy of the job taken at that moment.
+ */
+@Service
+public class BurnJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BurnJobService.class);
+
+    public interface Listener {
+        void jobChanged(BurnJob job);
+
+        void progress(BurnJob job);
+    }
+
+    private final IsoBurnService burnService;
+    private final DiskBackend diskBackend;
+    private final ImageVerifyService verifyService;
+    private final IoLimiter ioLimiter;
+    private final Map<String, BurnJob> jobs = new LinkedHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "isoburn-job-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, IoBudget> verifying = new ConcurrentHashMap<>();
+    private final Set<String> cancelledVerifications = ConcurrentHashMap.newKeySet();
+
+    @Value("${isoburn.daemon.job-history:100}")
+    private int jobHistory;
+
+    @Value("${isoburn.daemon.verify-threads:2}")
+    private int verifyThreads = 2;
+
+    private ExecutorService verifyWorkers;
+    private volatile String runningJobId;
+    private volatile boolean runningCancelled;
+
+    public BurnJobService(IsoBurnService burnService, DiskBackend diskBackend, ImageVerifyService verifyService,
+                          IoLimiter ioLimiter) {
+        this.burnService = burnService;
+        this.diskBackend = diskBackend;
+        this.verifyService = verifyService;
+        this.ioLimiter = ioLimiter;
+    }
+
+    @PostConstruct
+    public void init() {
+        verifyWorkers = Executors.newFixedThreadPool(Math.max(1, verifyThreads), runnable -> {
+            Thread thread = new Thread(runnable, "isoburn-verify-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public BurnJob submit(String source, String deviceIdentifier, BurnOptions options) {
+        BurnJob job = BurnJob.builder()
+                .id(UUID.randomUUID().toString())
+                .source(source)
+                .deviceIdentifier(deviceIdentifier)
+                .options(options)
+                .submittedAtEpochMillis(System.currentTimeMillis())
+                .build();
+        synchronized (this) {
+            jobs.put(job.getId(), job);
+            pruneHistory();
+        }
+        log.info("Queued burn job {}: {} to {}", job.getId(), source, deviceIdentifier);
+        BurnJob snapshot = publish(job, true);
+        worker.execute(() -> run(job));
+        return snapshot;
+    }
+
+    // Checks an image file against a SHA-256 checksum, or its .sha256 file when sha256 is null
+    public BurnJob verify(String source, String sha256, BurnOptions options) {
+        BurnJob job = BurnJob.builder()
+                .id(UUID.randomUUID().toString())
+                .kind(Kind.VERIFY)
+                .source(source)
+                .sha256(sha256)
+                .options(options != null ? options : new BurnOptions())
+                .submittedAtEpochMillis(System.currentTimeMillis())
+                .build();
+        synchronized (this) {
+            jobs.put(job.getId(), job);
+            pruneHistory();
+        }
+        log.info("Queued verification job {}: {}", job.getId(), source);
+        BurnJob snapshot = publish(job, true);
+        verifyWorkers.execute(() -> run(job));
+        return snapshot;
+    }
+
+    public synchronized List<BurnJob> jobs() {
+        return jobs.values().stream().map(BurnJobService::snapshot).toList();
+    }
+
+    // Returns null when there is no such job
+    public synchronized BurnJob job(String id) {
+        BurnJob job = jobs.get(id);
+        return job != null ? snapshot(job) : null;
+    }
+
+    // A waiting job is dropped; a running one is stopped as the GUI's Cancel does.
+    // Returns null when there is no such job
+    public BurnJob cancel(String id) {
+        BurnJob job;
+        synchronized (this) {
+            job = jobs.get(id);
+            if (job == null) {
+                return null;
+            }
+            if (job.getState() == State.RUNNING && id.equals(runningJobId)) {
+                log.info("Cancelling burn job {}", id);
+                runningCancelled = true;
+                burnService.cancel();
+                return snapshot(job);
+            }
+            if (job.getState() == State.RUNNING && job.getKind() == Kind.VERIFY) {
+                log.info("Cancelling verification job {}", id);
+                cancelledVerifications.add(id);
+                return snapshot(job);
+            }
+            if (job.getState() != State.QUEUED) {
+                return snapshot(job);
+            }
+            job.setState(State.CANCELLED);
+            job.setResult(BurnResult.cancelled());
+            job.setFinishedAtEpochMillis(System.currentTimeMillis());
+        }
+        log.info("Cancelled queued job {}", id);
+        return publish(job, true);
+    }
+
+    /**
+     * Changes a job's own read and write limits; fields left null keep their
+     * value. A running job slows down or speeds up with its next transfer.
+     * Returns null when there is no such job.
+     */
+    public BurnJob setLimits(String id, IoLimits limits) {
+        BurnJob job;
+        synchronized (this) {
+            job = jobs.get(id);
+            if (job == null) {
+                return null;
+            }
+            if (job.getState().isFinished()) {
+                return snapshot(job);
+            }
+            BurnOptions options = job.getOptions();
+            if (limits.getReadLimitMbps() != null) {
+                options.setReadLimitMbps(Math.max(0, limits.getReadLimitMbps()));
+            }
+            if (limits.getWriteLimitMbps() != null) {
+                options.setWriteLimitMbps(Math.max(0, limits.getWriteLimitMbps()));
+            }
+            if (job.getState() == State.RUNNING && id.equals(runningJobId)) {
+                burnService.setLimits(options.getReadLimitMbps(), options.getWriteLimitMbps());
+            }
+            IoBudget budget = verifying.get(id);
+            if (budget != null) {
+                budget.setLimits(IoLimiter.bytesPerSecond(options.getReadLimitMbps()), 0);
+            }
+        }
+        log.info("Job {} limits now: read {} MB/s, write {} MB/s (0 is unlimited)", id,
+            job.getOptions().getReadLimitMbps(), job.getOptions().getWriteLimitMbps());
+        return publish(job, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        String running = runningJobId;
+        if (running != null) {
+            cancel(running);
+        }
+        cancelledVerifications.addAll(verifying.keySet());
+        worker.shutdownNow();
+        if (verifyWorkers != null) {
+            verifyWorkers.shutdownNow();
+        }
+    }
+
+    private void run(BurnJob job) {
+        boolean verification = job.getKind() == Kind.VERIFY;
+        synchronized (this) {
+            if (job.getState() != State.QUEUED) {
+                return;
+            }
+            job.setState(State.RUNNING);
+            job.setStartedAtEpochMillis(System.currentTimeMillis());
+            if (!verification) {
+                runningJobId = job.getId();
+                runningCancelled = false;
+            }
+        }
+        publish(job, true);
+
+        BurnResult result;
+        try {
+            result = verification ? verify(job) : burn(job);
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", job.getId(), e);
+            result = BurnResult.failure(verification ? "Verification failed" : "Burn failed", e.getMessage());
+        }
+
+        synchronized (this) {
+            boolean cancelled = verification ? cancelledVerifications.remove(job.getId()) : runningCancelled;
+            if (!verification) {
+                runningJobId = null;
+            }
+            job.setResult(result);
+            job.setState(result.isSuccess() ? State.SUCCEEDED : cancelled ? State.CANCELLED : State.FAILED);
+            job.setFinishedAtEpochMillis(System.currentTimeMillis());
+        }
+        log.info("{} job {} {}: {}", verification ? "Verification" : "Burn", job.getId(), job.getState(),
+            result.getMessage());
+        publish(job, true);
+    }
+
+    private BurnResult verify(BurnJob job) {
+        IoBudget budget = ioLimiter.budget(job.getOptions().getReadLimitMbps(), 0);
+        verifying.put(job.getId(), budget);
+        try {
+            return verifyService.verify(new File(job.getSource()), job.getSha256(), budget,
+                progress -> progress(job, progress), () -> cancelledVerifications.contains(job.getId()));
+        } finally {
+            verifying.remove(job.getId());
+        }
+    }
+
+    private BurnResult burn(BurnJob job) {
+        if (runningCancelled) {
+            return BurnResult.cancelled();
+        }
+        RemovableDrive drive = diskBackend.detectDrives().stream()
+                .filter(candidate -> job.getDeviceIdentifier().equals(candidate.getDeviceIdentifier()))
+                .findFirst()
+                .orElse(null);
+        if (drive == null) {
+            return BurnResult.failure("Drive not available",
+                "The selected drive is no longer available: " + job.getDeviceIdentifier());
+        }
+
+        String source = job.getSource();
+        if (source.startsWith("http://") || source.startsWith("https://")) {
+            return burnService.burn(URI.create(source), drive, job.getOptions(), progress -> progress(job, progress),
+                () -> runningCancelled);
+        }
+        return burnService.burn(new File(source), drive, job.getOptions(), progress -> progress(job, progress),
+            () -> runningCancelled);
+    }
+
+    private void progress(BurnJob job, BurnProgress progress) {
+        synchronized (this) {
+            job.setProgress(progress);
+        }
+        publish(job, false);
+    }
+
+    private BurnJob publish(BurnJob job, boolean stateChanged) {
+        BurnJob snapshot;
+        synchronized (this) {
+            snapshot = snapshot(job);
+        }
+        for (Listener listener : listeners) {
+            try {
+                if (stateChanged) {
+                    listener.jobChanged(snapshot);
+                } else {
+                    listener.progress(snapshot);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Burn job listener failed: {}", e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
+    // Oldest finished jobs are forgotten first; waiting and running jobs are always kept
+    private void pruneHistory() {
+        List<String> finished = new ArrayList<>();
+        jobs.forEach((id, job) -> {
+            if (job.getState().isFinished()) {
+                finished.add(id);
+            }
+        });
+        for (int i = 0; i < finished.size() - jobHistory; i++) {
+            jobs.remove(finished.get(i));
+        }
+    }
+
+    private static BurnJob snapshot(BurnJob job) {
+        BurnJob copy = BurnJob.builder()
+                .id(job.getId())
+                .kind(job.getKind())
+                .source(job.getSource())
+                .deviceIdentifier(job.getDeviceIdentifier())
+                .sha256(job.getSha256())
+                .options(job.getOptions())
+                .state(job.getState())
+                .submittedAtEpochMillis(job.getSubmittedAtEpochMillis())
+                .build();
+        copy.setProgress(job.getProgress());
+        copy.setResult(job.getResult());
+        copy.setStartedAtEpochMillis(job.getStartedAtEpochMillis());
+        copy.setFinishedAtEpochMillis(job.getFinishedAtEpochMillis());
+        return copy;
+    }
+}
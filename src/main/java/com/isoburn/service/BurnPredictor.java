@@ -0,0 +1,172 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnEstimate;
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BurnHistoryStore;
+import com.isoburn.util.ImageDecompressor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Predicts how long a burn will take from earlier successful burns of the
+ * same kind, preferring those to the same drive model, then the same bus.
+ * Phases that move the image's bytes are scaled by image size; the others
+ * take their usual time. Also spots drive models that keep writing far
+ * slower than other models on the same bus.
+ */
+@Service
+public class BurnPredictor {
+
+    private static final Set<Phase> SIZED_PHASES = EnumSet.of(Phase.DECOMPRESSING, Phase.MAPPING, Phase.INDEXING,
+        Phase.COMPARING, Phase.SPLITTING_WIM, Phase.COPYING, Phase.CACHING);
+
+    private static final Set<String> WRITE_MODES = Set.of("full", "resume", "raw");
+
+    private final BurnHistoryStore historyStore;
+
+    @Value("${isoburn.history.window:20}")
+    private int window;
+
+    @Value("${isoburn.history.slow-ratio:0.5}")
+    private double slowRatio;
+
+    @Value("${isoburn.history.slow-min-burns:3}")
+    private int slowMinBurns;
+
+    public BurnPredictor(BurnHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    public void record(BurnReport report) {
+        historyStore.append(report);
+    }
+
+    // Returns null when there are no earlier burns of this kind to go by
+    public BurnEstimate estimate(File isoFile, RemovableDrive drive, BurnOptions options) {
+        List<BurnReport> done = historyStore.entries().stream()
+            .filter(report -> "success".equals(report.getOutcome()))
+            .toList();
+        List<BurnReport> kind = ofMode(done, options.isRawWrite() ? "raw" : "full");
+        if (options.isDifferential() && !options.isRawWrite() && !ofMode(done, "update").isEmpty()) {
+            kind = ofMode(done, "update");
+        }
+
+        List<BurnReport> samples = kind.stream().filter(sameModel(drive)).toList();
+        String basis = "this drive model";
+        if (samples.isEmpty()) {
+            samples = kind.stream().filter(report -> Objects.equals(report.getBusProtocol(), drive.getBusProtocol()))
+                .toList();
+            basis = drive.getBusProtocol() + " drives";
+        }
+        if (samples.isEmpty()) {
+            samples = kind;
+            basis = "other drives";
+        }
+        if (samples.isEmpty()) {
+            return null;
+        }
+        samples = samples.subList(Math.max(0, samples.size() - window), samples.size());
+
+        // Burns of this very image decide which phases to expect, e.g. whether install.wim is split
+        long isoSize = isoFile.length();
+        List<BurnReport> sameIso = samples.stream()
+            .filter(report -> Objects.equals(report.getIsoName(), isoFile.getName())
+                && report.getIsoSizeBytes() == isoSize)
+            .toList();
+        List<BurnReport> shape = sameIso.isEmpty() ? samples : sameIso;
+        boolean compressed = ImageDecompressor.Format.detect(isoFile.toPath()) != ImageDecompressor.Format.NONE;
+
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        long total = 0;
+        for (Phase phase : Phase.values()) {
+            if (phase == Phase.DOWNLOADING || phase == Phase.DECOMPRESSING && !compressed) {
+                continue;
+            }
+            long having = shape.stream().filter(report -> report.getPhaseMillis().containsKey(phase.name())).count();
+            if (having == 0 || having * 2 < shape.size()) {
+                continue;
+            }
+            long millis = predict(samples, phase, isoSize, false);
+            phaseMillis.put(phase.name(), millis);
+            total += millis - predict(samples, phase, isoSize, true);
+        }
+
+        return BurnEstimate.builder()
+            .totalMillis(Math.max(0, total))
+            .phaseMillis(phaseMillis)
+            .samples(samples.size())
+            .basis(basis)
+            .build();
+    }
+
+    // Returns null unless earlier burns to this drive's model were repeatedly much slower than to other models
+    public String slowDriveWarning(RemovableDrive drive) {
+        List<BurnReport> bus = historyStore.entries().stream()
+            .filter(report -> "success".equals(report.getOutcome()) && WRITE_MODES.contains(report.getMode()))
+            .filter(report -> Objects.equals(report.getBusProtocol(), drive.getBusProtocol()))
+            .filter(report -> report.getWriteThroughputMBps() > 0)
+            .toList();
+        double[] model = bus.stream().filter(sameModel(drive))
+            .mapToDouble(BurnReport::getWriteThroughputMBps).sorted().toArray();
+        double[] others = bus.stream().filter(sameModel(drive).negate())
+            .mapToDouble(BurnReport::getWriteThroughputMBps).sorted().toArray();
+        if (model.length < slowMinBurns || others.length < slowMinBurns) {
+            return null;
+        }
+
+        double baseline = median(others);
+        long slow = Arrays.stream(model).filter(mbps -> mbps < baseline * slowRatio).count();
+        if (slow < slowMinBurns || slow * 2 <= model.length) {
+            return null;
+        }
+        return String.format("%s was slow in %d of %d burns (%.1f MB/s, against %.1f MB/s for other %s drives)",
+            modelName(drive), slow, model.length, median(model), baseline, drive.getBusProtocol());
+    }
+
+    private static List<BurnReport> ofMode(List<BurnReport> reports, String mode) {
+        return reports.stream().filter(report -> mode.equals(report.getMode())).toList();
+    }
+
+    private static Predicate<BurnReport> sameModel(RemovableDrive drive) {
+        return report -> Objects.equals(report.getDriveModel(), modelName(drive))
+            && Objects.equals(report.getBusProtocol(), drive.getBusProtocol());
+    }
+
+    // Drives without a reported model are told apart by name
+    static String modelName(RemovableDrive drive) {
+        return drive.getModel() != null && !drive.getModel().isBlank() ? drive.getModel() : drive.getName();
+    }
+
+    // Median over the samples that ran the phase; overlap a sample did not record counts as none
+    private static long predict(List<BurnReport> samples, Phase phase, long isoSize, boolean overlap) {
+        double[] values = samples.stream()
+            .filter(report -> report.getPhaseMillis().containsKey(phase.name()))
+            .mapToDouble(report -> {
+                long millis = overlap ? report.getPhaseOverlapMillis().getOrDefault(phase.name(), 0L)
+                    : report.getPhaseMillis().get(phase.name());
+                return SIZED_PHASES.contains(phase) && report.getIsoSizeBytes() > 0
+                    ? millis * (double) isoSize / report.getIsoSizeBytes() : millis;
+            })
+            .sorted()
+            .toArray();
+        return values.length == 0 ? 0 : Math.round(median(values));
+    }
+
+    private static double median(double[] sorted) {
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+}
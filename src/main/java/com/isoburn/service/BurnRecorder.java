@@ -0,0 +1,205 @@
+package com.isoburn.service;
+
+import com.isoburn.jfr.BurnPhaseEvent;
+import com.isoburn.model.BurnEstimate;
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.RemovableDrive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Sits between a burn and its progress callback. Phase changes in the progress
+ * stream delimit phase timings, which are recorded as meters and collected
+ * into the burn's {@link BurnReport}. Steps of a {@link PhaseGraph} run on
+ * their own threads and are timed as a whole under their declared phase.
+ * Given an estimate, each progress update also carries the progress of the
+ * whole burn, weighting each phase by its predicted length, and the time left.
+ */
+class BurnRecorder implements Consumer<BurnProgress> {
+
+    private final MeterRegistry meterRegistry;
+    private final Consumer<BurnProgress> delegate;
+    private final Counter bytesCounter;
+    private final Counter filesCounter;
+    private final BurnReport report = new BurnReport();
+    private final long startNanos = System.nanoTime();
+
+    private Phase currentPhase;
+    private long phaseStartNanos;
+    private BurnPhaseEvent phaseEvent;
+
+    private final ThreadLocal<StepTiming> step = new ThreadLocal<>();
+
+    private BurnEstimate estimate;
+    private final Map<Phase, Double> phaseDone = new EnumMap<>(Phase.class);
+    private final Map<Phase, Long> phaseSeenNanos = new EnumMap<>(Phase.class);
+    private double overallPercentage;
+
+    private record StepTiming(Phase phase, long startNanos, BurnPhaseEvent event) {
+    }
+
+    BurnRecorder(MeterRegistry meterRegistry, Consumer<BurnProgress> delegate,
+                 File isoFile, RemovableDrive drive) {
+        this.meterRegistry = meterRegistry;
+        this.delegate = delegate;
+        this.bytesCounter = meterRegistry.counter("isoburn.burn.bytes.written");
+        this.filesCounter = meterRegistry.counter("isoburn.burn.files.copied");
+
+        report.setIsoName(isoFile.getName());
+        report.setIsoSizeBytes(isoFile.length());
+        report.setDeviceIdentifier(drive.getDeviceIdentifier());
+        report.setDriveName(drive.getName());
+        report.setDriveModel(BurnPredictor.modelName(drive));
+        report.setDriveSizeBytes(drive.getSizeBytes());
+        report.setBusProtocol(drive.getBusProtocol());
+        report.setStartedAtEpochMillis(System.currentTimeMillis());
+    }
+
+    @Override
+    public void accept(BurnProgress progress) {
+        if (step.get() == null) {
+            synchronized (this) {
+                if (progress.getPhase() != currentPhase) {
+                    closePhase(System.nanoTime());
+                    currentPhase = progress.getPhase();
+                    phaseStartNanos = System.nanoTime();
+                    phaseEvent = new BurnPhaseEvent();
+                    phaseEvent.begin();
+                }
+            }
+        }
+        if (estimate != null) {
+            overall(progress);
+        }
+        delegate.accept(progress);
+    }
+
+    synchronized void estimate(BurnEstimate estimate) {
+        this.estimate = estimate != null && estimate.getTotalMillis() > 0 ? estimate : null;
+    }
+
+    synchronized void mode(String mode) {
+        report.setMode(mode);
+    }
+
+    // Stops timing the current phase, until the next progress outside a step starts another
+    synchronized void endPhase() {
+        closePhase(System.nanoTime());
+        currentPhase = null;
+    }
+
+    void beginStep(Phase phase) {
+        BurnPhaseEvent event = new BurnPhaseEvent();
+        event.begin();
+        step.set(new StepTiming(phase, System.nanoTime(), event));
+    }
+
+    void endStep() {
+        StepTiming timing = step.get();
+        step.remove();
+        record(timing.phase(), timing.event(), System.nanoTime() - timing.startNanos());
+    }
+
+    synchronized void overlapSaved(Phase phase, long millis) {
+        report.getPhaseOverlapMillis().merge(phase.name(), millis, Long::sum);
+    }
+
+    synchronized void fileCopied(long bytes) {
+        filesCounter.increment();
+        bytesWritten(bytes);
+        report.setFilesCopied(report.getFilesCopied() + 1);
+    }
+
+    synchronized void bytesWritten(long bytes) {
+        bytesCounter.increment(bytes);
+        report.setBytesWritten(report.getBytesWritten() + bytes);
+    }
+
+    synchronized BurnReport finish(String outcome) {
+        long now = System.nanoTime();
+        closePhase(now);
+        currentPhase = null;
+
+        long duration = now - startNanos;
+        Timer.builder("isoburn.burn")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(Duration.ofNanos(duration));
+
+        report.setOutcome(outcome);
+        report.setDurationMillis(duration / 1_000_000);
+        return report;
+    }
+
+    private void closePhase(long now) {
+        if (currentPhase == null || currentPhase == Phase.COMPLETE) {
+            return;
+        }
+        record(currentPhase, phaseEvent, now - phaseStartNanos);
+    }
+
+    private void record(Phase phase, BurnPhaseEvent event, long elapsed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.name();
+            event.isoName = report.getIsoName();
+            event.deviceIdentifier = report.getDeviceIdentifier();
+            event.commit();
+        }
+
+        Timer.builder("isoburn.burn.phase")
+            .tag("phase", phase.name())
+            .register(meterRegistry)
+            .record(Duration.ofNanos(elapsed));
+        synchronized (this) {
+            report.getPhaseMillis().merge(phase.name(), elapsed / 1_000_000, Long::sum);
+            phaseDone.put(phase, 1.0);
+        }
+    }
+
+    /*
+     * A phase counts as done once it ends, as far as its own percentage when it
+     * reports one, and otherwise by the time it has run against its prediction,
+     * short of done. The result never goes backwards. The time left blends the
+     * prediction with the pace so far, trusting the pace more as the burn goes on.
+     */
+    private synchronized void overall(BurnProgress progress) {
+        long now = System.nanoTime();
+        Phase phase = progress.getPhase();
+        phaseSeenNanos.putIfAbsent(phase, now);
+        if (progress.getPercentage() > 0) {
+            phaseDone.merge(phase, Math.min(1.0, progress.getPercentage() / 100), Math::max);
+        }
+
+        double total = 0;
+        double done = 0;
+        for (Map.Entry<String, Long> predicted : estimate.getPhaseMillis().entrySet()) {
+            Phase predictedPhase = Phase.valueOf(predicted.getKey());
+            double fraction = phaseDone.getOrDefault(predictedPhase, 0.0);
+            Long seen = phaseSeenNanos.get(predictedPhase);
+            if (fraction == 0 && seen != null && predicted.getValue() > 0) {
+                fraction = Math.min(0.9, (now - seen) / 1_000_000.0 / predicted.getValue());
+            }
+            total += predicted.getValue();
+            done += predicted.getValue() * fraction;
+        }
+        double fraction = phase == Phase.COMPLETE ? 1.0 : total > 0 ? done / total : 0;
+        overallPercentage = Math.max(overallPercentage, Math.min(100, fraction * 100));
+
+        double completed = overallPercentage / 100;
+        double predictedLeft = estimate.getTotalMillis() * (1 - completed);
+        double elapsedMillis = (now - startNanos) / 1_000_000.0;
+        double paceLeft = completed > 0.05 ? elapsedMillis * (1 - completed) / completed : predictedLeft;
+        progress.setOverallPercentage(overallPercentage);
+        progress.setEtaMillis(Math.round(completed * paceLeft + (1 - completed) * predictedLeft));
+    }
+}
@@ -1,5 +1,8 @@
 package com.isoburn.service;
 
+import com.isoburn.jfr.CommandEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -7,6 +10,8 @@ import org.springframework.stereotype.Service;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
@@ -23,18 +28,22 @@ public class CommandExecutor {
     }
 
     private final AtomicBoolean cancelled = new AtomicBoolean(false);
-    private volatile Process currentProcess;
+    // Burn steps may run commands at the same time
+    private final Set<Process> running = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry meterRegistry;
+
+    public CommandExecutor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     public void reset() {
         cancelled.set(false);
-        currentProcess = null;
     }
 
     public void cancel() {
         cancelled.set(true);
-        if (currentProcess != null) {
-            currentProcess.destroyForcibly();
-        }
+        running.forEach(Process::destroyForcibly);
     }
 
     public boolean isCancelled() {
@@ -53,17 +62,55 @@ public class CommandExecutor {
 
         log.debug("Executing command: {}", String.join(" ", command));
 
+        String executable = executableName(command);
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CommandResult result = null;
+        try {
+            result = run(stdoutHandler, stderrHandler, command);
+            return result;
+        } finally {
+            sample.stop(Timer.builder("isoburn.command")
+                .tag("executable", executable)
+                .tag("outcome", result == null ? "error" : result.isSuccess() ? "success" : "failure")
+                .register(meterRegistry));
+            event.end();
+            if (event.shouldCommit()) {
+                event.executable = executable;
+                event.commandLine = String.join(" ", command);
+                event.exitCode = result != null ? result.exitCode() : -1;
+                event.commit();
+            }
+        }
+    }
+
+    private CommandResult run(Consumer<String> stdoutHandler, Consumer<String> stderrHandler,
+                              String... command) throws IOException, InterruptedException {
         ProcessBuilder pb = new ProcessBuilder(command);
         pb.redirectErrorStream(false);
 
-        currentProcess = pb.start();
+        Process process = pb.start();
+        running.add(process);
+        try {
+            return waitFor(process, stdoutHandler, stderrHandler);
+        } catch (InterruptedException e) {
+            // The burn step running this command was stopped
+            process.destroyForcibly();
+            throw e;
+        } finally {
+            running.remove(process);
+        }
+    }
 
+    private CommandResult waitFor(Process process, Consumer<String> stdoutHandler, Consumer<String> stderrHandler)
+            throws InterruptedException {
         StringBuilder stdout = new StringBuilder();
         StringBuilder stderr = new StringBuilder();
 
         Thread stdoutThread = new Thread(() -> {
             try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(currentProcess.getInputStream()))) {
+                    new InputStreamReader(process.getInputStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     stdout.append(line).append("\n");
@@ -78,7 +125,7 @@ public class CommandExecutor {
 
         Thread stderrThread = new Thread(() -> {
             try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(currentProcess.getErrorStream()))) {
+                    new InputStreamReader(process.getErrorStream()))) {
                 String line;
                 while ((line = reader.readLine()) != null) {
                     stderr.append(line).append("\n");
@@ -94,22 +141,33 @@ public class CommandExecutor {
         stdoutThread.start();
         stderrThread.start();
 
-        boolean completed = currentProcess.waitFor(30, TimeUnit.MINUTES);
+        boolean completed = process.waitFor(30, TimeUnit.MINUTES);
         stdoutThread.join(5000);
         stderrThread.join(5000);
 
         if (!completed) {
-            currentProcess.destroyForcibly();
+            process.destroyForcibly();
             return new CommandResult(-1, stdout.toString(), "Command timed out");
         }
 
-        int exitCode = currentProcess.exitValue();
-        currentProcess = null;
+        int exitCode = process.exitValue();
 
         log.debug("Command completed with exit code: {}", exitCode);
         return new CommandResult(exitCode, stdout.toString().trim(), stderr.toString().trim());
     }
 
+    // For "bash -c <script>" the first word of the script is the interesting executable
+    static String executableName(String... command) {
+        String executable = command[0];
+        if (command.length >= 3 && "-c".equals(command[1])) {
+            String script = command[2].trim();
+            int space = script.indexOf(' ');
+            executable = space > 0 ? script.substring(0, space) : script;
+        }
+        int slash = executable.lastIndexOf('/');
+        return slash >= 0 ? executable.substring(slash + 1) : executable;
+    }
+
     public CommandResult executeWithSudo(String command) throws IOException, InterruptedException {
         if (cancelled.get()) {
             return new CommandResult(-1, "", "Cancelled");
@@ -0,0 +1,76 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Byte-level progress over a known total, reported as whole percentages so the
+ * callback fires at most about a hundred times.
+ */
+class CopyProgress {
+
+    private final Phase phase;
+    private final String label;
+    private final AtomicLong totalBytes;
+    private final Consumer<BurnProgress> callback;
+    private final AtomicLong bytesDone = new AtomicLong();
+    private final AtomicInteger lastPercent = new AtomicInteger(-1);
+
+    CopyProgress(Phase phase, String label, long totalBytes, Consumer<BurnProgress> callback) {
+        this.phase = phase;
+        this.label = label;
+        this.totalBytes = new AtomicLong(totalBytes);
+        this.callback = callback;
+    }
+
+    void add(long bytes) {
+        long done = bytesDone.addAndGet(bytes);
+        long total = totalBytes.get();
+
+        int percent = percent(done, total);
+        if (percent >= 100) {
+            return;
+        }
+        // Concurrent writers race here; only the one that raises the percentage reports it
+        int last;
+        do {
+            last = lastPercent.get();
+            if (percent <= last) {
+                return;
+            }
+        } while (!lastPercent.compareAndSet(last, percent));
+        callback.accept(BurnProgress.builder()
+            .phase(phase)
+            .percentage(percent)
+            .message(label + " " + percent + "%")
+            .bytesTransferred(done)
+            .totalBytes(total)
+            .build());
+    }
+
+    // For work that joins after the copy has started, such as a WIM split running alongside it
+    void addTotal(long bytes) {
+        totalBytes.addAndGet(bytes);
+    }
+
+    int getPercent() {
+        long total = totalBytes.get();
+        return total > 0 ? percent(bytesDone.get(), total) : 100;
+    }
+
+    private static int percent(long done, long total) {
+        return total > 0 ? (int) Math.min(100, done * 100 / total) : 0;
+    }
+
+    long getBytesDone() {
+        return bytesDone.get();
+    }
+
+    long getTotalBytes() {
+        return totalBytes.get();
+    }
+}
@@ -0,0 +1,66 @@
+package com.isoburn.service;
+
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BandwidthThrottle;
+import com.isoburn.util.IsoLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Disk operations used by a burn: preparing the target drive, mounting the
+ * source ISO and releasing both again. The active implementation is selected
+ * with {@code isoburn.disk-backend}.
+ */
+public interface DiskBackend {
+
+    List<RemovableDrive> detectDrives();
+
+    boolean isDriveAvailable(RemovableDrive drive);
+
+    boolean unmountDrive(RemovableDrive drive);
+
+    boolean formatDrive(RemovableDrive drive, String volumeName);
+
+    String mountIso(File isoFile);
+
+    void unmountIso(String mountPoint);
+
+    String findVolumeMountPoint(RemovableDrive drive, String volumeName);
+
+    // Mounts an existing volume without reformatting; returns its mount point, or null if there is none
+    String mountDrive(RemovableDrive drive);
+
+    void ejectDrive(RemovableDrive drive);
+
+    // The whole device, for writing an image byte for byte; the drive must be unmounted first
+    FileChannel openRawDevice(RemovableDrive drive) throws IOException;
+
+    // The whole device, read-only, leaving what it holds intact; the drive must be unmounted first
+    FileChannel readRawDevice(RemovableDrive drive) throws IOException;
+
+    // Writes to the target volume are paced through this throttle
+    default BandwidthThrottle writeThrottle() {
+        return BandwidthThrottle.UNLIMITED;
+    }
+
+    // Where each file starts in the source image, so the copy can read it front to back
+    default IsoLayout sourceLayout(File isoFile) {
+        return isoFile.isFile() ? IsoLayout.read(isoFile.toPath()) : IsoLayout.EMPTY;
+    }
+
+    // Opens the source files of one burn; each burn gets its own reader
+    default SourceReader sourceReader() {
+        return (file, startBlock) -> FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    @FunctionalInterface
+    interface SourceReader {
+        // startBlock is where the file lies in the source image, -1 when unknown
+        FileChannel open(Path file, long startBlock) throws IOException;
+    }
+}
@@ -1,7 +1,10 @@
 package com.isoburn.service;
 
+import com.isoburn.jfr.DriveScanEvent;
 import com.isoburn.model.RemovableDrive;
 import com.isoburn.util.PlistParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,16 +23,31 @@ public class DriveDetectionService {
 
     private final CommandExecutor commandExecutor;
     private final PlistParser plistParser;
+    private final MeterRegistry meterRegistry;
 
     @Value("${isoburn.excluded-disks:disk0,disk1}")
     private String excludedDisks;
 
-    public DriveDetectionService(CommandExecutor commandExecutor, PlistParser plistParser) {
+    public DriveDetectionService(CommandExecutor commandExecutor, PlistParser plistParser,
+                                 MeterRegistry meterRegistry) {
         this.commandExecutor = commandExecutor;
         this.plistParser = plistParser;
+        this.meterRegistry = meterRegistry;
     }
 
     public List<RemovableDrive> detectRemovableDrives() {
+        DriveScanEvent event = new DriveScanEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<RemovableDrive> drives = scanDrives();
+        sample.stop(meterRegistry.timer("isoburn.drive.scan"));
+        event.drivesFound = drives.size();
+        event.commit();
+        meterRegistry.summary("isoburn.drive.scan.drives").record(drives.size());
+        return drives;
+    }
+
+    private List<RemovableDrive> scanDrives() {
         List<RemovableDrive> drives = new ArrayList<>();
         Set<String> excluded = Arrays.stream(excludedDisks.split(","))
                 .map(String::trim)
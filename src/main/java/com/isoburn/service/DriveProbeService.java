@@ -0,0 +1,319 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.DriveProbeResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BandwidthThrottle;
+import com.isoburn.util.BufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Short, destructive test of a target drive before a burn: sequential and
+ * random 4 KiB throughput over a fixed time window each, then position-tagged
+ * sentinel blocks across the whole claimed capacity to catch counterfeit
+ * drives that wrap writes around or drop them past their real size.
+ */
+@Service
+public class DriveProbeService {
+
+    private static final Logger log = LoggerFactory.getLogger(DriveProbeService.class);
+
+    private static final int SEQUENTIAL_BLOCK = 4 * 1024 * 1024;
+    private static final int RANDOM_BLOCK = 4096;
+    private static final long SENTINEL_MAGIC = 0x4953_4F50_524F_4245L;  // "ISOPROBE"
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(RANDOM_BLOCK).asReadOnlyBuffer();
+
+    private final DiskBackend diskBackend;
+    private final BufferPool bufferPool;
+    private final Map<String, DriveProbeResult> results = new ConcurrentHashMap<>();
+
+    @Value("${isoburn.probe.window-ms:1500}")
+    private long windowMs = 1500;
+
+    @Value("${isoburn.probe.max-sequential-mb:512}")
+    private long maxSequentialMb = 512;
+
+    @Value("${isoburn.probe.sentinels:64}")
+    private int sentinelCount = 64;
+
+    @Value("${isoburn.probe.min-write-mbps:0}")
+    private double minWriteMBps;
+
+    @Value("${isoburn.probe.min-read-mbps:0}")
+    private double minReadMBps;
+
+    @Value("${isoburn.probe.refuse-fake:true}")
+    private boolean refuseFake = true;
+
+    public DriveProbeService(DiskBackend diskBackend, BufferPool bufferPool) {
+        this.diskBackend = diskBackend;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Tests the drive, erasing whatever it holds. The result is also attached
+     * to the drive and remembered for {@link #lastResult}.
+     */
+    public DriveProbeResult probe(RemovableDrive drive, Consumer<BurnProgress> progressCallback,
+                                  BooleanSupplier cancelled) throws IOException {
+        long started = System.currentTimeMillis();
+        if (!diskBackend.unmountDrive(drive)) {
+            throw new IOException("Could not unmount " + drive.getDeviceIdentifier());
+        }
+
+        // The speed phases time the drive alone; only the untimed sentinel writes share the write throttle
+        BandwidthThrottle throttle = diskBackend.writeThrottle();
+        SplittableRandom random = new SplittableRandom();
+        long window = windowMs * 1_000_000;
+        ByteBuffer buffer = bufferPool.acquire(SEQUENTIAL_BLOCK);
+        try (FileChannel device = diskBackend.openRawDevice(drive)) {
+            long capacity = drive.getSizeBytes() > 0 ? drive.getSizeBytes() : device.size();
+            long span = Math.min(capacity, maxSequentialMb * 1024 * 1024) / SEQUENTIAL_BLOCK * SEQUENTIAL_BLOCK;
+            if (span == 0) {
+                throw new IOException("Drive is too small to test: " + capacity + " bytes");
+            }
+            byte[] noise = new byte[SEQUENTIAL_BLOCK];
+            random.nextBytes(noise);
+            buffer.clear().put(noise);
+
+            progressCallback.accept(BurnProgress.of(Phase.PROBING, 0, "Testing sequential write speed..."));
+            long start = System.nanoTime();
+            long written = 0;
+            while (written < span && System.nanoTime() - start < window) {
+                checkCancelled(cancelled);
+                writeFully(device, buffer.clear(), written);
+                written += SEQUENTIAL_BLOCK;
+            }
+            device.force(false);
+            double writeMBps = written / 1_000_000.0 / seconds(start);
+
+            progressCallback.accept(BurnProgress.of(Phase.PROBING, 20, "Testing sequential read speed..."));
+            start = System.nanoTime();
+            long read = 0;
+            while (read < written && System.nanoTime() - start < window) {
+                checkCancelled(cancelled);
+                readFully(device, buffer.clear(), read);
+                read += SEQUENTIAL_BLOCK;
+            }
+            double readMBps = read / 1_000_000.0 / seconds(start);
+
+            // Random I/O stays inside the range written above, so reads never hit unmapped blocks
+            long blocks = written / RANDOM_BLOCK;
+            ByteBuffer block = buffer.clear().limit(RANDOM_BLOCK).slice();
+            progressCallback.accept(BurnProgress.of(Phase.PROBING, 40, "Testing random 4K writes..."));
+            start = System.nanoTime();
+            long ops = 0;
+            while (System.nanoTime() - start < window) {
+                checkCancelled(cancelled);
+                writeFully(device, block.clear(), random.nextLong(blocks) * RANDOM_BLOCK);
+                ops++;
+            }
+            device.force(false);
+            double writeIops = ops / seconds(start);
+
+            progressCallback.accept(BurnProgress.of(Phase.PROBING, 60, "Testing random 4K reads..."));
+            start = System.nanoTime();
+            ops = 0;
+            while (System.nanoTime() - start < window) {
+                checkCancelled(cancelled);
+                readFully(device, block.clear(), random.nextLong(blocks) * RANDOM_BLOCK);
+                ops++;
+            }
+            double readIops = ops / seconds(start);
+
+            progressCallback.accept(BurnProgress.of(Phase.PROBING, 80, "Checking real capacity..."));
+            long[] sentinels = sentinelOffsets(capacity);
+            SentinelCheck check = checkSentinels(device, buffer, sentinels, capacity, written, random.nextLong(),
+                throttle, cancelled);
+
+            DriveProbeResult result = DriveProbeResult.builder()
+                    .sequentialWriteMBps(writeMBps)
+                    .sequentialReadMBps(readMBps)
+                    .randomWriteIops(writeIops)
+                    .randomReadIops(readIops)
+                    .claimedBytes(capacity)
+                    .usableBytes(check.usableBytes())
+                    .sentinels(sentinels.length)
+                    .badSentinels(check.bad())
+                    .durationMillis(System.currentTimeMillis() - started)
+                    .build();
+            log.info("Drive test of {}: {}", drive.getDeviceIdentifier(), result.getSummary());
+            drive.setProbeResult(result);
+            results.put(resultKey(drive), result);
+            return result;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    // The last result for this drive, as long as it still reports the same size
+    public DriveProbeResult lastResult(RemovableDrive drive) {
+        return results.get(resultKey(drive));
+    }
+
+    // Why a burn to a drive with this result should be refused, or null if it meets the minimums
+    public String refusal(DriveProbeResult result) {
+        if (refuseFake && result.isFakeCapacity()) {
+            return String.format("Drive claims %.1f GB but only about %.1f GB holds data",
+                result.getClaimedBytes() / 1_000_000_000.0, result.getUsableBytes() / 1_000_000_000.0);
+        }
+        if (result.getSequentialWriteMBps() < minWriteMBps) {
+            return String.format("Drive writes at %.1f MB/s, below the minimum of %.1f MB/s",
+                result.getSequentialWriteMBps(), minWriteMBps);
+        }
+        if (result.getSequentialReadMBps() < minReadMBps) {
+            return String.format("Drive reads at %.1f MB/s, below the minimum of %.1f MB/s",
+                result.getSequentialReadMBps(), minReadMBps);
+        }
+        return null;
+    }
+
+    /*
+     * Sentinels sit a power of two apart, so a drive that wraps at a power of
+     * two (as counterfeit controllers do) maps a high sentinel exactly onto a
+     * lower one. The last block is added to catch drives that drop writes past
+     * their real size.
+     */
+    private long[] sentinelOffsets(long capacity) {
+        long stride = Math.max(RANDOM_BLOCK, Long.highestOneBit(Math.max(1, capacity / Math.max(1, sentinelCount))));
+        int count = (int) ((capacity - RANDOM_BLOCK) / stride) + 1;
+        long last = (capacity - RANDOM_BLOCK) / RANDOM_BLOCK * RANDOM_BLOCK;
+        boolean lastCovered = (count - 1) * stride == last;
+        long[] offsets = new long[lastCovered ? count : count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = i * stride;
+        }
+        offsets[offsets.length - 1] = last;
+        return offsets;
+    }
+
+    /*
+     * Writes every sentinel in ascending order, then reads them all back. A
+     * sentinel overwritten by the tag of a higher one shows the wrap size; one
+     * holding anything else shows where stored data ends. Drives that wrap at
+     * other sizes land high sentinels somewhere in the low range, so the range
+     * written by the speed test is scanned for tags that do not belong there.
+     */
+    private SentinelCheck checkSentinels(FileChannel device, ByteBuffer buffer, long[] offsets, long capacity,
+                                         long scanBytes, long nonce, BandwidthThrottle throttle,
+                                         BooleanSupplier cancelled) throws IOException {
+        ByteBuffer block = buffer.clear().limit(RANDOM_BLOCK).slice();
+        for (long offset : offsets) {
+            checkCancelled(cancelled);
+            throttle.acquire(RANDOM_BLOCK);
+            writeFully(device, fillSentinel(block.clear(), offset, nonce), offset);
+        }
+        device.force(false);
+
+        long usable = capacity;
+        int bad = 0;
+        for (long offset : offsets) {
+            checkCancelled(cancelled);
+            long found = readSentinel(device, block, offset, nonce);
+            if (found != offset) {
+                bad++;
+                usable = Math.min(usable, found >= 0 ? Math.abs(found - offset) : offset);
+            }
+        }
+
+        for (long position = 0; position < scanBytes; position += SEQUENTIAL_BLOCK) {
+            checkCancelled(cancelled);
+            readFully(device, buffer.clear(), position);
+            for (int at = 0; at < SEQUENTIAL_BLOCK; at += RANDOM_BLOCK) {
+                long found = sentinelTag(buffer.slice(at, RANDOM_BLOCK), nonce);
+                if (found > position + at && Arrays.binarySearch(offsets, position + at) < 0) {
+                    bad++;
+                    usable = Math.min(usable, found - (position + at));
+                }
+            }
+        }
+        return new SentinelCheck(usable, bad);
+    }
+
+    private record SentinelCheck(long usableBytes, int bad) {
+    }
+
+    private static ByteBuffer fillSentinel(ByteBuffer block, long offset, long nonce) {
+        while (block.remaining() >= 24) {
+            block.putLong(SENTINEL_MAGIC).putLong(offset).putLong(nonce);
+        }
+        return block.clear();
+    }
+
+    // The offset recorded in the block on the drive, or -1 when it holds no sentinel of this run
+    private static long readSentinel(FileChannel device, ByteBuffer block, long offset, long nonce) {
+        block.clear().put(ZEROS.duplicate()).clear();
+        if (!readFullyOrClear(device, block, offset)) {
+            return -1;
+        }
+        return sentinelTag(block, nonce);
+    }
+
+    private static long sentinelTag(ByteBuffer block, long nonce) {
+        if (block.getLong(0) != SENTINEL_MAGIC) {
+            return -1;
+        }
+        long tagged = block.getLong(8);
+        for (int at = 0; at + 24 <= RANDOM_BLOCK; at += 24) {
+            if (block.getLong(at) != SENTINEL_MAGIC || block.getLong(at + 8) != tagged
+                    || block.getLong(at + 16) != nonce) {
+                return -1;
+            }
+        }
+        return tagged;
+    }
+
+    private static boolean readFullyOrClear(FileChannel device, ByteBuffer block, long offset) {
+        try {
+            readFully(device, block, offset);
+            return true;
+        } catch (IOException e) {
+            // Counterfeit drives often fail reads past their real size
+            log.debug("Sentinel read at {} failed: {}", offset, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeFully(FileChannel device, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            device.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void readFully(FileChannel device, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (device.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Drive ended at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static double seconds(long startNanos) {
+        return Math.max(1, System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) throws InterruptedIOException {
+        if (cancelled.getAsBoolean()) {
+            throw new InterruptedIOException("Drive test cancelled");
+        }
+    }
+
+    private static String resultKey(RemovableDrive drive) {
+        return drive.getDeviceIdentifier() + ":" + drive.getSizeBytes();
+    }
+}
@@ -0,0 +1,367 @@
+package com.isoburn.service;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.util.BlockMap;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.FatVolumeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Finished drive images, so burning an ISO that was burned before onto a drive
+ * of the same size is one sequential write instead of a format, a file copy
+ * and a WIM split. An entry holds only the blocks the FAT32 volume uses, packed
+ * back to back in {@code data}, with a block map saying where each range goes.
+ * Entries unused for a while are recompressed with zstd, and the least
+ * recently used are evicted to stay under the size cap.
+ */
+@Service
+public class ImageCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCacheService.class);
+
+    private static final String HASH_INDEX_FILE = "isos.properties";
+    private static final String MAP_FILE = "image.bmap";
+    private static final String DATA_FILE = "data";
+    private static final String COMPRESSED_DATA_FILE = "data.zst";
+    private static final String ENTRY_FILE = "entry.properties";
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final BufferPool bufferPool;
+
+    @Value("${isoburn.image-cache.directory:}")
+    private String cacheDirectory;
+
+    @Value("${isoburn.image-cache.max-size-gb:64}")
+    private long maxSizeGb;
+
+    @Value("${isoburn.image-cache.compress-after-days:7}")
+    private int compressAfterDays;
+
+    public ImageCacheService(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public record Entry(Path directory, BlockMap map, boolean compressed) {
+        // The mapped ranges in map order, decompressed
+        public InputStream openData() throws IOException {
+            if (!compressed) {
+                return new BufferedInputStream(Files.newInputStream(directory.resolve(DATA_FILE)), 1024 * 1024);
+            }
+            return new ZstdInputStream(new BufferedInputStream(
+                Files.newInputStream(directory.resolve(COMPRESSED_DATA_FILE)), 1024 * 1024));
+        }
+    }
+
+    public boolean isEnabled() {
+        return cacheDirectory != null && !cacheDirectory.isBlank();
+    }
+
+    // Everything that changes the finished image: ISO content, file system, volume name, drive size, WIM split,
+    // and the content rules when not the whole image went onto the drive
+    public String key(String isoHash, String fileSystem, String volumeName, long capacity, int splitSizeMb,
+                      String contentRules) {
+        String identity = String.join(":", isoHash, fileSystem, volumeName, Long.toString(capacity),
+            Integer.toString(splitSizeMb));
+        if (!contentRules.isEmpty()) {
+            identity += ":" + contentRules;
+        }
+        return HexFormat.of().formatHex(sha256().digest(identity.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * SHA-256 of the ISO. Known files (same name, size and modification time)
+     * are looked up instead of read again; {@code progress} receives counts
+     * of bytes hashed.
+     */
+    public String isoHash(File iso, LongConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Path cache = Paths.get(cacheDirectory);
+        String identity = iso.getName() + ":" + iso.length() + ":" + iso.lastModified();
+        Properties index = loadProperties(cache.resolve(HASH_INDEX_FILE));
+        String known = index.getProperty(identity);
+        if (known != null) {
+            return known;
+        }
+
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = bufferPool.acquire(BUFFER_SIZE);
+        try (FileChannel in = FileChannel.open(iso.toPath(), StandardOpenOption.READ)) {
+            int read;
+            while ((read = in.read(buffer.clear())) > 0) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("ISO hashing cancelled");
+                }
+                digest.update(buffer.flip());
+                progress.accept(read);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        synchronized (this) {
+            index = loadProperties(cache.resolve(HASH_INDEX_FILE));
+            index.setProperty(identity, hash);
+            try {
+                storeProperties(cache.resolve(HASH_INDEX_FILE), index, "isoBURN image cache: ISO hashes");
+            } catch (IOException e) {
+                log.warn("Failed to update image cache ISO index: {}", e.getMessage());
+            }
+        }
+        return hash;
+    }
+
+    // Returns null when there is no usable entry for the key
+    public Entry find(String key) {
+        Path dir = Paths.get(cacheDirectory, key);
+        BlockMap map = BlockMap.read(dir.resolve(MAP_FILE));
+        if (map == null) {
+            return null;
+        }
+        boolean compressed = !Files.isRegularFile(dir.resolve(DATA_FILE));
+        if (compressed && !Files.isRegularFile(dir.resolve(COMPRESSED_DATA_FILE))) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(dir.resolve(ENTRY_FILE), FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            log.debug("Failed to mark image cache entry {} as used: {}", dir, e.getMessage());
+        }
+        return new Entry(dir, map, compressed);
+    }
+
+    /**
+     * Copies the blocks of the FAT32 volume on {@code device} into a new entry
+     * and trims the cache. Returns null when the device holds no FAT32 volume
+     * or the volume alone is larger than the cache.
+     */
+    public Entry store(String key, String description, FileChannel device, long capacity,
+                       Consumer<BurnProgress> progressCallback, BooleanSupplier cancelled) throws IOException {
+        List<BlockMap.Range> ranges = FatVolumeMap.read(device);
+        if (ranges == null) {
+            log.info("Drive holds no FAT32 volume, not caching its image");
+            return null;
+        }
+        long mapped = ranges.stream().mapToLong(r -> (r.last() - r.first() + 1) * FatVolumeMap.BLOCK_SIZE).sum();
+        if (mapped > maxSizeGb * 1024 * 1024 * 1024) {
+            log.info("Drive image ({} bytes used) is larger than the image cache, not caching it", mapped);
+            return null;
+        }
+
+        CopyProgress progress = new CopyProgress(Phase.CACHING, "Saving drive image...", mapped, progressCallback);
+        Path cache = Paths.get(cacheDirectory);
+        Path dir = cache.resolve(key);
+        Path temp = cache.resolve(key + ".tmp");
+        deleteEntry(temp);
+        Files.createDirectories(temp);
+        try {
+            List<BlockMap.Range> hashed = new ArrayList<>(ranges.size());
+            ByteBuffer buffer = bufferPool.acquire(BUFFER_SIZE);
+            try (FileChannel out = FileChannel.open(temp.resolve(DATA_FILE), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                for (BlockMap.Range range : ranges) {
+                    MessageDigest digest = sha256();
+                    long position = range.first() * FatVolumeMap.BLOCK_SIZE;
+                    long end = (range.last() + 1) * FatVolumeMap.BLOCK_SIZE;
+                    while (position < end) {
+                        if (cancelled.getAsBoolean()) {
+                            throw new InterruptedIOException("Image caching cancelled");
+                        }
+                        buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                        while (buffer.hasRemaining()) {
+                            if (device.read(buffer, position + buffer.position()) < 0) {
+                                throw new IOException("Drive ended inside its FAT32 volume");
+                            }
+                        }
+                        buffer.flip();
+                        digest.update(buffer.duplicate());
+                        position += buffer.remaining();
+                        progress.add(buffer.remaining());
+                        while (buffer.hasRemaining()) {
+                            out.write(buffer);
+                        }
+                    }
+                    hashed.add(new BlockMap.Range(range.first(), range.last(),
+                        HexFormat.of().formatHex(digest.digest())));
+                }
+                out.force(false);
+            } finally {
+                bufferPool.release(buffer);
+            }
+            new BlockMap(capacity, FatVolumeMap.BLOCK_SIZE, "sha256", hashed, true).write(temp.resolve(MAP_FILE));
+
+            Properties entry = new Properties();
+            entry.setProperty("description", description);
+            entry.setProperty("mappedBytes", Long.toString(mapped));
+            storeProperties(temp.resolve(ENTRY_FILE), entry, "isoBURN image cache entry");
+
+            deleteEntry(dir);
+            Files.move(temp, dir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteEntry(temp);
+            throw e;
+        }
+        log.info("Cached drive image for {}: {} bytes in {} ranges", description, mapped, ranges.size());
+        trim(key);
+        return find(key);
+    }
+
+    /*
+     * Compresses entries that have not been used for compressAfterDays, then
+     * drops the least recently used until the cache fits in maxSizeGb. The
+     * entry just stored is never evicted.
+     */
+    private synchronized void trim(String keep) {
+        Path cache = Paths.get(cacheDirectory);
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(cache,
+                path -> Files.isRegularFile(path.resolve(ENTRY_FILE)))) {
+            dirs.forEach(entries::add);
+        } catch (IOException e) {
+            log.warn("Failed to list image cache {}: {}", cache, e.getMessage());
+            return;
+        }
+        entries.sort(Comparator.comparing(ImageCacheService::lastUsed));
+
+        Instant cold = Instant.now().minus(Duration.ofDays(compressAfterDays));
+        if (compressAfterDays > 0) {
+            for (Path entry : entries) {
+                if (lastUsed(entry).toInstant().isBefore(cold) && Files.isRegularFile(entry.resolve(DATA_FILE))) {
+                    compress(entry);
+                }
+            }
+        }
+
+        long total = entries.stream().mapToLong(ImageCacheService::storedBytes).sum();
+        long limit = maxSizeGb * 1024 * 1024 * 1024;
+        for (Path entry : entries) {
+            if (total <= limit) {
+                break;
+            }
+            if (!entry.getFileName().toString().equals(keep)) {
+                total -= storedBytes(entry);
+                log.info("Evicting image cache entry {}", entry.getFileName());
+                deleteEntry(entry);
+            }
+        }
+    }
+
+    private void compress(Path entry) {
+        Path data = entry.resolve(DATA_FILE);
+        Path temp = entry.resolve(COMPRESSED_DATA_FILE + ".tmp");
+        FileTime used = lastUsed(entry);
+        try {
+            try (InputStream in = Files.newInputStream(data);
+                 OutputStream out = new ZstdOutputStream(Files.newOutputStream(temp), 3)) {
+                in.transferTo(out);
+            }
+            Files.move(temp, entry.resolve(COMPRESSED_DATA_FILE), StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(data);
+            Files.setLastModifiedTime(entry.resolve(ENTRY_FILE), used);
+            log.info("Compressed cold image cache entry {}", entry.getFileName());
+        } catch (IOException e) {
+            log.warn("Failed to compress image cache entry {}: {}", entry, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // the next trim retries
+            }
+        }
+    }
+
+    private static FileTime lastUsed(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry.resolve(ENTRY_FILE));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long storedBytes(Path entry) {
+        long total = 0;
+        for (String name : List.of(DATA_FILE, COMPRESSED_DATA_FILE)) {
+            try {
+                total += Files.isRegularFile(entry.resolve(name)) ? Files.size(entry.resolve(name)) : 0;
+            } catch (IOException e) {
+                log.debug("Failed to size {}: {}", entry.resolve(name), e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    private static void deleteEntry(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete image cache entry {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private static Properties loadProperties(Path file) {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable image cache file {}: {}", file, e.getMessage());
+            }
+        }
+        return properties;
+    }
+
+    private static void storeProperties(Path file, Properties properties, String comment) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, comment);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.isoburn.service;
+
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BandwidthThrottle;
+import com.isoburn.util.IsoLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Treats sparse image files under a root directory as removable drives, so
+ * complete burns can run without diskutil or hdiutil. Each drive "imageN" is
+ * backed by {@code imageN.img} sized to the configured capacity, and its
+ * formatted volume is the directory {@code imageN.volume}. ISO sources must
+ * be passed as already extracted directory trees. Such a tree is given the
+ * layout an ISO writer would produce, files in path order, and reading out of
+ * that order can be charged a seek delay to model an optical or spinning
+ * source.
+ */
+@Service
+@ConditionalOnProperty(name = "isoburn.disk-backend", havingValue = "image")
+public class ImageFileDiskBackend implements DiskBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageFileDiskBackend.class);
+
+    private static final String IMAGE_SUFFIX = ".img";
+    private static final String VOLUME_SUFFIX = ".volume";
+
+    @Value("${isoburn.image-backend.root:${java.io.tmpdir}/isoburn-drives}")
+    private String root;
+
+    @Value("${isoburn.image-backend.drive-count:1}")
+    private int driveCount;
+
+    @Value("${isoburn.image-backend.drive-size-gb:16}")
+    private long driveSizeGb;
+
+    @Value("${isoburn.image-backend.bandwidth-mbps:0}")
+    private long bandwidthMbps;
+
+    @Value("${isoburn.image-backend.latency-ms:0}")
+    private long latencyMs;
+
+    @Value("${isoburn.image-backend.source-seek-ms:0}")
+    private long sourceSeekMs;
+
+    private volatile BandwidthThrottle throttle;
+
+    @Override
+    public List<RemovableDrive> detectDrives() {
+        List<RemovableDrive> drives = new ArrayList<>();
+        try {
+            Path rootPath = Paths.get(root);
+            Files.createDirectories(rootPath);
+
+            for (int i = 0; i < driveCount; i++) {
+                Path image = rootPath.resolve("image" + i + IMAGE_SUFFIX);
+                if (!Files.exists(image)) {
+                    createSparseImage(image, driveSizeGb * 1_000_000_000L);
+                }
+            }
+
+            try (Stream<Path> images = Files.list(rootPath)) {
+                images.filter(p -> p.getFileName().toString().endsWith(IMAGE_SUFFIX))
+                    .sorted()
+                    .forEach(p -> drives.add(toDrive(p)));
+            }
+        } catch (IOException e) {
+            log.error("Error detecting image drives", e);
+        }
+        return drives;
+    }
+
+    @Override
+    public boolean isDriveAvailable(RemovableDrive drive) {
+        return Files.isRegularFile(imagePath(drive));
+    }
+
+    @Override
+    public boolean unmountDrive(RemovableDrive drive) {
+        return true;
+    }
+
+    @Override
+    public boolean formatDrive(RemovableDrive drive, String volumeName) {
+        try {
+            log.info("Formatting image drive: {}", drive.getDeviceIdentifier());
+            Path image = imagePath(drive);
+            long size = Files.size(image);
+            Files.delete(image);
+            createSparseImage(image, size);
+
+            Path volume = volumePath(drive);
+            deleteRecursively(volume);
+            Files.createDirectories(volume);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to format image drive", e);
+            return false;
+        }
+    }
+
+    @Override
+    public String mountDrive(RemovableDrive drive) {
+        Path volume = volumePath(drive);
+        return Files.isDirectory(volume) ? volume.toString() : null;
+    }
+
+    @Override
+    public String mountIso(File isoFile) {
+        if (!isoFile.isDirectory()) {
+            log.error("Image backend requires an extracted ISO directory, got: {}", isoFile);
+            return null;
+        }
+        return isoFile.getAbsolutePath();
+    }
+
+    @Override
+    public void unmountIso(String mountPoint) {
+    }
+
+    @Override
+    public IsoLayout sourceLayout(File isoFile) {
+        if (!isoFile.isDirectory()) {
+            return DiskBackend.super.sourceLayout(isoFile);
+        }
+        Path root = isoFile.toPath().toAbsolutePath();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                .sorted((a, b) -> relativePath(root, a).compareTo(relativePath(root, b)))
+                .toList();
+        } catch (IOException e) {
+            log.warn("Failed to lay out source {}", root, e);
+            return IsoLayout.EMPTY;
+        }
+
+        Map<String, Long> starts = new HashMap<>();
+        long block = 0;
+        for (Path file : files) {
+            starts.put(IsoLayout.normalize(relativePath(root, file)), block);
+            block += blocks(file.toFile().length());
+        }
+        return new IsoLayout(starts);
+    }
+
+    @Override
+    public SourceReader sourceReader() {
+        if (sourceSeekMs <= 0) {
+            return DiskBackend.super.sourceReader();
+        }
+        long[] nextBlock = {-1};
+        return (file, startBlock) -> {
+            if (startBlock >= 0) {
+                if (startBlock != nextBlock[0]) {
+                    try {
+                        Thread.sleep(sourceSeekMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                nextBlock[0] = startBlock + blocks(Files.size(file));
+            }
+            return FileChannel.open(file, StandardOpenOption.READ);
+        };
+    }
+
+    private static long blocks(long bytes) {
+        return (bytes + 2047) / 2048;
+    }
+
+    private static String relativePath(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    @Override
+    public String findVolumeMountPoint(RemovableDrive drive, String volumeName) {
+        Path volume = volumePath(drive);
+        if (!Files.isDirectory(volume)) {
+            log.error("Image drive {} has not been formatted", drive.getDeviceIdentifier());
+            return null;
+        }
+        return volume.toString();
+    }
+
+    @Override
+    public void ejectDrive(RemovableDrive drive) {
+        log.info("Image drive ejected: {}", drive.getDeviceIdentifier());
+    }
+
+    @Override
+    public FileChannel openRawDevice(RemovableDrive drive) throws IOException {
+        // A raw write replaces whatever volume the drive held
+        deleteRecursively(volumePath(drive));
+        return FileChannel.open(imagePath(drive), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public FileChannel readRawDevice(RemovableDrive drive) throws IOException {
+        return FileChannel.open(imagePath(drive), StandardOpenOption.READ);
+    }
+
+    @Override
+    public BandwidthThrottle writeThrottle() {
+        BandwidthThrottle current = throttle;
+        if (current == null) {
+            // Probe, burn and verification threads must all share the one throttle
+            synchronized (this) {
+                if (throttle == null) {
+                    throttle = new BandwidthThrottle(IoLimiter.bytesPerSecond(bandwidthMbps), latencyMs);
+                }
+                current = throttle;
+            }
+        }
+        return current;
+    }
+
+    private RemovableDrive toDrive(Path image) {
+        String fileName = image.getFileName().toString();
+        String id = fileName.substring(0, fileName.length() - IMAGE_SUFFIX.length());
+        long size = image.toFile().length();
+        return RemovableDrive.builder()
+                .deviceIdentifier(id)
+                .name(id)
+                .sizeBytes(size)
+                .mountPoint(Files.isDirectory(image.resolveSibling(id + VOLUME_SUFFIX))
+                    ? image.resolveSibling(id + VOLUME_SUFFIX).toString() : null)
+                .removable(true)
+                .external(true)
+                .busProtocol("Image File")
+                .model("Image drive")
+                .build();
+    }
+
+    private Path imagePath(RemovableDrive drive) {
+        return Paths.get(root, drive.getDeviceIdentifier() + IMAGE_SUFFIX);
+    }
+
+    private Path volumePath(RemovableDrive drive) {
+        return Paths.get(root, drive.getDeviceIdentifier() + VOLUME_SUFFIX);
+    }
+
+    private static void createSparseImage(Path image, long sizeBytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(image.toFile(), "rw")) {
+            raf.setLength(sizeBytes);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.BurnResult;
+import com.isoburn.util.BandwidthThrottle.Priority;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.IoBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Checks an image against its SHA-256 checksum: the one given, or the one in
+ * a {@code <image>.sha256} file next to it. The image is read at
+ * verification priority, so on a shared source disk it yields to running
+ * burns. Several verifications may run at once, and alongside a burn.
+ */
+@Service
+public class ImageVerifyService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageVerifyService.class);
+
+    private static final int BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final BufferPool bufferPool;
+
+    public ImageVerifyService(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    // Without a checksum given or found, the result only reports the image's SHA-256
+    public BurnResult verify(File image, String expectedSha256, IoBudget io, Consumer<BurnProgress> progressCallback,
+                             BooleanSupplier cancelled) {
+        long startTime = System.currentTimeMillis();
+        String expected = expectedSha256 != null && !expectedSha256.isBlank() ? expectedSha256.strip()
+            : sidecarChecksum(image.toPath());
+
+        progressCallback.accept(BurnProgress.of(Phase.VERIFYING, 0, "Verifying " + image.getName() + "..."));
+        CopyProgress progress = new CopyProgress(Phase.VERIFYING, "Verifying image...", image.length(),
+            progressCallback);
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = null;
+        try (FileChannel in = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+            buffer = bufferPool.acquire(BUFFER_SIZE);
+            int read;
+            while ((read = in.read(buffer.clear())) > 0) {
+                if (cancelled.getAsBoolean()) {
+                    return BurnResult.cancelled();
+                }
+                io.read(read, Priority.VERIFY);
+                digest.update(buffer.flip());
+                progress.add(read);
+            }
+        } catch (InterruptedIOException e) {
+            return BurnResult.cancelled();
+        } catch (IOException e) {
+            log.warn("Failed to verify {}: {}", image, e.getMessage());
+            return BurnResult.failure("Verification failed", e.getMessage());
+        } finally {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+        }
+
+        String actual = HexFormat.of().formatHex(digest.digest());
+        long duration = System.currentTimeMillis() - startTime;
+        BurnResult result;
+        if (expected == null) {
+            result = BurnResult.success("SHA-256 of " + image.getName() + ": " + actual);
+        } else if (expected.equalsIgnoreCase(actual)) {
+            result = BurnResult.success("Checksum matches: " + actual);
+        } else {
+            result = BurnResult.failure("Checksum mismatch", "Expected " + expected.toLowerCase(Locale.ROOT)
+                + ", image has " + actual);
+        }
+        result.setDurationMillis(duration);
+        log.info("Verified {} in {} ms: {}", image, duration, result.getMessage());
+        progressCallback.accept(BurnProgress.of(Phase.COMPLETE, 100, result.getMessage()));
+        return result;
+    }
+
+    // The first word of "<image>.sha256", as written by sha256sum; null when there is none
+    private static String sidecarChecksum(Path image) {
+        Path sidecar = image.resolveSibling(image.getFileName() + ".sha256");
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(sidecar, StandardCharsets.UTF_8).strip();
+            return content.isEmpty() ? null : content.split("\\s+")[0];
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable checksum file {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
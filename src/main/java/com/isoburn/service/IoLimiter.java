@@ -0,0 +1,99 @@
+package com.isoburn.service;
+
+import com.isoburn.model.IoLimits;
+import com.isoburn.util.BandwidthThrottle;
+import com.isoburn.util.IoBudget;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Read and write bandwidth shared by everything this process burns and
+ * verifies, and a budget per job on top of it. Verification reads yield to
+ * burn reads: while both run, verification gets {@code verify-share} of the
+ * shared read bandwidth, or of what the burn and verifications read together
+ * when no read limit is set. Burns run one at a time on the job worker, so
+ * the share is split between that burn and the verifications. All limits can
+ * be changed while jobs run.
+ */
+@Service
+public class IoLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(IoLimiter.class);
+
+    private final DiskBackend diskBackend;
+
+    @Value("${isoburn.io.read-limit-mbps:0}")
+    private int readLimitMbps;
+
+    @Value("${isoburn.io.write-limit-mbps:0}")
+    private int writeLimitMbps;
+
+    @Value("${isoburn.io.verify-share:0.1}")
+    private double verifyShare = 0.1;
+
+    @Value("${isoburn.io.burst-ms:250}")
+    private long burstMs = 250;
+
+    private BandwidthThrottle read;
+    private BandwidthThrottle write;
+
+    public IoLimiter(DiskBackend diskBackend) {
+        this.diskBackend = diskBackend;
+    }
+
+    @PostConstruct
+    public void init() {
+        read = new BandwidthThrottle(bytesPerSecond(readLimitMbps), 0, burstMs, verifyShare);
+        write = new BandwidthThrottle(bytesPerSecond(writeLimitMbps), 0, burstMs, verifyShare);
+        if (readLimitMbps > 0 || writeLimitMbps > 0) {
+            log.info("Shared I/O limits: read {}, write {}", describe(readLimitMbps), describe(writeLimitMbps));
+        }
+    }
+
+    // Limits in MB/s, 0 for none
+    public IoBudget budget(int jobReadLimitMbps, int jobWriteLimitMbps) {
+        return new IoBudget(bytesPerSecond(jobReadLimitMbps), bytesPerSecond(jobWriteLimitMbps), burstMs,
+            List.of(read), List.of(write, diskBackend.writeThrottle()));
+    }
+
+    public synchronized IoLimits limits() {
+        return IoLimits.builder()
+                .readLimitMbps(readLimitMbps)
+                .writeLimitMbps(writeLimitMbps)
+                .verifyShare(read.getVerifyShare())
+                .build();
+    }
+
+    // Fields left null keep their value; returns the limits now in force
+    public synchronized IoLimits setLimits(IoLimits limits) {
+        if (limits.getReadLimitMbps() != null) {
+            readLimitMbps = Math.max(0, limits.getReadLimitMbps());
+            read.setBytesPerSecond(bytesPerSecond(readLimitMbps));
+        }
+        if (limits.getWriteLimitMbps() != null) {
+            writeLimitMbps = Math.max(0, limits.getWriteLimitMbps());
+            write.setBytesPerSecond(bytesPerSecond(writeLimitMbps));
+        }
+        if (limits.getVerifyShare() != null) {
+            read.setVerifyShare(limits.getVerifyShare());
+            write.setVerifyShare(limits.getVerifyShare());
+        }
+        log.info("Shared I/O limits now: read {}, write {}, verification share {}",
+            describe(readLimitMbps), describe(writeLimitMbps), read.getVerifyShare());
+        return limits();
+    }
+
+    // A MB is 1024 * 1024 bytes here, as in the buffer, chunk and cache size settings
+    static long bytesPerSecond(long mbps) {
+        return mbps > 0 ? mbps * 1024 * 1024 : 0;
+    }
+
+    private static String describe(int mbps) {
+        return mbps > 0 ? mbps + " MB/s" : "unlimited";
+    }
+}
@@ -1,10 +1,28 @@
 package com.isoburn.service;
 
+import com.isoburn.jfr.BurnFlightRecorder;
+import com.isoburn.jfr.FileCopyEvent;
+import com.isoburn.model.BurnEstimate;
+import com.isoburn.model.BurnOptions;
 import com.isoburn.model.BurnProgress;
 import com.isoburn.model.BurnProgress.Phase;
 import com.isoburn.model.BurnResult;
+import com.isoburn.model.DriveManifest;
+import com.isoburn.model.DriveProbeResult;
 import com.isoburn.model.RemovableDrive;
-import com.isoburn.util.PlistParser;
+import com.isoburn.util.BlockMap;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.BurnJournal;
+import com.isoburn.util.BurnReportWriter;
+import com.isoburn.util.ChunkHasher;
+import com.isoburn.util.DriveManifestStore;
+import com.isoburn.util.ImageDecompressor;
+import com.isoburn.util.IoBudget;
+import com.isoburn.util.PathRules;
+import com.isoburn.util.SourceManifest;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jdk.jfr.Recording;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,11 +31,26 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.concurrent.atomic.AtomicLong;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @Service
 public class IsoBurnService {
@@ -25,33 +58,116 @@ public class IsoBurnService {
     private static final Logger log = LoggerFactory.getLogger(IsoBurnService.class);
 
     private final CommandExecutor commandExecutor;
-    private final PlistParser plistParser;
     private final WimSplitService wimSplitService;
-    private final DriveDetectionService driveDetectionService;
+    private final DiskBackend diskBackend;
+    private final MeterRegistry meterRegistry;
+    private final BurnReportWriter reportWriter;
+    private final BurnFlightRecorder flightRecorder;
+    private final DriveManifestStore manifestStore;
+    private final IsoDownloadService downloadService;
+    private final ImageCacheService imageCache;
+    private final BufferPool bufferPool;
+    private final DriveProbeService driveProbe;
+    private final BurnPredictor predictor;
+    private final IoLimiter ioLimiter;
 
     @Value("${isoburn.volume-name:ISOBURN}")
     private String volumeName;
 
-    private static final int COPY_BUFFER_SIZE = 8 * 1024 * 1024; // 8MB buffer for fast copying
+    @Value("${isoburn.copy-buffer-size-kb:8192}")
+    private int copyBufferSizeKb = 8192; // 8MB buffer for fast copying
+
+    @Value("${isoburn.jfr.file-copy-min-bytes:1048576}")
+    private long fileCopyEventMinBytes = 1048576;
+
+    @Value("${isoburn.manifest.enabled:true}")
+    private boolean manifestEnabled = true;
+
+    @Value("${isoburn.manifest.chunk-size-kb:4096}")
+    private int manifestChunkSizeKb = 4096;
+
+    @Value("${isoburn.journal.enabled:true}")
+    private boolean journalEnabled = true;
+
+    @Value("${isoburn.journal.checkpoint-mb:64}")
+    private long journalCheckpointMb = 64;
+
+    @Value("${isoburn.flush.policy:window}")
+    private String flushPolicy = "window";
+    private WriteBack.Policy writeBackPolicy = WriteBack.Policy.WINDOW;
+
+    @Value("${isoburn.flush.threshold-mb:64}")
+    private long flushThresholdMb = 64;
+
+    @Value("${isoburn.copy-order:extent}")
+    private String copyOrder = "extent";
+
+    @Value("${isoburn.bmap.enabled:true}")
+    private boolean blockMapEnabled = true;
+
+    @Value("${isoburn.bmap.block-size-kb:4}")
+    private int blockMapBlockSizeKb = 4;
+
+    @Value("${isoburn.source-index.directory:}")
+    private String sourceIndexDirectory;
+
+    @Value("${isoburn.parallel-phases:true}")
+    private boolean parallelPhases = true;
+
+    @Value("${isoburn.decompress.threads:0}")
+    private int decompressThreads;
+
+    @Value("${isoburn.decompress.directory:}")
+    private String decompressDirectory = "";
+
+    private static final String INSTALL_WIM_PATH = SourceManifest.INSTALL_WIM_PATH;
 
     private volatile String mountedIsoPath = null;
+    private volatile BurnJournal journal = null;
     private volatile boolean isCancelled = false;
-
-    public IsoBurnService(CommandExecutor commandExecutor, PlistParser plistParser,
-                          WimSplitService wimSplitService, DriveDetectionService driveDetectionService) {
+    private volatile long cancelRequestedNanos = 0;
+    private volatile IoBudget io = IoBudget.unlimited();
+    private volatile DiskBackend.SourceReader sources;
+
+    public IsoBurnService(CommandExecutor commandExecutor, WimSplitService wimSplitService,
+                          DiskBackend diskBackend, MeterRegistry meterRegistry,
+                          BurnReportWriter reportWriter, BurnFlightRecorder flightRecorder,
+                          DriveManifestStore manifestStore, IsoDownloadService downloadService,
+                          ImageCacheService imageCache, BufferPool bufferPool, DriveProbeService driveProbe,
+                          BurnPredictor predictor, IoLimiter ioLimiter) {
         this.commandExecutor = commandExecutor;
-        this.plistParser = plistParser;
         this.wimSplitService = wimSplitService;
-        this.driveDetectionService = driveDetectionService;
+        this.diskBackend = diskBackend;
+        this.sources = diskBackend.sourceReader();
+        this.meterRegistry = meterRegistry;
+        this.reportWriter = reportWriter;
+        this.flightRecorder = flightRecorder;
+        this.manifestStore = manifestStore;
+        this.downloadService = downloadService;
+        this.imageCache = imageCache;
+        this.bufferPool = bufferPool;
+        this.driveProbe = driveProbe;
+        this.predictor = predictor;
+        this.ioLimiter = ioLimiter;
     }
 
     public void cancel() {
+        if (!isCancelled) {
+            cancelRequestedNanos = System.nanoTime();
+        }
         isCancelled = true;
         commandExecutor.cancel();
     }
 
+    // Changes the read and write limits of the running burn, in MB/s with 0 for none
+    public void setLimits(int readLimitMbps, int writeLimitMbps) {
+        io.setLimits(IoLimiter.bytesPerSecond(readLimitMbps), IoLimiter.bytesPerSecond(writeLimitMbps));
+        log.debug("Burn I/O limits now: read {} MB/s, write {} MB/s (0 is unlimited)", readLimitMbps, writeLimitMbps);
+    }
+
     public void reset() {
         isCancelled = false;
+        cancelRequestedNanos = 0;
         commandExecutor.reset();
         mountedIsoPath = null;
     }
@@ -59,7 +175,179 @@ public class IsoBurnService {
     public BurnResult burn(File isoFile, RemovableDrive targetDrive,
                            boolean bootable, boolean handleLargeWim,
                            Consumer<BurnProgress> progressCallback) {
+        return burn(isoFile, targetDrive, BurnOptions.builder()
+                .bootable(bootable)
+                .handleLargeWim(handleLargeWim)
+                .build(), progressCallback);
+    }
+
+    public BurnResult burn(File isoFile, RemovableDrive targetDrive, BurnOptions options,
+                           Consumer<BurnProgress> progressCallback) {
+        return burn(isoFile, targetDrive, options, progressCallback, () -> false);
+    }
+
+    /**
+     * Burns unless {@code cancelRequested} is already true once the previous
+     * burn's state is cleared: a {@link #cancel()} that raced with the start
+     * of the burn is otherwise wiped out by that reset.
+     */
+    public BurnResult burn(File isoFile, RemovableDrive targetDrive, BurnOptions options,
+                           Consumer<BurnProgress> progressCallback, BooleanSupplier cancelRequested) {
+        if (!start(options, cancelRequested)) {
+            return BurnResult.cancelled();
+        }
+        return burnFile(isoFile, targetDrive, options, progressCallback);
+    }
+
+    /**
+     * Downloads the image with concurrent range requests and burns it. The
+     * image has to be complete before it can be mounted, so the download lands
+     * in the download cache, or a temporary file removed afterwards.
+     */
+    public BurnResult burn(URI isoUrl, RemovableDrive targetDrive, BurnOptions options,
+                           Consumer<BurnProgress> progressCallback) {
+        return burn(isoUrl, targetDrive, options, progressCallback, () -> false);
+    }
+
+    public BurnResult burn(URI isoUrl, RemovableDrive targetDrive, BurnOptions options,
+                           Consumer<BurnProgress> progressCallback, BooleanSupplier cancelRequested) {
+        if (!start(options, cancelRequested)) {
+            return BurnResult.cancelled();
+        }
+        if (!diskBackend.isDriveAvailable(targetDrive)) {
+            return BurnResult.failure("Drive not available",
+                "The selected drive is no longer available: " + targetDrive.getDeviceIdentifier());
+        }
+
+        progressCallback.accept(BurnProgress.of(Phase.DOWNLOADING, 0, "Downloading " + isoUrl + "..."));
+        IsoDownloadService.Download download;
+        try {
+            download = downloadService.fetch(isoUrl, () -> isCancelled, progressCallback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BurnResult.cancelled();
+        } catch (IOException e) {
+            if (isCancelled) {
+                return BurnResult.cancelled();
+            }
+            log.error("Download of {} failed", isoUrl, e);
+            return BurnResult.failure("Download failed", e.getMessage());
+        }
+        if (isCancelled) {
+            download.discard();
+            return BurnResult.cancelled();
+        }
+
+        try {
+            return burnFile(download.file(), targetDrive, options, progressCallback);
+        } finally {
+            download.discard();
+        }
+    }
+
+    // A misspelt policy fails startup rather than a burn that has already formatted the drive
+    @PostConstruct
+    public void init() {
+        writeBackPolicy = WriteBack.Policy.parse(flushPolicy);
+    }
+
+    // Returns false when the burn was cancelled before it started
+    private boolean start(BurnOptions options, BooleanSupplier cancelRequested) {
         reset();
+        io = ioLimiter.budget(options.getReadLimitMbps(), options.getWriteLimitMbps());
+        sources = diskBackend.sourceReader();
+        return !cancelRequested.getAsBoolean();
+    }
+
+    private BurnResult burnFile(File isoFile, RemovableDrive targetDrive, BurnOptions options,
+                                Consumer<BurnProgress> progressCallback) {
+        Recording recording = flightRecorder.start();
+        BurnRecorder recorder = new BurnRecorder(meterRegistry, progressCallback, isoFile, targetDrive);
+        BurnEstimate estimate = predictor.estimate(isoFile, targetDrive, options);
+        recorder.estimate(estimate);
+        if (estimate != null) {
+            recorder.accept(BurnProgress.of(Phase.PREPARING, "Estimated time: " + estimate.getSummary()));
+        }
+        String slowWarning = predictor.slowDriveWarning(targetDrive);
+        if (slowWarning != null) {
+            log.warn("Slow drive model: {}", slowWarning);
+            recorder.accept(BurnProgress.of(Phase.PREPARING, "Warning: " + slowWarning));
+        }
+
+        BurnResult result;
+        Path decompressed = null;
+        try {
+            if (!options.isRawWrite()
+                    && ImageDecompressor.Format.detect(isoFile.toPath()) != ImageDecompressor.Format.NONE) {
+                decompressed = decompress(isoFile, recorder);
+            }
+            result = runBurn(decompressed != null ? decompressed.toFile() : isoFile, isoFile, targetDrive, options,
+                recorder);
+        } catch (IOException e) {
+            if (isCancelled || commandExecutor.isCancelled()) {
+                result = BurnResult.cancelled();
+            } else {
+                log.error("Failed to decompress {}", isoFile, e);
+                result = BurnResult.failure("Failed to decompress image", e.getMessage());
+            }
+        } finally {
+            if (decompressed != null) {
+                try {
+                    Files.deleteIfExists(decompressed);
+                } catch (IOException e) {
+                    log.warn("Failed to delete decompressed image {}: {}", decompressed, e.getMessage());
+                }
+            }
+        }
+
+        String outcome = result.isSuccess() ? "success" : isCancelled ? "cancelled" : "failure";
+        if (isCancelled && cancelRequestedNanos != 0) {
+            meterRegistry.timer("isoburn.burn.cancel.latency")
+                .record(Duration.ofNanos(System.nanoTime() - cancelRequestedNanos));
+        }
+
+        result.setReport(recorder.finish(outcome));
+        reportWriter.write(result.getReport());
+        predictor.record(result.getReport());
+        flightRecorder.stop(recording, result.getReport());
+        return result;
+    }
+
+    /*
+     * Mounting needs a plain image, so compressed sources are expanded to a
+     * scratch file first. It keeps the source's base name and modification time
+     * so the journal of an interrupted burn still matches on the next attempt.
+     */
+    private Path decompress(File isoFile, BurnRecorder recorder) throws IOException {
+        Path dir = decompressDirectory.isBlank()
+            ? Paths.get(System.getProperty("java.io.tmpdir"), "isoburn-images")
+            : Paths.get(decompressDirectory);
+        Files.createDirectories(dir);
+        String name = isoFile.getName().replaceFirst("(?i)\\.(gz|xz|zst)$", "");
+        Path target = dir.resolve(name.equals(isoFile.getName()) ? name + ".img" : name);
+
+        recorder.accept(BurnProgress.of(Phase.DECOMPRESSING, 0, "Decompressing " + isoFile.getName() + "..."));
+        CopyProgress progress = new CopyProgress(Phase.DECOMPRESSING, "Decompressing image...",
+            isoFile.length(), recorder);
+        try {
+            long length = decompressor().decompress(isoFile.toPath(), target, progress::add,
+                () -> isCancelled || commandExecutor.isCancelled());
+            Files.setLastModifiedTime(target, Files.getLastModifiedTime(isoFile.toPath()));
+            log.info("Decompressed {} to {} ({} bytes)", isoFile, target, length);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    private ImageDecompressor decompressor() {
+        return new ImageDecompressor(decompressThreads > 0 ? decompressThreads
+            : Runtime.getRuntime().availableProcessors(), bufferPool);
+    }
+
+    private BurnResult runBurn(File isoFile, File sourceFile, RemovableDrive targetDrive, BurnOptions options,
+                               BurnRecorder recorder) {
         long startTime = System.currentTimeMillis();
 
         try {
@@ -68,92 +356,178 @@ public class IsoBurnService {
                     "Cannot read file: " + isoFile.getAbsolutePath());
             }
 
-            if (!driveDetectionService.isDriveAvailable(targetDrive.getDeviceIdentifier())) {
+            if (!diskBackend.isDriveAvailable(targetDrive)) {
                 return BurnResult.failure("Drive not available",
                     "The selected drive is no longer available: " + targetDrive.getDeviceIdentifier());
             }
 
-            progressCallback.accept(BurnProgress.of(Phase.UNMOUNTING, "Unmounting drive..."));
-            if (!unmountDrive(targetDrive)) {
-                return BurnResult.failure("Failed to unmount drive",
-                    "Could not unmount " + targetDrive.getDeviceIdentifier());
+            PathRules rules;
+            try {
+                rules = PathRules.compile(options.getIncludeRules(), options.getExcludeRules());
+            } catch (IllegalArgumentException e) {
+                return BurnResult.failure("Invalid content rules", e.getMessage());
             }
-            checkCancelled();
 
-            progressCallback.accept(BurnProgress.of(Phase.FORMATTING, "Formatting drive as FAT32..."));
-            if (!formatDrive(targetDrive)) {
-                return BurnResult.failure("Failed to format drive",
-                    "Could not format " + targetDrive.getDeviceIdentifier());
+            if (options.isRawWrite()) {
+                if (!rules.isEmpty()) {
+                    recorder.accept(BurnProgress.of(Phase.PREPARING,
+                        "Content rules do not apply to raw writes; writing the whole image"));
+                }
+                BurnResult refused = checkTarget(targetDrive, options.isProbeDrive(), recorder);
+                if (refused != null) {
+                    return refused;
+                }
+                recorder.mode("raw");
+                return rawBurn(isoFile, targetDrive, recorder, startTime);
             }
-            checkCancelled();
 
-            progressCallback.accept(BurnProgress.of(Phase.MOUNTING_ISO, "Mounting ISO image..."));
-            String isoMountPoint = mountIso(isoFile);
-            if (isoMountPoint == null) {
-                return BurnResult.failure("Failed to mount ISO",
-                    "Could not mount " + isoFile.getName());
+            String usbMountPoint = null;
+            DriveManifest previous = null;
+            BurnJournal.State resume = null;
+            if (options.isDifferential() || journalEnabled) {
+                recorder.accept(BurnProgress.of(Phase.PREPARING, "Checking drive for a previous burn..."));
+                String existing = diskBackend.mountDrive(targetDrive);
+                if (existing != null) {
+                    resume = journalEnabled ? readJournal(Paths.get(existing), isoFile, rules) : null;
+                    if (resume == null && options.isDifferential()) {
+                        previous = manifestStore.read(Paths.get(existing));
+                        previous = isUsableManifest(previous) ? previous : null;
+                    }
+                    if (resume != null || previous != null) {
+                        usbMountPoint = existing;
+                    }
+                }
+                if (resume != null) {
+                    recorder.accept(BurnProgress.of(Phase.PREPARING, String.format(
+                        "Resuming interrupted burn (%d files already copied)", resume.getCompleted().size())));
+                } else if (options.isDifferential() && previous == null) {
+                    recorder.accept(BurnProgress.of(Phase.PREPARING,
+                        "No usable manifest on drive, performing full burn"));
+                }
+                checkCancelled();
             }
-            checkCancelled();
 
-            WimSplitService.WimCheckResult wimCheck = null;
-            if (handleLargeWim) {
-                progressCallback.accept(BurnProgress.of(Phase.CHECKING_WIM, "Checking for large WIM file..."));
-                wimCheck = wimSplitService.checkWimFile(isoMountPoint);
+            // The test erases the drive, so it is skipped when updating or resuming in place
+            if (options.isProbeDrive() && (previous != null || resume != null)) {
+                recorder.accept(BurnProgress.of(Phase.PREPARING, "Skipping drive test: the drive is updated in place"));
+            }
+            BurnResult refused = checkTarget(targetDrive, options.isProbeDrive() && previous == null && resume == null,
+                recorder);
+            if (refused != null) {
+                return refused;
+            }
 
-                if (wimCheck.needsSplit()) {
-                    if (!wimSplitService.isWimlibInstalled()) {
-                        cleanup();
-                        return BurnResult.failure("wimlib not installed",
-                            wimSplitService.getWimlibInstallInstructions());
-                    }
+            String cacheKey = null;
+            if (previous == null && resume == null && imageCache.isEnabled() && isoFile.isFile()
+                    && targetDrive.getSizeBytes() > 0) {
+                cacheKey = imageCacheKey(isoFile, targetDrive, options, rules, recorder);
+                ImageCacheService.Entry cached = imageCache.find(cacheKey);
+                if (cached != null) {
+                    recorder.mode("cached");
+                    return cachedBurn(cached, targetDrive, recorder, startTime);
                 }
-            } else {
-                wimCheck = new WimSplitService.WimCheckResult(false, null, 0);
             }
-            checkCancelled();
 
-            String usbMountPoint = findUsbMountPoint();
-            if (usbMountPoint == null) {
-                cleanup();
-                return BurnResult.failure("USB drive not mounted",
-                    "The formatted drive could not be found");
+            boolean fullBurn = previous == null && resume == null;
+            recorder.mode(previous != null ? "update" : resume != null ? "resume" : "full");
+            DriveManifest previousManifest = previous;
+            BurnJournal.State resumeState = resume;
+            DriveManifest.Entry previousWim = previous != null ? findSplitEntry(previous.getEntries()) : null;
+            PhaseGraph graph = new PhaseGraph(recorder, parallelPhases);
+
+            // The drive is formatted while the ISO is mounted and indexed
+            PhaseGraph.Step<String> volume = graph.done(usbMountPoint);
+            if (fullBurn) {
+                PhaseGraph.Step<Void> unmounted = graph.step(Phase.UNMOUNTING, () -> {
+                    recorder.accept(BurnProgress.of(Phase.UNMOUNTING, "Unmounting drive..."));
+                    if (!diskBackend.unmountDrive(targetDrive)) {
+                        throw new BurnFailedException(BurnResult.failure("Failed to unmount drive",
+                            "Could not unmount " + targetDrive.getDeviceIdentifier()));
+                    }
+                    checkCancelled();
+                    return null;
+                });
+                volume = graph.step(Phase.FORMATTING, () -> formatTarget(targetDrive, recorder), unmounted);
             }
 
-            progressCallback.accept(BurnProgress.of(Phase.COPYING, 0, "Starting file copy..."));
-            if (!copyFiles(isoMountPoint, usbMountPoint, wimCheck, progressCallback)) {
+            PhaseGraph.Step<String> isoMount = graph.step(Phase.MOUNTING_ISO, () -> mountSource(isoFile, recorder));
+            PhaseGraph.Step<WimSplitService.WimCheckResult> wim = options.isHandleLargeWim()
+                    && rules.includes(INSTALL_WIM_PATH)
+                ? graph.step(Phase.CHECKING_WIM, () -> checkWim(isoMount.get(), recorder), isoMount)
+                : graph.done(new WimSplitService.WimCheckResult(false, null, 0));
+            PhaseGraph.Step<SourceManifest> source = graph.step(Phase.INDEXING,
+                () -> sourceManifest(isoFile, isoMount.get(), rules, recorder), isoMount);
+
+            PhaseGraph.Step<String> usbVolume = volume;
+            CopyProgress copyProgress = new CopyProgress(Phase.COPYING, "Copying files...", 0, recorder);
+            PhaseGraph.Step<List<DriveManifest.Entry>> copied = graph.step(Phase.COPYING, () -> {
+                List<DriveManifest.Entry> entries;
+                if (previousManifest != null) {
+                    // Invalidate first so an interrupted update falls back to a full burn next time
+                    manifestStore.delete(Paths.get(usbVolume.get()));
+                    entries = updateChangedFiles(isoMount.get(), usbVolume.get(), wim.get(), source.get(),
+                        previousManifest, recorder);
+                } else {
+                    if (resumeState != null) {
+                        recorder.accept(BurnProgress.of(Phase.PREPARING, "Validating interrupted burn..."));
+                        validateResume(resumeState, Paths.get(usbVolume.get()));
+                        checkCancelled();
+                    }
+                    recorder.accept(BurnProgress.of(Phase.COPYING, 0, "Starting file copy..."));
+                    entries = copyFiles(isoMount.get(), usbVolume.get(), wim.get(), source.get(),
+                        contentKey(isoFile, rules), resumeState, copyProgress, recorder);
+                }
+                if (entries == null) {
+                    checkCancelled();
+                    throw new BurnFailedException(BurnResult.failure("Failed to copy files",
+                        "File copy operation failed"));
+                }
+                checkCancelled();
+                return entries;
+            }, volume, wim, source);
+
+            // An update compares install.wim against the copy's hashes; otherwise the split runs alongside the copy
+            PhaseGraph.Step<DriveManifest.Entry> split = graph.step(Phase.SPLITTING_WIM,
+                () -> wim.get().needsSplit() || previousWim != null,
+                () -> splitWim(wim.get(), usbVolume.get(), previousWim,
+                    previousManifest != null ? copied.get() : null, previousManifest != null ? null : copyProgress,
+                    recorder),
+                previousManifest != null ? new PhaseGraph.Step<?>[] {volume, wim, copied}
+                    : new PhaseGraph.Step<?>[] {volume, wim});
+
+            try {
+                graph.run();
+            } catch (BurnFailedException e) {
                 cleanup();
-                return BurnResult.failure("Failed to copy files",
-                    "File copy operation failed");
+                return e.result;
+            }
+            usbMountPoint = volume.get();
+            List<DriveManifest.Entry> entries = copied.get();
+            if (split.get() != null) {
+                entries.add(split.get());
             }
             checkCancelled();
 
-            if (handleLargeWim && wimCheck.needsSplit()) {
-                progressCallback.accept(BurnProgress.of(Phase.SPLITTING_WIM, 0, "Splitting install.wim..."));
-                try {
-                    wimSplitService.splitWimFile(wimCheck.wimFile(), new File(usbMountPoint),
-                        (msg, percent) -> {
-                            if (percent >= 0) {
-                                progressCallback.accept(BurnProgress.of(Phase.SPLITTING_WIM, percent, msg));
-                            } else {
-                                progressCallback.accept(BurnProgress.of(Phase.SPLITTING_WIM, msg));
-                            }
-                        });
-                } catch (Exception e) {
-                    cleanup();
-                    return BurnResult.failure("Failed to split WIM file", e.getMessage());
-                }
+            if (manifestEnabled) {
+                writeManifest(Paths.get(usbMountPoint), isoFile, entries);
             }
+            BurnJournal.delete(Paths.get(usbMountPoint));
 
-            progressCallback.accept(BurnProgress.of(Phase.CLEANUP, "Ejecting drive..."));
             cleanup();
-            ejectDrive(targetDrive);
+            if (cacheKey != null) {
+                cacheDriveImage(cacheKey, isoFile, targetDrive, recorder);
+                checkCancelled();
+            }
+            recorder.accept(BurnProgress.of(Phase.CLEANUP, "Ejecting drive..."));
+            diskBackend.ejectDrive(targetDrive);
 
             long duration = System.currentTimeMillis() - startTime;
-            progressCallback.accept(BurnProgress.of(Phase.COMPLETE, 100, "Complete!"));
+            recorder.accept(BurnProgress.of(Phase.COMPLETE, 100, "Complete!"));
 
             return BurnResult.builder()
                     .success(true)
-                    .message("ISO burned successfully to " + targetDrive.getDisplayName())
+                    .message((previous != null ? "Drive updated successfully: " : "ISO burned successfully to ")
+                        + targetDrive.getDisplayName())
                     .durationMillis(duration)
                     .build();
 
@@ -167,231 +541,1127 @@ public class IsoBurnService {
         }
     }
 
-    private void checkCancelled() throws CancelledException {
-        if (isCancelled || commandExecutor.isCancelled()) {
-            throw new CancelledException();
+    private String formatTarget(RemovableDrive targetDrive, BurnRecorder recorder)
+            throws BurnFailedException, CancelledException {
+        recorder.accept(BurnProgress.of(Phase.FORMATTING, "Formatting drive as FAT32..."));
+        if (!diskBackend.formatDrive(targetDrive, volumeName)) {
+            throw new BurnFailedException(BurnResult.failure("Failed to format drive",
+                "Could not format " + targetDrive.getDeviceIdentifier()));
+        }
+        checkCancelled();
+
+        String mountPoint = diskBackend.findVolumeMountPoint(targetDrive, volumeName);
+        if (mountPoint == null) {
+            throw new BurnFailedException(BurnResult.failure("USB drive not mounted",
+                "The formatted drive could not be found"));
+        }
+        return mountPoint;
+    }
+
+    private String mountSource(File isoFile, BurnRecorder recorder) throws BurnFailedException, CancelledException {
+        recorder.accept(BurnProgress.of(Phase.MOUNTING_ISO, "Mounting ISO image..."));
+        String mountPoint = diskBackend.mountIso(isoFile);
+        if (mountPoint == null) {
+            throw new BurnFailedException(BurnResult.failure("Failed to mount ISO",
+                "Could not mount " + isoFile.getName()));
+        }
+        mountedIsoPath = mountPoint;
+        checkCancelled();
+        return mountPoint;
+    }
+
+    private WimSplitService.WimCheckResult checkWim(String isoMountPoint, BurnRecorder recorder)
+            throws BurnFailedException, CancelledException {
+        recorder.accept(BurnProgress.of(Phase.CHECKING_WIM, "Checking for large WIM file..."));
+        WimSplitService.WimCheckResult wimCheck = wimSplitService.checkWimFile(isoMountPoint);
+        if (wimCheck.needsSplit() && !wimSplitService.isWimlibInstalled()) {
+            throw new BurnFailedException(BurnResult.failure("wimlib not installed",
+                wimSplitService.getWimlibInstallInstructions()));
         }
+        checkCancelled();
+        return wimCheck;
     }
 
-    private boolean unmountDrive(RemovableDrive drive) {
+    /*
+     * Splits install.wim onto the drive, unless an update finds it unchanged
+     * among the copied entries. Returns its manifest entry when the copy did
+     * not produce one. Running alongside the copy, it counts towards the
+     * copy's progress so the progress bar keeps moving forward.
+     */
+    private DriveManifest.Entry splitWim(WimSplitService.WimCheckResult wimCheck, String usbMountPoint,
+                                         DriveManifest.Entry previousWim, List<DriveManifest.Entry> entries,
+                                         CopyProgress alongside, BurnRecorder recorder) throws Exception {
+        Path volume = Paths.get(usbMountPoint);
+        if (!wimCheck.needsSplit()) {
+            deleteSplitParts(volume);
+            return null;
+        }
+        DriveManifest.Entry wimEntry = entries != null ? findSplitEntry(entries) : null;
+        if (previousWim != null && wimEntry != null && sameContent(previousWim, wimEntry)
+                && Files.exists(volume.resolve("sources").resolve("install.swm"))) {
+            log.info("install.wim unchanged, keeping existing split parts");
+            return null;
+        }
+
+        deleteSplitParts(volume);
+        long wimSize = wimCheck.sizeBytes();
+        long[] reported = {0};
+        if (alongside != null) {
+            alongside.addTotal(wimSize);
+        }
+        recorder.accept(BurnProgress.of(Phase.SPLITTING_WIM, alongside != null ? alongside.getPercent() : 0,
+            "Splitting install.wim..."));
         try {
-            CommandExecutor.CommandResult result = commandExecutor.execute(
-                "diskutil", "unmountDisk", drive.getDeviceIdentifier()
-            );
-            if (!result.isSuccess()) {
-                log.warn("Unmount returned non-zero, but continuing: {}", result.stderr());
+            wimSplitService.splitWimFile(wimCheck.wimFile(), volume.toFile(), (msg, percent) -> {
+                if (alongside != null && percent >= 0) {
+                    long bytes = wimSize * percent / 100;
+                    alongside.add(bytes - reported[0]);
+                    reported[0] = bytes;
+                } else if (alongside != null) {
+                    recorder.accept(BurnProgress.of(Phase.SPLITTING_WIM, alongside.getPercent(), msg));
+                } else if (percent >= 0) {
+                    recorder.accept(BurnProgress.of(Phase.SPLITTING_WIM, percent, msg));
+                } else {
+                    recorder.accept(BurnProgress.of(Phase.SPLITTING_WIM, msg));
+                }
+            });
+            recorder.bytesWritten(wimSize);
+            if (writeBackPolicy != WriteBack.Policy.NONE) {
+                recorder.accept(BurnProgress.of(Phase.SPLITTING_WIM, alongside != null ? alongside.getPercent() : 100,
+                    "Flushing split files to drive..."));
+                forceSplitParts(volume);
             }
-            return true;
+        } catch (CancelledException | InterruptedException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to unmount drive", e);
-            return false;
+            checkCancelled();
+            throw new BurnFailedException(BurnResult.failure("Failed to split WIM file", e.getMessage()));
         }
-    }
+        if (alongside != null) {
+            alongside.add(wimSize - reported[0]);
+        }
+        checkCancelled();
 
-    private boolean formatDrive(RemovableDrive drive) {
-        try {
-            log.info("Formatting drive: {}", drive.getDeviceIdentifier());
+        if (wimEntry == null && manifestEnabled) {
+            return new DriveManifest.Entry(INSTALL_WIM_PATH, wimSize, true,
+                hashFile(wimCheck.wimFile().toPath(), manifestChunkSizeKb * 1024));
+        }
+        return null;
+    }
 
-            CommandExecutor.CommandResult result = commandExecutor.execute(
-                "diskutil", "eraseDisk", "FAT32", volumeName, "MBRFormat", drive.getDeviceIdentifier()
-            );
+    // A failure when the drive's test result is below the configured minimums, otherwise null
+    private BurnResult checkTarget(RemovableDrive targetDrive, boolean probe, BurnRecorder recorder)
+            throws CancelledException {
+        DriveProbeResult result = targetDrive.getProbeResult();
+        if (probe) {
+            try {
+                result = driveProbe.probe(targetDrive, recorder, () -> isCancelled || commandExecutor.isCancelled());
+            } catch (InterruptedIOException e) {
+                throw new CancelledException();
+            } catch (IOException e) {
+                log.error("Drive test of {} failed", targetDrive.getDeviceIdentifier(), e);
+                return BurnResult.failure("Drive test failed", e.getMessage());
+            }
+            recorder.accept(BurnProgress.of(Phase.PROBING, 100, "Drive test: " + result.getSummary()));
+        }
+        String refusal = result != null ? driveProbe.refusal(result) : null;
+        if (refusal != null) {
+            return BurnResult.failure("Drive refused", refusal);
+        }
+        return null;
+    }
 
-            if (!result.isSuccess()) {
-                log.error("Format failed: {}", result.stderr());
-                return false;
+    /*
+     * A compressed image is decompressed on its way to the device, so its size
+     * is known only from a block map found next to it; without one, the blocks
+     * a generated map would leave out are skipped as the stream goes by. A map
+     * found next to the image is checked against it before the drive is
+     * touched, which for a compressed image costs a second decompression.
+     */
+    private BurnResult rawBurn(File image, RemovableDrive targetDrive, BurnRecorder recorder, long startTime)
+            throws IOException, CancelledException {
+        if (!image.isFile()) {
+            return BurnResult.failure("Raw write needs an image file",
+                image.getAbsolutePath() + " is not a file");
+        }
+        boolean compressed = ImageDecompressor.Format.detect(image.toPath()) != ImageDecompressor.Format.NONE;
+        BlockMap found = blockMapEnabled ? findBlockMap(image, compressed ? -1 : image.length()) : null;
+        BlockMap map = found != null || compressed ? found : blockMap(image, recorder);
+        long imageSize = map != null ? map.getImageSize() : image.length();
+        if (targetDrive.getSizeBytes() > 0 && imageSize > targetDrive.getSizeBytes() && (map != null || !compressed)) {
+            return BurnResult.failure("Image too large for drive", String.format("%s is %d bytes but %s holds %d",
+                image.getName(), imageSize, targetDrive.getDisplayName(), targetDrive.getSizeBytes()));
+        }
+        if (found != null) {
+            try {
+                if (!compressed) {
+                    try (FileChannel in = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+                        verifyMappedRanges(in::read, map, recorder);
+                    }
+                } else {
+                    try (InputStream in = decompressor().open(image.toPath(), bytes -> { },
+                            () -> isCancelled || commandExecutor.isCancelled())) {
+                        verifyMappedRanges(new StreamRangeReader(in), map, recorder);
+                    }
+                }
+            } catch (CancelledIOException e) {
+                throw new CancelledException();
+            } catch (IOException e) {
+                checkCancelled();
+                log.error("Image {} does not match its block map", image, e);
+                return BurnResult.failure("Image does not match its block map", e.getMessage());
             }
+        }
+        checkCancelled();
 
-            log.info("Drive formatted successfully");
-            Thread.sleep(2000);
-            return true;
+        recorder.accept(BurnProgress.of(Phase.UNMOUNTING, "Unmounting drive..."));
+        if (!diskBackend.unmountDrive(targetDrive)) {
+            return BurnResult.failure("Failed to unmount drive",
+                "Could not unmount " + targetDrive.getDeviceIdentifier());
+        }
+        checkCancelled();
 
-        } catch (Exception e) {
-            log.error("Failed to format drive", e);
-            return false;
+        recorder.accept(BurnProgress.of(Phase.COPYING, 0, map != null
+            ? String.format("Writing %d MB of %d MB image...", map.mappedBytes() / 1_000_000, imageSize / 1_000_000)
+            : "Writing " + image.getName() + " as it decompresses..."));
+        try {
+            if (!compressed) {
+                try (FileChannel in = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+                    writeMappedRanges(in::read, targetDrive, map, recorder);
+                }
+            } else if (map != null) {
+                try (InputStream in = decompressor().open(image.toPath(), bytes -> { },
+                        () -> isCancelled || commandExecutor.isCancelled())) {
+                    writeMappedRanges(new StreamRangeReader(in), targetDrive, map, recorder);
+                }
+            } else {
+                CopyProgress progress = new CopyProgress(Phase.COPYING, "Writing image...", image.length(), recorder);
+                try (InputStream in = decompressor().open(image.toPath(), progress::add,
+                        () -> isCancelled || commandExecutor.isCancelled())) {
+                    writeStream(in, targetDrive, recorder);
+                }
+            }
+        } catch (CancelledIOException e) {
+            throw new CancelledException();
+        } catch (IOException e) {
+            checkCancelled();
+            log.error("Raw write to {} failed", targetDrive.getDeviceIdentifier(), e);
+            return BurnResult.failure("Failed to write image", e.getMessage());
         }
+        checkCancelled();
+
+        recorder.accept(BurnProgress.of(Phase.CLEANUP, "Ejecting drive..."));
+        diskBackend.ejectDrive(targetDrive);
+
+        long duration = System.currentTimeMillis() - startTime;
+        recorder.accept(BurnProgress.of(Phase.COMPLETE, 100, "Complete!"));
+        return BurnResult.builder()
+                .success(true)
+                .message("Image written to " + targetDrive.getDisplayName())
+                .durationMillis(duration)
+                .build();
     }
 
-    private String mountIso(File isoFile) {
+    // Scans the image for empty blocks and caches the map next to it for the next burn
+    private BlockMap blockMap(File image, BurnRecorder recorder) throws IOException, CancelledException {
+        long imageSize = image.length();
+        int blockSize = blockMapBlockSizeKb * 1024;
+        if (!blockMapEnabled) {
+            return new BlockMap(imageSize, blockSize, "sha256",
+                List.of(new BlockMap.Range(0, (imageSize + blockSize - 1) / blockSize - 1, null)), false);
+        }
+
+        recorder.accept(BurnProgress.of(Phase.MAPPING, 0, "Scanning image for empty blocks..."));
+        CopyProgress progress = new CopyProgress(Phase.MAPPING, "Mapping image blocks...", imageSize, recorder);
+        BlockMap map;
         try {
-            CommandExecutor.CommandResult result = commandExecutor.execute(
-                "hdiutil", "mount", "-readonly", "-plist", isoFile.getAbsolutePath()
-            );
+            map = BlockMap.generate(image.toPath(), blockSize, progress::add,
+                () -> isCancelled || commandExecutor.isCancelled());
+        } catch (InterruptedIOException e) {
+            throw new CancelledException();
+        }
+        log.info("Generated block map for {}: {} of {} bytes mapped", image, map.mappedBytes(), imageSize);
+        Path cacheFile = null;
+        for (Path candidate : blockMapCandidates(image)) {
+            BlockMap existing = BlockMap.read(candidate);
+            if (existing == null ? !Files.exists(candidate) : existing.isGenerated()) {
+                cacheFile = candidate;
+                break;
+            }
+        }
+        if (cacheFile != null) {
+            try {
+                map.write(cacheFile);
+            } catch (IOException e) {
+                log.warn("Failed to cache block map at {}: {}", cacheFile, e.getMessage());
+            }
+        }
+        return map;
+    }
 
-            if (!result.isSuccess()) {
-                log.error("Failed to mount ISO: {}", result.stderr());
-                return null;
+    // A usable map next to the image for an image of imageSize bytes, or of any size when that is -1
+    private BlockMap findBlockMap(File image, long imageSize) throws IOException {
+        for (Path candidate : blockMapCandidates(image)) {
+            BlockMap map = BlockMap.read(candidate);
+            boolean stale = map != null && map.isGenerated()
+                && Files.getLastModifiedTime(candidate).toMillis() < image.lastModified();
+            if (map != null && (imageSize < 0 || map.getImageSize() == imageSize) && !stale) {
+                log.info("Using block map {}: {} of {} bytes mapped", candidate, map.mappedBytes(),
+                    map.getImageSize());
+                return map;
+            }
+        }
+        return null;
+    }
+
+    // image.img.bmap or image.bmap, also for image.img.xz
+    private static List<Path> blockMapCandidates(File image) {
+        String base = image.getName().replaceFirst("(?i)\\.(gz|xz|zst)$", "");
+        Path dir = image.getAbsoluteFile().toPath().getParent();
+        List<Path> candidates = new ArrayList<>(List.of(dir.resolve(base + ".bmap")));
+        if (base.lastIndexOf('.') > 0) {
+            candidates.add(dir.resolve(base.substring(0, base.lastIndexOf('.')) + ".bmap"));
+        }
+        return candidates;
+    }
+
+    /*
+     * One walk of the mounted source serves the copy, the WIM split, the
+     * differential compare and the progress totals. For an image file it is
+     * kept in the source index directory under the image's identity, so burning
+     * the same image again skips both the walk and the ISO 9660 directory read.
+     */
+    private SourceManifest sourceManifest(File isoFile, String mountPoint, PathRules rules, BurnRecorder recorder)
+            throws IOException, CancelledException {
+        String key = contentKey(isoFile, rules);
+        Path indexFile = isoFile.isFile() && !sourceIndexDirectory.isBlank()
+            ? Paths.get(sourceIndexDirectory, HexFormat.of().formatHex(SourceManifest.keyDigest(key)) + ".idx")
+            : null;
+        if (indexFile != null) {
+            SourceManifest cached = SourceManifest.read(indexFile, key);
+            if (cached != null) {
+                log.info("Using source index {} ({} entries)", indexFile, cached.size());
+                return cached;
             }
+        }
 
-            String mountPoint = plistParser.parseHdiutilMountPoint(result.stdout());
-            if (mountPoint != null) {
-                mountedIsoPath = mountPoint;
-                log.info("ISO mounted at: {}", mountPoint);
+        recorder.accept(BurnProgress.of(Phase.INDEXING, "Listing source files..."));
+        SourceManifest manifest;
+        try {
+            manifest = SourceManifest.scan(Paths.get(mountPoint), diskBackend.sourceLayout(isoFile), key, rules,
+                () -> isCancelled || commandExecutor.isCancelled());
+        } catch (InterruptedIOException e) {
+            throw new CancelledException();
+        }
+        log.info("Listed {} source entries", manifest.size());
+        if (indexFile != null) {
+            try {
+                Files.createDirectories(indexFile.getParent());
+                manifest.write(indexFile);
+            } catch (IOException e) {
+                log.warn("Failed to save source index at {}: {}", indexFile, e.getMessage());
             }
+        }
+        return manifest;
+    }
 
-            return mountPoint;
+    /*
+     * Burns from the image cache: the drive gets the blocks its FAT32 volume
+     * used after the first burn of this ISO, read from the cache in one pass.
+     */
+    private BurnResult cachedBurn(ImageCacheService.Entry cached, RemovableDrive targetDrive, BurnRecorder recorder,
+                                  long startTime) throws CancelledException {
+        BlockMap map = cached.map();
+        // The data file holds the ranges back to back, in map order
+        try (InputStream data = cached.openData()) {
+            ReadableByteChannel in = Channels.newChannel(data);
+            verifyMappedRanges((buffer, position) -> in.read(buffer), map, recorder);
+        } catch (CancelledIOException e) {
+            throw new CancelledException();
+        } catch (IOException e) {
+            log.error("Image cache entry {} is damaged", cached.directory().getFileName(), e);
+            return BurnResult.failure("Cached image is damaged", e.getMessage());
+        }
+        checkCancelled();
 
-        } catch (Exception e) {
-            log.error("Failed to mount ISO", e);
-            return null;
+        recorder.accept(BurnProgress.of(Phase.UNMOUNTING, "Unmounting drive..."));
+        if (!diskBackend.unmountDrive(targetDrive)) {
+            return BurnResult.failure("Failed to unmount drive",
+                "Could not unmount " + targetDrive.getDeviceIdentifier());
+        }
+        checkCancelled();
+
+        log.info("Burning from image cache entry {}", cached.directory().getFileName());
+        recorder.accept(BurnProgress.of(Phase.COPYING, 0, String.format("Writing %d MB cached drive image...",
+            map.mappedBytes() / 1_000_000)));
+        try (InputStream data = cached.openData()) {
+            ReadableByteChannel in = Channels.newChannel(data);
+            writeMappedRanges((buffer, position) -> in.read(buffer), targetDrive, map, recorder);
+        } catch (CancelledIOException e) {
+            throw new CancelledException();
+        } catch (IOException e) {
+            log.error("Cached image write to {} failed", targetDrive.getDeviceIdentifier(), e);
+            return BurnResult.failure("Failed to write cached image", e.getMessage());
         }
+        checkCancelled();
+
+        recorder.accept(BurnProgress.of(Phase.CLEANUP, "Ejecting drive..."));
+        diskBackend.ejectDrive(targetDrive);
+
+        long duration = System.currentTimeMillis() - startTime;
+        recorder.accept(BurnProgress.of(Phase.COMPLETE, 100, "Complete!"));
+        return BurnResult.builder()
+                .success(true)
+                .message("Cached image written to " + targetDrive.getDisplayName())
+                .durationMillis(duration)
+                .build();
     }
 
-    private String findUsbMountPoint() {
+    private String imageCacheKey(File isoFile, RemovableDrive targetDrive, BurnOptions options, PathRules rules,
+                                 BurnRecorder recorder) throws IOException, CancelledException {
+        CopyProgress progress = new CopyProgress(Phase.PREPARING, "Identifying ISO...", isoFile.length(), recorder);
+        String isoHash;
         try {
-            Thread.sleep(1000);
+            isoHash = imageCache.isoHash(isoFile, bytes -> {
+                io.read(bytes);
+                progress.add(bytes);
+            }, () -> isCancelled || commandExecutor.isCancelled());
+        } catch (InterruptedIOException e) {
+            throw new CancelledException();
+        }
+        return imageCache.key(isoHash, "FAT32", volumeName, targetDrive.getSizeBytes(),
+            options.isHandleLargeWim() ? wimSplitService.getSplitSizeMb() : 0,
+            rules.isEmpty() ? "" : rules.fingerprint());
+    }
+
+    // A drive image that cannot be cached costs the next burn its speed-up, not this burn its result
+    private void cacheDriveImage(String cacheKey, File isoFile, RemovableDrive targetDrive, BurnRecorder recorder) {
+        recorder.accept(BurnProgress.of(Phase.CACHING, 0, "Saving drive image to cache..."));
+        if (!diskBackend.unmountDrive(targetDrive)) {
+            log.warn("Could not unmount {} to cache its image", targetDrive.getDeviceIdentifier());
+            return;
+        }
+        try (FileChannel device = diskBackend.readRawDevice(targetDrive)) {
+            imageCache.store(cacheKey, isoFile.getName(), device, targetDrive.getSizeBytes(), recorder,
+                () -> isCancelled || commandExecutor.isCancelled());
+        } catch (InterruptedIOException e) {
+            log.info("Caching drive image cancelled");
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to cache drive image of {}: {}", targetDrive.getDeviceIdentifier(), e.getMessage());
+        }
+    }
 
-            File volumesDir = new File("/Volumes");
-            File[] volumes = volumesDir.listFiles();
+    // Reads the image bytes that belong at a position on the drive
+    private interface RangeReader {
+        int read(ByteBuffer buffer, long position) throws IOException;
+    }
+
+    // Reads the ranges of a block map, in order, from a stream of the whole image
+    private static final class StreamRangeReader implements RangeReader {
+        private final InputStream in;
+        private final ReadableByteChannel channel;
+        private long position;
+
+        StreamRangeReader(InputStream in) {
+            this.in = in;
+            this.channel = Channels.newChannel(in);
+        }
+
+        @Override
+        public int read(ByteBuffer buffer, long at) throws IOException {
+            if (at > position) {
+                in.skipNBytes(at - position);
+                position = at;
+            }
+            int n = channel.read(buffer);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+    }
+
+    /*
+     * Writes a decompressing image as it arrives, leaving out the blocks a
+     * generated block map would; runs of blocks to keep go out in one write.
+     * The size is known only at the end, so the drive's capacity is checked as
+     * the image grows.
+     */
+    private void writeStream(InputStream in, RemovableDrive targetDrive, BurnRecorder recorder) throws IOException {
+        int blockSize = blockMapBlockSizeKb * 1024;
+        ByteBuffer buffer = bufferPool.acquire(Math.max(1, copyBufferSizeKb * 1024 / blockSize) * blockSize);
+        ReadableByteChannel channel = Channels.newChannel(in);
+        long driveSize = targetDrive.getSizeBytes();
+
+        try (FileChannel device = diskBackend.openRawDevice(targetDrive)) {
+            long position = 0;
+            boolean ended = false;
+            while (!ended) {
+                checkCancelledIO();
+                buffer.clear();
+                while (buffer.hasRemaining() && !ended) {
+                    ended = channel.read(buffer) < 0;
+                }
+                int length = buffer.position();
+                if (driveSize > 0 && position + length > driveSize) {
+                    throw new IOException("The decompressed image is larger than the drive's " + driveSize + " bytes");
+                }
+                // Raw devices only take whole sectors, so the image's partial last block is zero-padded
+                int padded = (length + blockSize - 1) / blockSize * blockSize;
+                for (int i = length; i < padded; i++) {
+                    buffer.put(i, (byte) 0);
+                }
 
-            if (volumes != null) {
-                for (File volume : volumes) {
-                    if (volume.getName().equalsIgnoreCase(volumeName)) {
-                        log.info("Found USB mount point: {}", volume.getAbsolutePath());
-                        return volume.getAbsolutePath();
+                int run = 0;
+                for (int offset = 0; offset <= padded; offset += blockSize) {
+                    boolean kept = offset < padded && !(blockMapEnabled && BlockMap.isUnmapped(
+                        buffer.slice(offset, Math.min(blockSize, length - offset)), position + offset));
+                    if (kept) {
+                        continue;
+                    }
+                    if (offset > run) {
+                        ByteBuffer data = buffer.slice(run, offset - run);
+                        io.copy(data.remaining());
+                        while (data.hasRemaining()) {
+                            device.write(data, position + run + data.position());
+                        }
+                        recorder.bytesWritten(Math.min(offset, length) - run);
                     }
+                    run = offset + blockSize;
                 }
+                position += length;
             }
+            device.force(true);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
 
-            log.error("Could not find USB mount point for volume: {}", volumeName);
-            return null;
+    /*
+     * Reads every range that has a checksum and compares it, so an image that
+     * does not match its map fails before the drive is written. Ranges must be
+     * read in map order, which is all a stream reader can serve.
+     */
+    private void verifyMappedRanges(RangeReader in, BlockMap map, BurnRecorder recorder) throws IOException {
+        long checked = map.getRanges().stream().filter(range -> range.checksum() != null)
+            .mapToLong(map::length).sum();
+        if (checked == 0) {
+            return;
+        }
+        CopyProgress progress = new CopyProgress(Phase.VERIFYING, "Checking image against its block map...",
+            checked, recorder);
+        ByteBuffer buffer = bufferPool.acquire(Math.max(1, copyBufferSizeKb * 1024 / map.getBlockSize())
+            * map.getBlockSize());
+        try {
+            for (BlockMap.Range range : map.getRanges()) {
+                if (range.checksum() == null) {
+                    continue;
+                }
+                MessageDigest digest = map.newDigest();
+                long position = map.start(range);
+                long end = position + map.length(range);
+                while (position < end) {
+                    checkCancelledIO();
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer, position + buffer.position()) < 0) {
+                            throw new IOException("Image is shorter than its block map");
+                        }
+                    }
+                    buffer.flip();
+                    io.read(buffer.remaining());
+                    position += buffer.remaining();
+                    progress.add(buffer.remaining());
+                    digest.update(buffer);
+                }
+                if (!HexFormat.of().formatHex(digest.digest()).equalsIgnoreCase(range.checksum())) {
+                    throw new IOException(String.format(
+                        "Checksum mismatch in blocks %d-%d: the image does not match its block map",
+                        range.first(), range.last()));
+                }
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("Error finding USB mount point", e);
+    private void writeMappedRanges(RangeReader in, RemovableDrive targetDrive, BlockMap map, BurnRecorder recorder)
+            throws IOException {
+        CopyProgress progress = new CopyProgress(Phase.COPYING, "Writing image...", map.mappedBytes(), recorder);
+        int blockSize = map.getBlockSize();
+        ByteBuffer buffer = bufferPool.acquire(Math.max(1, copyBufferSizeKb * 1024 / blockSize) * blockSize);
+
+        try (FileChannel device = diskBackend.openRawDevice(targetDrive)) {
+            for (BlockMap.Range range : map.getRanges()) {
+                long position = map.start(range);
+                long end = position + map.length(range);
+                while (position < end) {
+                    checkCancelledIO();
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer, position + buffer.position()) < 0) {
+                            throw new IOException("Image is shorter than its block map");
+                        }
+                    }
+                    buffer.flip();
+
+                    int length = buffer.remaining();
+                    // Raw devices only take whole sectors, so the image's partial last block is zero-padded
+                    int padded = (length + blockSize - 1) / blockSize * blockSize;
+                    buffer.limit(padded);
+                    for (int i = length; i < padded; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    io.copy(padded);
+                    while (buffer.hasRemaining()) {
+                        device.write(buffer, position + buffer.position());
+                    }
+                    position += length;
+                    progress.add(length);
+                }
+                recorder.bytesWritten(map.length(range));
+            }
+            device.force(true);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private void checkCancelled() throws CancelledException {
+        if (isCancelled || commandExecutor.isCancelled()) {
+            throw new CancelledException();
+        }
+    }
+
+    private BurnJournal.State readJournal(Path volume, File isoFile, PathRules rules) {
+        try {
+            BurnJournal.State state = BurnJournal.read(volume);
+            if (state == null || !state.getIsoKey().equals(contentKey(isoFile, rules))
+                    || state.getChunkSize() != manifestChunkSizeKb * 1024) {
+                return null;
+            }
+            return state;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable burn journal: {}", e.getMessage());
             return null;
         }
     }
 
-    private boolean copyFiles(String source, String dest, WimSplitService.WimCheckResult wimCheck,
-                               Consumer<BurnProgress> progressCallback) {
+    private static String isoKey(File isoFile) {
+        return isoFile.getName() + ":" + isoFile.length() + ":" + isoFile.lastModified();
+    }
+
+    // The image as burned with these rules: a source index or journal made under other rules does not match
+    private static String contentKey(File isoFile, PathRules rules) {
+        return rules.isEmpty() ? isoKey(isoFile)
+            : isoKey(isoFile) + ":" + HexFormat.of().formatHex(SourceManifest.keyDigest(rules.fingerprint()), 0, 8);
+    }
+
+    /**
+     * Drops journal records the drive does not back up. Every completed file
+     * must exist at its recorded size; files recorded after the last checkpoint
+     * may not have reached the device and are re-hashed, as is the last chunk
+     * of a partially copied file.
+     */
+    private void validateResume(BurnJournal.State state, Path dest) throws IOException {
+        int chunkSize = state.getChunkSize();
+
+        state.getCompleted().values().removeIf(entry -> {
+            Path target = dest.resolve(entry.getPath());
+            try {
+                if (!Files.isRegularFile(target) || Files.size(target) != entry.getSize()) {
+                    return true;
+                }
+                return state.getUnverified().contains(entry.getPath())
+                    && !hashFile(target, chunkSize).equals(entry.getChunks());
+            } catch (IOException e) {
+                return true;
+            }
+        });
+
+        String partial = state.getPartialPath();
+        if (partial != null) {
+            List<String> chunks = state.getPartialChunks();
+            Path target = dest.resolve(partial);
+            long offset = (long) chunks.size() * chunkSize;
+            if (chunks.isEmpty() || !Files.isRegularFile(target) || Files.size(target) < offset
+                    || !chunks.get(chunks.size() - 1).equals(hashRange(target, offset - chunkSize, chunkSize))) {
+                state.clearPartial();
+            }
+        }
+        log.info("Resuming burn: {} files verified on drive, partial file {}",
+            state.getCompleted().size(), state.getPartialPath());
+    }
+
+    private String hashRange(Path file, long position, int length) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                // read the whole range
+            }
+            ChunkHasher hasher = new ChunkHasher(length);
+            hasher.update(buffer.flip());
+            return hasher.finish().get(0);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private List<String> hashFile(Path file, int chunkSize) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(copyBufferSizeKb * 1024);
         try {
-            Path sourcePath = Paths.get(source);
-            Path destPath = Paths.get(dest);
+            return ChunkHasher.hashFile(file, chunkSize, buffer);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private boolean isUsableManifest(DriveManifest manifest) {
+        return manifest != null
+            && manifest.getVersion() == DriveManifest.CURRENT_VERSION
+            && manifest.getChunkSize() == manifestChunkSizeKb * 1024
+            && volumeName.equalsIgnoreCase(manifest.getVolumeName());
+    }
 
-            // Determine exclusion path for large WIM files
-            String excludePath = wimCheck.needsSplit() ? "sources/install.wim" : null;
+    private void writeManifest(Path volume, File isoFile, List<DriveManifest.Entry> entries) {
+        DriveManifest manifest = new DriveManifest();
+        manifest.setVolumeName(volumeName);
+        manifest.setIsoName(isoFile.getName());
+        manifest.setChunkSize(manifestChunkSizeKb * 1024);
+        manifest.setCreatedAtEpochMillis(System.currentTimeMillis());
+        manifest.setEntries(entries);
+        try {
+            manifestStore.write(volume, manifest);
+        } catch (IOException e) {
+            // The burn itself succeeded; the next differential burn will fall back to a full burn
+            log.warn("Failed to write drive manifest", e);
+        }
+    }
 
-            log.info("Calculating total size to copy...");
-            progressCallback.accept(BurnProgress.of(Phase.COPYING, "Calculating size..."));
+    private static DriveManifest.Entry findSplitEntry(List<DriveManifest.Entry> entries) {
+        return entries.stream().filter(DriveManifest.Entry::isSplit).findFirst().orElse(null);
+    }
 
-            // Calculate total size
-            long totalSize = calculateTotalSize(sourcePath, excludePath);
-            log.info("Total size to copy: {} bytes ({} MB)", totalSize, totalSize / (1024 * 1024));
+    private static boolean sameContent(DriveManifest.Entry a, DriveManifest.Entry b) {
+        return a.getSize() == b.getSize() && a.getChunks().equals(b.getChunks());
+    }
 
-            // Track progress
-            AtomicLong bytesCopied = new AtomicLong(0);
-            int[] lastPercent = {-1};
+    // wimlib writes through the page cache; force its output so eject does not wait for it
+    private static void forceSplitParts(Path volume) throws IOException {
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(volume.resolve("sources"), "install*.swm")) {
+            for (Path part : parts) {
+                try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                    channel.force(false);
+                }
+            }
+        }
+    }
 
-            // Walk and copy files
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    checkCancelledIO();
+    private static void deleteSplitParts(Path volume) throws IOException {
+        Path sources = volume.resolve("sources");
+        if (!Files.isDirectory(sources)) {
+            return;
+        }
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(sources, "install*.swm")) {
+            for (Path part : parts) {
+                Files.delete(part);
+            }
+        }
+    }
 
-                    Path relative = sourcePath.relativize(dir);
-                    Path targetDir = destPath.resolve(relative);
+    private List<DriveManifest.Entry> copyFiles(String source, String dest, WimSplitService.WimCheckResult wimCheck,
+                                                SourceManifest manifest, String isoKey, BurnJournal.State resume,
+                                                CopyProgress progress, BurnRecorder recorder) {
+        try {
+            Path sourcePath = Paths.get(source);
+            Path destPath = Paths.get(dest);
 
-                    if (!Files.exists(targetDir)) {
-                        Files.createDirectories(targetDir);
-                    }
-                    return FileVisitResult.CONTINUE;
+            // Directories come before their contents in the manifest
+            for (int i = 0; i < manifest.size(); i++) {
+                if (manifest.isDirectory(i)) {
+                    checkCancelledIO();
+                    Files.createDirectories(destPath.resolve(manifest.path(i)));
                 }
+            }
+
+            // Large WIM files are split onto the drive instead of copied
+            boolean skipWim = wimCheck.needsSplit();
+            if (skipWim) {
+                log.info("Skipping large WIM file: {}", INSTALL_WIM_PATH);
+            }
+            int[] files = scheduleCopies(manifest, skipWim);
+
+            long totalSize = manifest.totalFileBytes(skipWim);
+            log.info("Total size to copy: {} bytes ({} MB)", totalSize, totalSize / (1024 * 1024));
 
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            progress.addTotal(totalSize);
+            List<DriveManifest.Entry> entries = new ArrayList<>();
+            int chunkSize = manifestChunkSizeKb * 1024;
+            if (journalEnabled) {
+                journal = BurnJournal.open(destPath, isoKey, chunkSize, journalCheckpointMb * 1024 * 1024, resume);
+            }
+
+            try (WriteBack writeBack = newWriteBack(progress)) {
+                for (int file : files) {
                     checkCancelledIO();
 
-                    Path relative = sourcePath.relativize(file);
+                    String path = manifest.path(file);
+                    long size = manifest.size(file);
+                    DriveManifest.Entry copied = resume != null ? resume.getCompleted().get(path) : null;
+                    if (copied != null && copied.getSize() == size) {
+                        writeBack.durable(size);
+                        entries.add(copied);
+                        continue;
+                    }
 
-                    // Skip excluded file
-                    if (excludePath != null && relative.toString().equalsIgnoreCase(excludePath)) {
-                        log.info("Skipping large WIM file: {}", relative);
-                        return FileVisitResult.CONTINUE;
+                    Path targetFile = destPath.resolve(path);
+                    ChunkHasher hasher = null;
+                    long offset = 0;
+                    if (resume != null && path.equals(resume.getPartialPath())
+                            && (long) resume.getPartialChunks().size() * chunkSize <= size) {
+                        hasher = new ChunkHasher(chunkSize, resume.getPartialChunks());
+                        offset = (long) resume.getPartialChunks().size() * chunkSize;
+                    } else if (manifestEnabled || journal != null) {
+                        hasher = new ChunkHasher(chunkSize);
                     }
 
-                    Path targetFile = destPath.resolve(relative);
+                    FileCopyEvent event = new FileCopyEvent();
+                    event.begin();
 
                     // Copy with progress tracking
-                    copyFileWithProgress(file, targetFile, attrs.size(), bytesCopied, totalSize,
-                        lastPercent, progressCallback);
-
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                    log.error("Failed to visit file: {}", file, exc);
-                    return FileVisitResult.CONTINUE;
+                    copyFileWithProgress(sourcePath.resolve(path), manifest.startBlock(file), targetFile, offset,
+                        writeBack, io, hasher, path);
+
+                    event.end();
+                    if (size >= fileCopyEventMinBytes && event.shouldCommit()) {
+                        event.path = path;
+                        event.bytes = size;
+                        event.commit();
+                    }
+                    recorder.fileCopied(size - offset);
+                    List<String> chunks = hasher != null ? hasher.finish() : List.of();
+                    if (journal != null) {
+                        journal.fileCompleted(path, size, chunks);
+                    }
+                    entries.add(new DriveManifest.Entry(path, size, false, chunks));
                 }
-            });
+                writeBack.drain();
+            }
 
-            // Final 100%
-            progressCallback.accept(BurnProgress.builder()
+            // 100% unless the WIM split is still running alongside
+            recorder.accept(BurnProgress.builder()
                 .phase(Phase.COPYING)
-                .percentage(100)
+                .percentage(progress.getPercent())
                 .message("File copy complete")
                 .build());
 
             log.info("File copy complete");
-            return true;
+            return entries;
 
         } catch (CancelledIOException e) {
             log.info("File copy cancelled");
-            return false;
+            return null;
         } catch (Exception e) {
             log.error("Failed to copy files", e);
-            return false;
+            return null;
+        } finally {
+            closeJournal();
+        }
+    }
+
+    /**
+     * Orders the copy so the source is read front to back: by starting block in
+     * the ISO where the layout is known, then largest first for the rest.
+     * Directory order jumps around the image, which costs a seek per file on
+     * optical, spinning or network sources.
+     */
+    private int[] scheduleCopies(SourceManifest manifest, boolean skipInstallWim) {
+        IntStream files = IntStream.range(0, manifest.size())
+            .filter(i -> !manifest.isDirectory(i) && !(skipInstallWim && manifest.isInstallWim(i)));
+        if (!"extent".equals(copyOrder)) {
+            return files.toArray();
+        }
+        Comparator<Integer> bySize = Comparator.comparingLong((Integer i) -> manifest.size(i)).reversed();
+        int[] ordered = files.boxed()
+            .sorted(Comparator.comparing((Integer i) -> manifest.startBlock(i) < 0)
+                .thenComparingLong(i -> manifest.startBlock(i))
+                .thenComparing(bySize))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        long located = Arrays.stream(ordered).filter(i -> manifest.startBlock(i) >= 0).count();
+        if (located == 0) {
+            log.info("Source layout unknown, copying {} files largest first", ordered.length);
+        } else {
+            log.info("Copying {} of {} files in source extent order", located, ordered.length);
         }
+        return ordered;
     }
 
-    private long calculateTotalSize(Path source, String excludePath) throws IOException {
-        AtomicLong totalSize = new AtomicLong(0);
+    // One open for a fresh file; only a resumed file needs its tail cut off
+    private static WriteBack.Target openTarget(WriteBack writeBack, Path target, long offset) throws IOException {
+        if (offset == 0) {
+            return writeBack.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        WriteBack.Target opened = writeBack.open(target, StandardOpenOption.WRITE);
+        try {
+            opened.channel().truncate(offset);
+        } catch (IOException e) {
+            writeBack.release(opened);
+            throw e;
+        }
+        return opened;
+    }
 
-        Files.walkFileTree(source, new SimpleFileVisitor<>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                Path relative = source.relativize(file);
-                if (excludePath != null && relative.toString().equalsIgnoreCase(excludePath)) {
-                    return FileVisitResult.CONTINUE;
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close burn journal", e);
+            }
+            journal = null;
+        }
+    }
+
+    /**
+     * Hashes the new ISO, compares it with the manifest of the previous burn and
+     * rewrites only what differs: removed files are deleted, new or resized files
+     * are copied whole, and same-size files get just their changed chunks rewritten.
+     * Returns the entries for the new manifest, or null on failure.
+     */
+    private List<DriveManifest.Entry> updateChangedFiles(String source, String dest,
+                                                         WimSplitService.WimCheckResult wimCheck,
+                                                         SourceManifest manifest, DriveManifest previous,
+                                                         BurnRecorder recorder) {
+        try {
+            Path sourcePath = Paths.get(source);
+            Path destPath = Paths.get(dest);
+            boolean splitWim = wimCheck.needsSplit();
+            int chunkSize = manifestChunkSizeKb * 1024;
+
+            int[] files = scheduleCopies(manifest, false);
+            CopyProgress hashing = new CopyProgress(Phase.COMPARING, "Comparing with drive...",
+                manifest.totalFileBytes(false), recorder);
+
+            List<DriveManifest.Entry> entries = new ArrayList<>();
+            Map<String, Long> startBlocks = new HashMap<>();
+            for (int file : files) {
+                checkCancelledIO();
+                String path = manifest.path(file);
+                startBlocks.put(path, manifest.startBlock(file));
+                entries.add(new DriveManifest.Entry(path, manifest.size(file), splitWim && manifest.isInstallWim(file),
+                    hashWithProgress(sourcePath.resolve(path), manifest.startBlock(file), chunkSize, hashing)));
+            }
+
+            Map<String, DriveManifest.Entry> old = new LinkedHashMap<>();
+            for (DriveManifest.Entry entry : previous.getEntries()) {
+                if (!entry.isSplit()) {
+                    old.put(entry.getPath(), entry);
                 }
-                totalSize.addAndGet(attrs.size());
-                return FileVisitResult.CONTINUE;
             }
-        });
 
-        return totalSize.get();
-    }
+            List<DriveManifest.Entry> copies = new ArrayList<>();
+            Map<DriveManifest.Entry, List<Integer>> patches = new LinkedHashMap<>();
+            long writeBytes = 0;
+            for (DriveManifest.Entry entry : entries) {
+                if (entry.isSplit()) {
+                    continue;
+                }
+                DriveManifest.Entry before = old.remove(entry.getPath());
+                Path target = destPath.resolve(entry.getPath());
+                if (before != null && before.getSize() == entry.getSize()
+                        && before.getChunks().size() == entry.getChunks().size()
+                        && Files.isRegularFile(target) && Files.size(target) == entry.getSize()) {
+                    List<Integer> changed = new ArrayList<>();
+                    for (int i = 0; i < entry.getChunks().size(); i++) {
+                        if (!entry.getChunks().get(i).equals(before.getChunks().get(i))) {
+                            changed.add(i);
+                            writeBytes += Math.min(chunkSize, entry.getSize() - (long) i * chunkSize);
+                        }
+                    }
+                    if (!changed.isEmpty()) {
+                        patches.put(entry, changed);
+                    }
+                } else {
+                    copies.add(entry);
+                    writeBytes += entry.getSize();
+                }
+            }
 
-    private void copyFileWithProgress(Path source, Path target, long fileSize,
-                                       AtomicLong bytesCopied, long totalSize,
-                                       int[] lastPercent, Consumer<BurnProgress> progressCallback)
-            throws IOException {
+            // Whatever is left in the old manifest is gone from the new ISO
+            for (DriveManifest.Entry removed : old.values()) {
+                Files.deleteIfExists(destPath.resolve(removed.getPath()));
+            }
 
-        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            log.info("Differential update: {} removed, {} copied, {} patched, {} unchanged, {} bytes to write",
+                old.size(), copies.size(), patches.size(),
+                entries.size() - copies.size() - patches.size(), writeBytes);
+            recorder.accept(BurnProgress.of(Phase.COPYING, 0, String.format(
+                "Updating drive: %d new or resized, %d changed, %d removed files",
+                copies.size(), patches.size(), old.size())));
 
-        try (InputStream in = Files.newInputStream(source);
-             OutputStream out = Files.newOutputStream(target)) {
+            CopyProgress progress = new CopyProgress(Phase.COPYING, "Copying files...", writeBytes, recorder);
 
+            try (WriteBack writeBack = newWriteBack(progress)) {
+                for (DriveManifest.Entry entry : copies) {
+                    checkCancelledIO();
+                    Path target = destPath.resolve(entry.getPath());
+                    Files.createDirectories(target.getParent());
+                    copyFileWithProgress(sourcePath.resolve(entry.getPath()), startBlocks.get(entry.getPath()),
+                        target, 0, writeBack, io, null, null);
+                    recorder.fileCopied(entry.getSize());
+                }
+
+                for (Map.Entry<DriveManifest.Entry, List<Integer>> patch : patches.entrySet()) {
+                    DriveManifest.Entry entry = patch.getKey();
+                    long written = patchChunks(sourcePath.resolve(entry.getPath()), startBlocks.get(entry.getPath()),
+                        destPath.resolve(entry.getPath()), patch.getValue(), chunkSize, writeBack, io);
+                    recorder.fileCopied(written);
+                }
+                writeBack.drain();
+            }
+
+            recorder.accept(BurnProgress.builder()
+                .phase(Phase.COPYING)
+                .percentage(100)
+                .message("Drive update complete")
+                .build());
+            return entries;
+
+        } catch (CancelledIOException e) {
+            log.info("Differential update cancelled");
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to update files", e);
+            return null;
+        }
+    }
+
+    private List<String> hashWithProgress(Path file, long startBlock, int chunkSize,
+                                          CopyProgress progress) throws IOException {
+        ChunkHasher hasher = new ChunkHasher(chunkSize);
+        ByteBuffer buffer = bufferPool.acquire(copyBufferSizeKb * 1024);
+        try (FileChannel in = sources.open(file, startBlock)) {
             int bytesRead;
-            while ((bytesRead = in.read(buffer)) != -1) {
+            while ((bytesRead = in.read(buffer.clear())) != -1) {
+                checkCancelledIO();
+                io.read(bytesRead);
+                hasher.update(buffer.flip());
+                progress.add(bytesRead);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return hasher.finish();
+    }
+
+    private long patchChunks(Path source, long startBlock, Path target, List<Integer> chunks, int chunkSize,
+                             WriteBack writeBack, IoBudget io) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(chunkSize);
+        long written = 0;
+        WriteBack.Target patched;
+        try {
+            patched = writeBack.open(target, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+        try (FileChannel in = sources.open(source, startBlock)) {
+            FileChannel out = patched.channel();
+            for (int chunk : chunks) {
                 checkCancelledIO();
+                long position = (long) chunk * chunkSize;
+                buffer.clear();
+                while (buffer.hasRemaining() && in.read(buffer, position + buffer.position()) > 0) {
+                    // read until the chunk is full or the file ends
+                }
+                buffer.flip();
+                int length = buffer.remaining();
+                io.copy(length);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer, position + (length - buffer.remaining()));
+                }
+                writeBack.written(patched, length);
+                written += length;
+            }
+        } finally {
+            writeBack.release(patched);
+            bufferPool.release(buffer);
+        }
+        return written;
+    }
+
+    void copyFileWithProgress(Path source, Path target, CopyProgress progress,
+                              IoBudget io, ChunkHasher hasher) throws IOException {
+        try (WriteBack writeBack = newWriteBack(progress)) {
+            copyFileWithProgress(source, -1, target, 0, writeBack, io, hasher, null);
+            writeBack.drain();
+        }
+    }
+
+    /**
+     * Copies {@code source} from {@code offset} on, keeping the first
+     * {@code offset} bytes already on the target. With a journal open, all
+     * written data is forced to the device and the completed chunks are
+     * journaled at every checkpoint.
+     */
+    private void copyFileWithProgress(Path source, long startBlock, Path target, long offset, WriteBack writeBack,
+                                      IoBudget io, ChunkHasher hasher,
+                                      String journalPath) throws IOException {
+
+        BurnJournal activeJournal = journalPath != null && hasher != null ? journal : null;
+        WriteBack.Target written = openTarget(writeBack, target, offset);
+        ByteBuffer buffer = null;
+
+        try (FileChannel in = sources.open(source, startBlock)) {
+            buffer = bufferPool.acquire(copyBufferSizeKb * 1024);
+            FileChannel out = written.channel();
+            if (offset > 0) {
+                in.position(offset);
+                out.position(offset);
+                writeBack.durable(offset);
+            }
 
-                out.write(buffer, 0, bytesRead);
-                long copied = bytesCopied.addAndGet(bytesRead);
+            int bytesRead;
+            while ((bytesRead = in.read(buffer.clear())) != -1) {
+                checkCancelledIO();
 
-                // Update progress (throttle to avoid too many updates)
-                int percent = totalSize > 0 ? (int) ((copied * 100) / totalSize) : 0;
-                if (percent != lastPercent[0] && percent < 100) {
-                    lastPercent[0] = percent;
-                    progressCallback.accept(BurnProgress.builder()
-                        .phase(Phase.COPYING)
-                        .percentage(percent)
-                        .message("Copying files... " + percent + "%")
-                        .build());
+                io.copy(bytesRead);
+                buffer.flip();
+                if (hasher != null) {
+                    hasher.update(buffer.duplicate());
+                }
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                writeBack.written(written, bytesRead);
+
+                if (activeJournal != null && activeJournal.bytesWritten(bytesRead)) {
+                    // Files still queued for a background force must reach the drive before the checkpoint
+                    writeBack.drain();
+                    if (writeBack.isDurableAfterDrain()) {
+                        activeJournal.filesForced();
+                    } else {
+                        out.force(false);
+                    }
+                    activeJournal.checkpoint(journalPath, hasher.completedChunks());
                 }
             }
+        } finally {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+            writeBack.release(written);
         }
     }
 
+    private WriteBack newWriteBack(CopyProgress progress) {
+        return new WriteBack(writeBackPolicy, flushThresholdMb * 1024 * 1024, progress);
+    }
+
     private void checkCancelledIO() throws CancelledIOException {
         if (isCancelled || commandExecutor.isCancelled()) {
             throw new CancelledIOException();
@@ -406,22 +1676,18 @@ public class IsoBurnService {
 
     private void cleanup() {
         if (mountedIsoPath != null) {
-            try {
-                log.info("Unmounting ISO: {}", mountedIsoPath);
-                commandExecutor.execute("hdiutil", "unmount", mountedIsoPath);
-                mountedIsoPath = null;
-            } catch (Exception e) {
-                log.error("Failed to unmount ISO", e);
-            }
+            diskBackend.unmountIso(mountedIsoPath);
+            mountedIsoPath = null;
         }
     }
 
-    private void ejectDrive(RemovableDrive drive) {
-        try {
-            commandExecutor.execute("diskutil", "eject", drive.getDeviceIdentifier());
-            log.info("Drive ejected: {}", drive.getDeviceIdentifier());
-        } catch (Exception e) {
-            log.error("Failed to eject drive", e);
+    // A step of the burn failed; the burn ends with this result
+    private static class BurnFailedException extends Exception {
+        private final BurnResult result;
+
+        BurnFailedException(BurnResult result) {
+            super(result.getMessage());
+            this.result = result;
         }
     }
 
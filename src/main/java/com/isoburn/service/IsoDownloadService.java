@@ -0,0 +1,204 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.RangedDownloader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Fetches an ISO from an HTTP(S) URL so it can be mounted and burned. With a
+ * cache directory the image is kept as {@code <sha256>.iso} and a URL whose
+ * length and ETag still match is not downloaded again; without one the image
+ * goes to a temporary file that is deleted after the burn.
+ */
+@Service
+public class IsoDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(IsoDownloadService.class);
+
+    private static final String INDEX_FILE = "urls.properties";
+
+    @Value("${isoburn.download.connections:4}")
+    private int connections;
+
+    @Value("${isoburn.download.chunk-size-mb:8}")
+    private int chunkSizeMb;
+
+    @Value("${isoburn.download.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    @Value("${isoburn.download.cache-directory:}")
+    private String cacheDirectory;
+
+    private final BufferPool bufferPool;
+
+    public IsoDownloadService(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    public record Download(File file, boolean temporary) {
+        public void discard() {
+            if (temporary) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    log.warn("Failed to delete downloaded image {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public Download fetch(URI uri, BooleanSupplier cancelled, Consumer<BurnProgress> progressCallback)
+            throws IOException, InterruptedException {
+        // One HTTP/1.1 connection per range; HTTP/2 would multiplex them onto a single socket
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(timeoutSeconds))
+            .build();
+        RangedDownloader downloader = new RangedDownloader(client, connections, chunkSizeMb * 1024 * 1024,
+            Duration.ofSeconds(timeoutSeconds), bufferPool);
+        RangedDownloader.RemoteFile remote = downloader.probe(uri);
+
+        Path cache = cacheDirectory.isBlank() ? null : Paths.get(cacheDirectory);
+        if (cache != null) {
+            Path cached = lookup(cache, uri, remote);
+            if (cached != null) {
+                log.info("Using cached image {} for {}", cached, uri);
+                progressCallback.accept(BurnProgress.of(Phase.DOWNLOADING, 100, "Using cached download"));
+                return new Download(cached.toFile(), false);
+            }
+            Files.createDirectories(cache);
+        }
+
+        Path part = cache != null
+            ? Files.createTempFile(cache, "download-", ".part")
+            : Files.createTempFile("isoburn-", ".iso");
+        CopyProgress progress = new CopyProgress(Phase.DOWNLOADING, "Downloading", remote.length(),
+            progressCallback);
+        MessageDigest digest = sha256();
+        long started = System.nanoTime();
+        try (FileChannel out = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            long length = downloader.download(uri, remote, new DigestChannel(out, digest), progress::add, cancelled);
+            log.info("Downloaded {} bytes from {} in {} ms", length, uri,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        if (cache == null) {
+            return new Download(part.toFile(), true);
+        }
+        String sha = HexFormat.of().formatHex(digest.digest());
+        Path target = cache.resolve(sha + ".iso");
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        remember(cache, uri, sha, remote);
+        return new Download(target.toFile(), false);
+    }
+
+    private Path lookup(Path cache, URI uri, RangedDownloader.RemoteFile remote) {
+        String entry = loadIndex(cache).getProperty(uri.toString());
+        if (entry == null) {
+            return null;
+        }
+        String[] fields = entry.split(" ", 3);
+        Path file = cache.resolve(fields[0] + ".iso");
+        try {
+            // Without an ETag the length is the only change we can detect
+            String etag = fields.length > 2 ? fields[2] : null;
+            if (Files.size(file) == remote.length() && Long.parseLong(fields[1]) == remote.length()
+                    && Objects.equals(etag, remote.etag())) {
+                return file;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cache entry for {} unusable: {}", uri, e.getMessage());
+        }
+        return null;
+    }
+
+    private synchronized void remember(Path cache, URI uri, String sha, RangedDownloader.RemoteFile remote) {
+        Properties index = loadIndex(cache);
+        index.setProperty(uri.toString(), sha + " " + remote.length()
+            + (remote.etag() != null ? " " + remote.etag() : ""));
+        Path temp = cache.resolve(INDEX_FILE + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                index.store(out, "isoBURN download cache");
+            }
+            Files.move(temp, cache.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to update download cache index: {}", e.getMessage());
+        }
+    }
+
+    private static Properties loadIndex(Path cache) {
+        Properties index = new Properties();
+        Path file = cache.resolve(INDEX_FILE);
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                index.load(in);
+            } catch (IOException e) {
+                log.warn("Ignoring unreadable download cache index {}: {}", file, e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Hashes the bytes on their way to the file so the cache name costs no second read
+    private record DigestChannel(WritableByteChannel delegate, MessageDigest digest) implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            ByteBuffer view = src.duplicate();
+            int written = delegate.write(src);
+            view.limit(view.position() + written);
+            digest.update(view);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
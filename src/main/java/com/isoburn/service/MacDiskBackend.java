@@ -0,0 +1,210 @@
+package com.isoburn.service;
+
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.PlistParser;
+import com.isoburn.util.ReadinessWaiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(name = "isoburn.disk-backend", havingValue = "macos", matchIfMissing = true)
+public class MacDiskBackend implements DiskBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(MacDiskBackend.class);
+
+    private final CommandExecutor commandExecutor;
+    private final PlistParser plistParser;
+    private final DriveDetectionService driveDetectionService;
+
+    @Value("${isoburn.volume-ready-timeout-seconds:30}")
+    private long volumeReadyTimeoutSeconds;
+
+    public MacDiskBackend(CommandExecutor commandExecutor, PlistParser plistParser,
+                          DriveDetectionService driveDetectionService) {
+        this.commandExecutor = commandExecutor;
+        this.plistParser = plistParser;
+        this.driveDetectionService = driveDetectionService;
+    }
+
+    @Override
+    public List<RemovableDrive> detectDrives() {
+        return driveDetectionService.detectRemovableDrives();
+    }
+
+    @Override
+    public boolean isDriveAvailable(RemovableDrive drive) {
+        return driveDetectionService.isDriveAvailable(drive.getDeviceIdentifier());
+    }
+
+    @Override
+    public boolean unmountDrive(RemovableDrive drive) {
+        try {
+            CommandExecutor.CommandResult result = commandExecutor.execute(
+                "diskutil", "unmountDisk", drive.getDeviceIdentifier()
+            );
+            if (!result.isSuccess()) {
+                log.warn("Unmount returned non-zero, but continuing: {}", result.stderr());
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to unmount drive", e);
+            return false;
+        }
+    }
+
+    @Override
+    public String mountDrive(RemovableDrive drive) {
+        try {
+            CommandExecutor.CommandResult result = commandExecutor.execute(
+                "diskutil", "mountDisk", drive.getDeviceIdentifier()
+            );
+            if (!result.isSuccess()) {
+                log.info("No mountable volume on {}: {}", drive.getDeviceIdentifier(), result.stderr());
+                return null;
+            }
+            // mountDisk returns once the volumes are mounted, so one probe is enough
+            return probeMountPoint(drive.getDeviceIdentifier() + "s1");
+        } catch (Exception e) {
+            log.error("Failed to mount drive", e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean formatDrive(RemovableDrive drive, String volumeName) {
+        try {
+            log.info("Formatting drive: {}", drive.getDeviceIdentifier());
+
+            CommandExecutor.CommandResult result = commandExecutor.execute(
+                "diskutil", "eraseDisk", "FAT32", volumeName, "MBRFormat", drive.getDeviceIdentifier()
+            );
+
+            if (!result.isSuccess()) {
+                log.error("Format failed: {}", result.stderr());
+                return false;
+            }
+
+            log.info("Drive formatted successfully");
+            return true;
+
+        } catch (Exception e) {
+            log.error("Failed to format drive", e);
+            return false;
+        }
+    }
+
+    @Override
+    public String mountIso(File isoFile) {
+        try {
+            CommandExecutor.CommandResult result = commandExecutor.execute(
+                "hdiutil", "mount", "-readonly", "-plist", isoFile.getAbsolutePath()
+            );
+
+            if (!result.isSuccess()) {
+                log.error("Failed to mount ISO: {}", result.stderr());
+                return null;
+            }
+
+            String mountPoint = plistParser.parseHdiutilMountPoint(result.stdout());
+            if (mountPoint != null) {
+                log.info("ISO mounted at: {}", mountPoint);
+            }
+
+            return mountPoint;
+
+        } catch (Exception e) {
+            log.error("Failed to mount ISO", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void unmountIso(String mountPoint) {
+        try {
+            log.info("Unmounting ISO: {}", mountPoint);
+            commandExecutor.execute("hdiutil", "unmount", mountPoint);
+        } catch (Exception e) {
+            log.error("Failed to unmount ISO", e);
+        }
+    }
+
+    @Override
+    public String findVolumeMountPoint(RemovableDrive drive, String volumeName) {
+        // eraseDisk with MBRFormat puts the new volume on the first partition of the drive
+        String partition = drive.getDeviceIdentifier() + "s1";
+        try {
+            String mountPoint = ReadinessWaiter.await(Paths.get("/Volumes"),
+                Duration.ofSeconds(volumeReadyTimeoutSeconds), Duration.ofMillis(50), Duration.ofSeconds(1),
+                commandExecutor::isCancelled, () -> probeMountPoint(partition));
+
+            if (mountPoint == null) {
+                log.error("Volume on {} did not mount within {} seconds", partition, volumeReadyTimeoutSeconds);
+                return null;
+            }
+
+            if (!Paths.get(mountPoint).getFileName().toString().equalsIgnoreCase(volumeName)) {
+                log.warn("Volume on {} mounted as {} rather than {}", partition, mountPoint, volumeName);
+            }
+            log.info("Found USB mount point: {}", mountPoint);
+            return mountPoint;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private String probeMountPoint(String partition) {
+        try {
+            CommandExecutor.CommandResult result = commandExecutor.execute(
+                "diskutil", "info", "-plist", partition
+            );
+            if (!result.isSuccess()) {
+                return null;
+            }
+            RemovableDrive info = plistParser.parseDiskInfo(result.stdout());
+            String mountPoint = info != null ? info.getMountPoint() : null;
+            if (mountPoint == null || mountPoint.isBlank() || !Files.isDirectory(Paths.get(mountPoint))) {
+                return null;
+            }
+            return mountPoint;
+        } catch (Exception e) {
+            log.debug("Probe of {} failed: {}", partition, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public FileChannel openRawDevice(RemovableDrive drive) throws IOException {
+        // The character device bypasses the buffer cache; opening it needs root
+        return FileChannel.open(Paths.get("/dev/r" + drive.getDeviceIdentifier()),
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public FileChannel readRawDevice(RemovableDrive drive) throws IOException {
+        return FileChannel.open(Paths.get("/dev/r" + drive.getDeviceIdentifier()), StandardOpenOption.READ);
+    }
+
+    @Override
+    public void ejectDrive(RemovableDrive drive) {
+        try {
+            commandExecutor.execute("diskutil", "eject", drive.getDeviceIdentifier());
+            log.info("Drive ejected: {}", drive.getDeviceIdentifier());
+        } catch (Exception e) {
+            log.error("Failed to eject drive", e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Steps of a burn that start as soon as the steps they depend on have
+ * finished, each on its own thread. The first step to fail interrupts the
+ * others and skips those not yet started, and {@link #run} returns only once
+ * every step has stopped, so none outlives the burn. Each step is timed as its
+ * phase, along with the wall-clock time saved by running it alongside others.
+ * When not parallel, steps run one after another on the calling thread.
+ */
+class PhaseGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(PhaseGraph.class);
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    interface Work<T> {
+        T run() throws Exception;
+    }
+
+    static final class Step<T> {
+        private final Phase phase;
+        private final BooleanSupplier runIf;
+        private final Work<T> work;
+        private final List<Step<?>> after;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile Future<?> task;
+        private long startNanos;
+        private long endNanos;
+
+        private Step(Phase phase, BooleanSupplier runIf, Work<T> work, List<Step<?>> after) {
+            this.phase = phase;
+            this.runIf = runIf;
+            this.work = work;
+            this.after = after;
+        }
+
+        // The step's value; only for steps that declared this one as a dependency, or after run
+        T get() {
+            return result.getNow(null);
+        }
+    }
+
+    private final BurnRecorder recorder;
+    private final boolean parallel;
+    private final List<Step<?>> steps = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    PhaseGraph(BurnRecorder recorder, boolean parallel) {
+        this.recorder = recorder;
+        this.parallel = parallel;
+    }
+
+    // Steps must be added after the steps they depend on
+    <T> Step<T> step(Phase phase, Work<T> work, Step<?>... after) {
+        return step(phase, () -> true, work, after);
+    }
+
+    // A step that is skipped, with a null value, unless runIf holds once its dependencies are done
+    <T> Step<T> step(Phase phase, BooleanSupplier runIf, Work<T> work, Step<?>... after) {
+        Step<T> step = new Step<>(phase, runIf, work, List.of(after));
+        steps.add(step);
+        return step;
+    }
+
+    // A value that is already known, for steps that are skipped in some burns
+    <T> Step<T> done(T value) {
+        Step<T> step = new Step<>(null, null, null, List.of());
+        step.result.complete(value);
+        return step;
+    }
+
+    // Runs every step and rethrows the first failure
+    void run() throws Exception {
+        recorder.endPhase();
+        if (!parallel) {
+            steps.forEach(this::runStep);
+        } else {
+            ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "isoburn-phase-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (Step<?> step : steps) {
+                step.task = executor.submit(() -> runStep(step));
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                fail(new CancellationException("Burn interrupted"), null);
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+        recordOverlap();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private <T> void runStep(Step<T> step) {
+        if (step.work == null) {
+            return;
+        }
+        try {
+            for (Step<?> dependency : step.after) {
+                dependency.result.get();
+            }
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            step.result.cancel(false);
+            return;
+        }
+        if (failure.get() != null) {
+            step.result.cancel(false);
+            return;
+        }
+        if (!step.runIf.getAsBoolean()) {
+            step.result.complete(null);
+            return;
+        }
+
+        step.startNanos = System.nanoTime();
+        recorder.beginStep(step.phase);
+        T value = null;
+        Exception error = null;
+        try {
+            value = step.work.run();
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            // Timed before the steps waiting on it are released, so they never seem to overlap it
+            step.endNanos = System.nanoTime();
+            recorder.endStep();
+        }
+        if (error != null) {
+            step.result.completeExceptionally(error);
+            fail(error, step);
+        } else {
+            step.result.complete(value);
+        }
+    }
+
+    private void fail(Exception e, Step<?> failed) {
+        if (!failure.compareAndSet(null, e)) {
+            return;
+        }
+        if (failed != null) {
+            log.debug("{} failed, stopping the other burn steps: {}", failed.phase, e.toString());
+        }
+        for (Step<?> step : steps) {
+            Future<?> task = step.task;
+            if (step != failed && task != null) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /*
+     * While k steps run at once, each is credited with (k - 1) / k of the
+     * elapsed time, so the credits add up to the total step time minus the
+     * wall-clock time the steps took.
+     */
+    private void recordOverlap() {
+        List<Step<?>> ran = steps.stream().filter(step -> step.startNanos != 0).toList();
+        long[] times = ran.stream()
+            .flatMapToLong(step -> Arrays.stream(new long[] {step.startNanos, step.endNanos}))
+            .sorted().distinct().toArray();
+        Map<Phase, Double> saved = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < times.length; i++) {
+            long from = times[i];
+            long to = times[i + 1];
+            List<Step<?>> running = ran.stream()
+                .filter(step -> step.startNanos <= from && step.endNanos >= to).toList();
+            if (running.size() > 1) {
+                double share = (to - from) * (running.size() - 1.0) / running.size();
+                running.forEach(step -> saved.merge(step.phase, share, Double::sum));
+            }
+        }
+        saved.forEach((phase, nanos) -> recorder.overlapSaved(phase, (long) (nanos / 1_000_000)));
+        long totalMillis = (long) (saved.values().stream().mapToDouble(Double::doubleValue).sum() / 1_000_000);
+        if (totalMillis > 0) {
+            log.info("Overlapping burn phases saved {} ms", totalMillis);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.isoburn.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,6 +18,7 @@ public class WimSplitService {
     private static final Logger log = LoggerFactory.getLogger(WimSplitService.class);
 
     private final CommandExecutor commandExecutor;
+    private final MeterRegistry meterRegistry;
 
     @Value("${isoburn.wim-max-size-gb:4}")
     private long wimMaxSizeGb;
@@ -26,8 +29,13 @@ public class WimSplitService {
     private static final String INSTALL_WIM_PATH = "sources/install.wim";
     private static final Pattern WIMLIB_PROGRESS_PATTERN = Pattern.compile("\\((\\d+)%\\)");
 
-    public WimSplitService(CommandExecutor commandExecutor) {
+    public WimSplitService(CommandExecutor commandExecutor, MeterRegistry meterRegistry) {
         this.commandExecutor = commandExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public int getSplitSizeMb() {
+        return wimSplitSizeMb;
     }
 
     public record WimCheckResult(boolean needsSplit, File wimFile, long sizeBytes) {}
@@ -91,24 +99,26 @@ public class WimSplitService {
         log.info("Splitting WIM file: {}", command);
         progressCallback.accept("Splitting install.wim (this may take several minutes)...", 0);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         CommandExecutor.CommandResult result = commandExecutor.executeShell(
             line -> {
                 log.debug("wimlib: {}", line);
-                // Parse percentage from wimlib output like "(45%)"
-                Matcher matcher = WIMLIB_PROGRESS_PATTERN.matcher(line);
-                if (matcher.find()) {
-                    try {
-                        int percent = Integer.parseInt(matcher.group(1));
-                        progressCallback.accept("Splitting: " + line.trim(), percent);
-                    } catch (NumberFormatException ignored) {
-                        progressCallback.accept("Splitting: " + line.trim(), -1);
-                    }
+                Integer percent = parseProgressPercent(line);
+                if (percent != null) {
+                    progressCallback.accept("Splitting: " + line.trim(), percent);
                 }
             },
             line -> log.warn("wimlib stderr: {}", line),
             command
         );
 
+        sample.stop(Timer.builder("isoburn.wim.split")
+            .tag("outcome", result.isSuccess() ? "success" : "failure")
+            .register(meterRegistry));
+        if (result.isSuccess()) {
+            meterRegistry.counter("isoburn.wim.split.bytes").increment(sourceWim.length());
+        }
+
         if (!result.isSuccess()) {
             log.error("wimlib-imagex split failed: {}", result.stderr());
             throw new RuntimeException("Failed to split WIM file: " + result.stderr());
@@ -120,6 +130,19 @@ public class WimSplitService {
         return true;
     }
 
+    // Parse percentage from wimlib output like "(45%)"; -1 if unparseable, null if absent
+    static Integer parseProgressPercent(String line) {
+        Matcher matcher = WIMLIB_PROGRESS_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(matcher.group(1));
+        } catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
     public String getWimlibInstallInstructions() {
         return """
             wimlib is required to handle Windows 11 ISOs with large install.wim files.
@@ -0,0 +1,280 @@
+package com.isoburn.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Controls how much copied data may sit in the page cache before it is forced
+ * to the drive, and reports progress only for bytes that are durable under
+ * the policy. Without this the bar reaches 100% while gigabytes are still
+ * dirty and the eject at the end stalls until the OS has written them.
+ * <ul>
+ *   <li>NONE: leave write-back to the OS; progress counts bytes written</li>
+ *   <li>PERIODIC: force all written files every threshold bytes, stalling the copy</li>
+ *   <li>WINDOW: force in the background, stalling only when more than threshold bytes are unforced</li>
+ *   <li>SYNC: open targets with DSYNC so every write is durable</li>
+ * </ul>
+ */
+class WriteBack implements Closeable {
+
+    enum Policy {
+        NONE, PERIODIC, WINDOW, SYNC;
+
+        // Throws IllegalArgumentException naming the accepted values
+        static Policy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown flush policy '" + value + "', expected one of "
+                    + Arrays.toString(values()).toLowerCase(Locale.ROOT), e);
+            }
+        }
+    }
+
+    // Bounds the file handles held open while waiting to be forced
+    private static final int MAX_PENDING_FILES = 256;
+
+    private final Policy policy;
+    private final long thresholdBytes;
+    private final CopyProgress progress;
+    private final ExecutorService flusher;
+    private final Deque<Batch> inflight = new ArrayDeque<>();
+    private final Set<Target> pending = new LinkedHashSet<>();
+    private final Set<Target> open = new LinkedHashSet<>();
+    private long pendingBytes;
+    private long inflightBytes;
+
+    WriteBack(Policy policy, long thresholdBytes, CopyProgress progress) {
+        this.policy = policy;
+        this.thresholdBytes = thresholdBytes;
+        this.progress = progress;
+        this.flusher = policy == Policy.WINDOW
+            ? Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "isoburn-flusher");
+                thread.setDaemon(true);
+                return thread;
+            })
+            : null;
+    }
+
+    Target open(Path path, OpenOption... options) throws IOException {
+        Set<OpenOption> all = new LinkedHashSet<>(Arrays.asList(options));
+        if (policy == Policy.SYNC) {
+            all.add(StandardOpenOption.DSYNC);
+        }
+        Target target = new Target(FileChannel.open(path, all));
+        synchronized (this) {
+            open.add(target);
+        }
+        return target;
+    }
+
+    void written(Target target, long bytes) throws IOException {
+        if (policy == Policy.NONE || policy == Policy.SYNC) {
+            progress.add(bytes);
+            return;
+        }
+        // Hand off half a window at a time so the flusher works while the copy continues
+        long batchBytes = policy == Policy.PERIODIC ? thresholdBytes : thresholdBytes / 2;
+        boolean full;
+        synchronized (this) {
+            target.unforced += bytes;
+            pendingBytes += bytes;
+            pending.add(target);
+            full = pendingBytes >= batchBytes;
+        }
+        if (policy == Policy.PERIODIC) {
+            if (full) {
+                forcePending();
+            }
+        } else {
+            if (full) {
+                submitPending();
+            }
+            awaitWindow(thresholdBytes);
+        }
+    }
+
+    // Bytes already on the drive, e.g. the part of a resumed file copied earlier
+    void durable(long bytes) {
+        progress.add(bytes);
+    }
+
+    // The file is complete; its channel closes once its data has been forced
+    void release(Target target) throws IOException {
+        boolean overflow;
+        synchronized (this) {
+            target.released = true;
+            closeIfDone(target);
+            overflow = pending.size() > MAX_PENDING_FILES;
+        }
+        if (overflow) {
+            if (policy == Policy.PERIODIC) {
+                forcePending();
+            } else {
+                submitPending();
+            }
+        }
+    }
+
+    // Forces everything written so far and waits for it
+    void drain() throws IOException {
+        if (policy == Policy.PERIODIC) {
+            forcePending();
+        } else if (policy == Policy.WINDOW) {
+            submitPending();
+            awaitWindow(0);
+        }
+    }
+
+    // Whether drain() leaves every file written so far on the drive; under NONE it is up to the OS
+    boolean isDurableAfterDrain() {
+        return policy != Policy.NONE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                awaitWindow(0);
+            } catch (IOException e) {
+                // Closing after a failed or cancelled copy; the channels are closed below regardless
+            }
+        }
+        IOException failure = null;
+        synchronized (this) {
+            for (Target target : open) {
+                try {
+                    target.channel.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            open.clear();
+            pending.clear();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void forcePending() throws IOException {
+        for (Batch.Item item : takePending()) {
+            item.target.channel.force(false);
+            completed(item);
+        }
+    }
+
+    private void submitPending() {
+        List<Batch.Item> items = takePending();
+        if (items.isEmpty()) {
+            return;
+        }
+        Batch batch = new Batch(items);
+        synchronized (this) {
+            inflightBytes += batch.bytes;
+        }
+        batch.future = flusher.submit(() -> {
+            for (Batch.Item item : items) {
+                item.target.channel.force(false);
+                completed(item);
+            }
+            synchronized (this) {
+                inflightBytes -= batch.bytes;
+            }
+            return null;
+        });
+        synchronized (this) {
+            inflight.addLast(batch);
+        }
+    }
+
+    private void awaitWindow(long limit) throws IOException {
+        while (true) {
+            Batch oldest;
+            synchronized (this) {
+                if (inflight.isEmpty() || inflightBytes + pendingBytes <= limit) {
+                    return;
+                }
+                oldest = inflight.removeFirst();
+            }
+            try {
+                oldest.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while flushing to drive", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+    }
+
+    private synchronized List<Batch.Item> takePending() {
+        List<Batch.Item> items = new ArrayList<>(pending.size());
+        for (Target target : pending) {
+            if (target.unforced > 0) {
+                items.add(new Batch.Item(target, target.unforced));
+                target.inflight++;
+                target.unforced = 0;
+            }
+        }
+        pending.clear();
+        pendingBytes = 0;
+        return items;
+    }
+
+    private synchronized void completed(Batch.Item item) throws IOException {
+        progress.add(item.bytes);
+        item.target.inflight--;
+        closeIfDone(item.target);
+    }
+
+    private void closeIfDone(Target target) throws IOException {
+        if (target.released && target.inflight == 0 && target.unforced == 0 && open.remove(target)) {
+            target.channel.close();
+        }
+    }
+
+    static final class Target {
+        private final FileChannel channel;
+        private long unforced;
+        private int inflight;
+        private boolean released;
+
+        private Target(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        FileChannel channel() {
+            return channel;
+        }
+    }
+
+    private static final class Batch {
+        private final long bytes;
+        private Future<?> future;
+
+        Batch(List<Item> items) {
+            this.bytes = items.stream().mapToLong(Item::bytes).sum();
+        }
+
+        private record Item(Target target, long bytes) {}
+    }
+}
@@ -0,0 +1,151 @@
+package com.isoburn.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket pacing I/O to a bandwidth, with an optional burst allowance
+ * and a fixed latency per operation. Used to make file-backed targets behave
+ * like a real USB stick, and for the read and write budgets of
+ * {@link IoBudget}.
+ *
+ * <p>Requests are granted in arrival order, so streams moving equal chunks
+ * get equal shares. {@link Priority#VERIFY} requests have a bucket of their
+ * own: while {@link Priority#BURN} transfers are under way they get only
+ * {@code verifyShare} of the bandwidth and burns the rest, otherwise either
+ * class gets all of it. Without a rate, the share is taken of the rate burns
+ * actually reach, so verification still yields. The rate can be changed at
+ * any time.
+ */
+public class BandwidthThrottle {
+
+    public static final BandwidthThrottle UNLIMITED = new BandwidthThrottle(0, 0);
+
+    public enum Priority {
+        BURN,
+        VERIFY
+    }
+
+    // How long after its last granted transfer ends a class still counts as busy
+    private static final long ACTIVE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    // Longer gaps between burn requests are not taken for the time a transfer took
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final long latencyNanos;
+    private final long burstNanos;
+
+    private volatile long bytesPerSecond;
+    private volatile double verifyShare;
+
+    private final long[] nextFreeNanos = new long[Priority.values().length];
+
+    // Rate burns have been reading at, measured while no rate is set
+    private long lastBurnNanos;
+    private long lastBurnBytes;
+    private double burnBytesPerSecond;
+
+    public BandwidthThrottle(long bytesPerSecond, long latencyMillis) {
+        this(bytesPerSecond, latencyMillis, 0, 1.0);
+    }
+
+    public BandwidthThrottle(long bytesPerSecond, long latencyMillis, long burstMillis, double verifyShare) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.latencyNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        this.burstNanos = TimeUnit.MILLISECONDS.toNanos(burstMillis);
+        setVerifyShare(verifyShare);
+        Arrays.fill(nextFreeNanos, System.nanoTime() - ACTIVE_NANOS);
+    }
+
+    public boolean isUnlimited() {
+        return bytesPerSecond <= 0 && latencyNanos <= 0 && verifyShare >= 1.0;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    // 0 or less for no limit; takes effect with the next request
+    public synchronized void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        // Debt run up at the old rate is not carried over
+        long now = System.nanoTime();
+        for (int i = 0; i < nextFreeNanos.length; i++) {
+            nextFreeNanos[i] = Math.min(nextFreeNanos[i], now);
+        }
+    }
+
+    public double getVerifyShare() {
+        return verifyShare;
+    }
+
+    // Fraction of the bandwidth verification gets while burns are running; 1 shares nothing out
+    public void setVerifyShare(double verifyShare) {
+        this.verifyShare = Math.max(0.01, Math.min(1.0, verifyShare));
+    }
+
+    public void acquire(long bytes) {
+        acquire(bytes, Priority.BURN);
+    }
+
+    public void acquire(long bytes, Priority priority) {
+        if (!isUnlimited()) {
+            sleepUntil(reserve(bytes, priority));
+        }
+    }
+
+    // Books a transfer and returns the System.nanoTime() it may go ahead at
+    synchronized long reserve(long bytes, Priority priority) {
+        long now = System.nanoTime();
+        int own = priority.ordinal();
+        int other = priority == Priority.BURN ? Priority.VERIFY.ordinal() : Priority.BURN.ordinal();
+
+        double rate = bytesPerSecond;
+        double share = verifyShare;
+        boolean shared = share < 1.0 && nextFreeNanos[other] > now - ACTIVE_NANOS;
+        if (rate > 0) {
+            if (shared) {
+                rate *= priority == Priority.VERIFY ? share : 1.0 - share;
+            }
+        } else if (priority == Priority.BURN) {
+            // Burns are not held back; their measured pace only tells how long they stay busy
+            nextFreeNanos[own] = now + measureBurn(now, bytes);
+            return now + latencyNanos;
+        } else if (shared && burnBytesPerSecond > 0) {
+            // Verification gets share of what both move together
+            rate = burnBytesPerSecond * share / (1.0 - share);
+        }
+        long start = Math.max(now, nextFreeNanos[own]);
+        long transferNanos = rate > 0 ? (long) (bytes * 1_000_000_000.0 / rate) : 0;
+        nextFreeNanos[own] = start + transferNanos;
+        return Math.max(now, nextFreeNanos[own] - burstNanos) + latencyNanos;
+    }
+
+    /*
+     * The bytes booked by the previous burn request have moved by now, unless
+     * the burn went idle in between. Averages the rate over a few requests and
+     * returns how long this request should take at it.
+     */
+    private long measureBurn(long now, long bytes) {
+        long elapsed = now - lastBurnNanos;
+        boolean busy = now <= nextFreeNanos[Priority.BURN.ordinal()] + ACTIVE_NANOS;
+        if (lastBurnBytes > 0 && elapsed > 0 && (busy || burnBytesPerSecond == 0 && elapsed < IDLE_NANOS)) {
+            double sample = lastBurnBytes * 1_000_000_000.0 / elapsed;
+            burnBytesPerSecond = burnBytesPerSecond > 0 ? 0.75 * burnBytesPerSecond + 0.25 * sample : sample;
+        }
+        lastBurnNanos = now;
+        lastBurnBytes = bytes;
+        return burnBytesPerSecond > 0 ? (long) (bytes * 1_000_000_000.0 / burnBytesPerSecond) : 0;
+    }
+
+    static void sleepUntil(long wakeAt) {
+        long remaining;
+        while ((remaining = wakeAt - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Which blocks of a raw image hold data, in the bmaptool XML format (versions
+ * 1.x with SHA-1 and 2.0 with SHA-256 range checksums). Blocks outside the map
+ * are never written. Maps can also be generated by scanning an image for
+ * all-zero blocks; those are marked so they can be regenerated when stale.
+ */
+public final class BlockMap {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockMap.class);
+
+    private static final String GENERATED_MARKER = "Generated by isoBURN";
+    // Keeps each range short enough that a bad checksum is caught early
+    private static final long MAX_RANGE_BLOCKS = 2048;
+    // Always written, so a stale partition table or boot sector cannot survive on the drive
+    private static final long ALWAYS_MAPPED_BYTES = 1024 * 1024;
+
+    private static final ByteBuffer ZEROS = ByteBuffer.allocate(64 * 1024).asReadOnlyBuffer();
+
+    private final long imageSize;
+    private final int blockSize;
+    private final String checksumType;
+    private final List<Range> ranges;
+    private final boolean generated;
+
+    public record Range(long first, long last, String checksum) {}
+
+    public BlockMap(long imageSize, int blockSize, String checksumType, List<Range> ranges, boolean generated) {
+        this.imageSize = imageSize;
+        this.blockSize = blockSize;
+        this.checksumType = checksumType;
+        this.ranges = List.copyOf(ranges);
+        this.generated = generated;
+    }
+
+    public long getImageSize() { return imageSize; }
+    public int getBlockSize() { return blockSize; }
+    public String getChecksumType() { return checksumType; }
+    public List<Range> getRanges() { return ranges; }
+    public boolean isGenerated() { return generated; }
+
+    public long start(Range range) {
+        return range.first() * blockSize;
+    }
+
+    // The last block of an image may be partial
+    public long length(Range range) {
+        return Math.min(imageSize, (range.last() + 1) * blockSize) - start(range);
+    }
+
+    public long mappedBytes() {
+        return ranges.stream().mapToLong(this::length).sum();
+    }
+
+    public MessageDigest newDigest() {
+        return digest(checksumType.equals("sha1") ? "SHA-1" : "SHA-256");
+    }
+
+    // Returns null when the file is missing, malformed or fails its own checksum
+    public static BlockMap read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            Document doc = builder.parse(new ByteArrayInputStream(bytes));
+            Element root = doc.getDocumentElement();
+
+            String version = root.getAttribute("version").trim();
+            String checksumType = text(root, "ChecksumType");
+            if (checksumType == null) {
+                checksumType = "sha1";
+            }
+            checksumType = checksumType.toLowerCase(Locale.ROOT);
+            if (!checksumType.equals("sha1") && !checksumType.equals("sha256")) {
+                log.warn("Ignoring block map {} with unsupported checksum {}", file, checksumType);
+                return null;
+            }
+
+            String fileChecksum = text(root, "BmapFileChecksum");
+            if (fileChecksum == null) {
+                fileChecksum = text(root, "BmapFileSHA1");
+            }
+            if (fileChecksum != null && !fileChecksum.equals(selfChecksum(bytes, fileChecksum, checksumType))) {
+                log.warn("Ignoring block map {}: file checksum does not match", file);
+                return null;
+            }
+
+            long imageSize = Long.parseLong(text(root, "ImageSize"));
+            int blockSize = Integer.parseInt(text(root, "BlockSize"));
+            List<Range> ranges = new ArrayList<>();
+            NodeList nodes = root.getElementsByTagName("Range");
+            for (int i = 0; i < nodes.getLength(); i++) {
+                Element range = (Element) nodes.item(i);
+                String checksum = range.hasAttribute("chksum") ? range.getAttribute("chksum")
+                    : range.hasAttribute("sha1") ? range.getAttribute("sha1") : null;
+                String[] bounds = range.getTextContent().trim().split("-");
+                long first = Long.parseLong(bounds[0].trim());
+                long last = bounds.length > 1 ? Long.parseLong(bounds[1].trim()) : first;
+                ranges.add(new Range(first, last, checksum != null ? checksum.trim() : null));
+            }
+            boolean generated = new String(bytes, StandardCharsets.UTF_8).contains(GENERATED_MARKER);
+            log.debug("Read block map {} (version {}, {} ranges)", file, version, ranges.size());
+            return new BlockMap(imageSize, blockSize, checksumType, ranges, generated);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable block map {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    // Written in bmaptool 2.0 format so the map also works with bmaptool itself
+    public void write(Path file) throws IOException {
+        String zeros = "0".repeat(checksumType.equals("sha1") ? 40 : 64);
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" ?>\n");
+        if (generated) {
+            xml.append("<!-- ").append(GENERATED_MARKER).append(" -->\n");
+        }
+        xml.append("<bmap version=\"2.0\">\n");
+        xml.append("    <ImageSize> ").append(imageSize).append(" </ImageSize>\n");
+        xml.append("    <BlockSize> ").append(blockSize).append(" </BlockSize>\n");
+        xml.append("    <BlocksCount> ").append((imageSize + blockSize - 1) / blockSize).append(" </BlocksCount>\n");
+        xml.append("    <MappedBlocksCount> ")
+            .append(ranges.stream().mapToLong(r -> r.last() - r.first() + 1).sum())
+            .append(" </MappedBlocksCount>\n");
+        xml.append("    <ChecksumType> ").append(checksumType).append(" </ChecksumType>\n");
+        xml.append("    <BmapFileChecksum> ").append(zeros).append(" </BmapFileChecksum>\n");
+        xml.append("    <BlockMap>\n");
+        for (Range range : ranges) {
+            xml.append("        <Range chksum=\"").append(range.checksum()).append("\"> ").append(range.first());
+            if (range.last() != range.first()) {
+                xml.append('-').append(range.last());
+            }
+            xml.append(" </Range>\n");
+        }
+        xml.append("    </BlockMap>\n");
+        xml.append("</bmap>\n");
+
+        byte[] bytes = xml.toString().getBytes(StandardCharsets.UTF_8);
+        String checksum = selfChecksum(bytes, zeros, checksumType);
+        bytes = xml.toString().replace(zeros, checksum).getBytes(StandardCharsets.UTF_8);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Scans {@code image} for blocks that are not all zeros and hashes each
+     * resulting range. {@code progress} receives counts of bytes scanned.
+     */
+    public static BlockMap generate(Path image, int blockSize, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        long imageSize = Files.size(image);
+        int blocksPerRead = Math.max(1, 8 * 1024 * 1024 / blockSize);
+        ByteBuffer buffer = ByteBuffer.allocate(blocksPerRead * blockSize);
+        List<Range> ranges = new ArrayList<>();
+        MessageDigest digest = digest("SHA-256");
+        long first = -1;
+        long block = 0;
+
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            while (block * blockSize < imageSize) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Block map generation cancelled");
+                }
+                buffer.clear();
+                long position = block * blockSize;
+                buffer.limit((int) Math.min(buffer.capacity(), imageSize - position));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) <= 0) {
+                        break;
+                    }
+                }
+                int read = buffer.position();
+                byte[] data = buffer.array();
+                for (int offset = 0; offset < read; offset += blockSize, block++) {
+                    int length = Math.min(blockSize, read - offset);
+                    boolean empty = isUnmapped(buffer.slice(offset, length), block * blockSize);
+                    if (first >= 0 && (empty || block - first >= MAX_RANGE_BLOCKS)) {
+                        ranges.add(new Range(first, block - 1, HexFormat.of().formatHex(digest.digest())));
+                        first = -1;
+                    }
+                    if (!empty) {
+                        if (first < 0) {
+                            first = block;
+                        }
+                        digest.update(data, offset, length);
+                    }
+                }
+                progress.accept(read);
+            }
+        }
+        if (first >= 0) {
+            ranges.add(new Range(first, block - 1, HexFormat.of().formatHex(digest.digest())));
+        }
+        return new BlockMap(imageSize, blockSize, "sha256", ranges, true);
+    }
+
+    /**
+     * Whether a generated map leaves out {@code block}, which starts at
+     * {@code position} in the image: it is all zeros and past the first
+     * megabyte.
+     */
+    public static boolean isUnmapped(ByteBuffer block, long position) {
+        if (position < ALWAYS_MAPPED_BYTES) {
+            return false;
+        }
+        for (int offset = block.position(); offset < block.limit(); offset += ZEROS.capacity()) {
+            int length = Math.min(ZEROS.capacity(), block.limit() - offset);
+            if (block.slice(offset, length).mismatch(ZEROS.slice(0, length)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String selfChecksum(byte[] bytes, String recorded, String checksumType) {
+        String zeros = "0".repeat(recorded.length());
+        String zeroed = new String(bytes, StandardCharsets.UTF_8).replace(recorded, zeros);
+        MessageDigest digest = digest(checksumType.equals("sha1") ? "SHA-1" : "SHA-256");
+        return HexFormat.of().formatHex(digest.digest(zeroed.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String text(Element root, String tag) {
+        NodeList nodes = root.getElementsByTagName(tag);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent().trim() : null;
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.isoburn.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Direct, page-aligned I/O buffers shared by every copy, hash and raw write,
+ * under one memory budget. Buffers come in power-of-two size classes from
+ * 64 KiB to 16 MiB and are kept for reuse after release; larger requests get
+ * a buffer of their own that is dropped on release. When the budget is used
+ * up, {@link #acquire} waits for a release, so concurrent jobs slow down
+ * instead of growing the process.
+ */
+@Component
+public class BufferPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferPool.class);
+
+    private static final int MIN_CLASS_SHIFT = 16;
+    private static final int MAX_CLASS_SHIFT = 24;
+    // A multiple of both 4 KiB and 16 KiB pages
+    private static final int ALIGNMENT = 16 * 1024;
+
+    private final long budget;
+    private final Timer waitTimer;
+    private final ArrayDeque<ByteBuffer>[] free;
+    private final Map<ByteBuffer, ByteBuffer> leased = new IdentityHashMap<>();
+
+    private long allocatedBytes;
+    private long inUseBytes;
+    private long highWaterBytes;
+    private int waiters;
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(MeterRegistry meterRegistry, @Value("${isoburn.buffer-pool.budget-mb:256}") long budgetMb) {
+        this.budget = budgetMb * 1024 * 1024;
+        this.free = new ArrayDeque[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ArrayDeque<>();
+        }
+        this.waitTimer = meterRegistry.timer("isoburn.buffers.wait");
+        Gauge.builder("isoburn.buffers.in-use", this, BufferPool::getInUseBytes).baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("isoburn.buffers.allocated", this, BufferPool::getAllocatedBytes).baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("isoburn.buffers.high-water", this, BufferPool::getHighWaterBytes).baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("isoburn.buffers.waiters", this, BufferPool::getWaiters).register(meterRegistry);
+    }
+
+    public long getBudgetBytes() { return budget; }
+    public synchronized long getAllocatedBytes() { return allocatedBytes; }
+    public synchronized long getInUseBytes() { return inUseBytes; }
+    public synchronized long getHighWaterBytes() { return highWaterBytes; }
+    public synchronized int getWaiters() { return waiters; }
+
+    /**
+     * A cleared buffer of exactly {@code size} bytes, waiting while the budget
+     * is in use. A request larger than the whole budget is served once
+     * nothing else is leased. Every buffer must go back through {@link #release}.
+     */
+    public ByteBuffer acquire(int size) throws InterruptedIOException {
+        int sizeClass = sizeClass(size);
+        long cost = sizeClass < free.length ? 1L << (sizeClass + MIN_CLASS_SHIFT) : align(size);
+        long waitStarted = 0;
+
+        synchronized (this) {
+            try {
+                while (true) {
+                    ByteBuffer buffer = sizeClass < free.length ? free[sizeClass].pollFirst() : null;
+                    if (buffer == null && (allocatedBytes + cost <= budget || dropFree(cost) || inUseBytes == 0)) {
+                        buffer = allocate(cost);
+                    }
+                    if (buffer != null) {
+                        inUseBytes += cost;
+                        highWaterBytes = Math.max(highWaterBytes, inUseBytes);
+                        ByteBuffer lease = buffer.clear().slice(0, size);
+                        leased.put(lease, buffer);
+                        return lease;
+                    }
+                    if (waitStarted == 0) {
+                        waitStarted = System.nanoTime();
+                        log.debug("Buffer budget exhausted ({} of {} bytes in use), waiting", inUseBytes, budget);
+                    }
+                    waiters++;
+                    try {
+                        wait();
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a buffer");
+            } finally {
+                if (waitStarted != 0) {
+                    waitTimer.record(System.nanoTime() - waitStarted, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    public synchronized void release(ByteBuffer lease) {
+        ByteBuffer buffer = leased.remove(lease);
+        if (buffer == null) {
+            return;
+        }
+        inUseBytes -= buffer.capacity();
+        int sizeClass = Integer.numberOfTrailingZeros(buffer.capacity()) - MIN_CLASS_SHIFT;
+        if (Integer.bitCount(buffer.capacity()) == 1 && sizeClass >= 0 && sizeClass < free.length) {
+            free[sizeClass].addFirst(buffer);
+        } else {
+            allocatedBytes -= buffer.capacity();
+        }
+        notifyAll();
+    }
+
+    private ByteBuffer allocate(long cost) {
+        allocatedBytes += cost;
+        return ByteBuffer.allocateDirect((int) cost + ALIGNMENT - 1).alignedSlice(ALIGNMENT);
+    }
+
+    // Gives up idle buffers of other sizes until cost fits; their memory goes when the GC collects them
+    private boolean dropFree(long cost) {
+        for (ArrayDeque<ByteBuffer> idle : free) {
+            while (!idle.isEmpty() && allocatedBytes + cost > budget) {
+                allocatedBytes -= idle.pollLast().capacity();
+            }
+        }
+        return allocatedBytes + cost <= budget;
+    }
+
+    private static int sizeClass(int size) {
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, size) - 1));
+        return shift - MIN_CLASS_SHIFT;
+    }
+
+    private static long align(int size) {
+        return ((long) size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,120 @@
+package com.isoburn.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.BurnReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports of past burns, one JSON line each, appended to a single file and
+ * never rewritten. A line cut short by a crash is skipped when reading. The
+ * newest {@code max-entries} reports are kept in memory once loaded.
+ */
+@Component
+public class BurnHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BurnHistoryStore.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Value("${isoburn.history.file:}")
+    private String historyFile;
+
+    @Value("${isoburn.history.max-entries:2000}")
+    private int maxEntries;
+
+    private List<BurnReport> entries;
+
+    public boolean isEnabled() {
+        return historyFile != null && !historyFile.isBlank();
+    }
+
+    public synchronized void append(BurnReport report) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Path file = Paths.get(historyFile);
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            // A line cut short by a crash is ended first, so this one is not joined to it
+            String line = objectMapper.writeValueAsString(report) + "\n";
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                if (channel.size() > 0 && channel.read(last, channel.size() - 1) == 1 && last.get(0) != '\n') {
+                    line = "\n" + line;
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+                long position = channel.size();
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to append to burn history {}: {}", historyFile, e.getMessage());
+        }
+        if (entries != null) {
+            entries.add(report);
+            trim(entries);
+        }
+    }
+
+    // Oldest first
+    public synchronized List<BurnReport> entries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return List.copyOf(entries);
+    }
+
+    private List<BurnReport> load() {
+        List<BurnReport> loaded = new ArrayList<>();
+        if (!isEnabled() || !Files.isRegularFile(Paths.get(historyFile))) {
+            return loaded;
+        }
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(historyFile), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    loaded.add(objectMapper.readValue(line, BurnReport.class));
+                } catch (IOException e) {
+                    skipped++;
+                }
+            }
+            trim(loaded);
+        } catch (IOException e) {
+            log.warn("Failed to read burn history {}: {}", historyFile, e.getMessage());
+        }
+        if (skipped > 0) {
+            log.warn("Skipped {} unreadable burn history entries in {}", skipped, historyFile);
+        }
+        log.debug("Loaded {} burn history entries", loaded.size());
+        return loaded;
+    }
+
+    private void trim(List<BurnReport> list) {
+        if (list.size() > maxEntries) {
+            list.subList(0, list.size() - maxEntries).clear();
+        }
+    }
+}
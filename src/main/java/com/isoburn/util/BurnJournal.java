@@ -0,0 +1,262 @@
+package com.isoburn.util;
+
+import com.isoburn.model.DriveManifest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only record of a burn's copy phase, kept on the target volume so an
+ * interrupted burn can be resumed. One tab-separated record per line:
+ * <pre>
+ * H  version  chunkSize  isoKey     header, always first
+ * F  size     hashes     path       file copied completely
+ * P  index    hashes     path       leading chunks of a file being copied
+ * S                                 checkpoint, everything above is on the device
+ * </pre>
+ * Reading stops at the first incomplete or malformed line, so a torn tail
+ * just loses the records after the last intact one.
+ */
+public class BurnJournal implements Closeable {
+
+    public static final String JOURNAL_FILE = "journal.log";
+    private static final int VERSION = 1;
+
+    private final Path volume;
+    private final FileChannel channel;
+    private final long checkpointBytes;
+    private final StringBuilder pending = new StringBuilder();
+    private final List<String> unforced = new ArrayList<>();
+    private long bytesSinceCheckpoint;
+    private String partialPath;
+    private int partialChunks;
+
+    private BurnJournal(Path volume, FileChannel channel, long checkpointBytes) {
+        this.volume = volume;
+        this.channel = channel;
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    /**
+     * Starts a journal for a burn, carrying over the validated state of an
+     * interrupted one when {@code resume} is given.
+     */
+    public static BurnJournal open(Path volume, String isoKey, int chunkSize, long checkpointBytes,
+                                   State resume) throws IOException {
+        Path dir = volume.resolve(DriveManifestStore.MANIFEST_DIR);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(JOURNAL_FILE);
+        Path temp = dir.resolve(JOURNAL_FILE + ".tmp");
+
+        StringBuilder initial = new StringBuilder();
+        initial.append("H\t").append(VERSION).append('\t').append(chunkSize).append('\t').append(isoKey).append('\n');
+        if (resume != null) {
+            for (DriveManifest.Entry entry : resume.getCompleted().values()) {
+                appendRecord(initial, "F", entry.getSize(), entry.getChunks(), entry.getPath());
+            }
+            if (resume.getPartialPath() != null) {
+                appendRecord(initial, "P", 0, resume.getPartialChunks(), resume.getPartialPath());
+            }
+        }
+        initial.append("S\n");
+        Files.writeString(temp, initial, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        BurnJournal journal = new BurnJournal(volume, channel, checkpointBytes);
+        if (resume != null && resume.getPartialPath() != null) {
+            journal.partialPath = resume.getPartialPath();
+            journal.partialChunks = resume.getPartialChunks().size();
+        }
+        return journal;
+    }
+
+    // Counts bytes written to the target; returns true when a checkpoint is due
+    public boolean bytesWritten(long bytes) {
+        bytesSinceCheckpoint += bytes;
+        return bytesSinceCheckpoint >= checkpointBytes;
+    }
+
+    public void fileCompleted(String path, long size, List<String> chunks) {
+        appendRecord(pending, "F", size, chunks, path);
+        unforced.add(path);
+        if (path.equals(partialPath)) {
+            partialPath = null;
+            partialChunks = 0;
+        }
+    }
+
+    /**
+     * Records the chunks of {@code path} completed so far and makes the journal
+     * durable. The caller must have forced the file's data to the device first;
+     * files completed since the last checkpoint are forced here, so the S
+     * record never covers data still in the page cache.
+     */
+    public void checkpoint(String path, List<String> completedChunks) throws IOException {
+        forceCompleted();
+        if (!path.equals(partialPath)) {
+            partialPath = path;
+            partialChunks = 0;
+        }
+        if (completedChunks.size() > partialChunks) {
+            appendRecord(pending, "P", partialChunks,
+                completedChunks.subList(partialChunks, completedChunks.size()), path);
+            partialChunks = completedChunks.size();
+        }
+        pending.append("S\n");
+        flush(true);
+        bytesSinceCheckpoint = 0;
+    }
+
+    // The caller has forced every file completed so far, so the next checkpoint need not
+    public void filesForced() {
+        unforced.clear();
+    }
+
+    /**
+     * Writes out the records since the last checkpoint without committing
+     * them: after a cancelled or failed copy their files may not be on the
+     * device, so a resume re-hashes them.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void forceCompleted() throws IOException {
+        for (String path : unforced) {
+            // fsync applies to the file, not the descriptor, so a fresh handle flushes what the copy left dirty
+            try (FileChannel file = FileChannel.open(volume.resolve(path), StandardOpenOption.WRITE)) {
+                file.force(false);
+            }
+        }
+        unforced.clear();
+    }
+
+    private void flush(boolean force) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(pending.toString());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        pending.setLength(0);
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    private static void appendRecord(StringBuilder out, String type, long number, List<String> chunks, String path) {
+        out.append(type).append('\t').append(number).append('\t')
+            .append(chunks.isEmpty() ? "-" : String.join(",", chunks)).append('\t')
+            .append(path).append('\n');
+    }
+
+    // Returns null when the volume has no readable journal
+    public static State read(Path volume) throws IOException {
+        Path file = volume.resolve(DriveManifestStore.MANIFEST_DIR).resolve(JOURNAL_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int end = content.lastIndexOf('\n');
+        if (end < 0) {
+            return null;
+        }
+
+        State state = null;
+        Set<String> sinceCheckpoint = new LinkedHashSet<>();
+        for (String line : content.substring(0, end).split("\n")) {
+            String[] fields = line.split("\t", 4);
+            try {
+                if (state == null) {
+                    if (!fields[0].equals("H") || fields.length != 4 || Integer.parseInt(fields[1]) != VERSION) {
+                        return null;
+                    }
+                    state = new State(fields[3], Integer.parseInt(fields[2]));
+                } else if (fields[0].equals("S") && fields.length == 1) {
+                    sinceCheckpoint.clear();
+                } else if (fields[0].equals("F") && fields.length == 4) {
+                    state.completed.put(fields[3], new DriveManifest.Entry(fields[3],
+                        Long.parseLong(fields[1]), false, chunks(fields[2])));
+                    sinceCheckpoint.add(fields[3]);
+                    if (fields[3].equals(state.partialPath)) {
+                        state.clearPartial();
+                    }
+                } else if (fields[0].equals("P") && fields.length == 4) {
+                    if (!fields[3].equals(state.partialPath)) {
+                        state.partialPath = fields[3];
+                        state.partialChunks = new ArrayList<>();
+                    }
+                    if (Integer.parseInt(fields[1]) != state.partialChunks.size()) {
+                        break;
+                    }
+                    state.partialChunks.addAll(chunks(fields[2]));
+                } else {
+                    break;
+                }
+            } catch (NumberFormatException e) {
+                break;
+            }
+        }
+        if (state != null) {
+            state.unverified.addAll(sinceCheckpoint);
+        }
+        return state;
+    }
+
+    public static void delete(Path volume) throws IOException {
+        Files.deleteIfExists(volume.resolve(DriveManifestStore.MANIFEST_DIR).resolve(JOURNAL_FILE));
+    }
+
+    private static List<String> chunks(String field) {
+        return field.equals("-") ? List.of() : Arrays.asList(field.split(","));
+    }
+
+    /**
+     * What an interrupted burn got done: completed files, and the leading chunks
+     * of the file it was copying. Files recorded after the last checkpoint are
+     * listed as unverified.
+     */
+    public static class State {
+        private final String isoKey;
+        private final int chunkSize;
+        private final Map<String, DriveManifest.Entry> completed = new LinkedHashMap<>();
+        private final Set<String> unverified = new LinkedHashSet<>();
+        private String partialPath;
+        private List<String> partialChunks = List.of();
+
+        State(String isoKey, int chunkSize) {
+            this.isoKey = isoKey;
+            this.chunkSize = chunkSize;
+        }
+
+        public String getIsoKey() { return isoKey; }
+        public int getChunkSize() { return chunkSize; }
+        public Map<String, DriveManifest.Entry> getCompleted() { return completed; }
+        public Set<String> getUnverified() { return unverified; }
+        public String getPartialPath() { return partialPath; }
+        public List<String> getPartialChunks() { return partialChunks; }
+
+        public void clearPartial() {
+            partialPath = null;
+            partialChunks = List.of();
+        }
+    }
+}
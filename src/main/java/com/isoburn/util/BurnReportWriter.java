@@ -0,0 +1,60 @@
+package com.isoburn.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.isoburn.model.BurnReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+@Component
+public class BurnReportWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BurnReportWriter.class);
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT =
+        DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Value("${isoburn.report.directory:}")
+    private String reportDirectory;
+
+    public boolean isEnabled() {
+        return reportDirectory != null && !reportDirectory.isBlank();
+    }
+
+    // Returns the written file, or null when reports are disabled or writing failed
+    public Path write(BurnReport report) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            Path file = reportFile(report, "json");
+            Files.createDirectories(file.getParent());
+            objectMapper.writeValue(file.toFile(), report);
+            log.info("Burn report written to {}", file);
+            return file;
+        } catch (IOException e) {
+            log.error("Failed to write burn report", e);
+            return null;
+        }
+    }
+
+    // Artifacts of one burn share a base name; without a report directory they go to the temp directory
+    public Path reportFile(BurnReport report, String extension) {
+        Path dir = isEnabled() ? Paths.get(reportDirectory) : Paths.get(System.getProperty("java.io.tmpdir"));
+        return dir.resolve(String.format("burn-%s-%s.%s",
+            FILE_TIME_FORMAT.format(Instant.ofEpochMilli(report.getStartedAtEpochMillis())),
+            report.getDeviceIdentifier(), extension));
+    }
+}
@@ -0,0 +1,96 @@
+package com.isoburn.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Hashes a byte stream in fixed-size chunks, one SHA-256 per chunk, regardless
+ * of how the bytes are split across {@link #update} calls.
+ */
+public class ChunkHasher {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final int chunkSize;
+    private final MessageDigest digest;
+    private final List<String> chunks = new ArrayList<>();
+    private int inChunk;
+
+    public ChunkHasher(int chunkSize) {
+        this(chunkSize, List.of());
+    }
+
+    // Continues a stream whose leading chunks were hashed earlier, e.g. a resumed copy
+    public ChunkHasher(int chunkSize, List<String> completedChunks) {
+        this.chunkSize = chunkSize;
+        this.chunks.addAll(completedChunks);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public void update(byte[] buffer, int offset, int length) {
+        while (length > 0) {
+            int n = Math.min(length, chunkSize - inChunk);
+            digest.update(buffer, offset, n);
+            inChunk += n;
+            offset += n;
+            length -= n;
+            if (inChunk == chunkSize) {
+                finishChunk();
+            }
+        }
+    }
+
+    // Consumes the buffer's remaining bytes
+    public void update(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        while (buffer.hasRemaining()) {
+            int n = Math.min(buffer.remaining(), chunkSize - inChunk);
+            buffer.limit(buffer.position() + n);
+            digest.update(buffer);
+            buffer.limit(limit);
+            inChunk += n;
+            if (inChunk == chunkSize) {
+                finishChunk();
+            }
+        }
+    }
+
+    public List<String> completedChunks() {
+        return Collections.unmodifiableList(chunks);
+    }
+
+    public List<String> finish() {
+        if (inChunk > 0) {
+            finishChunk();
+        }
+        return chunks;
+    }
+
+    private void finishChunk() {
+        chunks.add(HEX.formatHex(digest.digest()));
+        inChunk = 0;
+    }
+
+    public static List<String> hashFile(Path file, int chunkSize, ByteBuffer buffer) throws IOException {
+        ChunkHasher hasher = new ChunkHasher(chunkSize);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(buffer.clear()) != -1) {
+                hasher.update(buffer.flip());
+            }
+        }
+        return hasher.finish();
+    }
+}
@@ -0,0 +1,123 @@
+package com.isoburn.util;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.ContentProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Named include/exclude rule sets, saved per image: one JSON file per profile
+ * in a directory named after the image file.
+ */
+@Component
+public class ContentProfileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentProfileStore.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Value("${isoburn.content-profiles.directory:}")
+    private String directory;
+
+    public boolean isEnabled() {
+        return directory != null && !directory.isBlank();
+    }
+
+    // Replaces a profile of the same name; throws IllegalArgumentException when its rules do not compile
+    public boolean save(ContentProfile profile) {
+        PathRules.compile(profile.getIncludeRules(), profile.getExcludeRules());
+        if (!isEnabled()) {
+            log.warn("Cannot save content profile {}: no profile directory configured", profile.getName());
+            return false;
+        }
+        try {
+            Path file = file(profile.getIsoName(), profile.getName());
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), profile);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved content profile {} for {}", profile.getName(), profile.getIsoName());
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to save content profile {}: {}", profile.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Returns null when the image has no profile of that name
+    public ContentProfile load(String isoName, String name) {
+        if (!isEnabled()) {
+            return null;
+        }
+        return read(file(isoName, name));
+    }
+
+    // By name
+    public List<ContentProfile> list(String isoName) {
+        List<ContentProfile> profiles = new ArrayList<>();
+        Path dir = isEnabled() ? Paths.get(directory, fileName(isoName)) : null;
+        if (dir == null || !Files.isDirectory(dir)) {
+            return profiles;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.json")) {
+            for (Path file : files) {
+                ContentProfile profile = read(file);
+                if (profile != null) {
+                    profiles.add(profile);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list content profiles in {}: {}", dir, e.getMessage());
+        }
+        profiles.sort(Comparator.comparing(ContentProfile::getName, String.CASE_INSENSITIVE_ORDER));
+        return profiles;
+    }
+
+    public boolean delete(String isoName, String name) {
+        try {
+            return isEnabled() && Files.deleteIfExists(file(isoName, name));
+        } catch (IOException e) {
+            log.warn("Failed to delete content profile {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private ContentProfile read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ContentProfile.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable content profile {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path file(String isoName, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("A content profile needs a name");
+        }
+        return Paths.get(directory, fileName(isoName), fileName(name) + ".json");
+    }
+
+    // Names may hold anything; file names keep letters, digits, '.', '-' and '_'
+    private static String fileName(String name) {
+        String safe = name.strip().replaceAll("[^\\p{L}\\p{N}._-]", "_");
+        return safe.startsWith(".") ? "_" + safe.substring(1) : safe;
+    }
+}
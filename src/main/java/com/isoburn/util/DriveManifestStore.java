@@ -0,0 +1,49 @@
+package com.isoburn.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.DriveManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Component
+public class DriveManifestStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DriveManifestStore.class);
+
+    public static final String MANIFEST_DIR = ".isoburn";
+    private static final String MANIFEST_FILE = "manifest.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Returns null when the volume has no readable manifest
+    public DriveManifest read(Path volume) {
+        Path file = volume.resolve(MANIFEST_DIR).resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), DriveManifest.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable manifest {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public void write(Path volume, DriveManifest manifest) throws IOException {
+        Path dir = volume.resolve(MANIFEST_DIR);
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(MANIFEST_FILE + ".tmp");
+        objectMapper.writeValue(temp.toFile(), manifest);
+        Files.move(temp, dir.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public void delete(Path volume) throws IOException {
+        Files.deleteIfExists(volume.resolve(MANIFEST_DIR).resolve(MANIFEST_FILE));
+    }
+}
@@ -0,0 +1,141 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The blocks of a drive that a FAT32 volume actually uses: everything up to
+ * the end of the last FAT (partition table, boot sectors, FATs) and every
+ * allocated cluster. Free clusters may still hold whatever the drive held
+ * before, so they are left out. The volume is the first MBR partition, or the
+ * whole drive when it has no partition table.
+ */
+public final class FatVolumeMap {
+
+    private static final Logger log = LoggerFactory.getLogger(FatVolumeMap.class);
+
+    public static final int BLOCK_SIZE = 512;
+
+    private static final int FAT_ENTRY_MASK = 0x0FFF_FFFF;
+    private static final int BAD_CLUSTER = 0x0FFF_FFF7;
+    // Keeps each range short enough that a bad checksum is caught early
+    private static final long MAX_RANGE_BLOCKS = 8192;
+
+    private FatVolumeMap() {
+    }
+
+    /**
+     * Returns the used blocks of {@code device} as unhashed ranges of
+     * {@link #BLOCK_SIZE} bytes, or null when it holds no FAT32 volume.
+     */
+    public static List<BlockMap.Range> read(FileChannel device) throws IOException {
+        ByteBuffer sector = readAt(device, 0, BLOCK_SIZE);
+        long volumeStart = 0;
+        if (!isFat32BootSector(sector)) {
+            if ((sector.getShort(510) & 0xffff) != 0xAA55) {
+                return null;
+            }
+            int type = sector.get(446 + 4) & 0xff;
+            if (type != 0x0B && type != 0x0C) {
+                log.debug("First partition has type {}, not FAT32", type);
+                return null;
+            }
+            volumeStart = (sector.getInt(446 + 8) & 0xffff_ffffL) * BLOCK_SIZE;
+            sector = readAt(device, volumeStart, BLOCK_SIZE);
+            if (!isFat32BootSector(sector)) {
+                return null;
+            }
+        }
+
+        int bytesPerSector = sector.getShort(11) & 0xffff;
+        int sectorsPerCluster = sector.get(13) & 0xff;
+        int reservedSectors = sector.getShort(14) & 0xffff;
+        int fatCount = sector.get(16) & 0xff;
+        long totalSectors = sector.getInt(32) & 0xffff_ffffL;
+        long fatSectors = sector.getInt(36) & 0xffff_ffffL;
+        if (bytesPerSector % BLOCK_SIZE != 0 || sectorsPerCluster == 0 || fatCount == 0 || fatSectors == 0) {
+            log.warn("Ignoring FAT32 volume with unsupported geometry");
+            return null;
+        }
+
+        long dataStart = volumeStart + (reservedSectors + fatCount * fatSectors) * bytesPerSector;
+        long clusterBytes = (long) sectorsPerCluster * bytesPerSector;
+        long clusters = (totalSectors * bytesPerSector - (dataStart - volumeStart)) / clusterBytes;
+
+        Ranges ranges = new Ranges();
+        ranges.add(0, dataStart / BLOCK_SIZE);
+
+        // Entries 0 and 1 are reserved; cluster n is entry n
+        long fatStart = volumeStart + (long) reservedSectors * bytesPerSector;
+        long entries = Math.min(clusters + 2, fatSectors * bytesPerSector / 4);
+        ByteBuffer fat = ByteBuffer.allocate(1024 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (long entry = 2; entry < entries; ) {
+            long batch = Math.min(fat.capacity() / 4, entries - entry);
+            fat.clear().limit((int) batch * 4);
+            readFully(device, fat, fatStart + entry * 4);
+            for (int i = 0; i < batch; i++, entry++) {
+                int value = fat.getInt(i * 4) & FAT_ENTRY_MASK;
+                if (value != 0 && value != BAD_CLUSTER) {
+                    long block = (dataStart + (entry - 2) * clusterBytes) / BLOCK_SIZE;
+                    ranges.add(block, clusterBytes / BLOCK_SIZE);
+                }
+            }
+        }
+        ranges.flush();
+        return ranges.list;
+    }
+
+    private static boolean isFat32BootSector(ByteBuffer sector) {
+        return (sector.getShort(510) & 0xffff) == 0xAA55
+            && "FAT32   ".equals(new String(sector.array(), 82, 8, StandardCharsets.US_ASCII))
+            && (sector.getShort(17) & 0xffff) == 0;
+    }
+
+    private static ByteBuffer readAt(FileChannel device, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(device, buffer, position);
+        return buffer;
+    }
+
+    private static void readFully(FileChannel device, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (device.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Drive ended before its FAT32 volume");
+            }
+        }
+    }
+
+    // Adjacent runs are merged, up to MAX_RANGE_BLOCKS per range
+    private static final class Ranges {
+        private final List<BlockMap.Range> list = new ArrayList<>();
+        private long first = -1;
+        private long next = -1;
+
+        void add(long block, long count) {
+            if (block != next) {
+                flush();
+                first = block;
+            }
+            next = block + count;
+            while (next - first > MAX_RANGE_BLOCKS) {
+                list.add(new BlockMap.Range(first, first + MAX_RANGE_BLOCKS - 1, null));
+                first += MAX_RANGE_BLOCKS;
+            }
+        }
+
+        void flush() {
+            if (first >= 0 && next > first) {
+                list.add(new BlockMap.Range(first, next - 1, null));
+            }
+            first = -1;
+        }
+    }
+}
@@ -0,0 +1,684 @@
+package com.isoburn.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tukaani.xz.SeekableFileInputStream;
+import org.tukaani.xz.SeekableXZInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decompresses gzip, xz and zstd images. Files made of independent pieces
+ * (concatenated gzip members, multi-block xz, zstd frames that record their
+ * size) are decompressed in parallel, each piece written at its own offset of
+ * the target; at most {@code threads * 2} pieces are in flight past the oldest
+ * unfinished one. Anything else, or a parallel pass that finds the layout was
+ * guessed wrong, is decompressed as one stream.
+ */
+public class ImageDecompressor {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDecompressor.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    public enum Format {
+        NONE, GZIP, XZ, ZSTD;
+
+        public static Format detect(Path file) {
+            if (!Files.isRegularFile(file)) {
+                return NONE;
+            }
+            byte[] magic = new byte[6];
+            try (InputStream in = Files.newInputStream(file)) {
+                if (in.readNBytes(magic, 0, magic.length) < 4) {
+                    return NONE;
+                }
+            } catch (IOException e) {
+                return NONE;
+            }
+            if ((magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+                return GZIP;
+            }
+            if ((magic[0] & 0xff) == 0xfd && magic[1] == '7' && magic[2] == 'z' && magic[3] == 'X'
+                    && magic[4] == 'Z' && magic[5] == 0) {
+                return XZ;
+            }
+            if (magic[0] == 0x28 && (magic[1] & 0xff) == 0xb5 && magic[2] == 0x2f && (magic[3] & 0xff) == 0xfd) {
+                return ZSTD;
+            }
+            return NONE;
+        }
+    }
+
+    private final int threads;
+    private final BufferPool bufferPool;
+
+    public ImageDecompressor(int threads, BufferPool bufferPool) {
+        this.threads = Math.max(1, threads);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Writes the decompressed {@code source} to {@code target} and returns its
+     * length. {@code progress} receives counts of compressed bytes consumed.
+     */
+    public long decompress(Path source, Path target, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        Format format = Format.detect(source);
+        if (format == Format.NONE) {
+            throw new IOException("Not a gzip, xz or zstd file: " + source);
+        }
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Piece> pieces = threads > 1 ? pieces(format, source, in) : null;
+            if (pieces != null && pieces.size() > 1) {
+                log.info("Decompressing {} as {} {} pieces on {} threads", source, pieces.size(), format, threads);
+                try {
+                    return decompressParallel(format, source, in, out, pieces, progress, cancelled);
+                } catch (LayoutMismatchException e) {
+                    log.warn("Parallel decompression of {} failed ({}), decompressing as one stream",
+                        source, e.getMessage());
+                    out.truncate(0);
+                }
+            }
+            return decompressStream(format, in, out, progress, cancelled);
+        }
+    }
+
+    /**
+     * The decompressed {@code source} as a stream, for writing it out without
+     * a scratch copy. xz blocks and zstd frames, whose sizes the file records,
+     * are decompressed ahead on {@code threads} threads; gzip member
+     * boundaries are only guessed, and a wrong guess cannot be taken back once
+     * its bytes are read, so gzip is decompressed as one stream. {@code
+     * progress} receives counts of compressed bytes consumed.
+     */
+    public InputStream open(Path source, LongConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Format format = Format.detect(source);
+        if (format == Format.NONE) {
+            throw new IOException("Not a gzip, xz or zstd file: " + source);
+        }
+
+        FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+        try {
+            List<Piece> pieces = threads > 1 && format != Format.GZIP ? pieces(format, source, channel) : null;
+            if (pieces != null && pieces.size() > 1) {
+                log.info("Streaming {} as {} {} pieces on {} threads", source, pieces.size(), format, threads);
+                return new PieceStream(format, source, channel, pieces, progress, cancelled);
+            }
+            InputStream decoded = open(format, new BufferedInputStream(
+                new RangeInputStream(channel, 0, channel.size(), progress), BUFFER_SIZE));
+            return new FilterInputStream(decoded) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (cancelled.getAsBoolean()) {
+                        throw new InterruptedIOException("Decompression cancelled");
+                    }
+                    return super.read(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try (channel) {
+                        super.close();
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long decompressStream(Format format, FileChannel in, FileChannel out, LongConsumer progress,
+                                  BooleanSupplier cancelled) throws IOException {
+        InputStream compressed = new BufferedInputStream(new RangeInputStream(in, 0, in.size(), progress),
+            BUFFER_SIZE);
+        try (InputStream decoded = open(format, compressed)) {
+            return copy(decoded, out, 0, Long.MAX_VALUE, cancelled);
+        }
+    }
+
+    private long decompressParallel(Format format, Path source, FileChannel in, FileChannel out,
+                                    List<Piece> pieces, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "isoburn-decompress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<?>> window = new ArrayDeque<>();
+        try {
+            for (Piece piece : pieces) {
+                if (window.size() >= threads * 2) {
+                    await(window.removeFirst());
+                }
+                window.addLast(pool.submit(() -> {
+                    decompressPiece(format, source, in, out, piece, cancelled);
+                    progress.accept(piece.compressedLength());
+                    return null;
+                }));
+            }
+            while (!window.isEmpty()) {
+                await(window.removeFirst());
+            }
+        } finally {
+            window.forEach(future -> future.cancel(true));
+            pool.shutdownNow();
+        }
+        Piece last = pieces.get(pieces.size() - 1);
+        return last.offset() + last.length();
+    }
+
+    private void decompressPiece(Format format, Path source, FileChannel in, FileChannel out, Piece piece,
+                                 BooleanSupplier cancelled) throws IOException {
+        long written;
+        try (InputStream decoded = openPiece(format, source, in, piece)) {
+            written = copy(decoded, out, piece.offset(), piece.length(), cancelled);
+            if (format != Format.XZ && decoded.read() != -1) {
+                throw new LayoutMismatchException("piece " + piece.index() + " is longer than expected");
+            }
+        } catch (LayoutMismatchException | InterruptedIOException e) {
+            throw e;
+        } catch (IOException e) {
+            if (format == Format.XZ) {
+                throw e;
+            }
+            // A guessed gzip member boundary that was really inside compressed data
+            throw new LayoutMismatchException("piece " + piece.index() + ": " + e.getMessage());
+        }
+        if (written != piece.length()) {
+            throw new LayoutMismatchException("piece " + piece.index() + " decompressed to " + written
+                + " bytes, expected " + piece.length());
+        }
+    }
+
+    // An xz stream positioned at the piece's block runs on into later blocks, so it is read only up to the length
+    private static InputStream openPiece(Format format, Path source, FileChannel in, Piece piece) throws IOException {
+        if (format == Format.XZ) {
+            SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(source.toFile()));
+            try {
+                xz.seekToBlock(piece.index());
+                return xz;
+            } catch (IOException e) {
+                xz.close();
+                throw e;
+            }
+        }
+        return open(format, new BufferedInputStream(
+            new RangeInputStream(in, piece.compressedStart(), piece.compressedLength(), null), BUFFER_SIZE));
+    }
+
+    private static InputStream open(Format format, InputStream compressed) throws IOException {
+        return switch (format) {
+            case GZIP -> new GZIPInputStream(compressed, BUFFER_SIZE);
+            case XZ -> new XZInputStream(compressed);
+            case ZSTD -> new ZstdInputStream(compressed);
+            case NONE -> throw new IllegalArgumentException("Not compressed");
+        };
+    }
+
+    private long copy(InputStream in, FileChannel out, long offset, long limit, BooleanSupplier cancelled)
+            throws IOException {
+        ReadableByteChannel decoded = Channels.newChannel(in);
+        ByteBuffer buffer = bufferPool.acquire(BUFFER_SIZE);
+        try {
+            long written = 0;
+            boolean ended = false;
+            while (written < limit && !ended) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Decompression cancelled");
+                }
+                ended = readInto(decoded, buffer, limit - written);
+                while (buffer.hasRemaining()) {
+                    written += out.write(buffer, offset + written);
+                }
+            }
+            return written;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    // Reads up to limit bytes into the cleared buffer and flips it; true when the input has ended
+    private static boolean readInto(ReadableByteChannel in, ByteBuffer buffer, long limit) throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), limit));
+        boolean ended = false;
+        while (buffer.hasRemaining() && !ended) {
+            ended = in.read(buffer) < 0;
+        }
+        buffer.flip();
+        return ended;
+    }
+
+    // Returns null when the pieces and their decompressed sizes cannot be known up front
+    private static List<Piece> pieces(Format format, Path source, FileChannel in) throws IOException {
+        return switch (format) {
+            case GZIP -> gzipMembers(in);
+            case XZ -> xzBlocks(source);
+            case ZSTD -> zstdFrames(in);
+            case NONE -> null;
+        };
+    }
+
+    /*
+     * gzip has no index, so member starts are found by scanning for a plausible
+     * header, and each member's size comes from the ISIZE field just before the
+     * next one. Sizes are modulo 4 GiB and a header can occur by chance inside
+     * compressed data; both show up as a mismatch when the piece is decompressed.
+     */
+    private static List<Piece> gzipMembers(FileChannel in) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long base = 0;
+        long size = in.size();
+        while (base < size) {
+            buffer.clear();
+            int n = in.read(buffer, base);
+            if (n <= 0) {
+                break;
+            }
+            // Overlap reads by a header's length so no candidate straddles two buffers
+            int scan = base + n >= size ? n : n - 9;
+            for (int i = 0; i < scan && i + 9 < n; i++) {
+                long position = base + i;
+                if (position >= 18 && isGzipHeader(buffer, i)) {
+                    starts.add(position);
+                }
+            }
+            base += Math.max(scan, 1);
+        }
+        if (starts.size() < 2) {
+            return null;
+        }
+
+        List<Piece> pieces = new ArrayList<>(starts.size());
+        ByteBuffer isize = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        long offset = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+            isize.clear();
+            in.read(isize, end - 4);
+            long length = Integer.toUnsignedLong(isize.getInt(0));
+            pieces.add(new Piece(i, start, end - start, offset, length));
+            offset += length;
+        }
+        return pieces;
+    }
+
+    private static boolean isGzipHeader(ByteBuffer buffer, int i) {
+        int flags = buffer.get(i + 3) & 0xff;
+        int extraFlags = buffer.get(i + 8) & 0xff;
+        int os = buffer.get(i + 9) & 0xff;
+        return (buffer.get(i) & 0xff) == 0x1f && (buffer.get(i + 1) & 0xff) == 0x8b && buffer.get(i + 2) == 8
+            && (flags & 0xe0) == 0
+            && (extraFlags == 0 || extraFlags == 2 || extraFlags == 4)
+            && (os <= 13 || os == 255);
+    }
+
+    private static List<Piece> xzBlocks(Path source) throws IOException {
+        try (SeekableXZInputStream xz = new SeekableXZInputStream(new SeekableFileInputStream(source.toFile()))) {
+            int blocks = xz.getBlockCount();
+            if (blocks < 2) {
+                return null;
+            }
+            List<Piece> pieces = new ArrayList<>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                pieces.add(new Piece(i, xz.getBlockCompPos(i), xz.getBlockCompSize(i),
+                    xz.getBlockPos(i), xz.getBlockSize(i)));
+            }
+            return pieces;
+        }
+    }
+
+    // Walks frame and block headers without decompressing; frames without a content size end the attempt
+    private static List<Piece> zstdFrames(FileChannel in) throws IOException {
+        List<Piece> pieces = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+        long size = in.size();
+        long position = 0;
+        long offset = 0;
+        while (position < size) {
+            header.clear();
+            in.read(header, position);
+            if (header.position() < 8) {
+                return null;
+            }
+            int magic = header.getInt(0);
+            if ((magic & 0xfffffff0) == 0x184d2a50) {
+                position += 8 + Integer.toUnsignedLong(header.getInt(4));
+                continue;
+            }
+            if (magic != 0xfd2fb528) {
+                return null;
+            }
+
+            int descriptor = header.get(4) & 0xff;
+            boolean singleSegment = (descriptor & 0x20) != 0;
+            boolean checksum = (descriptor & 0x04) != 0;
+            int dictIdSize = new int[] {0, 1, 2, 4}[descriptor & 0x03];
+            int sizeFieldSize = new int[] {singleSegment ? 1 : 0, 2, 4, 8}[descriptor >>> 6];
+            if (sizeFieldSize == 0) {
+                return null;
+            }
+            int sizeField = 5 + (singleSegment ? 0 : 1) + dictIdSize;
+            long length = switch (sizeFieldSize) {
+                case 1 -> header.get(sizeField) & 0xffL;
+                case 2 -> (header.getShort(sizeField) & 0xffffL) + 256;
+                case 4 -> Integer.toUnsignedLong(header.getInt(sizeField));
+                default -> header.getLong(sizeField);
+            };
+
+            long block = position + sizeField + sizeFieldSize;
+            ByteBuffer blockHeader = ByteBuffer.allocate(3);
+            while (true) {
+                blockHeader.clear();
+                if (in.read(blockHeader, block) < 3) {
+                    return null;
+                }
+                int value = (blockHeader.get(0) & 0xff) | (blockHeader.get(1) & 0xff) << 8
+                    | (blockHeader.get(2) & 0xff) << 16;
+                int type = (value >>> 1) & 0x03;
+                block += 3 + (type == 1 ? 1 : value >>> 3);
+                if ((value & 1) != 0) {
+                    break;
+                }
+            }
+            long end = block + (checksum ? 4 : 0);
+            pieces.add(new Piece(pieces.size(), position, end - position, offset, length));
+            offset += length;
+            position = end;
+        }
+        return pieces.size() > 1 ? pieces : null;
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decompressing");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private record Piece(int index, long compressedStart, long compressedLength, long offset, long length) {}
+
+    // A buffer of decompressed bytes, the end of a piece, or the error that ended it early
+    private record Chunk(ByteBuffer data, IOException failure) {
+        static final Chunk END = new Chunk(null, null);
+    }
+
+    /*
+     * Pieces decompressed ahead and read back in order. At most threads pieces
+     * are in flight, each holding at most AHEAD_CHUNKS filled buffers; the
+     * buffers come from a bounded set large enough that the piece being read
+     * always gets one, so the reader never waits on a piece that waits on it.
+     * They are leased from the pool once and all returned on close.
+     */
+    private final class PieceStream extends InputStream {
+        private static final int AHEAD_CHUNKS = 4;
+
+        private final Format format;
+        private final Path source;
+        private final FileChannel in;
+        private final LongConsumer progress;
+        private final BooleanSupplier cancelled;
+        private final Iterator<Piece> remaining;
+        private final ExecutorService pool;
+        private final Deque<BlockingQueue<Chunk>> window = new ArrayDeque<>();
+        private final BlockingQueue<ByteBuffer> spare = new LinkedBlockingQueue<>();
+        private final List<ByteBuffer> leased = new ArrayList<>();
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final int maxChunks = threads * (AHEAD_CHUNKS + 1) + 1;
+        private final long uncounted;
+        private BlockingQueue<Chunk> current;
+        private Chunk chunk;
+        private boolean finished;
+
+        PieceStream(Format format, Path source, FileChannel in, List<Piece> pieces, LongConsumer progress,
+                    BooleanSupplier cancelled) throws IOException {
+            this.format = format;
+            this.source = source;
+            this.in = in;
+            this.progress = progress;
+            this.cancelled = cancelled;
+            this.remaining = pieces.iterator();
+            // Stream headers and indexes outside the pieces, counted once the last piece is read
+            this.uncounted = in.size() - pieces.stream().mapToLong(Piece::compressedLength).sum();
+            this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "isoburn-decompress");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.data().remaining());
+            chunk.data().get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n && fill()) {
+                int step = (int) Math.min(n - skipped, chunk.data().remaining());
+                chunk.data().position(chunk.data().position() + step);
+                skipped += step;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            pool.shutdownNow();
+            try {
+                if (pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                    synchronized (leased) {
+                        leased.forEach(bufferPool::release);
+                        leased.clear();
+                    }
+                } else {
+                    log.warn("Decompression threads of {} did not stop; not returning their buffers", source);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                in.close();
+            }
+        }
+
+        // Makes the current chunk one with bytes left to read; false at the end of the last piece
+        private boolean fill() throws IOException {
+            if (chunk != null && chunk.data().hasRemaining()) {
+                return true;
+            }
+            if (chunk != null) {
+                spare.offer(chunk.data());
+                chunk = null;
+            }
+            try {
+                while (true) {
+                    while (window.size() + (current != null ? 1 : 0) < threads && remaining.hasNext()) {
+                        Piece piece = remaining.next();
+                        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(AHEAD_CHUNKS);
+                        pool.execute(() -> decode(piece, chunks));
+                        window.addLast(chunks);
+                    }
+                    if (current == null) {
+                        current = window.pollFirst();
+                        if (current == null) {
+                            if (!finished) {
+                                finished = true;
+                                progress.accept(uncounted);
+                            }
+                            return false;
+                        }
+                    }
+                    Chunk next = current.take();
+                    if (next.failure() != null) {
+                        throw next.failure();
+                    }
+                    if (next == Chunk.END) {
+                        current = null;
+                        continue;
+                    }
+                    chunk = next;
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while decompressing");
+            }
+        }
+
+        // Runs on a pool thread; a piece that does not match its recorded size means the file is corrupt
+        private void decode(Piece piece, BlockingQueue<Chunk> chunks) {
+            try {
+                Chunk last;
+                try (InputStream decoded = openPiece(format, source, in, piece)) {
+                    ReadableByteChannel channel = Channels.newChannel(decoded);
+                    long total = 0;
+                    while (total < piece.length()) {
+                        if (cancelled.getAsBoolean()) {
+                            throw new InterruptedIOException("Decompression cancelled");
+                        }
+                        ByteBuffer data = takeSpare();
+                        readInto(channel, data, piece.length() - total);
+                        if (!data.hasRemaining()) {
+                            spare.offer(data);
+                            break;
+                        }
+                        total += data.remaining();
+                        chunks.put(new Chunk(data, null));
+                    }
+                    if (total != piece.length() || format != Format.XZ && decoded.read() != -1) {
+                        throw new IOException("Corrupt image: piece " + piece.index() + " does not match its "
+                            + "recorded size of " + piece.length() + " bytes");
+                    }
+                    progress.accept(piece.compressedLength());
+                    last = Chunk.END;
+                } catch (IOException e) {
+                    last = new Chunk(null, e);
+                }
+                chunks.put(last);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private ByteBuffer takeSpare() throws IOException, InterruptedException {
+            ByteBuffer data = spare.poll();
+            if (data != null) {
+                return data;
+            }
+            if (reserved.incrementAndGet() > maxChunks) {
+                reserved.decrementAndGet();
+                return spare.take();
+            }
+            try {
+                data = bufferPool.acquire(BUFFER_SIZE);
+            } catch (IOException e) {
+                reserved.decrementAndGet();
+                throw e;
+            }
+            synchronized (leased) {
+                leased.add(data);
+            }
+            return data;
+        }
+    }
+
+    private static final class LayoutMismatchException extends IOException {
+        LayoutMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    // Reads a byte range of a channel with positional reads, so pieces can share one channel
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private final LongConsumer progress;
+        private long position;
+
+        RangeInputStream(FileChannel channel, long start, long length, LongConsumer progress) {
+            this.channel = channel;
+            this.position = start;
+            this.end = start + length;
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+                if (progress != null) {
+                    progress.accept(n);
+                }
+            }
+            return n;
+        }
+    }
+}
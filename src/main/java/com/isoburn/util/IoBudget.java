@@ -0,0 +1,80 @@
+package com.isoburn.util;
+
+import com.isoburn.util.BandwidthThrottle.Priority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The read and write bandwidth one job may use: its own limits, which can be
+ * changed while it runs, then the process-wide limits, then for writes the
+ * pacing of the target itself. A transfer is booked with all of them at once
+ * and goes ahead when the last one allows, so the tightest limit alone sets
+ * its speed. A job's own limits only cap that job; they do not divide
+ * bandwidth between jobs.
+ */
+public final class IoBudget {
+
+    private final BandwidthThrottle jobRead;
+    private final BandwidthThrottle jobWrite;
+    private final List<BandwidthThrottle> reads = new ArrayList<>();
+    private final List<BandwidthThrottle> writes = new ArrayList<>();
+
+    public IoBudget(long readBytesPerSecond, long writeBytesPerSecond, long burstMillis,
+                    List<BandwidthThrottle> sharedReads, List<BandwidthThrottle> sharedWrites) {
+        this.jobRead = new BandwidthThrottle(readBytesPerSecond, 0, burstMillis, 1.0);
+        this.jobWrite = new BandwidthThrottle(writeBytesPerSecond, 0, burstMillis, 1.0);
+        reads.add(jobRead);
+        reads.addAll(sharedReads);
+        writes.add(jobWrite);
+        writes.addAll(sharedWrites);
+    }
+
+    public static IoBudget unlimited() {
+        return new IoBudget(0, 0, 0, List.of(), List.of());
+    }
+
+    public void read(long bytes) {
+        read(bytes, Priority.BURN);
+    }
+
+    public void read(long bytes, Priority priority) {
+        pace(reserve(reads, bytes, priority, Long.MIN_VALUE));
+    }
+
+    public void write(long bytes) {
+        pace(reserve(writes, bytes, Priority.BURN, Long.MIN_VALUE));
+    }
+
+    // Reading bytes and writing them out again
+    public void copy(long bytes) {
+        pace(reserve(writes, bytes, Priority.BURN, reserve(reads, bytes, Priority.BURN, Long.MIN_VALUE)));
+    }
+
+    public long getReadBytesPerSecond() { return jobRead.getBytesPerSecond(); }
+
+    public long getWriteBytesPerSecond() { return jobWrite.getBytesPerSecond(); }
+
+    // 0 or less for no limit of the job's own
+    public void setLimits(long readBytesPerSecond, long writeBytesPerSecond) {
+        jobRead.setBytesPerSecond(readBytesPerSecond);
+        jobWrite.setBytesPerSecond(writeBytesPerSecond);
+    }
+
+    // Long.MIN_VALUE when none of the throttles limits anything
+    private static long reserve(List<BandwidthThrottle> throttles, long bytes, Priority priority, long wakeAt) {
+        for (BandwidthThrottle throttle : throttles) {
+            if (!throttle.isUnlimited()) {
+                long allowedAt = throttle.reserve(bytes, priority);
+                wakeAt = wakeAt == Long.MIN_VALUE ? allowedAt : Math.max(wakeAt, allowedAt);
+            }
+        }
+        return wakeAt;
+    }
+
+    private static void pace(long wakeAt) {
+        if (wakeAt != Long.MIN_VALUE) {
+            BandwidthThrottle.sleepUntil(wakeAt);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where each file of an ISO image starts, as a logical block number, read from
+ * the ISO 9660 directory tree. Joliet names are used when present, otherwise
+ * Rock Ridge names, otherwise the plain ISO 9660 names. Paths are matched
+ * case-insensitively with '/' separators. Files only reachable through UDF
+ * (most Windows ISOs) are not listed.
+ */
+public final class IsoLayout {
+
+    private static final Logger log = LoggerFactory.getLogger(IsoLayout.class);
+
+    public static final IsoLayout EMPTY = new IsoLayout(Map.of());
+
+    private static final int SECTOR = 2048;
+    private static final int MAX_DEPTH = 64;
+
+    private final Map<String, Long> startBlocks;
+
+    public IsoLayout(Map<String, Long> startBlocks) {
+        this.startBlocks = startBlocks;
+    }
+
+    // Returns null when the file's location is unknown
+    public Long startBlock(String path) {
+        return startBlocks.get(normalize(path));
+    }
+
+    public boolean isEmpty() {
+        return startBlocks.isEmpty();
+    }
+
+    public int size() {
+        return startBlocks.size();
+    }
+
+    public static String normalize(String path) {
+        return path.replace('\\', '/').toLowerCase(Locale.ROOT);
+    }
+
+    // Never throws; an unreadable or non-ISO 9660 image gives EMPTY
+    public static IsoLayout read(Path image) {
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            ByteBuffer primary = null;
+            ByteBuffer joliet = null;
+            for (long sector = 16; sector < 64; sector++) {
+                ByteBuffer descriptor = readSectors(channel, sector, 1);
+                if (descriptor == null || !"CD001".equals(ascii(descriptor, 1, 5))) {
+                    break;
+                }
+                int type = descriptor.get(0) & 0xff;
+                if (type == 255) {
+                    break;
+                }
+                if (type == 1 && primary == null) {
+                    primary = descriptor;
+                } else if (type == 2 && isJoliet(descriptor)) {
+                    joliet = descriptor;
+                }
+            }
+            ByteBuffer volume = joliet != null ? joliet : primary;
+            if (volume == null) {
+                return EMPTY;
+            }
+
+            Map<String, Long> blocks = new HashMap<>();
+            new Walker(channel, joliet != null, blocks).walk(volume.getInt(156 + 2), volume.getInt(156 + 10), "", 0);
+            log.debug("Read layout of {} files from {}", blocks.size(), image);
+            return new IsoLayout(blocks);
+        } catch (IOException | RuntimeException e) {
+            log.debug("No ISO 9660 layout for {}: {}", image, e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    private static boolean isJoliet(ByteBuffer descriptor) {
+        return descriptor.get(88) == '%' && descriptor.get(89) == '/'
+            && (descriptor.get(90) == '@' || descriptor.get(90) == 'C' || descriptor.get(90) == 'E');
+    }
+
+    private static ByteBuffer readSectors(FileChannel channel, long sector, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count * SECTOR).order(ByteOrder.LITTLE_ENDIAN);
+        long position = sector * SECTOR;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) <= 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static final class Walker {
+        private final FileChannel channel;
+        private final boolean joliet;
+        private final Map<String, Long> blocks;
+        private final Set<Integer> visited = new HashSet<>();
+
+        Walker(FileChannel channel, boolean joliet, Map<String, Long> blocks) {
+            this.channel = channel;
+            this.joliet = joliet;
+            this.blocks = blocks;
+        }
+
+        void walk(int extent, int length, String prefix, int depth) throws IOException {
+            if (depth > MAX_DEPTH || !visited.add(extent)) {
+                return;
+            }
+            ByteBuffer dir = readSectors(channel, extent, (length + SECTOR - 1) / SECTOR);
+            if (dir == null) {
+                return;
+            }
+
+            int pos = 0;
+            while (pos < dir.limit()) {
+                int recordLength = dir.get(pos) & 0xff;
+                if (recordLength == 0) {
+                    // Records never cross a sector boundary; skip the padding
+                    pos = (pos / SECTOR + 1) * SECTOR;
+                    continue;
+                }
+                int nameLength = dir.get(pos + 32) & 0xff;
+                int flags = dir.get(pos + 25) & 0xff;
+                boolean special = nameLength == 1 && (dir.get(pos + 33) == 0 || dir.get(pos + 33) == 1);
+                if (!special) {
+                    String name = recordName(dir, pos, recordLength, nameLength);
+                    int childExtent = dir.getInt(pos + 2);
+                    String path = prefix.isEmpty() ? name : prefix + "/" + name;
+                    if ((flags & 0x02) != 0) {
+                        walk(childExtent, dir.getInt(pos + 10), path, depth + 1);
+                    } else {
+                        // Multi-extent files repeat the record; the first one is where the file starts
+                        blocks.putIfAbsent(normalize(path), Integer.toUnsignedLong(childExtent));
+                    }
+                }
+                pos += recordLength;
+            }
+        }
+
+        private String recordName(ByteBuffer dir, int pos, int recordLength, int nameLength) {
+            byte[] raw = new byte[nameLength];
+            dir.get(pos + 33, raw);
+            if (joliet) {
+                return stripVersion(new String(raw, StandardCharsets.UTF_16BE));
+            }
+            String rockRidge = rockRidgeName(dir, pos + 33 + nameLength + (nameLength % 2 == 0 ? 1 : 0),
+                pos + recordLength);
+            if (rockRidge != null) {
+                return rockRidge;
+            }
+            String name = stripVersion(new String(raw, StandardCharsets.US_ASCII));
+            return name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+        }
+
+        // Concatenates the NM entries of a record's system use area
+        private static String rockRidgeName(ByteBuffer dir, int start, int end) {
+            StringBuilder name = null;
+            int pos = start;
+            while (pos + 4 <= end) {
+                int length = dir.get(pos + 2) & 0xff;
+                if (length < 4 || pos + length > end) {
+                    break;
+                }
+                if (dir.get(pos) == 'N' && dir.get(pos + 1) == 'M' && length > 5) {
+                    byte[] part = new byte[length - 5];
+                    dir.get(pos + 5, part);
+                    if (name == null) {
+                        name = new StringBuilder();
+                    }
+                    name.append(new String(part, StandardCharsets.UTF_8));
+                }
+                pos += length;
+            }
+            return name != null ? name.toString() : null;
+        }
+
+        private static String stripVersion(String name) {
+            int semicolon = name.indexOf(';');
+            return semicolon >= 0 ? name.substring(0, semicolon) : name;
+        }
+    }
+}
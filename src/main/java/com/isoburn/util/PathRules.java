@@ -0,0 +1,230 @@
+package com.isoburn.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Include and exclude rules for the paths of a source tree, compiled once. A
+ * rule is a glob ({@code support/**}, {@code *.chm}, {@code glob:} prefix
+ * optional) or a regular expression ({@code regex:^sources/[a-z]{2}-[a-z]{2}$}),
+ * matched case-insensitively against the path relative to the source root.
+ * A rule matching a directory also matches everything beneath it, and a glob
+ * without a '/' matches a name at any depth.
+ *
+ * <p>A file is kept when no include rule is given or one matches, and no
+ * exclude rule matches. Rules without wildcards are looked up in hash sets;
+ * the rest of each set are joined into one pattern for names and one for
+ * whole paths, so a path costs a few lookups and matches per level however
+ * many rules there are.
+ */
+public final class PathRules {
+
+    public static final PathRules NONE = new PathRules(List.of(), List.of());
+
+    private static final String GLOB_PREFIX = "glob:";
+    private static final String REGEX_PREFIX = "regex:";
+
+    private final List<String> include;
+    private final List<String> exclude;
+    private final Matcher includes;
+    private final Matcher excludes;
+
+    private PathRules(List<String> include, List<String> exclude) {
+        this.include = include;
+        this.exclude = exclude;
+        this.includes = new Matcher(include);
+        this.excludes = new Matcher(exclude);
+    }
+
+    // Blank rules are ignored; throws IllegalArgumentException naming the first rule that does not compile
+    public static PathRules compile(List<String> include, List<String> exclude) {
+        List<String> includeRules = normalize(include);
+        List<String> excludeRules = normalize(exclude);
+        return includeRules.isEmpty() && excludeRules.isEmpty() ? NONE : new PathRules(includeRules, excludeRules);
+    }
+
+    public boolean isEmpty() {
+        return include.isEmpty() && exclude.isEmpty();
+    }
+
+    public boolean hasIncludes() {
+        return !include.isEmpty();
+    }
+
+    public List<String> getInclude() { return include; }
+
+    public List<String> getExclude() { return exclude; }
+
+    // Whether a file is part of the burn
+    public boolean includes(String path) {
+        return (include.isEmpty() || includes.matches(path)) && !excludes.matches(path);
+    }
+
+    // Whether nothing beneath a directory can be part of the burn, so the scan need not enter it
+    public boolean excludesDirectory(String path) {
+        return !path.isEmpty() && excludes.matches(path);
+    }
+
+    // Stable text of the rules, for keys of what was burned with them
+    public String fingerprint() {
+        return "include=" + String.join("\n", include) + "\nexclude=" + String.join("\n", exclude);
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "all files" : "include " + include + ", exclude " + exclude;
+    }
+
+    private static List<String> normalize(List<String> rules) {
+        List<String> normalized = new ArrayList<>();
+        if (rules != null) {
+            for (String rule : rules) {
+                if (rule != null && !rule.isBlank()) {
+                    normalized.add(rule.strip());
+                }
+            }
+        }
+        return List.copyOf(normalized);
+    }
+
+    private static final class Matcher {
+        private final Set<String> paths = new HashSet<>();
+        private final Set<String> names = new HashSet<>();
+        private final Pattern pathPattern;
+        private final Pattern namePattern;
+        private final Pattern prefixPattern;
+
+        Matcher(List<String> rules) {
+            List<String> pathAlternatives = new ArrayList<>();
+            List<String> nameAlternatives = new ArrayList<>();
+            List<String> prefixAlternatives = new ArrayList<>();
+            for (String rule : rules) {
+                if (rule.startsWith(REGEX_PREFIX)) {
+                    String regex = rule.substring(REGEX_PREFIX.length());
+                    try {
+                        Pattern.compile(regex);
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException("Invalid rule '" + rule + "': " + e.getDescription());
+                    }
+                    // Tried against each leading part of the path, so anchors in it still work
+                    prefixAlternatives.add("(?:" + regex + ")");
+                    continue;
+                }
+                String glob = rule.startsWith(GLOB_PREFIX) ? rule.substring(GLOB_PREFIX.length()) : rule;
+                boolean anywhere = glob.indexOf('/') < 0;
+                // "dir/**" is "dir": a rule already covers what lies beneath what it matches
+                glob = glob.replaceAll("^/+|(/+\\*\\*)*/*$", "");
+                if (glob.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid rule '" + rule + "': matches nothing");
+                }
+                boolean literal = glob.chars().noneMatch(c -> "*?[{\\".indexOf(c) >= 0);
+                if (anywhere) {
+                    if (literal) {
+                        names.add(glob.toLowerCase(Locale.ROOT));
+                    } else {
+                        nameAlternatives.add(globToRegex(rule, glob));
+                    }
+                } else if (literal) {
+                    paths.add(glob.toLowerCase(Locale.ROOT));
+                } else {
+                    pathAlternatives.add(globToRegex(rule, glob) + "(?:/.*)?");
+                }
+            }
+            pathPattern = compile(pathAlternatives);
+            namePattern = compile(nameAlternatives);
+            prefixPattern = compile(prefixAlternatives);
+        }
+
+        boolean matches(String path) {
+            if (!paths.isEmpty() || !names.isEmpty() || namePattern != null || prefixPattern != null) {
+                String lower = path.toLowerCase(Locale.ROOT);
+                int start = 0;
+                while (start <= lower.length()) {
+                    int end = lower.indexOf('/', start);
+                    end = end < 0 ? lower.length() : end;
+                    String name = lower.substring(start, end);
+                    if (paths.contains(lower.substring(0, end)) || names.contains(name)
+                            || namePattern != null && namePattern.matcher(name).matches()
+                            || prefixPattern != null && prefixPattern.matcher(path.substring(0, end)).matches()) {
+                        return true;
+                    }
+                    start = end + 1;
+                }
+            }
+            return pathPattern != null && pathPattern.matcher(path).matches();
+        }
+
+        private static Pattern compile(List<String> alternatives) {
+            return alternatives.isEmpty() ? null
+                : Pattern.compile(String.join("|", alternatives), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        }
+
+        // '*' and '?' stay within a name, '**' spans names, [...] and {a,b} as in shells
+        private static String globToRegex(String rule, String glob) {
+            StringBuilder regex = new StringBuilder();
+            int groups = 0;
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                switch (c) {
+                    case '*' -> {
+                        if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                            i++;
+                            if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                                i++;
+                                regex.append("(?:.*/)?");
+                            } else {
+                                regex.append(".*");
+                            }
+                        } else {
+                            regex.append("[^/]*");
+                        }
+                    }
+                    case '?' -> regex.append("[^/]");
+                    case '{' -> {
+                        groups++;
+                        regex.append("(?:");
+                    }
+                    case '}' -> {
+                        if (groups == 0) {
+                            throw new IllegalArgumentException("Invalid rule '" + rule + "': unmatched '}'");
+                        }
+                        groups--;
+                        regex.append(')');
+                    }
+                    case ',' -> regex.append(groups > 0 ? "|" : ",");
+                    case '[' -> {
+                        int end = glob.indexOf(']', i + 2);
+                        if (end < 0) {
+                            throw new IllegalArgumentException("Invalid rule '" + rule + "': unmatched '['");
+                        }
+                        String set = glob.substring(i + 1, end);
+                        boolean negated = set.startsWith("!");
+                        regex.append(negated ? "[^/" : "[");
+                        for (char member : (negated ? set.substring(1) : set).toCharArray()) {
+                            regex.append("\\[]^&".indexOf(member) >= 0 ? "\\" + member : String.valueOf(member));
+                        }
+                        regex.append(']');
+                        i = end;
+                    }
+                    case '\\' -> {
+                        if (++i == glob.length()) {
+                            throw new IllegalArgumentException("Invalid rule '" + rule + "': ends with '\\'");
+                        }
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+                    }
+                    default -> regex.append(Character.isLetterOrDigit(c) || c == '/' ? String.valueOf(c)
+                        : Pattern.quote(String.valueOf(c)));
+                }
+            }
+            if (groups > 0) {
+                throw new IllegalArgumentException("Invalid rule '" + rule + "': unmatched '{'");
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -115,6 +115,7 @@ public class PlistParser {
                 .removable(isRemovable)
                 .external(isExternal)
                 .busProtocol(busProtocol)
+                .model((String) diskInfo.get("MediaName"))
                 .build();
     }
 
@@ -151,6 +152,8 @@ public class PlistParser {
         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", false);
         factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
         factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        // diskutil/hdiutil output declares Apple's DTD; never fetch it over the network
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
         DocumentBuilder builder = factory.newDocumentBuilder();
         return builder.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
     }
@@ -0,0 +1,246 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Downloads a URL with several concurrent Range requests and writes the body
+ * to a channel strictly in order. Chunks that arrive early wait in a reorder
+ * window of {@code connections * 2} chunks, held in pooled buffers; the window
+ * shrinks to fit half the pool's budget, so the range the writer waits for can
+ * always get a buffer. Servers that do not report a length or honour ranges
+ * get a single streamed GET.
+ */
+public class RangedDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(RangedDownloader.class);
+
+    private static final int ATTEMPTS = 3;
+
+    private final HttpClient client;
+    private final int connections;
+    private final int chunkSize;
+    private final Duration timeout;
+    private final BufferPool bufferPool;
+
+    public RangedDownloader(HttpClient client, int connections, int chunkSize, Duration timeout,
+                            BufferPool bufferPool) {
+        this.client = client;
+        this.connections = Math.max(1, connections);
+        this.chunkSize = chunkSize;
+        this.timeout = timeout;
+        this.bufferPool = bufferPool;
+    }
+
+    public record RemoteFile(long length, boolean acceptsRanges, String etag) {}
+
+    public RemoteFile probe(URI uri) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("HEAD " + uri + " returned " + response.statusCode());
+        }
+        OptionalLong length = response.headers().firstValueAsLong("Content-Length");
+        boolean ranges = response.headers().firstValue("Accept-Ranges")
+            .map(value -> value.equalsIgnoreCase("bytes"))
+            .orElse(false);
+        return new RemoteFile(length.orElse(-1), ranges, response.headers().firstValue("ETag").orElse(null));
+    }
+
+    /**
+     * Writes the body of {@code uri} to {@code out} and returns its length.
+     * {@code progress} receives byte counts as they are written.
+     */
+    public long download(URI uri, RemoteFile remote, WritableByteChannel out, LongConsumer progress,
+                         BooleanSupplier cancelled) throws IOException, InterruptedException {
+        if (remote.length() <= 0 || !remote.acceptsRanges() || connections == 1) {
+            return downloadWhole(uri, out, progress, cancelled);
+        }
+
+        long length = remote.length();
+        long chunks = (length + chunkSize - 1) / chunkSize;
+        int window = (int) Math.max(1, Math.min(connections * 2L, bufferPool.getBudgetBytes() / 2 / chunkSize));
+        log.info("Downloading {} ({} bytes) in {} ranges over {} connections", uri, length, chunks, connections);
+
+        ExecutorService pool = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "isoburn-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<ByteBuffer>> reorder = new ArrayDeque<>();
+        try {
+            long next = 0;
+            long written = 0;
+            while (written < length) {
+                while (next < chunks && reorder.size() < window) {
+                    long start = next * chunkSize;
+                    long end = Math.min(length, start + chunkSize) - 1;
+                    reorder.addLast(pool.submit(() -> fetchRange(uri, start, end, cancelled)));
+                    next++;
+                }
+                ByteBuffer chunk = await(reorder.removeFirst());
+                try {
+                    int n = chunk.remaining();
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    written += n;
+                    progress.accept(n);
+                } finally {
+                    bufferPool.release(chunk);
+                }
+            }
+            return written;
+        } finally {
+            pool.shutdownNow();
+            releaseFetched(pool, reorder);
+        }
+    }
+
+    private long downloadWhole(URI uri, WritableByteChannel out, LongConsumer progress,
+                               BooleanSupplier cancelled) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(
+            HttpRequest.newBuilder(uri).timeout(timeout).build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("GET " + uri + " returned " + response.statusCode());
+        }
+        long written = 0;
+        ByteBuffer buffer = bufferPool.acquire(Math.min(chunkSize, 1024 * 1024));
+        try (InputStream body = response.body()) {
+            ReadableByteChannel in = Channels.newChannel(body);
+            while (in.read(buffer.clear()) != -1) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Download cancelled");
+                }
+                buffer.flip();
+                int n = buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                written += n;
+                progress.accept(n);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return written;
+    }
+
+    // Returns the range in a pooled buffer that the caller releases
+    private ByteBuffer fetchRange(URI uri, long start, long end, BooleanSupplier cancelled)
+            throws IOException, InterruptedException {
+        int length = (int) (end - start + 1);
+        ByteBuffer buffer = bufferPool.acquire(length);
+        IOException failure = null;
+        try {
+            for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Download cancelled");
+                }
+                try {
+                    HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri)
+                            .header("Range", "bytes=" + start + "-" + end)
+                            .timeout(timeout)
+                            .build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() != 206) {
+                            throw new IOException("Range " + start + "-" + end + " returned "
+                                + response.statusCode());
+                        }
+                        ReadableByteChannel in = Channels.newChannel(body);
+                        buffer.clear();
+                        boolean ended = false;
+                        while (buffer.hasRemaining() && !ended) {
+                            ended = in.read(buffer) < 0;
+                        }
+                        if (buffer.hasRemaining()) {
+                            throw new IOException("Range " + start + "-" + end + " returned "
+                                + buffer.position() + " bytes");
+                        }
+                        if (body.read() != -1) {
+                            throw new IOException("Range " + start + "-" + end + " returned more than "
+                                + length + " bytes");
+                        }
+                    }
+                    ByteBuffer range = buffer.flip();
+                    buffer = null;
+                    return range;
+                } catch (IOException e) {
+                    if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted()) {
+                        throw e;
+                    }
+                    failure = e;
+                    log.warn("Range {}-{} failed (attempt {}/{}): {}", start, end, attempt, ATTEMPTS,
+                        e.getMessage());
+                }
+            }
+            throw failure;
+        } finally {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    // Ranges fetched after the writer stopped still hold pooled buffers
+    private void releaseFetched(ExecutorService pool, Deque<Future<ByteBuffer>> fetched) {
+        try {
+            if (!pool.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Download threads did not stop; not returning their buffers");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Future<ByteBuffer> future : fetched) {
+            if (future.state() == Future.State.SUCCESS) {
+                bufferPool.release(future.resultNow());
+            }
+        }
+    }
+
+    private static ByteBuffer await(Future<ByteBuffer> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
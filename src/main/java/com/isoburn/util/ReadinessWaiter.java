@@ -0,0 +1,96 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Waits for something to appear under a directory, such as a volume under
+ * /Volumes. The probe runs immediately, again whenever the directory changes,
+ * and otherwise on an exponential backoff, until it succeeds or the deadline
+ * passes. Watch events only shorten the wait; the backoff probes alone are
+ * enough on platforms where WatchService polls.
+ */
+public final class ReadinessWaiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadinessWaiter.class);
+
+    private ReadinessWaiter() {
+    }
+
+    public static <T> T await(Path watchRoot, Duration timeout, Duration initialBackoff, Duration maxBackoff,
+                              BooleanSupplier aborted, Supplier<T> probe) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        // Watch before the first probe, so a volume appearing in between still cuts the backoff short
+        WatchService watchService = openWatch(watchRoot);
+        try {
+            T result = probe.get();
+            if (result != null) {
+                return result;
+            }
+
+            long backoff = initialBackoff.toNanos();
+            int attempts = 1;
+            while (!aborted.getAsBoolean()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    log.warn("Gave up waiting under {} after {} probes", watchRoot, attempts);
+                    return null;
+                }
+
+                long wait = Math.min(backoff, remaining);
+                if (watchService != null) {
+                    WatchKey key = watchService.poll(wait, TimeUnit.NANOSECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                } else {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+
+                result = probe.get();
+                attempts++;
+                if (result != null) {
+                    log.debug("Ready under {} after {} probes", watchRoot, attempts);
+                    return result;
+                }
+                backoff = Math.min(backoff * 2, maxBackoff.toNanos());
+            }
+            return null;
+        } finally {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static WatchService openWatch(Path root) {
+        if (root == null || !Files.isDirectory(root)) {
+            return null;
+        }
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            root.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Cannot watch {}, probing only: {}", root, e.getMessage());
+            return null;
+        }
+    }
+}
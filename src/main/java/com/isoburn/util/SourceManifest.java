@@ -0,0 +1,306 @@
+package com.isoburn.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Every directory and file of a source tree from a single walk, in walk order
+ * (parents before children). Paths are UTF-8 in one byte arena and sizes,
+ * start blocks and flags sit in primitive arrays, so a tree of 100,000 files
+ * costs a few megabytes and no per-file objects. The same layout is the on-disk
+ * format: {@link #read} maps the file and reads the arrays in place.
+ */
+public final class SourceManifest {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceManifest.class);
+
+    public static final String INSTALL_WIM_PATH = "sources/install.wim";
+
+    private static final byte FLAG_DIRECTORY = 1;
+    private static final byte FLAG_INSTALL_WIM = 2;
+
+    private static final long MAGIC = 0x4953_4F42_4958_3031L;  // "ISOBIX01"
+    private static final int HEADER_SIZE = 64;
+    private static final int KEY_OFFSET = 16;
+
+    private final String key;
+    private final int count;
+    private final LongBuffer sizes;
+    private final LongBuffer startBlocks;
+    private final IntBuffer pathOffsets;
+    private final ByteBuffer flags;
+    private final ByteBuffer arena;
+
+    private SourceManifest(String key, int count, LongBuffer sizes, LongBuffer startBlocks, IntBuffer pathOffsets,
+                           ByteBuffer flags, ByteBuffer arena) {
+        this.key = key;
+        this.count = count;
+        this.sizes = sizes;
+        this.startBlocks = startBlocks;
+        this.pathOffsets = pathOffsets;
+        this.flags = flags;
+        this.arena = arena;
+    }
+
+    public String getKey() { return key; }
+
+    public int size() {
+        return count;
+    }
+
+    // Relative to the source root with '/' separators; "" is the root itself
+    public String path(int i) {
+        int start = pathOffsets.get(i);
+        byte[] bytes = new byte[pathOffsets.get(i + 1) - start];
+        arena.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long size(int i) {
+        return sizes.get(i);
+    }
+
+    // -1 when the entry's place in the image is unknown
+    public long startBlock(int i) {
+        return startBlocks.get(i);
+    }
+
+    public boolean isDirectory(int i) {
+        return (flags.get(i) & FLAG_DIRECTORY) != 0;
+    }
+
+    public boolean isInstallWim(int i) {
+        return (flags.get(i) & FLAG_INSTALL_WIM) != 0;
+    }
+
+    public long totalFileBytes(boolean excludeInstallWim) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (!isDirectory(i) && !(excludeInstallWim && isInstallWim(i))) {
+                total += sizes.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Walks the tree, leaving out what {@code rules} exclude: excluded
+     * directories are not entered and excluded files are not listed, so later
+     * phases never read, count or copy them. With include rules, a directory
+     * is listed only once a file beneath it is.
+     */
+    public static SourceManifest scan(Path root, IsoLayout layout, String key, PathRules rules,
+                                      BooleanSupplier cancelled) throws IOException {
+        Builder builder = new Builder();
+        Deque<String> pending = new ArrayDeque<>();
+        int[] excluded = {0};
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Source scan cancelled");
+                }
+                String path = relative(root, dir);
+                if (rules.excludesDirectory(path)) {
+                    excluded[0]++;
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (rules.hasIncludes() && !path.isEmpty()) {
+                    pending.addLast(path);
+                } else {
+                    builder.add(path, 0, -1, FLAG_DIRECTORY);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                if (!pending.isEmpty() && pending.peekLast().equals(relative(root, dir))) {
+                    pending.removeLast();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String path = relative(root, file);
+                if (!rules.includes(path)) {
+                    excluded[0]++;
+                    return FileVisitResult.CONTINUE;
+                }
+                while (!pending.isEmpty()) {
+                    builder.add(pending.removeFirst(), 0, -1, FLAG_DIRECTORY);
+                }
+                Long start = layout.startBlock(path);
+                builder.add(path, attrs.size(), start != null ? start : -1,
+                    path.equalsIgnoreCase(INSTALL_WIM_PATH) ? FLAG_INSTALL_WIM : 0);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                log.error("Failed to visit file: {}", file, exc);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        if (!rules.isEmpty()) {
+            log.info("Content rules left out {} files and directories ({})", excluded[0], rules);
+        }
+        return builder.build(key);
+    }
+
+    public void write(Path file) throws IOException {
+        int arenaLength = pathOffsets.get(count);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+            .putLong(MAGIC)
+            .putInt(count)
+            .putInt(arenaLength)
+            .put(keyDigest(key));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, header.clear());
+            writeFully(out, longBytes(sizes));
+            writeFully(out, longBytes(startBlocks));
+            ByteBuffer offsets = ByteBuffer.allocate((count + 1) * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            offsets.asIntBuffer().put(pathOffsets.duplicate().clear());
+            writeFully(out, offsets);
+            writeFully(out, flags.duplicate().clear());
+            writeFully(out, arena.duplicate().clear().limit(arenaLength));
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null when the file is missing, belongs to another source or is damaged
+    public static SourceManifest read(Path file, String key) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            ByteBuffer data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (data.limit() < HEADER_SIZE || data.getLong(0) != MAGIC) {
+                return null;
+            }
+            int count = data.getInt(8);
+            int arenaLength = data.getInt(12);
+            byte[] recorded = new byte[32];
+            data.get(KEY_OFFSET, recorded);
+            if (!Arrays.equals(recorded, keyDigest(key))) {
+                return null;
+            }
+
+            if (count < 0 || arenaLength < 0
+                    || HEADER_SIZE + (2L * Long.BYTES + Integer.BYTES + 1) * count + Integer.BYTES + arenaLength
+                        != data.limit()) {
+                log.warn("Ignoring damaged source index {}", file);
+                return null;
+            }
+            int sizesAt = HEADER_SIZE;
+            int startsAt = sizesAt + count * Long.BYTES;
+            int offsetsAt = startsAt + count * Long.BYTES;
+            int flagsAt = offsetsAt + (count + 1) * Integer.BYTES;
+            int arenaAt = flagsAt + count;
+            return new SourceManifest(key, count,
+                slice(data, sizesAt, count * Long.BYTES).asLongBuffer(),
+                slice(data, startsAt, count * Long.BYTES).asLongBuffer(),
+                slice(data, offsetsAt, (count + 1) * Integer.BYTES).asIntBuffer(),
+                slice(data, flagsAt, count),
+                slice(data, arenaAt, arenaLength));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable source index {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    public static byte[] keyDigest(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer data, int offset, int length) {
+        return data.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer longBytes(LongBuffer values) {
+        ByteBuffer bytes = ByteBuffer.allocate(values.capacity() * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(values.duplicate().clear());
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static String relative(Path root, Path path) {
+        String relative = root.relativize(path).toString();
+        return root.getFileSystem().getSeparator().equals("/") ? relative : relative.replace('\\', '/');
+    }
+
+    private static final class Builder {
+        private long[] sizes = new long[1024];
+        private long[] startBlocks = new long[1024];
+        private int[] pathOffsets = new int[1025];
+        private byte[] flags = new byte[1024];
+        private byte[] arena = new byte[64 * 1024];
+        private int count;
+
+        void add(String path, long size, long startBlock, byte flag) {
+            if (count == sizes.length) {
+                int capacity = count * 2;
+                sizes = Arrays.copyOf(sizes, capacity);
+                startBlocks = Arrays.copyOf(startBlocks, capacity);
+                pathOffsets = Arrays.copyOf(pathOffsets, capacity + 1);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            int start = pathOffsets[count];
+            if (start + bytes.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + bytes.length));
+            }
+            System.arraycopy(bytes, 0, arena, start, bytes.length);
+            sizes[count] = size;
+            startBlocks[count] = startBlock;
+            flags[count] = flag;
+            pathOffsets[++count] = start + bytes.length;
+        }
+
+        SourceManifest build(String key) {
+            return new SourceManifest(key, count,
+                LongBuffer.wrap(Arrays.copyOf(sizes, count)),
+                LongBuffer.wrap(Arrays.copyOf(startBlocks, count)),
+                IntBuffer.wrap(Arrays.copyOf(pathOffsets, count + 1)),
+                ByteBuffer.wrap(Arrays.copyOf(flags, count)),
+                ByteBuffer.wrap(Arrays.copyOf(arena, pathOffsets[count])));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.isoburn.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.BurnJob;
+import com.isoburn.model.BurnJob.State;
+import com.isoburn.service.BurnJobService;
+import com.isoburn.service.ImageVerifyService;
+import com.isoburn.service.TestServices;
+import com.isoburn.util.ContentProfileStore;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DaemonControllerTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private TestServices services;
+    private BurnJobService jobService;
+    private DaemonController daemon;
+    private String api;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        services = new TestServices(dir.resolve("drives"));
+        jobService = new BurnJobService(services.burnService, services.backend,
+            new ImageVerifyService(services.bufferPool), services.ioLimiter);
+        ReflectionTestUtils.setField(jobService, "jobHistory", 100);
+        jobService.init();
+
+        daemon = new DaemonController(jobService, services.backend, new ContentProfileStore(), services.ioLimiter);
+        ReflectionTestUtils.setField(daemon, "address", "127.0.0.1");
+        ReflectionTestUtils.setField(daemon, "port", 0);
+        ReflectionTestUtils.setField(daemon, "threads", 4);
+        ReflectionTestUtils.setField(daemon, "heartbeatSeconds", 15);
+        ReflectionTestUtils.setField(daemon, "maxPendingEvents", 1000);
+        ReflectionTestUtils.setField(daemon, "stallSeconds", 2);
+        daemon.start();
+        HttpServer server = (HttpServer) ReflectionTestUtils.getField(daemon, "server");
+        api = "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+
+        source = dir.resolve("source");
+        byte[] data = new byte[3_000_000];
+        new Random(7).nextBytes(data);
+        Files.createDirectories(source);
+        Files.write(source.resolve("data.bin"), data);
+    }
+
+    @AfterEach
+    void tearDown() {
+        daemon.stop();
+        jobService.shutdown();
+    }
+
+    @Test
+    void submittedJobRunsToCompletionAndIsListed() throws Exception {
+        HttpResponse<String> submitted = post("/jobs", submitBody());
+        assertThat(submitted.statusCode()).isEqualTo(202);
+        String id = json(submitted).get("id").asText();
+
+        JsonNode job = awaitFinished(id);
+
+        assertThat(job.get("state").asText()).isEqualTo("SUCCEEDED");
+        assertThat(dir.resolve("drives/image0.volume/data.bin")).hasSameBinaryContentAs(source.resolve("data.bin"));
+        JsonNode jobs = json(get("/jobs"));
+        assertThat(jobs).hasSize(1);
+        assertThat(jobs.get(0).get("id").asText()).isEqualTo(id);
+    }
+
+    @Test
+    void invalidSubmissionsAreRejected() throws Exception {
+        assertThat(post("/jobs", "{\"source\": \"" + dir.resolve("missing.iso") + "\", \"device\": \"image0\"}")
+            .statusCode()).isEqualTo(400);
+        assertThat(post("/jobs", "{\"source\": \"" + source + "\", \"device\": \"disk99\"}").statusCode())
+            .isEqualTo(400);
+        assertThat(post("/jobs", "{not json").statusCode()).isEqualTo(400);
+        assertThat(send(HttpRequest.newBuilder(URI.create(api + "/jobs"))
+            .POST(HttpRequest.BodyPublishers.ofString(submitBody())).build()).statusCode()).isEqualTo(415);
+        assertThat(get("/jobs/nope").statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void cancelStopsTheRunningJobAndDropsQueuedOnes() throws Exception {
+        // 1 MB/s makes the 3 MB burn last long enough to cancel
+        ReflectionTestUtils.setField(services.backend, "bandwidthMbps", 1L);
+        String running = json(post("/jobs", submitBody())).get("id").asText();
+        String queued = json(post("/jobs", submitBody())).get("id").asText();
+        awaitState(running, "RUNNING");
+
+        JsonNode dropped = json(delete("/jobs/" + queued));
+        assertThat(dropped.get("state").asText()).isEqualTo("CANCELLED");
+        assertThat(delete("/jobs/" + running).statusCode()).isEqualTo(200);
+
+        assertThat(awaitFinished(running).get("state").asText()).isEqualTo("CANCELLED");
+        assertThat(json(get("/jobs/" + queued)).get("state").asText()).isEqualTo("CANCELLED");
+        assertThat(delete("/jobs/nope").statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void sharedAndJobLimitsCanBeChanged() throws Exception {
+        JsonNode limits = json(put("/limits", "{\"readLimitMbps\": 200, \"verifyShare\": 0.25}"));
+        assertThat(limits.get("readLimitMbps").asInt()).isEqualTo(200);
+        assertThat(limits.get("writeLimitMbps").asInt()).isZero();
+        assertThat(limits.get("verifyShare").asDouble()).isEqualTo(0.25);
+        assertThat(json(get("/limits")).get("readLimitMbps").asInt()).isEqualTo(200);
+        assertThat(put("/limits", "{\"verifyShare\": 0}").statusCode()).isEqualTo(400);
+
+        ReflectionTestUtils.setField(services.backend, "bandwidthMbps", 1L);
+        String id = json(post("/jobs", submitBody())).get("id").asText();
+        JsonNode job = json(put("/jobs/" + id + "/limits", "{\"writeLimitMbps\": 20}"));
+        assertThat(job.get("options").get("writeLimitMbps").asInt()).isEqualTo(20);
+        assertThat(put("/jobs/nope/limits", "{\"writeLimitMbps\": 20}").statusCode()).isEqualTo(404);
+        delete("/jobs/" + id);
+        awaitFinished(id);
+    }
+
+    @Test
+    void eventStreamSendsCurrentStateThenChanges() throws Exception {
+        String before = json(post("/jobs", submitBody())).get("id").asText();
+        awaitFinished(before);
+
+        BlockingQueue<String> lines = subscribe();
+        assertThat(awaitLine(lines, "data: ")).contains(before).contains("SUCCEEDED");
+
+        String after = json(post("/jobs", submitBody())).get("id").asText();
+        String event;
+        do {
+            event = awaitLine(lines, "data: ");
+        } while (!event.contains(after) || !event.contains("SUCCEEDED"));
+        assertThat(event).contains("\"state\":\"SUCCEEDED\"");
+    }
+
+    @Test
+    void stalledSubscribersDoNotHoldUpOthers() throws Exception {
+        int port = URI.create(api).getPort();
+        try (Socket first = stalledSubscriber(port); Socket second = stalledSubscriber(port)) {
+            // Megabytes of events fill both stalled connections, so their writers block
+            String padding = "x".repeat(100_000);
+            for (int i = 0; i < 100; i++) {
+                daemon.jobChanged(BurnJob.builder().id("filler-" + i).source(padding).state(State.QUEUED).build());
+            }
+
+            BlockingQueue<String> lines = subscribe();
+            awaitLine(lines, ": connected");
+            daemon.jobChanged(BurnJob.builder().id("live").source("live.iso").state(State.RUNNING).build());
+
+            assertThat(awaitLine(lines, "data: ")).contains("\"id\":\"live\"");
+        }
+    }
+
+    @Test
+    void requestsWithAnOriginAreRefused() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(api + "/jobs"))
+            .header("Origin", "https://example.com").GET().build());
+
+        assertThat(response.statusCode()).isEqualTo(403);
+        assertThat(jobService.jobs()).isEmpty();
+    }
+
+    private String submitBody() {
+        return "{\"source\": \"" + source + "\", \"device\": \"image0\", \"options\": {}}";
+    }
+
+    private JsonNode awaitFinished(String id) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (System.nanoTime() < deadline) {
+            JsonNode job = json(get("/jobs/" + id));
+            if (!job.get("state").asText().equals("QUEUED") && !job.get("state").asText().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+
+    private void awaitState(String id, String state) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!json(get("/jobs/" + id)).get("state").asText().equals(state)) {
+            assertThat(System.nanoTime()).as("job %s reaching %s", id, state).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    // Subscribes to events and never reads past the response status
+    // Read on a thread of its own: the stream never ends, and a callback on an already completed send runs in place
+    private BlockingQueue<String> subscribe() {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try {
+                client.send(HttpRequest.newBuilder(URI.create(api + "/events")).build(),
+                    HttpResponse.BodyHandlers.ofLines()).body().forEach(lines::add);
+            } catch (IOException | InterruptedException e) {
+                // The daemon stopped
+            }
+        }, "event-reader");
+        reader.setDaemon(true);
+        reader.start();
+        return lines;
+    }
+
+    private static Socket stalledSubscriber(int port) throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(1024);
+        socket.connect(new InetSocketAddress("127.0.0.1", port));
+        socket.getOutputStream().write("GET /api/events HTTP/1.1\r\nHost: localhost\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            StandardCharsets.US_ASCII), 64);
+        assertThat(reader.readLine()).contains("200");
+        return socket;
+    }
+
+    private static String awaitLine(BlockingQueue<String> lines, String prefix) throws InterruptedException {
+        while (true) {
+            String line = lines.poll(30, TimeUnit.SECONDS);
+            assertThat(line).as("event line starting with %s", prefix).isNotNull();
+            if (line.startsWith(prefix)) {
+                return line;
+            }
+        }
+    }
+
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(api + path)).GET().build());
+    }
+
+    private HttpResponse<String> delete(String path) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(api + path)).DELETE().build());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(api + path)).header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body)).build());
+    }
+
+    private HttpResponse<String> put(String path, String body) throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(api + path)).header("Content-Type", "application/json")
+            .PUT(HttpRequest.BodyPublishers.ofString(body)).build());
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
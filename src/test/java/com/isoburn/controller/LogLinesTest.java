@@ -0,0 +1,135 @@
+package com.isoburn.controller;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogLinesTest {
+
+    // Stands in for the FX application thread: drains run when the test says so
+    private final Deque<Runnable> pulses = new ArrayDeque<>();
+    private final List<String> changes = new ArrayList<>();
+
+    @Test
+    void linesAppearOnlyAtThePulseInOneChange() {
+        LogLines lines = logLines(10);
+
+        lines.append("a");
+        lines.append("b");
+        lines.append("c");
+
+        assertThat(lines).isEmpty();
+        assertThat(pulses).hasSize(1);
+        pulse();
+        assertThat(lines).containsExactly("a", "b", "c");
+        assertThat(changes).containsExactly("+[a, b, c]");
+    }
+
+    @Test
+    void oldestLinesAreDroppedFromTheFront() {
+        LogLines lines = logLines(3);
+        append(lines, "a", "b");
+        pulse();
+        append(lines, "c", "d", "e");
+        pulse();
+
+        assertThat(lines).containsExactly("c", "d", "e");
+        assertThat(changes).containsExactly("+[a, b]", "-[a, b] +[c, d, e]");
+    }
+
+    @Test
+    void batchLargerThanTheRingKeepsItsNewestLines() {
+        LogLines lines = logLines(3);
+        append(lines, "a");
+        pulse();
+        append(lines, "b", "c", "d", "e", "f");
+        pulse();
+
+        assertThat(lines).containsExactly("d", "e", "f");
+        assertThat(changes).containsExactly("+[a]", "-[a] +[d, e, f]");
+    }
+
+    @Test
+    void ringWrapsAroundOverManyPulses() {
+        LogLines lines = logLines(4);
+        for (int i = 0; i < 25; i++) {
+            lines.append("line " + i);
+            pulse();
+        }
+
+        assertThat(lines).containsExactly("line 21", "line 22", "line 23", "line 24");
+        assertThat(changes).hasSize(25);
+    }
+
+    @Test
+    void appendsFromManyThreadsAreAllDrained() throws InterruptedException {
+        LogLines lines = logLines(100_000);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            writers.execute(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    lines.append(thread + ":" + i);
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        writers.shutdown();
+
+        while (!pulses.isEmpty()) {
+            pulse();
+        }
+
+        assertThat(lines).hasSize(20_000).doesNotHaveDuplicates();
+        assertThat(changes.size()).isLessThan(20_000);
+    }
+
+    private LogLines logLines(int capacity) {
+        LogLines lines = new LogLines(capacity, this::schedule);
+        lines.addListener((ListChangeListener<String>) change -> {
+            StringBuilder summary = new StringBuilder();
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    summary.append(" -").append(change.getRemoved());
+                }
+                if (change.wasAdded()) {
+                    summary.append(" +").append(change.getAddedSubList());
+                }
+            }
+            changes.add(summary.toString().trim());
+        });
+        return lines;
+    }
+
+    private synchronized void schedule(Runnable drain) {
+        pulses.add(drain);
+    }
+
+    private void pulse() {
+        Runnable drain;
+        synchronized (this) {
+            drain = pulses.poll();
+        }
+        if (drain != null) {
+            drain.run();
+        }
+    }
+
+    private static void append(LogLines lines, String... text) {
+        for (String line : text) {
+            lines.append(line);
+        }
+    }
+}
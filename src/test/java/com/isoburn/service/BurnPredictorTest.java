@@ -0,0 +1,191 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnEstimate;
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BurnHistoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Predicts from synthetic history: earlier burns of a 1 MB image, against
+ * which the 2 MB image being burned takes twice as long in sized phases.
+ */
+class BurnPredictorTest {
+
+    private static final long HISTORY_ISO_SIZE = 1_000_000;
+
+    @TempDir
+    Path dir;
+
+    private BurnHistoryStore store;
+    private BurnPredictor predictor;
+    private File iso;
+    private final RemovableDrive drive = RemovableDrive.builder().deviceIdentifier("disk4").name("Stick")
+        .model("Flash 32").busProtocol("USB").build();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new BurnHistoryStore();
+        ReflectionTestUtils.setField(store, "historyFile", dir.resolve("burns.jsonl").toString());
+        ReflectionTestUtils.setField(store, "maxEntries", 2000);
+        predictor = new BurnPredictor(store);
+        ReflectionTestUtils.setField(predictor, "window", 20);
+        ReflectionTestUtils.setField(predictor, "slowRatio", 0.5);
+        ReflectionTestUtils.setField(predictor, "slowMinBurns", 3);
+
+        iso = dir.resolve("image.iso").toFile();
+        try (RandomAccessFile file = new RandomAccessFile(iso, "rw")) {
+            file.setLength(2 * HISTORY_ISO_SIZE);
+        }
+    }
+
+    @Test
+    void noEarlierSuccessMeansNoEstimate() {
+        BurnReport failed = burn("Flash 32", "USB", 4000, 90_000);
+        failed.setOutcome("failed");
+        predictor.record(failed);
+
+        assertThat(predictor.estimate(iso, drive, new BurnOptions())).isNull();
+    }
+
+    @Test
+    void sizedPhasesScaleWithTheImageAndOverlapIsTakenOff() {
+        predictor.record(burn("Flash 32", "USB", 4000, 90_000));
+        predictor.record(burn("Flash 32", "USB", 9000, 200_000));
+        BurnReport overlapped = burn("Flash 32", "USB", 5000, 100_000);
+        overlapped.getPhaseOverlapMillis().put("FORMATTING", 1000L);
+        predictor.record(overlapped);
+
+        BurnEstimate estimate = predictor.estimate(iso, drive, new BurnOptions());
+
+        // Medians: formatting 5 s as it was, copying 100 s doubled; the one overlap recorded is not the median
+        assertThat(estimate.getPhaseMillis()).containsExactly(Map.entry("FORMATTING", 5000L),
+            Map.entry("COPYING", 200_000L));
+        assertThat(estimate.getTotalMillis()).isEqualTo(205_000);
+        assertThat(estimate.getSamples()).isEqualTo(3);
+        assertThat(estimate.getBasis()).isEqualTo("this drive model");
+    }
+
+    @Test
+    void sameModelIsPreferredThenSameBus() {
+        predictor.record(burn("Other", "SATA", 1000, 10_000));
+        assertThat(predictor.estimate(iso, drive, new BurnOptions()).getBasis()).isEqualTo("other drives");
+
+        predictor.record(burn("Faster", "USB", 2000, 20_000));
+        BurnEstimate bus = predictor.estimate(iso, drive, new BurnOptions());
+        assertThat(bus.getBasis()).isEqualTo("USB drives");
+        assertThat(bus.getPhaseMillis()).containsEntry("COPYING", 40_000L);
+
+        predictor.record(burn("Flash 32", "USB", 3000, 30_000));
+        BurnEstimate model = predictor.estimate(iso, drive, new BurnOptions());
+        assertThat(model.getBasis()).isEqualTo("this drive model");
+        assertThat(model.getPhaseMillis()).containsEntry("COPYING", 60_000L);
+    }
+
+    @Test
+    void onlyTheNewestBurnsWithinTheWindowCount() {
+        ReflectionTestUtils.setField(predictor, "window", 2);
+        predictor.record(burn("Flash 32", "USB", 1000, 500_000));
+        predictor.record(burn("Flash 32", "USB", 1000, 10_000));
+        predictor.record(burn("Flash 32", "USB", 1000, 30_000));
+
+        BurnEstimate estimate = predictor.estimate(iso, drive, new BurnOptions());
+
+        assertThat(estimate.getSamples()).isEqualTo(2);
+        assertThat(estimate.getPhaseMillis()).containsEntry("COPYING", 40_000L);
+    }
+
+    @Test
+    void phaseMostBurnsOfThisImageSkippedIsLeftOut() {
+        for (int i = 0; i < 3; i++) {
+            BurnReport report = burn("Flash 32", "USB", 1000, 10_000);
+            report.setIsoName(iso.getName());
+            report.setIsoSizeBytes(iso.length());
+            if (i == 0) {
+                report.getPhaseMillis().put("SPLITTING_WIM", 8000L);
+            }
+            predictor.record(report);
+        }
+
+        assertThat(predictor.estimate(iso, drive, new BurnOptions()).getPhaseMillis())
+            .containsOnlyKeys("FORMATTING", "COPYING");
+    }
+
+    @Test
+    void rawBurnsArePredictedFromRawBurnsOnly() {
+        predictor.record(burn("Flash 32", "USB", 1000, 10_000));
+        assertThat(predictor.estimate(iso, drive, new BurnOptions(false, false, false, true))).isNull();
+
+        BurnReport raw = burn("Flash 32", "USB", 0, 50_000);
+        raw.setMode("raw");
+        raw.getPhaseMillis().remove("FORMATTING");
+        predictor.record(raw);
+
+        BurnEstimate estimate = predictor.estimate(iso, drive, new BurnOptions(false, false, false, true));
+        assertThat(estimate.getPhaseMillis()).containsOnlyKeys("COPYING");
+        assertThat(estimate.getTotalMillis()).isEqualTo(100_000);
+    }
+
+    @Test
+    void modelRepeatedlySlowerThanItsBusIsFlagged() {
+        for (int i = 0; i < 3; i++) {
+            predictor.record(throughput("Fast A", 40));
+            predictor.record(throughput("Fast B", 44));
+        }
+        predictor.record(throughput("Flash 32", 10));
+        predictor.record(throughput("Flash 32", 12));
+        assertThat(predictor.slowDriveWarning(drive)).as("two slow burns are not yet a pattern").isNull();
+
+        predictor.record(throughput("Flash 32", 8));
+
+        assertThat(predictor.slowDriveWarning(drive)).isEqualTo(
+            "Flash 32 was slow in 3 of 3 burns (10.0 MB/s, against 42.0 MB/s for other USB drives)");
+    }
+
+    @Test
+    void modelMostlyAtSpeedIsNotFlagged() {
+        for (int i = 0; i < 3; i++) {
+            predictor.record(throughput("Fast A", 40));
+            predictor.record(throughput("Flash 32", 10));
+            predictor.record(throughput("Flash 32", 38));
+            predictor.record(throughput("Flash 32", 41));
+        }
+
+        assertThat(predictor.slowDriveWarning(drive)).isNull();
+        assertThat(predictor.slowDriveWarning(RemovableDrive.builder().name("Flash 32").busProtocol("SATA").build()))
+            .isNull();
+    }
+
+    private static BurnReport burn(String model, String bus, long formatMillis, long copyMillis) {
+        BurnReport report = new BurnReport();
+        report.setIsoName("earlier.iso");
+        report.setIsoSizeBytes(HISTORY_ISO_SIZE);
+        report.setDriveModel(model);
+        report.setBusProtocol(bus);
+        report.setOutcome("success");
+        report.setMode("full");
+        if (formatMillis > 0) {
+            report.getPhaseMillis().put("FORMATTING", formatMillis);
+        }
+        report.getPhaseMillis().put("COPYING", copyMillis);
+        return report;
+    }
+
+    private static BurnReport throughput(String model, int mbps) {
+        BurnReport report = burn(model, "USB", 1000, 10_000);
+        report.setBytesWritten(mbps * 10_000_000L);
+        return report;
+    }
+}
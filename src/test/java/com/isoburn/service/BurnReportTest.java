@@ -0,0 +1,116 @@
+package com.isoburn.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.RemovableDrive;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a burn with reports and flight recordings turned on and reads back
+ * what it left: the JSON report, the JFR recording and the meters.
+ */
+class BurnReportTest {
+
+    private static final int TOTAL_BYTES = 2_500_000 + 700_000;
+
+    @TempDir
+    Path dir;
+
+    private TestServices services;
+    private RemovableDrive drive;
+    private Path source;
+    private Path reports;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        services = new TestServices(dir.resolve("drives"));
+        reports = dir.resolve("reports");
+        ReflectionTestUtils.setField(services.reportWriter, "reportDirectory", reports.toString());
+        ReflectionTestUtils.setField(services.flightRecorder, "recordBurns", true);
+        ReflectionTestUtils.setField(services.flightRecorder, "settings", "default");
+        drive = services.backend.detectDrives().get(0);
+
+        source = dir.resolve("source");
+        writeRandom(source.resolve("big.bin"), 2_500_000, 1);
+        writeRandom(source.resolve("sub/small.bin"), 700_000, 2);
+    }
+
+    @Test
+    void reportRecordsPhasesAndBytes() throws IOException {
+        BurnResult result = burn();
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+
+        BurnReport report = new ObjectMapper().readValue(only("json").toFile(), BurnReport.class);
+
+        assertThat(report.getOutcome()).isEqualTo("success");
+        assertThat(report.getMode()).isEqualTo("full");
+        assertThat(report.getDeviceIdentifier()).isEqualTo(drive.getDeviceIdentifier());
+        assertThat(report.getBytesWritten()).isEqualTo(TOTAL_BYTES);
+        assertThat(report.getFilesCopied()).isEqualTo(2);
+        assertThat(report.getPhaseMillis()).containsKeys("FORMATTING", "INDEXING", "COPYING");
+        assertThat(report.getPhaseMillis().values()).allMatch(millis -> millis >= 0);
+        assertThat(report.getPhaseMillis().values().stream().mapToLong(Long::longValue).sum()
+            - report.getOverlapSavedMillis()).isLessThanOrEqualTo(report.getDurationMillis());
+    }
+
+    @Test
+    void recordingHoldsThePhaseAndCopyEvents() throws IOException {
+        assertThat(burn().isSuccess()).isTrue();
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(only("jfr"));
+
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.isoburn.BurnPhase"))
+            .extracting(event -> event.getString("phase")).contains("FORMATTING", "COPYING");
+        assertThat(events).filteredOn(event -> event.getEventType().getName().equals("com.isoburn.FileCopy"))
+            .extracting(event -> event.getString("path")).containsExactly("big.bin");
+    }
+
+    @Test
+    void metersCountTheBurn() {
+        assertThat(burn().isSuccess()).isTrue();
+
+        Timer burns = services.registry.find("isoburn.burn").tag("outcome", "success").timer();
+        assertThat(burns).isNotNull();
+        assertThat(burns.count()).isEqualTo(1);
+        assertThat(services.registry.counter("isoburn.burn.bytes.written").count()).isEqualTo(TOTAL_BYTES);
+        assertThat(services.registry.counter("isoburn.burn.files.copied").count()).isEqualTo(2);
+        assertThat(services.registry.find("isoburn.burn.phase").tag("phase", "COPYING").timer().count())
+            .isPositive();
+    }
+
+    private BurnResult burn() {
+        return services.burnService.burn(source.toFile(), drive, BurnOptions.builder().build(), progress -> { });
+    }
+
+    private Path only(String extension) throws IOException {
+        try (Stream<Path> files = Files.list(reports)) {
+            List<Path> matching = files.filter(file -> file.toString().endsWith("." + extension)).toList();
+            assertThat(matching).hasSize(1);
+            return matching.get(0);
+        }
+    }
+
+    private static void writeRandom(Path file, int size, long seed) throws IOException {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+}
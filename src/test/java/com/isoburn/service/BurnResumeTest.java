@@ -0,0 +1,151 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BurnJournal;
+import com.isoburn.util.ChunkHasher;
+import com.isoburn.util.DriveManifestStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BurnResumeTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private TestServices services;
+    private RemovableDrive drive;
+    private File source;
+    private Path volume;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        services = new TestServices(dir.resolve("drives"));
+        drive = services.backend.detectDrives().get(0);
+        Path tree = dir.resolve("source");
+        writeRandom(tree.resolve("a.bin"), 300_000, 1);
+        writeRandom(tree.resolve("sub/b.bin"), 200_000, 2);
+        writeRandom(tree.resolve("sub/c.bin"), 70_000, 3);
+        source = tree.toFile();
+        volume = dir.resolve("drives").resolve(drive.getDeviceIdentifier() + ".volume");
+    }
+
+    @Test
+    void fullBurnCopiesEveryFileAndRemovesTheJournal() throws IOException {
+        BurnResult result = burn();
+
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+        assertCopied("a.bin", "sub/b.bin", "sub/c.bin");
+        assertThat(BurnJournal.read(volume)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"none", "periodic", "window", "sync"})
+    void checkpointsAfterEveryBufferUnderEachFlushPolicy(String policy) throws IOException {
+        ReflectionTestUtils.setField(services.burnService, "flushPolicy", policy);
+        services.burnService.init();
+        ReflectionTestUtils.setField(services.burnService, "journalCheckpointMb", 0L);
+
+        BurnResult result = burn();
+
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+        assertCopied("a.bin", "sub/b.bin", "sub/c.bin");
+    }
+
+    @Test
+    void misspeltFlushPolicyFailsAtStartup() {
+        ReflectionTestUtils.setField(services.burnService, "flushPolicy", "windows");
+
+        assertThatThrownBy(services.burnService::init).isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("'windows'").hasMessageContaining("window");
+    }
+
+    @Test
+    void fileRecordedAfterTheLastCheckpointIsCopiedAgain() throws IOException {
+        assertThat(burn().isSuccess()).isTrue();
+        // The process died after the journal recorded b.bin complete but before the next checkpoint,
+        // and the drive lost the data that was still in the page cache
+        writeJournal("F", "a.bin", "S", "F", "sub/b.bin");
+        zeroFill(volume.resolve("sub/b.bin"));
+        zeroFill(volume.resolve("sub/c.bin"));
+
+        BurnResult result = burn();
+
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+        assertCopied("a.bin", "sub/b.bin", "sub/c.bin");
+    }
+
+    @Test
+    void fileCoveredByACheckpointIsTrustedBySize() throws IOException {
+        assertThat(burn().isSuccess()).isTrue();
+        writeJournal("F", "a.bin", "S");
+        Path copied = volume.resolve("a.bin");
+        zeroFill(copied);
+
+        assertThat(burn().isSuccess()).isTrue();
+
+        // Only a checkpoint promises the data is on the device, so the resume does not read it back
+        assertThat(Files.readAllBytes(copied)).containsOnly(0);
+        assertCopied("sub/b.bin", "sub/c.bin");
+    }
+
+    private BurnResult burn() {
+        return services.burnService.burn(source, drive, BurnOptions.builder().build(), progress -> { });
+    }
+
+    // Records of the given types for the given files, in the format of an interrupted burn
+    private void writeJournal(String... records) throws IOException {
+        StringBuilder journal = new StringBuilder("H\t1\t" + CHUNK_SIZE + "\t"
+            + source.getName() + ":" + source.length() + ":" + source.lastModified() + "\n");
+        for (int i = 0; i < records.length; i++) {
+            if (records[i].equals("S")) {
+                journal.append("S\n");
+                continue;
+            }
+            String path = records[++i];
+            Path file = source.toPath().resolve(path);
+            List<String> chunks = ChunkHasher.hashFile(file, CHUNK_SIZE, ByteBuffer.allocate(CHUNK_SIZE));
+            journal.append("F\t").append(Files.size(file)).append('\t').append(String.join(",", chunks))
+                .append('\t').append(path).append('\n');
+        }
+        Path file = volume.resolve(DriveManifestStore.MANIFEST_DIR).resolve(BurnJournal.JOURNAL_FILE);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, journal, StandardCharsets.UTF_8);
+    }
+
+    private void assertCopied(String... paths) throws IOException {
+        for (String path : paths) {
+            assertThat(volume.resolve(path)).hasSameBinaryContentAs(source.toPath().resolve(path));
+        }
+    }
+
+    private static void zeroFill(Path file) throws IOException {
+        Files.write(file, new byte[(int) Files.size(file)]);
+    }
+
+    private static void writeRandom(Path file, int size, long seed) throws IOException {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+}
@@ -0,0 +1,59 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress;
+import com.isoburn.model.BurnProgress.Phase;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CopyProgressTest {
+
+    @Test
+    void eachPercentIsReportedOnceAndNeverGoesBack() throws InterruptedException {
+        List<Integer> reported = new CopyOnWriteArrayList<>();
+        CopyProgress progress = new CopyProgress(Phase.COPYING, "Copying", 1_000_000,
+            update -> reported.add((int) update.getPercentage()));
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 8; i++) {
+            writers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 12_500; j++) {
+                    progress.add(10);
+                }
+            });
+        }
+        start.countDown();
+        writers.shutdown();
+        assertThat(writers.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(reported).doesNotHaveDuplicates().allMatch(percent -> percent >= 0 && percent < 100);
+        assertThat(progress.getBytesDone()).isEqualTo(1_000_000);
+        assertThat(progress.getPercent()).isEqualTo(100);
+    }
+
+    @Test
+    void growingTotalDoesNotReportALowerPercent() {
+        List<BurnProgress> reported = new CopyOnWriteArrayList<>();
+        CopyProgress progress = new CopyProgress(Phase.COPYING, "Copying", 100, reported::add);
+
+        progress.add(50);
+        progress.addTotal(100);
+        progress.add(10);
+        progress.add(50);
+
+        assertThat(reported).extracting(BurnProgress::getPercentage).containsExactly(50.0, 55.0);
+        assertThat(reported.get(1).getTotalBytes()).isEqualTo(200);
+    }
+}
@@ -0,0 +1,118 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.DriveManifestStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Burns a source, changes it and burns it again as a differential update.
+ * Bytes flipped on the drive outside the changed chunks show which parts
+ * the update left alone.
+ */
+class DifferentialBurnTest {
+
+    private static final int CHUNK = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private TestServices services;
+    private RemovableDrive drive;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        services = new TestServices(dir.resolve("drives"));
+        drive = services.backend.detectDrives().get(0);
+
+        source = dir.resolve("source");
+        writeRandom(source.resolve("big.bin"), 5 * CHUNK + 1234, 1);
+        writeRandom(source.resolve("sub/keep.bin"), 100_000, 2);
+        writeRandom(source.resolve("sub/gone.bin"), 1000, 3);
+    }
+
+    @Test
+    void updateRewritesOnlyChangedChunksAndDeletesRemovedFiles() throws IOException {
+        assertThat(burn().isSuccess()).isTrue();
+        Path volume = Path.of(services.backend.mountDrive(drive));
+        assertThat(volume.resolve(DriveManifestStore.MANIFEST_DIR)).isDirectory();
+
+        flip(volume.resolve("big.bin"), 100);
+        flip(volume.resolve("big.bin"), 4L * CHUNK + 7);
+        flip(volume.resolve("sub/keep.bin"), 50_000);
+        flip(source.resolve("big.bin"), 3L * CHUNK + 10);
+        Files.delete(source.resolve("sub/gone.bin"));
+        writeRandom(source.resolve("added.bin"), 5000, 4);
+        double writtenBefore = bytesWritten();
+
+        BurnResult update = burn();
+
+        assertThat(update.isSuccess()).as(update.getMessage()).isTrue();
+        assertThat(update.getMessage()).contains("updated");
+        assertThat(bytesWritten() - writtenBefore).isEqualTo(CHUNK + 5000);
+        assertThat(volume.resolve("sub/gone.bin")).doesNotExist();
+        assertThat(volume.resolve("added.bin")).hasSameBinaryContentAs(source.resolve("added.bin"));
+
+        byte[] burned = Files.readAllBytes(volume.resolve("big.bin"));
+        byte[] expected = Files.readAllBytes(source.resolve("big.bin"));
+        assertThat(Arrays.copyOfRange(burned, 3 * CHUNK, 4 * CHUNK))
+            .isEqualTo(Arrays.copyOfRange(expected, 3 * CHUNK, 4 * CHUNK));
+        assertThat(burned[100]).isEqualTo((byte) ~expected[100]);
+        assertThat(burned[4 * CHUNK + 7]).isEqualTo((byte) ~expected[4 * CHUNK + 7]);
+        byte[] keep = Files.readAllBytes(source.resolve("sub/keep.bin"));
+        assertThat(Files.readAllBytes(volume.resolve("sub/keep.bin"))[50_000]).isEqualTo((byte) ~keep[50_000]);
+    }
+
+    @Test
+    void unchangedSourceWritesNothing() throws IOException {
+        assertThat(burn().isSuccess()).isTrue();
+        double writtenBefore = bytesWritten();
+
+        assertThat(burn().isSuccess()).isTrue();
+
+        assertThat(bytesWritten()).isEqualTo(writtenBefore);
+        Path volume = Path.of(services.backend.mountDrive(drive));
+        assertThat(volume.resolve("big.bin")).hasSameBinaryContentAs(source.resolve("big.bin"));
+        assertThat(volume.resolve("sub/gone.bin")).hasSameBinaryContentAs(source.resolve("sub/gone.bin"));
+    }
+
+    private BurnResult burn() {
+        return services.burnService.burn(source.toFile(), drive, BurnOptions.builder().differential(true).build(),
+            progress -> { });
+    }
+
+    private double bytesWritten() {
+        return services.registry.counter("isoburn.burn.bytes.written").count();
+    }
+
+    private static void flip(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) ~one.get(0));
+            channel.write(one.rewind(), position);
+        }
+    }
+
+    private static void writeRandom(Path file, int size, long seed) throws IOException {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+}
@@ -0,0 +1,224 @@
+package com.isoburn.service;
+
+import com.isoburn.model.DriveProbeResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BufferPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Probes image drives of 1 GB, some of which pose as counterfeits by wrapping
+ * or dropping writes past a smaller real size.
+ */
+class DriveProbeServiceTest {
+
+    private static final long CLAIMED = 1_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void genuineDriveIsUsableToItsClaimedSize() throws IOException {
+        DriveProbeResult result = probe(null);
+
+        assertThat(result.isFakeCapacity()).isFalse();
+        assertThat(result.getClaimedBytes()).isEqualTo(CLAIMED);
+        assertThat(result.getUsableBytes()).isEqualTo(CLAIMED);
+        assertThat(result.getSentinels()).isGreaterThan(64);
+        assertThat(result.getSequentialWriteMBps()).isPositive();
+        assertThat(result.getRandomReadIops()).isPositive();
+    }
+
+    @Test
+    void driveThatWrapsAtAPowerOfTwoIsCaught() throws IOException {
+        DriveProbeResult result = probe(new Counterfeit(256L * 1024 * 1024, true));
+
+        assertThat(result.isFakeCapacity()).isTrue();
+        assertThat(result.getUsableBytes()).isEqualTo(256L * 1024 * 1024);
+    }
+
+    @Test
+    void driveThatDropsWritesPastItsRealSizeIsCaught() throws IOException {
+        DriveProbeResult result = probe(new Counterfeit(300_000_000L, false));
+
+        // Usable ends at the first sentinel past the real size; sentinels are 8 MiB apart here
+        assertThat(result.isFakeCapacity()).isTrue();
+        assertThat(result.getUsableBytes()).isBetween(300_000_000L, 300_000_000L + 8 * 1024 * 1024);
+    }
+
+    @Test
+    void speedPhasesAreNotHeldToTheWriteThrottle() throws IOException {
+        DriveProbeResult result = probe(null, 2);
+
+        assertThat(result.getSequentialWriteMBps()).isGreaterThan(20);
+        assertThat(result.isFakeCapacity()).isFalse();
+    }
+
+    private DriveProbeResult probe(Counterfeit counterfeit) throws IOException {
+        return probe(counterfeit, 0);
+    }
+
+    private DriveProbeResult probe(Counterfeit counterfeit, long bandwidthMbps) throws IOException {
+        ImageFileDiskBackend backend = new ImageFileDiskBackend() {
+            @Override
+            public FileChannel openRawDevice(RemovableDrive drive) throws IOException {
+                FileChannel device = super.openRawDevice(drive);
+                return counterfeit != null ? new CounterfeitChannel(device, counterfeit) : device;
+            }
+        };
+        ReflectionTestUtils.setField(backend, "root", dir.resolve("drives").toString());
+        ReflectionTestUtils.setField(backend, "driveCount", 1);
+        ReflectionTestUtils.setField(backend, "driveSizeGb", 1L);
+        ReflectionTestUtils.setField(backend, "bandwidthMbps", bandwidthMbps);
+
+        DriveProbeService service = new DriveProbeService(backend, new BufferPool(new SimpleMeterRegistry(), 64));
+        ReflectionTestUtils.setField(service, "windowMs", 100L);
+        ReflectionTestUtils.setField(service, "maxSequentialMb", 16L);
+        RemovableDrive drive = backend.detectDrives().get(0);
+
+        DriveProbeResult result = service.probe(drive, progress -> { }, () -> false);
+
+        assertThat(service.lastResult(drive)).isSameAs(result);
+        assertThat(service.refusal(result) != null).isEqualTo(result.isFakeCapacity());
+        return result;
+    }
+
+    private record Counterfeit(long realSize, boolean wraps) {
+    }
+
+    // Positional I/O only, which is all the probe uses
+    private static final class CounterfeitChannel extends FileChannel {
+        private final FileChannel device;
+        private final Counterfeit fake;
+
+        CounterfeitChannel(FileChannel device, Counterfeit fake) {
+            this.device = device;
+            this.fake = fake;
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            int length = src.remaining();
+            if (fake.wraps()) {
+                return device.write(src, position % fake.realSize());
+            }
+            int kept = (int) Math.max(0, Math.min(length, fake.realSize() - position));
+            if (kept > 0) {
+                ByteBuffer part = src.slice(src.position(), kept);
+                while (part.hasRemaining()) {
+                    device.write(part, position + part.position());
+                }
+            }
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            if (fake.wraps()) {
+                return device.read(dst, position % fake.realSize());
+            }
+            int length = dst.remaining();
+            int kept = (int) Math.max(0, Math.min(length, fake.realSize() - position));
+            if (kept > 0) {
+                ByteBuffer part = dst.slice(dst.position(), kept);
+                while (part.hasRemaining()) {
+                    device.read(part, position + part.position());
+                }
+            }
+            for (int i = dst.position() + kept; i < dst.limit(); i++) {
+                dst.put(i, (byte) 0);
+            }
+            dst.position(dst.limit());
+            return length;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return device.size();
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            device.force(metaData);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            device.close();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileChannel truncate(long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.isoburn.service;
+
+import com.isoburn.util.BlockMap;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.FatImages;
+import com.isoburn.util.FatVolumeMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageCacheServiceTest {
+
+    private static final String ISO_HASH = "ab".repeat(32);
+
+    @TempDir
+    Path dir;
+
+    private final ImageCacheService cache = new ImageCacheService(new BufferPool(new SimpleMeterRegistry(), 64));
+    private Path cacheDir;
+    private Path image;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheDir = dir.resolve("cache");
+        ReflectionTestUtils.setField(cache, "cacheDirectory", cacheDir.toString());
+        ReflectionTestUtils.setField(cache, "maxSizeGb", 1L);
+        ReflectionTestUtils.setField(cache, "compressAfterDays", 7);
+        image = dir.resolve("drive.img");
+        FatImages.write(image, 2048, 1, 2, 3, 40, 41, 900);
+    }
+
+    @Test
+    void keyDependsOnEverythingThatShapesTheImage() {
+        String key = key(ISO_HASH, "", 3800);
+
+        assertThat(key).hasSize(64).isEqualTo(key(ISO_HASH, "", 3800));
+        assertThat(new ImageCacheService(null).key(ISO_HASH, "FAT32", "ISOBURN", FatImages.IMAGE_SIZE, 3800, ""))
+            .isEqualTo(key);
+        assertThat(key).isNotEqualTo(key("cd".repeat(32), "", 3800))
+            .isNotEqualTo(key(ISO_HASH, "", 4000))
+            .isNotEqualTo(key(ISO_HASH, "exclude=*.chm", 3800))
+            .isNotEqualTo(cache.key(ISO_HASH, "FAT32", "OTHER", FatImages.IMAGE_SIZE, 3800, ""))
+            .isNotEqualTo(cache.key(ISO_HASH, "FAT32", "ISOBURN", FatImages.IMAGE_SIZE * 2, 3800, ""));
+    }
+
+    @Test
+    void storedEntryReadsBackTheUsedBlocks() throws IOException {
+        String key = key(ISO_HASH, "", 3800);
+
+        ImageCacheService.Entry stored = store(key);
+
+        assertThat(stored).isNotNull();
+        assertThat(stored.compressed()).isFalse();
+        assertThat(stored.map().getImageSize()).isEqualTo(FatImages.IMAGE_SIZE);
+        assertThat(stored.map().getRanges()).allMatch(range -> range.checksum() != null);
+        assertThat(readData(stored)).isEqualTo(mappedBytes(stored.map()));
+        assertThat(cache.find(key).directory()).isEqualTo(stored.directory());
+        assertThat(cache.find(key(ISO_HASH, "", 4000))).isNull();
+    }
+
+    @Test
+    void coldEntryIsCompressedAndStillReadsBack() throws IOException {
+        String cold = key(ISO_HASH, "", 3800);
+        ImageCacheService.Entry stored = store(cold);
+        byte[] expected = mappedBytes(stored.map());
+        lastUsed(cold, Duration.ofDays(30));
+
+        // Storing another entry trims the cache, compressing the cold one
+        store(key(ISO_HASH, "", 4000));
+
+        ImageCacheService.Entry compressed = cache.find(cold);
+        assertThat(compressed.compressed()).isTrue();
+        assertThat(cacheDir.resolve(cold).resolve("data")).doesNotExist();
+        assertThat(readData(compressed)).isEqualTo(expected);
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedFirst() throws IOException {
+        // Sparse 400 MiB entries: three of them exceed the 1 GiB cap, two and the new one do not
+        fakeEntry("oldest", Duration.ofHours(3));
+        fakeEntry("older", Duration.ofHours(2));
+        fakeEntry("recent", Duration.ofHours(1));
+        String key = key(ISO_HASH, "", 3800);
+
+        store(key);
+
+        assertThat(cacheDir.resolve("oldest")).doesNotExist();
+        assertThat(cacheDir.resolve("older")).exists();
+        assertThat(cacheDir.resolve("recent")).exists();
+        assertThat(cache.find(key)).isNotNull();
+    }
+
+    @Test
+    void volumeLargerThanTheCacheIsNotStored() throws IOException {
+        fakeEntry("recent", Duration.ofHours(1));
+        ReflectionTestUtils.setField(cache, "maxSizeGb", 0L);
+
+        assertThat(store(key(ISO_HASH, "", 3800))).isNull();
+        assertThat(cacheDir.resolve("recent")).exists();
+    }
+
+    @Test
+    void driveWithoutFat32IsNotCached() throws IOException {
+        Files.write(image, new byte[4096]);
+
+        assertThat(store(key(ISO_HASH, "", 3800))).isNull();
+    }
+
+    private String key(String isoHash, String rules, int splitSizeMb) {
+        return cache.key(isoHash, "FAT32", "ISOBURN", FatImages.IMAGE_SIZE, splitSizeMb, rules);
+    }
+
+    private ImageCacheService.Entry store(String key) throws IOException {
+        try (FileChannel device = FileChannel.open(image, StandardOpenOption.READ)) {
+            return cache.store(key, "test image", device, FatImages.IMAGE_SIZE, progress -> { }, () -> false);
+        }
+    }
+
+    private void lastUsed(String entry, Duration ago) throws IOException {
+        Files.setLastModifiedTime(cacheDir.resolve(entry).resolve("entry.properties"),
+            FileTime.from(Instant.now().minus(ago)));
+    }
+
+    private void fakeEntry(String name, Duration lastUsedAgo) throws IOException {
+        Path entry = Files.createDirectories(cacheDir.resolve(name));
+        Files.writeString(entry.resolve("entry.properties"), "description=" + name + "\n");
+        try (FileChannel data = FileChannel.open(entry.resolve("data"), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+            data.write(ByteBuffer.wrap(new byte[1]), 400L * 1024 * 1024 - 1);
+        }
+        lastUsed(name, lastUsedAgo);
+    }
+
+    private byte[] mappedBytes(BlockMap map) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel device = FileChannel.open(image, StandardOpenOption.READ)) {
+            for (BlockMap.Range range : map.getRanges()) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) map.length(range));
+                while (buffer.hasRemaining()) {
+                    device.read(buffer, map.start(range) + buffer.position());
+                }
+                out.write(buffer.array());
+            }
+        }
+        assertThat(out.size()).isEqualTo(map.mappedBytes()).isPositive();
+        assertThat(map.getBlockSize()).isEqualTo(FatVolumeMap.BLOCK_SIZE);
+        return out.toByteArray();
+    }
+
+    private static byte[] readData(ImageCacheService.Entry entry) throws IOException {
+        try (InputStream in = entry.openData()) {
+            return in.readAllBytes();
+        }
+    }
+}
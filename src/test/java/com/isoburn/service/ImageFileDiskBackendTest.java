@@ -0,0 +1,178 @@
+package com.isoburn.service;
+
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BandwidthThrottle;
+import com.isoburn.util.IsoLayout;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFileDiskBackendTest {
+
+    private static final long SEEK_MILLIS = 100;
+
+    @TempDir
+    Path dir;
+
+    private final ImageFileDiskBackend backend = new ImageFileDiskBackend();
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(backend, "root", dir.resolve("drives").toString());
+        ReflectionTestUtils.setField(backend, "driveCount", 2);
+        ReflectionTestUtils.setField(backend, "driveSizeGb", 1L);
+
+        source = dir.resolve("source");
+        write(source.resolve("a.bin"), 5000);
+        write(source.resolve("b/c.bin"), 2048);
+        write(source.resolve("b/d.bin"), 1);
+    }
+
+    @Test
+    void drivesAreSparseImagesOfTheConfiguredSize() {
+        List<RemovableDrive> found = backend.detectDrives();
+
+        assertThat(found).extracting(RemovableDrive::getDeviceIdentifier).containsExactly("image0", "image1");
+        assertThat(found.get(0).getSizeBytes()).isEqualTo(1_000_000_000L);
+        assertThat(found.get(0).getMountPoint()).isNull();
+        assertThat(backend.isDriveAvailable(found.get(1))).isTrue();
+    }
+
+    @Test
+    void formatGivesAnEmptyVolumeAndARawWriteRemovesIt() throws IOException {
+        RemovableDrive drive = backend.detectDrives().get(0);
+        assertThat(backend.formatDrive(drive, "ISOBURN")).isTrue();
+        Path volume = Path.of(backend.mountDrive(drive));
+        write(volume.resolve("old/file.bin"), 10);
+
+        assertThat(backend.formatDrive(drive, "ISOBURN")).isTrue();
+        assertThat(volume).isEmptyDirectory();
+        assertThat(backend.findVolumeMountPoint(drive, "ISOBURN")).isEqualTo(volume.toString());
+        assertThat(backend.detectDrives().get(0).getMountPoint()).isEqualTo(volume.toString());
+
+        try (FileChannel raw = backend.openRawDevice(drive)) {
+            raw.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 4096);
+        }
+        assertThat(volume).doesNotExist();
+        assertThat(backend.mountDrive(drive)).isNull();
+        try (FileChannel raw = backend.readRawDevice(drive)) {
+            ByteBuffer read = ByteBuffer.allocate(3);
+            raw.read(read, 4096);
+            assertThat(read.array()).containsExactly(1, 2, 3);
+            assertThat(raw.size()).isEqualTo(1_000_000_000L);
+        }
+    }
+
+    @Test
+    void onlyExtractedDirectoriesMount() throws IOException {
+        Path file = dir.resolve("image.iso");
+        write(file, 10);
+
+        assertThat(backend.mountIso(file.toFile())).isNull();
+        assertThat(backend.mountIso(source.toFile())).isEqualTo(source.toAbsolutePath().toString());
+    }
+
+    @Test
+    void sourceFilesAreLaidOutInPathOrder() {
+        IsoLayout layout = backend.sourceLayout(source.toFile());
+
+        assertThat(layout.size()).isEqualTo(3);
+        assertThat(layout.startBlock("a.bin")).isZero();
+        assertThat(layout.startBlock("b/c.bin")).isEqualTo(3);
+        assertThat(layout.startBlock("B/D.bin")).isEqualTo(4);
+    }
+
+    @Test
+    void readingOutOfLayoutOrderIsChargedASeek() throws IOException {
+        ReflectionTestUtils.setField(backend, "sourceSeekMs", SEEK_MILLIS);
+        IsoLayout layout = backend.sourceLayout(source.toFile());
+
+        long inOrder = openAll(backend.sourceReader(), source, layout, "a.bin", "b/c.bin", "b/d.bin");
+        long reversed = openAll(backend.sourceReader(), source, layout, "b/d.bin", "b/c.bin", "a.bin");
+
+        // Only the first file of an in-order pass needs a seek
+        assertThat(inOrder).isBetween(SEEK_MILLIS, 2 * SEEK_MILLIS - 1);
+        assertThat(reversed).isGreaterThanOrEqualTo(3 * SEEK_MILLIS);
+    }
+
+    @Test
+    void eachBurnKeepsItsOwnReadPosition() throws IOException {
+        ReflectionTestUtils.setField(backend, "sourceSeekMs", SEEK_MILLIS);
+        IsoLayout layout = backend.sourceLayout(source.toFile());
+        DiskBackend.SourceReader burn = backend.sourceReader();
+        openAll(burn, source, layout, "a.bin");
+
+        // A verification laying out and reading another source in between
+        Path other = dir.resolve("other");
+        write(other.resolve("z.bin"), 100);
+        IsoLayout otherLayout = backend.sourceLayout(other.toFile());
+        openAll(backend.sourceReader(), other, otherLayout, "z.bin");
+
+        assertThat(openAll(burn, source, layout, "b/c.bin", "b/d.bin")).isLessThan(SEEK_MILLIS);
+    }
+
+    @Test
+    void filesOutsideTheLayoutAreNotCharged() throws IOException {
+        ReflectionTestUtils.setField(backend, "sourceSeekMs", SEEK_MILLIS);
+
+        assertThat(openAll(backend.sourceReader(), source, IsoLayout.EMPTY, "b/d.bin", "a.bin"))
+            .isLessThan(SEEK_MILLIS);
+    }
+
+    @Test
+    void concurrentCallersShareOneWriteThrottle() throws Exception {
+        ReflectionTestUtils.setField(backend, "bandwidthMbps", 10L);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<BandwidthThrottle>> throttles = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                throttles.add(pool.submit(() -> {
+                    start.await();
+                    return backend.writeThrottle();
+                }));
+            }
+            start.countDown();
+            for (Future<BandwidthThrottle> throttle : throttles) {
+                assertThat(throttle.get()).isSameAs(backend.writeThrottle());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Milliseconds spent opening the files in the given order
+    private static long openAll(DiskBackend.SourceReader reader, Path root, IsoLayout layout,
+                                String... paths) throws IOException {
+        long start = System.nanoTime();
+        for (String path : paths) {
+            Long block = layout.startBlock(path);
+            try (FileChannel in = reader.open(root.resolve(path), block != null ? block : -1)) {
+                assertThat(in.isOpen()).isTrue();
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void write(Path file, int size) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
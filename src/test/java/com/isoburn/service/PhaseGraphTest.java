@@ -0,0 +1,105 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.BurnReport;
+import com.isoburn.model.RemovableDrive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhaseGraphTest {
+
+    private final BurnRecorder recorder = new BurnRecorder(new SimpleMeterRegistry(), progress -> { },
+        new File("test.iso"), RemovableDrive.builder().deviceIdentifier("disk9").name("Test").build());
+
+    @Test
+    void failureInterruptsTheSiblingAndRunWaitsForIt() {
+        PhaseGraph graph = new PhaseGraph(recorder, true);
+        CountDownLatch blocking = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean siblingDone = new AtomicBoolean();
+        AtomicBoolean dependentRan = new AtomicBoolean();
+        IOException failure = new IOException("format failed");
+
+        PhaseGraph.Step<String> sibling = graph.step(Phase.INDEXING, () -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                // Slow to wind down, so run() returning early would show
+                Thread.sleep(100);
+                siblingDone.set(true);
+                throw e;
+            } finally {
+                blocking.countDown();
+            }
+            return "index";
+        });
+        graph.step(Phase.FORMATTING, () -> {
+            Thread.sleep(50);
+            throw failure;
+        });
+        graph.step(Phase.COPYING, () -> dependentRan.getAndSet(true), sibling);
+
+        assertThatThrownBy(graph::run).isSameAs(failure);
+        assertThat(interrupted).isTrue();
+        assertThat(siblingDone).isTrue();
+        assertThat(dependentRan).isFalse();
+        assertThat(blocking.getCount()).isZero();
+    }
+
+    @Test
+    void overlappingStepsAreCreditedTheTimeSaved() throws Exception {
+        PhaseGraph graph = new PhaseGraph(recorder, true);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        PhaseGraph.Step<Integer> format = graph.step(Phase.FORMATTING, () -> overlap(bothRunning, 1));
+        PhaseGraph.Step<Integer> index = graph.step(Phase.INDEXING, () -> overlap(bothRunning, 2));
+        PhaseGraph.Step<Integer> copy = graph.step(Phase.COPYING, () -> {
+            Thread.sleep(50);
+            return format.get() + index.get();
+        }, format, index);
+
+        graph.run();
+
+        assertThat(copy.get()).isEqualTo(3);
+        BurnReport report = recorder.finish("success");
+        // Two steps side by side for about 300 ms are credited half of it each; the copy after them nothing
+        assertThat(report.getPhaseOverlapMillis()).containsOnlyKeys("FORMATTING", "INDEXING");
+        assertThat(report.getPhaseOverlapMillis().values())
+            .allSatisfy(saved -> assertThat(saved).isBetween(100L, 250L));
+        assertThat(report.getPhaseMillis()).containsKeys("FORMATTING", "INDEXING", "COPYING");
+    }
+
+    @Test
+    void sequentialGraphRunsInOrderOnTheCallingThread() throws Exception {
+        PhaseGraph graph = new PhaseGraph(recorder, false);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        Thread caller = Thread.currentThread();
+        graph.step(Phase.FORMATTING, () -> ran.add("format " + (Thread.currentThread() == caller)));
+        PhaseGraph.Step<Boolean> skipped = graph.step(Phase.SPLITTING_WIM, () -> false, () -> ran.add("split"));
+        graph.step(Phase.INDEXING, () -> ran.add("index " + (Thread.currentThread() == caller)));
+
+        graph.run();
+
+        assertThat(ran).containsExactly("format true", "index true");
+        assertThat(skipped.get()).isNull();
+        assertThat(recorder.finish("success").getPhaseOverlapMillis()).isEmpty();
+    }
+
+    private static int overlap(CountDownLatch bothRunning, int value) throws InterruptedException {
+        bothRunning.countDown();
+        assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+        return value;
+    }
+}
@@ -0,0 +1,165 @@
+package com.isoburn.service;
+
+import com.isoburn.model.BurnOptions;
+import com.isoburn.model.BurnProgress.Phase;
+import com.isoburn.model.BurnResult;
+import com.isoburn.model.RemovableDrive;
+import com.isoburn.util.BlockMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawBurnTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    private TestServices services;
+    private RemovableDrive drive;
+    private final byte[] image = new byte[3 * MB + 1000];
+    private final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        services = new TestServices(dir.resolve("drives"));
+        drive = services.backend.detectDrives().get(0);
+        // Data, then a megabyte of zeros a block map leaves out, then data ending in a partial block
+        Random random = new Random(3);
+        byte[] data = new byte[MB];
+        random.nextBytes(data);
+        System.arraycopy(data, 0, image, 0, MB);
+        random.nextBytes(data);
+        System.arraycopy(data, 0, image, 2 * MB, MB);
+        System.arraycopy(data, 0, image, 3 * MB, 1000);
+    }
+
+    @Test
+    void gzipImageIsWrittenAsItDecompresses() throws IOException {
+        Path source = dir.resolve("disk.img.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(source))) {
+            out.write(image);
+        }
+        markUnmappedArea();
+
+        BurnResult result = burn(source);
+
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+        assertThat(phases).doesNotContain(Phase.DECOMPRESSING);
+        assertDriveHoldsTheImageExceptTheZeros();
+    }
+
+    @Test
+    void xzImageWithABlockMapWritesTheMappedRanges() throws IOException {
+        Path source = dir.resolve("disk.img.xz");
+        try (XZOutputStream xz = new XZOutputStream(Files.newOutputStream(source), new LZMA2Options(1))) {
+            for (int offset = 0; offset < image.length; offset += MB) {
+                xz.write(image, offset, Math.min(MB, image.length - offset));
+                xz.endBlock();
+            }
+        }
+        writeBlockMap(image);
+        markUnmappedArea();
+
+        BurnResult result = burn(source);
+
+        assertThat(result.isSuccess()).as(result.getMessage()).isTrue();
+        assertThat(phases).doesNotContain(Phase.DECOMPRESSING, Phase.MAPPING);
+        assertThat(messages).contains("Writing 2 MB of 3 MB image...");
+        assertDriveHoldsTheImageExceptTheZeros();
+    }
+
+    @Test
+    void blockMapThatDoesNotMatchTheImageFailsBeforeTheDriveIsWritten() throws IOException {
+        Path source = dir.resolve("disk.img.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(source))) {
+            out.write(image);
+        }
+        byte[] other = image.clone();
+        // The last range is wrong, so a check made while writing would come too late
+        other[other.length - 1] ^= 1;
+        writeBlockMap(other);
+
+        BurnResult result = burn(source);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getMessage()).isEqualTo("Image does not match its block map");
+        assertThat(result.getErrorDetails()).contains("Checksum mismatch");
+        assertThat(phases).doesNotContain(Phase.UNMOUNTING, Phase.COPYING);
+        byte[] drive = new byte[image.length];
+        try (RandomAccessFile file = new RandomAccessFile(drivePath().toFile(), "r")) {
+            file.readFully(drive);
+        }
+        assertThat(drive).containsOnly(0);
+    }
+
+    @Test
+    void uncompressedImageIsCheckedAgainstItsBlockMapFirst() throws IOException {
+        Path source = dir.resolve("disk.img");
+        Files.write(source, image);
+        byte[] other = image.clone();
+        other[2 * MB + 5] ^= 1;
+        writeBlockMap(other);
+
+        BurnResult result = burn(source);
+
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getErrorDetails()).contains("Checksum mismatch in blocks 512-");
+        assertThat(phases).contains(Phase.VERIFYING).doesNotContain(Phase.COPYING);
+    }
+
+    private BurnResult burn(Path source) {
+        return services.burnService.burn(source.toFile(), drive, BurnOptions.builder().rawWrite(true).build(),
+            progress -> {
+                phases.add(progress.getPhase());
+                messages.add(String.valueOf(progress.getMessage()));
+            });
+    }
+
+    // A map generated from the given content, cached next to the source
+    private void writeBlockMap(byte[] content) throws IOException {
+        Path raw = dir.resolve("map-source");
+        Files.write(raw, content);
+        BlockMap.generate(raw, 4096, bytes -> { }, () -> false).write(dir.resolve("disk.img.bmap"));
+        Files.delete(raw);
+    }
+
+    // Bytes the write should leave alone, since the image has only zeros there
+    private void markUnmappedArea() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(drivePath().toFile(), "rw")) {
+            file.seek(MB + 4096);
+            file.write(0x55);
+        }
+    }
+
+    private void assertDriveHoldsTheImageExceptTheZeros() throws IOException {
+        byte[] written = new byte[image.length + 4096];
+        try (RandomAccessFile file = new RandomAccessFile(drivePath().toFile(), "r")) {
+            file.readFully(written);
+        }
+        byte[] expected = new byte[written.length];
+        System.arraycopy(image, 0, expected, 0, image.length);
+        expected[MB + 4096] = 0x55;
+        assertThat(written).isEqualTo(expected);
+    }
+
+    private Path drivePath() {
+        return dir.resolve("drives").resolve(drive.getDeviceIdentifier() + ".img");
+    }
+}
@@ -0,0 +1,50 @@
+package com.isoburn.service;
+
+import com.isoburn.jfr.BurnFlightRecorder;
+import com.isoburn.util.BufferPool;
+import com.isoburn.util.BurnHistoryStore;
+import com.isoburn.util.BurnReportWriter;
+import com.isoburn.util.DriveManifestStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+/**
+ * Wires the burn services by hand around an image-file backend rooted in a
+ * test directory, without a Spring context. Drives are small sparse files;
+ * the copy buffer and chunk size are shrunk so a few hundred kilobytes of
+ * source span several buffers and chunks.
+ */
+public final class TestServices {
+
+    public final ImageFileDiskBackend backend = new ImageFileDiskBackend();
+    public final MeterRegistry registry = new SimpleMeterRegistry();
+    public final CommandExecutor executor = new CommandExecutor(registry);
+    public final BufferPool bufferPool = new BufferPool(registry, 64);
+    public final IoLimiter ioLimiter = new IoLimiter(backend);
+    public final BurnReportWriter reportWriter = new BurnReportWriter();
+    public final BurnFlightRecorder flightRecorder = new BurnFlightRecorder(reportWriter);
+    public final IsoBurnService burnService;
+
+    public TestServices(Path drives) {
+        ReflectionTestUtils.setField(backend, "root", drives.toString());
+        ReflectionTestUtils.setField(backend, "driveCount", 1);
+        ReflectionTestUtils.setField(backend, "driveSizeGb", 1L);
+        ioLimiter.init();
+
+        BurnPredictor predictor = new BurnPredictor(new BurnHistoryStore());
+        ReflectionTestUtils.setField(predictor, "window", 20);
+        ReflectionTestUtils.setField(predictor, "slowMinBurns", 3);
+        burnService = new IsoBurnService(executor, new WimSplitService(executor, registry), backend, registry,
+            reportWriter, flightRecorder, new DriveManifestStore(),
+            new IsoDownloadService(bufferPool), new ImageCacheService(bufferPool), bufferPool,
+            new DriveProbeService(backend, bufferPool), predictor, ioLimiter);
+        ReflectionTestUtils.setField(burnService, "volumeName", "ISOBURN");
+        ReflectionTestUtils.setField(burnService, "copyBufferSizeKb", 64);
+        ReflectionTestUtils.setField(burnService, "manifestChunkSizeKb", 64);
+        ReflectionTestUtils.setField(burnService, "decompressDirectory", drives.toString());
+        burnService.init();
+    }
+}
@@ -0,0 +1,115 @@
+package com.isoburn.util;
+
+import com.isoburn.util.BandwidthThrottle.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the times {@code reserve} books transfers at, measured from a clock
+ * reading taken just before, with room for a slow test machine.
+ */
+class BandwidthThrottleTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void transfersAreBookedOneAfterAnother() {
+        BandwidthThrottle throttle = new BandwidthThrottle(MB, 0, 0, 1.0);
+
+        long first = throttle.reserve(MB / 2, Priority.BURN);
+        long second = throttle.reserve(MB / 2, Priority.BURN);
+
+        assertThat(millis(second - first)).isBetween(450L, 550L);
+    }
+
+    @Test
+    void burstLetsAnIdleThrottleRunAhead() {
+        BandwidthThrottle throttle = new BandwidthThrottle(MB, 0, 1000, 1.0);
+        long start = System.nanoTime();
+
+        long first = throttle.reserve(MB / 2, Priority.BURN);
+        long second = throttle.reserve(MB, Priority.BURN);
+
+        assertThat(millis(first - start)).isLessThan(50);
+        assertThat(millis(second - start)).isBetween(450L, 550L);
+    }
+
+    @Test
+    void latencyIsAddedToEveryTransfer() {
+        BandwidthThrottle throttle = new BandwidthThrottle(0, 200);
+
+        long start = System.nanoTime();
+
+        assertThat(millis(throttle.reserve(MB, Priority.BURN) - start)).isBetween(200L, 250L);
+        assertThat(throttle.isUnlimited()).isFalse();
+    }
+
+    @Test
+    void verificationGetsItsShareOnlyWhileABurnIsReading() {
+        BandwidthThrottle throttle = new BandwidthThrottle(MB, 0, 0, 0.25);
+        long start = System.nanoTime();
+
+        long alone = throttle.reserve(MB / 4, Priority.VERIFY);
+        throttle.reserve(MB / 10, Priority.BURN);
+        long verify = throttle.reserve(MB / 4, Priority.VERIFY);
+        long burn = throttle.reserve(MB * 3 / 10, Priority.BURN);
+
+        // A quarter of the rate for verification, three quarters for the burn
+        assertThat(millis(alone - start)).isBetween(250L, 300L);
+        assertThat(millis(verify - start)).isBetween(1250L, 1300L);
+        assertThat(millis(burn - start)).isBetween(533L, 580L);
+    }
+
+    @Test
+    void verificationYieldsToTheMeasuredBurnWithoutARate() throws InterruptedException {
+        BandwidthThrottle throttle = new BandwidthThrottle(0, 0, 0, 0.2);
+        long start = System.nanoTime();
+        assertThat(millis(throttle.reserve(MB, Priority.VERIFY) - start)).isLessThan(50);
+
+        // The burn reads 1 MB every 100 ms, about 10 MB/s, and is never held back
+        for (int i = 0; i < 5; i++) {
+            start = System.nanoTime();
+            assertThat(millis(throttle.reserve(MB, Priority.BURN) - start)).isLessThan(50);
+            Thread.sleep(100);
+        }
+        start = System.nanoTime();
+        long verify = throttle.reserve(MB, Priority.VERIFY);
+
+        // A fifth of the combined rate is a quarter of the burn's: 1 MB takes about 400 ms
+        assertThat(throttle.isUnlimited()).isFalse();
+        assertThat(millis(verify - start)).isBetween(300L, 500L);
+    }
+
+    @Test
+    void fullShareWithoutARateIsUnlimited() {
+        assertThat(new BandwidthThrottle(0, 0, 250, 1.0).isUnlimited()).isTrue();
+        assertThat(BandwidthThrottle.UNLIMITED.isUnlimited()).isTrue();
+    }
+
+    @Test
+    void newRateDropsTheBacklogOfTheOldOne() {
+        BandwidthThrottle throttle = new BandwidthThrottle(MB / 10, 0, 0, 1.0);
+        throttle.reserve(MB, Priority.BURN);
+
+        throttle.setBytesPerSecond(10 * MB);
+        long start = System.nanoTime();
+
+        assertThat(millis(throttle.reserve(MB, Priority.BURN) - start)).isBetween(100L, 150L);
+    }
+
+    @Test
+    void shareIsKeptInRange() {
+        BandwidthThrottle throttle = new BandwidthThrottle(MB, 0, 0, 5);
+        assertThat(throttle.getVerifyShare()).isEqualTo(1.0);
+
+        throttle.setVerifyShare(0);
+        assertThat(throttle.getVerifyShare()).isEqualTo(0.01);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
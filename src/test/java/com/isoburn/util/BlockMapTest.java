@@ -0,0 +1,142 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BlockMapTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsABmaptoolMapWithSha1Ranges() throws IOException {
+        Path file = dir.resolve("disk.bmap");
+        Files.writeString(file, """
+            <?xml version="1.0" ?>
+            <bmap version="1.3">
+                <ImageSize> 10000 </ImageSize>
+                <BlockSize> 4096 </BlockSize>
+                <BlocksCount> 3 </BlocksCount>
+                <MappedBlocksCount> 2 </MappedBlocksCount>
+                <BlockMap>
+                    <Range sha1="aa"> 0 </Range>
+                    <Range sha1="bb"> 2-2 </Range>
+                </BlockMap>
+            </bmap>
+            """, StandardCharsets.UTF_8);
+
+        BlockMap map = BlockMap.read(file);
+
+        assertThat(map).isNotNull();
+        assertThat(map.getChecksumType()).isEqualTo("sha1");
+        assertThat(map.isGenerated()).isFalse();
+        assertThat(map.getRanges()).containsExactly(new BlockMap.Range(0, 0, "aa"), new BlockMap.Range(2, 2, "bb"));
+        // The last block holds only what is left of the image
+        assertThat(map.length(map.getRanges().get(1))).isEqualTo(10000 - 8192);
+        assertThat(map.mappedBytes()).isEqualTo(4096 + 10000 - 8192);
+    }
+
+    @Test
+    void writtenMapReadsBackAndChecksItself() throws IOException {
+        BlockMap map = new BlockMap(20000, 4096, "sha256",
+            List.of(new BlockMap.Range(0, 1, "ab".repeat(32)), new BlockMap.Range(4, 4, "cd".repeat(32))), true);
+        Path file = dir.resolve("disk.img.bmap");
+        map.write(file);
+
+        BlockMap read = BlockMap.read(file);
+
+        assertThat(read).isNotNull();
+        assertThat(read.getImageSize()).isEqualTo(20000);
+        assertThat(read.getRanges()).isEqualTo(map.getRanges());
+        assertThat(read.isGenerated()).isTrue();
+
+        Files.writeString(file, Files.readString(file).replace("cd".repeat(32), "ce".repeat(32)));
+        assertThat(BlockMap.read(file)).isNull();
+    }
+
+    @Test
+    void unreadableMapsAreIgnored() throws IOException {
+        Path unsupported = dir.resolve("md5.bmap");
+        Files.writeString(unsupported, "<bmap version=\"2.0\"><ImageSize>1</ImageSize><BlockSize>4096</BlockSize>"
+            + "<ChecksumType>md5</ChecksumType></bmap>");
+        Path doctype = dir.resolve("doctype.bmap");
+        Files.writeString(doctype, "<!DOCTYPE bmap [<!ENTITY x \"1\">]><bmap><ImageSize>&x;</ImageSize>"
+            + "<BlockSize>4096</BlockSize></bmap>");
+        Path truncated = dir.resolve("truncated.bmap");
+        Files.writeString(truncated, "<bmap version=\"2.0\"><ImageSize>1");
+
+        assertThat(BlockMap.read(unsupported)).isNull();
+        assertThat(BlockMap.read(doctype)).isNull();
+        assertThat(BlockMap.read(truncated)).isNull();
+        assertThat(BlockMap.read(dir.resolve("missing.bmap"))).isNull();
+    }
+
+    @Test
+    void generatedMapSkipsEmptyBlocksPastTheFirstMegabyteAndHashesEachRange() throws Exception {
+        // Zeros inside the first megabyte, a data block, a gap of zeros, data ending in a partial block
+        byte[] image = new byte[3 * MB + 100];
+        Random random = new Random(9);
+        byte[] data = new byte[MB + 100];
+        random.nextBytes(data);
+        System.arraycopy(data, 0, image, MB - 4096, 8192);
+        System.arraycopy(data, 0, image, 2 * MB, MB + 100);
+        Path file = dir.resolve("disk.img");
+        Files.write(file, image);
+
+        BlockMap map = BlockMap.generate(file, 4096, bytes -> { }, () -> false);
+
+        assertThat(map.getRanges()).extracting(BlockMap.Range::first, BlockMap.Range::last)
+            .containsExactly(tuple(0L, 256L), tuple(512L, 768L));
+        for (BlockMap.Range range : map.getRanges()) {
+            int start = (int) map.start(range);
+            assertThat(range.checksum()).isEqualTo(sha256(Arrays.copyOfRange(image, start,
+                start + (int) map.length(range))));
+        }
+        assertThat(map.mappedBytes()).isEqualTo(MB + 4096 + MB + 100);
+    }
+
+    @Test
+    void longRunsAreSplitIntoRangesOfAtMost2048Blocks() throws IOException {
+        byte[] image = new byte[3 * MB];
+        new Random(4).nextBytes(image);
+        Path file = dir.resolve("disk.img");
+        Files.write(file, image);
+
+        BlockMap map = BlockMap.generate(file, 512, bytes -> { }, () -> false);
+
+        assertThat(map.getRanges()).extracting(BlockMap.Range::first, BlockMap.Range::last)
+            .containsExactly(tuple(0L, 2047L), tuple(2048L, 4095L), tuple(4096L, 6143L));
+    }
+
+    @Test
+    void blocksInTheFirstMegabyteAreAlwaysMapped() {
+        ByteBuffer zeros = ByteBuffer.allocate(4096);
+        ByteBuffer lastByteSet = ByteBuffer.allocate(4096).put(4095, (byte) 1);
+
+        assertThat(BlockMap.isUnmapped(zeros, 0)).isFalse();
+        assertThat(BlockMap.isUnmapped(zeros, MB - 4096)).isFalse();
+        assertThat(BlockMap.isUnmapped(zeros, MB)).isTrue();
+        assertThat(BlockMap.isUnmapped(lastByteSet, MB)).isFalse();
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,98 @@
+package com.isoburn.util;
+
+import com.isoburn.model.BurnReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BurnHistoryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedReportsReadBackAfterARestart() {
+        Path file = dir.resolve("history/burns.jsonl");
+        BurnHistoryStore store = store(file, 2000);
+        store.append(report("first.iso", 1000));
+        store.append(report("second.iso", 2000));
+
+        List<BurnReport> loaded = store(file, 2000).entries();
+
+        assertThat(loaded).extracting(BurnReport::getIsoName).containsExactly("first.iso", "second.iso");
+        BurnReport second = loaded.get(1);
+        assertThat(second.getDriveModel()).isEqualTo("Flash 32");
+        assertThat(second.getBusProtocol()).isEqualTo("USB");
+        assertThat(second.getPhaseMillis()).containsExactly(Map.entry("FORMATTING", 2000L),
+            Map.entry("COPYING", 20000L));
+        assertThat(second.getPhaseOverlapMillis()).containsExactly(Map.entry("FORMATTING", 500L));
+    }
+
+    @Test
+    void lineCutShortByACrashIsSkippedAndNotJoinedToTheNext() throws IOException {
+        Path file = dir.resolve("burns.jsonl");
+        BurnHistoryStore before = store(file, 2000);
+        before.append(report("whole.iso", 1000));
+        Files.writeString(file, "{\"isoName\":\"cut.i", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        store(file, 2000).append(report("after.iso", 3000));
+
+        assertThat(store(file, 2000).entries()).extracting(BurnReport::getIsoName)
+            .containsExactly("whole.iso", "after.iso");
+    }
+
+    @Test
+    void onlyTheNewestEntriesAreKept() {
+        Path file = dir.resolve("burns.jsonl");
+        BurnHistoryStore store = store(file, 3);
+        assertThat(store.entries()).isEmpty();
+        for (int i = 1; i <= 5; i++) {
+            store.append(report(i + ".iso", i));
+        }
+
+        assertThat(store.entries()).extracting(BurnReport::getIsoName).containsExactly("3.iso", "4.iso", "5.iso");
+        assertThat(store(file, 3).entries()).extracting(BurnReport::getIsoName)
+            .containsExactly("3.iso", "4.iso", "5.iso");
+    }
+
+    @Test
+    void storeWithoutAFileKeepsNothing() {
+        BurnHistoryStore store = store(null, 2000);
+
+        store.append(report("lost.iso", 1000));
+
+        assertThat(store.isEnabled()).isFalse();
+        assertThat(store.entries()).isEmpty();
+    }
+
+    private static BurnHistoryStore store(Path file, int maxEntries) {
+        BurnHistoryStore store = new BurnHistoryStore();
+        ReflectionTestUtils.setField(store, "historyFile", file != null ? file.toString() : "");
+        ReflectionTestUtils.setField(store, "maxEntries", maxEntries);
+        return store;
+    }
+
+    private static BurnReport report(String isoName, long formatMillis) {
+        BurnReport report = new BurnReport();
+        report.setIsoName(isoName);
+        report.setIsoSizeBytes(4_000_000_000L);
+        report.setDriveModel("Flash 32");
+        report.setBusProtocol("USB");
+        report.setOutcome("success");
+        report.setMode("full");
+        report.getPhaseMillis().put("FORMATTING", formatMillis);
+        report.getPhaseMillis().put("COPYING", formatMillis * 10);
+        report.getPhaseOverlapMillis().put("FORMATTING", formatMillis / 4);
+        return report;
+    }
+}
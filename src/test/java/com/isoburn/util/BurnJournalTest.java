@@ -0,0 +1,131 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BurnJournalTest {
+
+    @TempDir
+    Path volume;
+
+    @Test
+    void checkpointCommitsCompletedFilesAndLeadingChunks() throws IOException {
+        touch("a", "b");
+        try (BurnJournal journal = BurnJournal.open(volume, "iso:1:2", 4096, 1, null)) {
+            journal.fileCompleted("a", 10, List.of("h1"));
+            journal.checkpoint("b", List.of("c1", "c2"));
+        }
+
+        BurnJournal.State state = BurnJournal.read(volume);
+
+        assertThat(state.getIsoKey()).isEqualTo("iso:1:2");
+        assertThat(state.getChunkSize()).isEqualTo(4096);
+        assertThat(state.getCompleted()).containsOnlyKeys("a");
+        assertThat(state.getCompleted().get("a").getChunks()).containsExactly("h1");
+        assertThat(state.getUnverified()).isEmpty();
+        assertThat(state.getPartialPath()).isEqualTo("b");
+        assertThat(state.getPartialChunks()).containsExactly("c1", "c2");
+    }
+
+    @Test
+    void closeLeavesFilesSinceTheLastCheckpointUnverified() throws IOException {
+        touch("a", "b");
+        try (BurnJournal journal = BurnJournal.open(volume, "iso", 4096, Long.MAX_VALUE, null)) {
+            journal.fileCompleted("a", 10, List.of("h1"));
+            journal.checkpoint("b", List.of());
+            journal.fileCompleted("b", 20, List.of("h2"));
+        }
+
+        BurnJournal.State state = BurnJournal.read(volume);
+
+        assertThat(state.getCompleted()).containsOnlyKeys("a", "b");
+        assertThat(state.getUnverified()).containsExactly("b");
+        assertThat(state.getPartialPath()).isNull();
+        assertThat(Files.readString(journalFile(), StandardCharsets.UTF_8)).doesNotEndWith("S\n");
+    }
+
+    @Test
+    void laterPartialRecordsExtendTheChunkList() throws IOException {
+        touch("a");
+        try (BurnJournal journal = BurnJournal.open(volume, "iso", 4096, 1, null)) {
+            journal.checkpoint("a", List.of("c1"));
+            journal.checkpoint("a", List.of("c1", "c2", "c3"));
+        }
+
+        assertThat(BurnJournal.read(volume).getPartialChunks()).containsExactly("c1", "c2", "c3");
+    }
+
+    @Test
+    void tornTailIsIgnored() throws IOException {
+        touch("a");
+        try (BurnJournal journal = BurnJournal.open(volume, "iso", 4096, 1, null)) {
+            journal.fileCompleted("a", 10, List.of("h1"));
+            journal.checkpoint("a", List.of());
+        }
+        Files.writeString(journalFile(), "F\t20\th2\tb\nF\t3", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+
+        BurnJournal.State state = BurnJournal.read(volume);
+
+        assertThat(state.getCompleted()).containsOnlyKeys("a", "b");
+        assertThat(state.getUnverified()).containsExactly("b");
+    }
+
+    @Test
+    void outOfOrderPartialRecordStopsReading() throws IOException {
+        Files.createDirectories(journalFile().getParent());
+        Files.writeString(journalFile(), "H\t1\t4096\tiso\nP\t0\tc1\ta\nS\nP\t5\tc6\ta\nF\t1\t-\tb\nS\n",
+            StandardCharsets.UTF_8);
+
+        BurnJournal.State state = BurnJournal.read(volume);
+
+        assertThat(state.getPartialChunks()).containsExactly("c1");
+        assertThat(state.getCompleted()).isEmpty();
+    }
+
+    @Test
+    void unknownVersionIsNotRead() throws IOException {
+        Files.createDirectories(journalFile().getParent());
+        Files.writeString(journalFile(), "H\t99\t4096\tiso\nS\n", StandardCharsets.UTF_8);
+
+        assertThat(BurnJournal.read(volume)).isNull();
+    }
+
+    @Test
+    void reopeningCarriesOverTheResumedState() throws IOException {
+        touch("a", "b");
+        try (BurnJournal journal = BurnJournal.open(volume, "iso", 4096, 1, null)) {
+            journal.fileCompleted("a", 10, List.of("h1"));
+            journal.checkpoint("b", List.of("c1"));
+        }
+        BurnJournal.State resume = BurnJournal.read(volume);
+
+        try (BurnJournal journal = BurnJournal.open(volume, "iso", 4096, 1, resume)) {
+            journal.checkpoint("b", List.of("c1", "c2"));
+        }
+        BurnJournal.State state = BurnJournal.read(volume);
+
+        assertThat(state.getCompleted()).containsOnlyKeys("a");
+        assertThat(state.getPartialChunks()).containsExactly("c1", "c2");
+        assertThat(state.getUnverified()).isEmpty();
+    }
+
+    private Path journalFile() {
+        return volume.resolve(DriveManifestStore.MANIFEST_DIR).resolve(BurnJournal.JOURNAL_FILE);
+    }
+
+    private void touch(String... paths) throws IOException {
+        for (String path : paths) {
+            Files.createFile(volume.resolve(path));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkHasherTest {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    @TempDir
+    Path dir;
+
+    private final byte[] data = new byte[3 * CHUNK_SIZE + 345];
+
+    ChunkHasherTest() {
+        new Random(5).nextBytes(data);
+    }
+
+    @Test
+    void eachChunkGetsItsOwnDigest() throws NoSuchAlgorithmException {
+        ChunkHasher hasher = new ChunkHasher(CHUNK_SIZE);
+        hasher.update(data, 0, data.length);
+
+        assertThat(hasher.completedChunks()).hasSize(3);
+        assertThat(hasher.finish()).containsExactly(sha256(0, 1000), sha256(1000, 2000), sha256(2000, 3000),
+            sha256(3000, data.length));
+    }
+
+    @Test
+    void howTheBytesAreSplitDoesNotMatter() {
+        List<String> expected = hashWhole();
+        Random random = new Random(9);
+
+        for (boolean direct : new boolean[]{false, true}) {
+            ChunkHasher arrays = new ChunkHasher(CHUNK_SIZE);
+            ChunkHasher buffers = new ChunkHasher(CHUNK_SIZE);
+            int position = 0;
+            while (position < data.length) {
+                int length = Math.min(data.length - position, random.nextInt(2500));
+                arrays.update(data, position, length);
+                ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(length + 7) : ByteBuffer.allocate(length + 7);
+                buffer.put(data, position, length).flip();
+                buffers.update(buffer);
+                assertThat(buffer.hasRemaining()).isFalse();
+                position += length;
+            }
+            assertThat(arrays.finish()).isEqualTo(expected);
+            assertThat(buffers.finish()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void exactMultipleHasNoEmptyTrailingChunk() {
+        ChunkHasher hasher = new ChunkHasher(CHUNK_SIZE);
+        hasher.update(data, 0, 2 * CHUNK_SIZE);
+
+        assertThat(hasher.finish()).hasSize(2);
+        assertThat(new ChunkHasher(CHUNK_SIZE).finish()).isEmpty();
+    }
+
+    @Test
+    void resumedHasherContinuesAfterTheCompletedChunks() {
+        List<String> expected = hashWhole();
+        ChunkHasher resumed = new ChunkHasher(CHUNK_SIZE, expected.subList(0, 2));
+
+        resumed.update(data, 2 * CHUNK_SIZE, data.length - 2 * CHUNK_SIZE);
+
+        assertThat(resumed.finish()).isEqualTo(expected);
+    }
+
+    @Test
+    void hashFileReadsThroughASmallBuffer() throws IOException {
+        Path file = dir.resolve("data.bin");
+        Files.write(file, data);
+
+        assertThat(ChunkHasher.hashFile(file, CHUNK_SIZE, ByteBuffer.allocate(333))).isEqualTo(hashWhole());
+    }
+
+    @Test
+    void completedChunksCannotBeChanged() {
+        ChunkHasher hasher = new ChunkHasher(CHUNK_SIZE);
+        hasher.update(data, 0, CHUNK_SIZE);
+
+        assertThatThrownBy(() -> hasher.completedChunks().clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private List<String> hashWhole() {
+        ChunkHasher hasher = new ChunkHasher(CHUNK_SIZE);
+        hasher.update(data, 0, data.length);
+        return hasher.finish();
+    }
+
+    private String sha256(int from, int to) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(Arrays.copyOfRange(data, from, to)));
+    }
+}
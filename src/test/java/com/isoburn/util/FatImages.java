@@ -0,0 +1,90 @@
+package com.isoburn.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Writes small sparse FAT32 drive images: 512-byte sectors, 4 KiB clusters,
+ * 32 reserved sectors and two FATs of 64 sectors, so the data area starts at
+ * sector 160 of the volume. Allocated clusters are filled with random bytes.
+ */
+public final class FatImages {
+
+    public static final long IMAGE_SIZE = 64L * 1024 * 1024;
+    public static final int SECTORS_PER_CLUSTER = 8;
+    public static final int DATA_START_SECTOR = 32 + 2 * 64;
+
+    private static final int SECTOR = 512;
+    private static final long VOLUME_SECTORS = 65536;
+
+    private FatImages() {
+    }
+
+    /**
+     * Writes an image whose FAT marks {@code clusters} as used, with the
+     * volume at {@code startSector}; a non-zero start puts an MBR partition
+     * table in front of it.
+     */
+    public static void write(Path image, long startSector, long seed, int... clusters) throws IOException {
+        try (FileChannel out = FileChannel.open(image, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(new byte[1]), IMAGE_SIZE - 1);
+            long volume = startSector * SECTOR;
+            if (startSector > 0) {
+                ByteBuffer mbr = sector();
+                mbr.put(446 + 4, (byte) 0x0C);
+                mbr.putInt(446 + 8, (int) startSector);
+                mbr.putInt(446 + 12, (int) VOLUME_SECTORS);
+                out.write(mbr, 0);
+            }
+
+            ByteBuffer boot = sector();
+            boot.putShort(11, (short) SECTOR);
+            boot.put(13, (byte) SECTORS_PER_CLUSTER);
+            boot.putShort(14, (short) 32);
+            boot.put(16, (byte) 2);
+            boot.putInt(32, (int) VOLUME_SECTORS);
+            boot.putInt(36, 64);
+            boot.put(82, "FAT32   ".getBytes(StandardCharsets.US_ASCII));
+            out.write(boot, volume);
+
+            Random random = new Random(seed);
+            ByteBuffer entry = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            byte[] data = new byte[SECTORS_PER_CLUSTER * SECTOR];
+            for (int cluster : clusters) {
+                out.write(entry.clear().putInt(0, 0x0FFF_FFFF), volume + 32L * SECTOR + cluster * 4L);
+                random.nextBytes(data);
+                out.write(ByteBuffer.wrap(data), volume + clusterOffset(cluster));
+            }
+        }
+    }
+
+    // Marks a cluster bad, which leaves it out of the map
+    public static void markBad(Path image, int cluster) throws IOException {
+        try (FileChannel out = FileChannel.open(image, StandardOpenOption.WRITE)) {
+            ByteBuffer entry = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 0x0FFF_FFF7);
+            out.write(entry, 32L * SECTOR + cluster * 4L);
+        }
+    }
+
+    // First 512-byte block of a cluster, counted from the volume start
+    public static long clusterBlock(int cluster) {
+        return DATA_START_SECTOR + (long) (cluster - 2) * SECTORS_PER_CLUSTER;
+    }
+
+    private static long clusterOffset(int cluster) {
+        return clusterBlock(cluster) * SECTOR;
+    }
+
+    private static ByteBuffer sector() {
+        ByteBuffer sector = ByteBuffer.allocate(SECTOR).order(ByteOrder.LITTLE_ENDIAN);
+        sector.putShort(510, (short) 0xAA55);
+        return sector;
+    }
+}
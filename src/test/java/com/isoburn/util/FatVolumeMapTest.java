@@ -0,0 +1,83 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FatVolumeMapTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mapHoldsTheMetadataAndTheAllocatedClusters() throws IOException {
+        Path image = dir.resolve("drive.img");
+        FatImages.write(image, 0, 1, 2, 5, 6, 20);
+
+        // Cluster 2 directly follows the FATs; 5 and 6 are adjacent and merge
+        assertThat(read(image)).containsExactly(
+            range(0, FatImages.clusterBlock(3) - 1),
+            range(FatImages.clusterBlock(5), FatImages.clusterBlock(7) - 1),
+            range(FatImages.clusterBlock(20), FatImages.clusterBlock(21) - 1));
+    }
+
+    @Test
+    void volumeBehindAPartitionTableIsFound() throws IOException {
+        Path image = dir.resolve("drive.img");
+        FatImages.write(image, 2048, 1, 2, 9);
+
+        assertThat(read(image)).containsExactly(
+            range(0, 2048 + FatImages.clusterBlock(3) - 1),
+            range(2048 + FatImages.clusterBlock(9), 2048 + FatImages.clusterBlock(10) - 1));
+    }
+
+    @Test
+    void badClustersAreLeftOut() throws IOException {
+        Path image = dir.resolve("drive.img");
+        FatImages.write(image, 0, 1, 2, 30);
+        FatImages.markBad(image, 30);
+
+        assertThat(read(image)).containsExactly(range(0, FatImages.clusterBlock(3) - 1));
+    }
+
+    @Test
+    void longRunsAreSplit() throws IOException {
+        Path image = dir.resolve("drive.img");
+        int[] clusters = new int[1100];
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = i + 2;
+        }
+        FatImages.write(image, 0, 1, clusters);
+
+        List<BlockMap.Range> ranges = read(image);
+
+        long end = FatImages.clusterBlock(clusters.length + 2) - 1;
+        assertThat(ranges).containsExactly(range(0, 8191), range(8192, end));
+    }
+
+    @Test
+    void driveWithoutFat32IsNotMapped() throws IOException {
+        Path image = dir.resolve("drive.img");
+        Files.write(image, new byte[64 * 1024]);
+
+        assertThat(read(image)).isNull();
+    }
+
+    private static List<BlockMap.Range> read(Path image) throws IOException {
+        try (FileChannel device = FileChannel.open(image, StandardOpenOption.READ)) {
+            return FatVolumeMap.read(device);
+        }
+    }
+
+    private static BlockMap.Range range(long first, long last) {
+        return new BlockMap.Range(first, last, null);
+    }
+}
@@ -0,0 +1,145 @@
+package com.isoburn.util;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageDecompressorTest {
+
+    private static final int PIECE_SIZE = 700_000;
+
+    @TempDir
+    Path dir;
+
+    private final BufferPool bufferPool = new BufferPool(new SimpleMeterRegistry(), 64);
+    private final byte[] image = image();
+
+    @AfterEach
+    void allBuffersAreReturned() {
+        assertThat(bufferPool.getInUseBytes()).isZero();
+    }
+
+    @Test
+    void gzipMembersDecompressToTheImage() throws IOException {
+        Path source = dir.resolve("disk.img.gz");
+        try (OutputStream out = Files.newOutputStream(source)) {
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                ByteArrayOutputStream member = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+                    gzip.write(image, offset, Math.min(PIECE_SIZE, image.length - offset));
+                }
+                member.writeTo(out);
+            }
+        }
+
+        assertDecompressesToTheImage(source);
+    }
+
+    @Test
+    void xzBlocksDecompressToTheImage() throws IOException {
+        Path source = dir.resolve("disk.img.xz");
+        try (XZOutputStream xz = new XZOutputStream(Files.newOutputStream(source), new LZMA2Options(1))) {
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                xz.write(image, offset, Math.min(PIECE_SIZE, image.length - offset));
+                xz.endBlock();
+            }
+        }
+
+        assertDecompressesToTheImage(source);
+    }
+
+    @Test
+    void zstdFramesDecompressToTheImage() throws IOException {
+        Path source = dir.resolve("disk.img.zst");
+        try (OutputStream out = Files.newOutputStream(source)) {
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                out.write(Zstd.compress(Arrays.copyOfRange(image, offset,
+                    Math.min(offset + PIECE_SIZE, image.length)), 1));
+            }
+        }
+
+        assertDecompressesToTheImage(source);
+    }
+
+    @Test
+    void streamSkipsAcrossPieces() throws IOException {
+        Path source = dir.resolve("disk.img.zst");
+        try (OutputStream out = Files.newOutputStream(source)) {
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                out.write(Zstd.compress(Arrays.copyOfRange(image, offset,
+                    Math.min(offset + PIECE_SIZE, image.length)), 1));
+            }
+        }
+
+        try (InputStream in = new ImageDecompressor(3, bufferPool).open(source, bytes -> { }, () -> false)) {
+            in.skipNBytes(PIECE_SIZE * 2L + 10);
+            assertThat(in.readNBytes(1000)).isEqualTo(Arrays.copyOfRange(image, PIECE_SIZE * 2 + 10,
+                PIECE_SIZE * 2 + 1010));
+        }
+    }
+
+    @Test
+    void cancelStopsTheStream() throws IOException {
+        Path source = dir.resolve("disk.img.xz");
+        try (XZOutputStream xz = new XZOutputStream(Files.newOutputStream(source), new LZMA2Options(1))) {
+            for (int offset = 0; offset < image.length; offset += PIECE_SIZE) {
+                xz.write(image, offset, Math.min(PIECE_SIZE, image.length - offset));
+                xz.endBlock();
+            }
+        }
+
+        assertThatThrownBy(() -> {
+            try (InputStream in = new ImageDecompressor(2, bufferPool).open(source, bytes -> { }, () -> true)) {
+                in.readAllBytes();
+            }
+        }).isInstanceOf(IOException.class);
+    }
+
+    private void assertDecompressesToTheImage(Path source) throws IOException {
+        for (int threads : new int[] {1, 4}) {
+            ImageDecompressor decompressor = new ImageDecompressor(threads, bufferPool);
+            AtomicLong progress = new AtomicLong();
+            try (InputStream in = decompressor.open(source, progress::addAndGet, () -> false)) {
+                assertThat(in.readAllBytes()).as("%d threads", threads).isEqualTo(image);
+            }
+            assertThat(progress.get()).isEqualTo(Files.size(source));
+
+            Path target = dir.resolve("decompressed-" + threads);
+            long length = decompressor.decompress(source, target, bytes -> { }, () -> false);
+            assertThat(length).isEqualTo(image.length);
+            assertThat(Files.readAllBytes(target)).isEqualTo(image);
+        }
+    }
+
+    // Compressible but not trivially so: random bytes separated by runs of zeros
+    private static byte[] image() {
+        byte[] data = new byte[PIECE_SIZE * 5 + 4321];
+        Random random = new Random(5);
+        for (int offset = 0; offset < data.length; offset += 8192) {
+            if (random.nextBoolean()) {
+                byte[] block = new byte[Math.min(8192, data.length - offset)];
+                random.nextBytes(block);
+                System.arraycopy(block, 0, data, offset, block.length);
+            }
+        }
+        return data;
+    }
+}
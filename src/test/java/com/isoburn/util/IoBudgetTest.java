@@ -0,0 +1,66 @@
+package com.isoburn.util;
+
+import com.isoburn.util.BandwidthThrottle.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IoBudgetTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void tightestLimitSetsTheSpeed() {
+        IoBudget budget = new IoBudget(2 * MB, 0, 0, List.of(new BandwidthThrottle(10 * MB, 0, 0, 1.0)), List.of());
+
+        assertThat(millis(() -> {
+            budget.read(MB / 2);
+            budget.read(MB / 2);
+        })).isBetween(450L, 600L);
+
+        IoBudget shared = new IoBudget(10 * MB, 0, 0, List.of(new BandwidthThrottle(2 * MB, 0, 0, 1.0)), List.of());
+        assertThat(millis(() -> shared.read(MB))).isBetween(450L, 600L);
+    }
+
+    @Test
+    void copyWaitsForBothReadAndWrite() {
+        IoBudget budget = new IoBudget(4 * MB, 2 * MB, 0, List.of(), List.of());
+
+        assertThat(millis(() -> budget.copy(MB))).isBetween(450L, 600L);
+        assertThat(millis(() -> budget.write(MB / 2))).isBetween(200L, 350L);
+    }
+
+    @Test
+    void jobLimitsCanBeLiftedWhileRunning() {
+        IoBudget budget = new IoBudget(MB / 10, MB / 10, 0, List.of(), List.of());
+        assertThat(budget.getReadBytesPerSecond()).isEqualTo(MB / 10);
+
+        budget.setLimits(0, 0);
+
+        assertThat(millis(() -> {
+            budget.read(10 * MB);
+            budget.copy(10 * MB);
+        })).isLessThan(50);
+        assertThat(budget.getWriteBytesPerSecond()).isZero();
+    }
+
+    @Test
+    void budgetsShareTheCommonThrottle() {
+        BandwidthThrottle common = new BandwidthThrottle(2 * MB, 0, 0, 0.25);
+        IoBudget burn = new IoBudget(0, 0, 0, List.of(common), List.of());
+        IoBudget verify = new IoBudget(0, 0, 0, List.of(common), List.of());
+
+        burn.read(MB / 10);
+        // While the burn reads, verification is held to a quarter of 2 MB/s
+        assertThat(millis(() -> verify.read(MB / 4, Priority.VERIFY))).isBetween(450L, 600L);
+    }
+
+    private static long millis(Runnable transfers) {
+        long start = System.nanoTime();
+        transfers.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
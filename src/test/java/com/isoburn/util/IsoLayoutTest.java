@@ -0,0 +1,251 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads layouts from small ISO 9660 images assembled sector by sector: a
+ * primary descriptor at sector 16, an optional Joliet descriptor after it,
+ * then the directories at the sectors each test chooses.
+ */
+class IsoLayoutTest {
+
+    private static final int SECTOR = 2048;
+    private static final int ROOT = 20;
+    private static final int DIRECTORY = 0x02;
+    private static final int MULTI_EXTENT = 0x80;
+
+    @TempDir
+    Path dir;
+
+    private final ByteBuffer image = ByteBuffer.allocate(128 * SECTOR).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Test
+    void plainNamesLoseTheirVersionAndTrailingDot() throws IOException {
+        descriptors(false);
+        directory(ROOT, ROOT,
+            file("README.TXT;1", 40),
+            file("NOEXT.;1", 41),
+            dir("BOOT", 21));
+        directory(21, ROOT,
+            file("GRUB.CFG;1", 42));
+
+        IsoLayout layout = read();
+
+        assertThat(layout.size()).isEqualTo(3);
+        assertThat(layout.startBlock("readme.txt")).isEqualTo(40);
+        assertThat(layout.startBlock("noext")).isEqualTo(41);
+        assertThat(layout.startBlock("Boot\\Grub.cfg")).isEqualTo(42);
+    }
+
+    @Test
+    void rockRidgeNamesAreJoinedFromEveryEntry() throws IOException {
+        descriptors(false);
+        directory(ROOT, ROOT,
+            file("LONGNAME.ISO;1", 40, nm("Long File"), px(), nm(" Name.iso")),
+            file("SHORT.TXT;1", 41, px()));
+
+        IsoLayout layout = read();
+
+        assertThat(layout.startBlock("long file name.iso")).isEqualTo(40);
+        assertThat(layout.startBlock("longname.iso")).isNull();
+        assertThat(layout.startBlock("short.txt")).isEqualTo(41);
+    }
+
+    @Test
+    void jolietTreeIsPreferred() throws IOException {
+        descriptors(true);
+        directory(ROOT, ROOT,
+            file("README.TXT;1", 40));
+        directory(22, 22,
+            joliet("Read Me First.txt;1", 40, 0),
+            joliet("Sources", 23, DIRECTORY));
+        directory(23, 22,
+            joliet("Install ünicode.wim;1", 50, 0));
+
+        IsoLayout layout = read();
+
+        assertThat(layout.size()).isEqualTo(2);
+        assertThat(layout.startBlock("read me first.txt")).isEqualTo(40);
+        assertThat(layout.startBlock("sources/install ünicode.wim")).isEqualTo(50);
+        assertThat(layout.startBlock("readme.txt")).isNull();
+    }
+
+    @Test
+    void multiExtentFileStartsAtItsFirstExtent() throws IOException {
+        descriptors(false);
+        directory(ROOT, ROOT,
+            record("INSTALL.WIM;1", 60, MULTI_EXTENT),
+            record("INSTALL.WIM;1", 90, MULTI_EXTENT),
+            record("INSTALL.WIM;1", 120, 0));
+
+        assertThat(read().startBlock("install.wim")).isEqualTo(60);
+    }
+
+    @Test
+    void directoryLoopsAreWalkedOnce() throws IOException {
+        descriptors(false);
+        directory(ROOT, ROOT,
+            file("A.BIN;1", 40),
+            dir("SUB", 21));
+        directory(21, ROOT,
+            file("B.BIN;1", 41),
+            dir("BACK", ROOT),
+            dir("SELF", 21));
+
+        IsoLayout layout = read();
+
+        assertThat(layout.size()).isEqualTo(2);
+        assertThat(layout.startBlock("a.bin")).isEqualTo(40);
+        assertThat(layout.startBlock("sub/b.bin")).isEqualTo(41);
+    }
+
+    @Test
+    void walkStopsAtTheMaximumDepth() throws IOException {
+        descriptors(false);
+        // ROOT holds D0, which holds D1, and so on; every directory also holds one file
+        for (int depth = 0; depth < 80; depth++) {
+            int extent = ROOT + depth;
+            directory(extent, extent - 1,
+                file("F.BIN;1", 1000 + depth),
+                dir("D", extent + 1));
+        }
+
+        IsoLayout layout = read();
+
+        assertThat(layout.startBlock("f.bin")).isEqualTo(1000);
+        assertThat(layout.startBlock("d/".repeat(64) + "f.bin")).isEqualTo(1064);
+        assertThat(layout.startBlock("d/".repeat(65) + "f.bin")).isNull();
+        assertThat(layout.size()).isEqualTo(65);
+    }
+
+    @Test
+    void imageWithoutVolumeDescriptorsIsEmpty() throws IOException {
+        Path file = dir.resolve("plain.img");
+        Files.write(file, new byte[40 * SECTOR]);
+
+        assertThat(IsoLayout.read(file)).isSameAs(IsoLayout.EMPTY);
+        assertThat(IsoLayout.read(dir.resolve("missing.iso"))).isSameAs(IsoLayout.EMPTY);
+    }
+
+    private IsoLayout read() throws IOException {
+        Path file = dir.resolve("test.iso");
+        Files.write(file, image.array());
+        return IsoLayout.read(file);
+    }
+
+    // Primary descriptor at 16 with its root at ROOT, Joliet at 17 with its root at 22, terminator after
+    private void descriptors(boolean joliet) {
+        descriptor(16, 1, ROOT);
+        int next = 17;
+        if (joliet) {
+            descriptor(next, 2, 22);
+            image.put(next * SECTOR + 88, (byte) '%').put(next * SECTOR + 89, (byte) '/')
+                .put(next * SECTOR + 90, (byte) 'E');
+            next++;
+        }
+        descriptor(next, 255, 0);
+    }
+
+    private void descriptor(int sector, int type, int root) {
+        int base = sector * SECTOR;
+        image.put(base, (byte) type);
+        image.put(base + 1, "CD001".getBytes(StandardCharsets.US_ASCII));
+        if (type != 255) {
+            byte[] record = record(new byte[]{0}, root, DIRECTORY);
+            image.put(base + 156, record);
+        }
+    }
+
+    // One sector holding "." and ".." followed by the given records
+    private void directory(int sector, int parent, byte[]... records) {
+        int pos = sector * SECTOR;
+        for (byte[] record : records(self(sector), self(parent), records)) {
+            image.put(pos, record);
+            pos += record.length;
+        }
+        assertThat(pos).isLessThanOrEqualTo((sector + 1) * SECTOR);
+    }
+
+    private static byte[][] records(byte[] self, byte[] parent, byte[][] rest) {
+        byte[][] all = new byte[rest.length + 2][];
+        all[0] = self;
+        all[1] = parent;
+        System.arraycopy(rest, 0, all, 2, rest.length);
+        return all;
+    }
+
+    private static byte[] self(int sector) {
+        return record(new byte[]{0}, sector, DIRECTORY);
+    }
+
+    private static byte[] file(String name, int extent, byte[]... systemUse) {
+        return record(name.getBytes(StandardCharsets.US_ASCII), extent, 0, systemUse);
+    }
+
+    private static byte[] dir(String name, int extent) {
+        return record(name.getBytes(StandardCharsets.US_ASCII), extent, DIRECTORY);
+    }
+
+    private static byte[] record(String name, int extent, int flags) {
+        return record(name.getBytes(StandardCharsets.US_ASCII), extent, flags);
+    }
+
+    private static byte[] joliet(String name, int extent, int flags) {
+        return record(name.getBytes(StandardCharsets.UTF_16BE), extent, flags);
+    }
+
+    private static byte[] record(byte[] name, int extent, int flags, byte[]... systemUse) {
+        int length = 33 + name.length + (name.length % 2 == 0 ? 1 : 0);
+        for (byte[] entry : systemUse) {
+            length += entry.length;
+        }
+        length += length % 2;
+        ByteBuffer record = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        record.put(0, (byte) length);
+        record.putInt(2, extent);
+        record.order(ByteOrder.BIG_ENDIAN).putInt(6, extent).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(10, SECTOR);
+        record.order(ByteOrder.BIG_ENDIAN).putInt(14, SECTOR);
+        record.put(25, (byte) flags);
+        record.put(32, (byte) name.length);
+        record.put(33, name);
+        int pos = 33 + name.length + (name.length % 2 == 0 ? 1 : 0);
+        for (byte[] entry : systemUse) {
+            record.put(pos, entry);
+            pos += entry.length;
+        }
+        return record.array();
+    }
+
+    // Rock Ridge alternate name entry holding part of the name
+    private static byte[] nm(String part) {
+        byte[] text = part.getBytes(StandardCharsets.UTF_8);
+        byte[] entry = new byte[5 + text.length];
+        entry[0] = 'N';
+        entry[1] = 'M';
+        entry[2] = (byte) entry.length;
+        entry[3] = 1;
+        System.arraycopy(text, 0, entry, 5, text.length);
+        return entry;
+    }
+
+    // A POSIX attributes entry, which the reader steps over
+    private static byte[] px() {
+        byte[] entry = new byte[44];
+        entry[0] = 'P';
+        entry[1] = 'X';
+        entry[2] = (byte) entry.length;
+        entry[3] = 1;
+        return entry;
+    }
+}
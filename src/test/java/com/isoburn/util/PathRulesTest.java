@@ -0,0 +1,114 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PathRulesTest {
+
+    @Test
+    void blankRulesKeepEverything() {
+        PathRules rules = PathRules.compile(null, List.of(" ", ""));
+
+        assertThat(rules).isSameAs(PathRules.NONE);
+        assertThat(rules.isEmpty()).isTrue();
+        assertThat(rules.includes("sources/install.wim")).isTrue();
+        assertThat(rules.excludesDirectory("sources")).isFalse();
+    }
+
+    @Test
+    void namesWithoutSlashMatchAtAnyDepth() {
+        PathRules rules = exclude("boot.wim", "*.chm", "support");
+
+        assertThat(rules.includes("sources/BOOT.WIM")).isFalse();
+        assertThat(rules.includes("boot.wim")).isFalse();
+        assertThat(rules.includes("sources/boot.wim.bak")).isTrue();
+        assertThat(rules.includes("docs/en/help.CHM")).isFalse();
+        assertThat(rules.includes("docs/help.chm.txt")).isTrue();
+        assertThat(rules.includes("support/tools/x.exe")).isFalse();
+        assertThat(rules.includes("a/support/readme.txt")).isFalse();
+        assertThat(rules.includes("supporting.txt")).isTrue();
+    }
+
+    @Test
+    void pathsMatchFromTheRootAndCoverWhatLiesBeneath() {
+        PathRules rules = exclude("sources/install.wim", "/efi/**", "glob:sources/*.swm");
+
+        assertThat(rules.includes("Sources/Install.wim")).isFalse();
+        assertThat(rules.includes("x/sources/install.wim")).isTrue();
+        assertThat(rules.includes("efi/boot/bootx64.efi")).isFalse();
+        assertThat(rules.includes("efi")).isFalse();
+        assertThat(rules.includes("boot/efi/x")).isTrue();
+        assertThat(rules.includes("sources/install2.swm")).isFalse();
+        assertThat(rules.includes("sources/x/install2.swm")).isTrue();
+    }
+
+    @Test
+    void globSyntax() {
+        PathRules rules = exclude("**/fonts/*.t?f", "sources/[a-z][a-z]-[!0-9]*", "{boot,efi}/x[.]bin",
+            "a\\*b");
+
+        assertThat(rules.includes("boot/fonts/seg.ttf")).isFalse();
+        assertThat(rules.includes("fonts/seg.tmf")).isFalse();
+        assertThat(rules.includes("boot/fonts/seg.ttff")).isTrue();
+        assertThat(rules.includes("sources/en-us/setup.mui")).isFalse();
+        assertThat(rules.includes("sources/en-1")).isTrue();
+        assertThat(rules.includes("efi/x.bin")).isFalse();
+        assertThat(rules.includes("efi/xybin")).isTrue();
+        assertThat(rules.includes("a*b")).isFalse();
+        assertThat(rules.includes("axxb")).isTrue();
+    }
+
+    @Test
+    void regexRulesMatchWholePaths() {
+        PathRules rules = PathRules.compile(List.of("regex:^sources/[a-z]{2}-[a-z]{2}$", "boot"), List.of());
+
+        assertThat(rules.hasIncludes()).isTrue();
+        assertThat(rules.includes("sources/de-DE/setup.exe.mui")).isTrue();
+        assertThat(rules.includes("sources/de-DE")).isTrue();
+        assertThat(rules.includes("sources/install.wim")).isFalse();
+        assertThat(rules.includes("x/sources/de-de/y")).isFalse();
+        assertThat(rules.includes("efi/boot/bootx64.efi")).isTrue();
+    }
+
+    @Test
+    void excludeWinsOverInclude() {
+        PathRules rules = PathRules.compile(List.of("sources"), List.of("*.swm"));
+
+        assertThat(rules.includes("sources/install.wim")).isTrue();
+        assertThat(rules.includes("sources/install2.swm")).isFalse();
+        assertThat(rules.includes("setup.exe")).isFalse();
+        assertThat(rules.excludesDirectory("")).isFalse();
+        assertThat(rules.excludesDirectory("sources")).isFalse();
+        assertThat(rules.excludesDirectory("support")).isFalse();
+        assertThat(exclude("support").excludesDirectory("Support")).isTrue();
+    }
+
+    @Test
+    void invalidRulesAreNamed() {
+        assertThatThrownBy(() -> exclude("regex:(")).hasMessageContaining("'regex:('");
+        assertThatThrownBy(() -> exclude("{a,b")).hasMessageContaining("unmatched '{'");
+        assertThatThrownBy(() -> exclude("a*}")).hasMessageContaining("unmatched '}'");
+        assertThatThrownBy(() -> exclude("[ab")).hasMessageContaining("unmatched '['");
+        assertThatThrownBy(() -> exclude("ab\\")).hasMessageContaining("ends with");
+        assertThatThrownBy(() -> exclude("/")).isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("matches nothing");
+    }
+
+    @Test
+    void fingerprintTellsIncludeFromExclude() {
+        PathRules rules = PathRules.compile(List.of(" sources "), List.of("*.chm"));
+
+        assertThat(rules.getInclude()).containsExactly("sources");
+        assertThat(rules.fingerprint())
+            .isEqualTo(PathRules.compile(List.of("sources"), List.of("*.chm")).fingerprint())
+            .isNotEqualTo(PathRules.compile(List.of("*.chm"), List.of("sources")).fingerprint());
+    }
+
+    private static PathRules exclude(String... rules) {
+        return PathRules.compile(List.of(), List.of(rules));
+    }
+}
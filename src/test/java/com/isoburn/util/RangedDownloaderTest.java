@@ -0,0 +1,186 @@
+package com.isoburn.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs downloads against an in-process server that answers every request
+ * after a delay, serves ranges only when told to, and fails chosen ranges a
+ * given number of times.
+ */
+class RangedDownloaderTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long LATENCY_MILLIS = 20;
+
+    private enum Failure { ERROR, TRUNCATED, SHORT }
+
+    private final BufferPool bufferPool = new BufferPool(new SimpleMeterRegistry(), 16);
+    private final byte[] content = new byte[CHUNK_SIZE * 10 + 1234];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final Map<Long, Failure> failures = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private volatile boolean acceptRanges = true;
+    private HttpServer server;
+    private URI uri;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        new Random(11).nextBytes(content);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/image.iso", this::serve);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/image.iso");
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        assertThat(bufferPool.getInUseBytes()).as("bytes still leased from the pool").isZero();
+    }
+
+    @Test
+    void rangedDownloadWritesTheBodyInOrder() throws Exception {
+        RangedDownloader downloader = downloader(4);
+        RangedDownloader.RemoteFile remote = downloader.probe(uri);
+        AtomicLong progress = new AtomicLong();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long length = downloader.download(uri, remote, Channels.newChannel(out), progress::addAndGet, () -> false);
+
+        assertThat(remote.acceptsRanges()).isTrue();
+        assertThat(remote.length()).isEqualTo(content.length);
+        assertThat(length).isEqualTo(content.length);
+        assertThat(progress.get()).isEqualTo(content.length);
+        assertThat(out.toByteArray()).isEqualTo(content);
+        assertThat(ranges).hasSize(11).contains("bytes=655360-656593");
+    }
+
+    @Test
+    void failedRangeIsFetchedAgain() throws Exception {
+        failRange(CHUNK_SIZE * 3L, Failure.ERROR, 2);
+
+        assertThat(download(4)).isEqualTo(content);
+        assertThat(ranges).filteredOn(range -> range.startsWith("bytes=" + CHUNK_SIZE * 3L + "-")).hasSize(3);
+    }
+
+    @Test
+    void truncatedRangeIsFetchedAgain() throws Exception {
+        failRange(CHUNK_SIZE * 5L, Failure.TRUNCATED, 1);
+        failRange(CHUNK_SIZE * 7L, Failure.SHORT, 1);
+
+        assertThat(download(4)).isEqualTo(content);
+        assertThat(ranges).filteredOn(range -> range.startsWith("bytes=" + CHUNK_SIZE * 5L + "-")).hasSize(2);
+        assertThat(ranges).filteredOn(range -> range.startsWith("bytes=" + CHUNK_SIZE * 7L + "-")).hasSize(2);
+    }
+
+    @Test
+    void rangeThatKeepsFailingFailsTheDownload() {
+        failRange(CHUNK_SIZE * 2L, Failure.SHORT, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> download(4)).isInstanceOf(IOException.class).hasMessageContaining("bytes");
+    }
+
+    @Test
+    void serverWithoutRangesGetsOnePlainRequest() throws Exception {
+        acceptRanges = false;
+
+        assertThat(download(4)).isEqualTo(content);
+        assertThat(ranges).containsExactly("none");
+    }
+
+    @Test
+    void cancelStopsTheDownload() {
+        RangedDownloader downloader = downloader(2);
+        AtomicLong progress = new AtomicLong();
+
+        assertThatThrownBy(() -> downloader.download(uri, downloader.probe(uri),
+                Channels.newChannel(new ByteArrayOutputStream()), progress::addAndGet,
+                () -> progress.get() >= CHUNK_SIZE * 2L))
+            .isInstanceOf(IOException.class);
+        assertThat(progress.get()).isLessThan(content.length);
+    }
+
+    private byte[] download(int connections) throws Exception {
+        RangedDownloader downloader = downloader(connections);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        downloader.download(uri, downloader.probe(uri), Channels.newChannel(out), bytes -> { }, () -> false);
+        return out.toByteArray();
+    }
+
+    private RangedDownloader downloader(int connections) {
+        return new RangedDownloader(HttpClient.newHttpClient(), connections, CHUNK_SIZE, Duration.ofSeconds(10),
+            bufferPool);
+    }
+
+    private void failRange(long start, Failure failure, int times) {
+        failures.put(start, failure);
+        failuresLeft.put(start, new AtomicInteger(times));
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Thread.sleep(LATENCY_MILLIS);
+            if (acceptRanges) {
+                exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            }
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            ranges.add(range != null ? range : "none");
+            if (range == null || !acceptRanges) {
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content);
+                return;
+            }
+
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int length = Integer.parseInt(bounds[1]) - start + 1;
+            AtomicInteger left = failuresLeft.get((long) start);
+            Failure failure = left != null && left.getAndDecrement() > 0 ? failures.get((long) start) : null;
+            if (failure == Failure.ERROR) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range",
+                "bytes " + start + "-" + (start + length - 1) + "/" + content.length);
+            // TRUNCATED promises the whole range and closes early; SHORT sends a complete but short body
+            exchange.sendResponseHeaders(206, failure == Failure.SHORT ? 0 : length);
+            OutputStream body = exchange.getResponseBody();
+            body.write(content, start, failure != null ? length / 2 : length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The client gave up on the response
+        }
+    }
+}
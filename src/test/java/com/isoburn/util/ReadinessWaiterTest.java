@@ -0,0 +1,106 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadinessWaiterTest {
+
+    private static final Duration MAX_BACKOFF = Duration.ofMillis(100);
+
+    // Stands in for /Volumes
+    @TempDir
+    Path mounts;
+
+    private final ScheduledExecutorService mounter = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger probes = new AtomicInteger();
+
+    @AfterEach
+    void stopMounter() {
+        mounter.shutdownNow();
+    }
+
+    @Test
+    void volumeAlreadyThereIsFoundByTheFirstProbe() throws Exception {
+        Files.createDirectory(mounts.resolve("ISOBURN"));
+
+        assertThat(await(mounts, Duration.ofSeconds(5), Duration.ofSeconds(5))).isEqualTo(mounts.resolve("ISOBURN"));
+        assertThat(probes).hasValue(1);
+    }
+
+    @Test
+    void watchEventCutsTheBackoffShort() throws Exception {
+        mountLater(mounts.resolve("ISOBURN"), 200);
+        long start = System.nanoTime();
+
+        // The first backoff alone would wait five seconds
+        assertThat(await(mounts, Duration.ofSeconds(10), Duration.ofSeconds(5))).isNotNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(3000);
+    }
+
+    @Test
+    void missingWatchRootFallsBackToBackoffProbes() throws Exception {
+        Path root = mounts.resolve("not-yet");
+        mountLater(root.resolve("ISOBURN"), 300);
+
+        assertThat(await(root, Duration.ofSeconds(10), Duration.ofMillis(20))).isEqualTo(root.resolve("ISOBURN"));
+        // 20, 40, 80 and 100 ms waits, then 100 ms each, before and after the volume appears
+        assertThat(probes.get()).isBetween(3, 20);
+    }
+
+    @Test
+    void waitEndsAtTheDeadline() throws Exception {
+        long start = System.nanoTime();
+
+        assertThat(await(mounts, Duration.ofMillis(400), Duration.ofMillis(50))).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(400L, 1500L);
+        assertThat(probes.get()).isGreaterThan(2);
+    }
+
+    @Test
+    void abortEndsTheWait() throws Exception {
+        long start = System.nanoTime();
+
+        Path found = ReadinessWaiter.await(mounts, Duration.ofSeconds(10), Duration.ofMillis(20),
+            MAX_BACKOFF, () -> probes.get() >= 3, probe(mounts.resolve("ISOBURN")));
+
+        assertThat(found).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+    }
+
+    private Path await(Path root, Duration timeout, Duration initialBackoff) throws InterruptedException {
+        Duration maxBackoff = initialBackoff.compareTo(MAX_BACKOFF) < 0 ? MAX_BACKOFF : initialBackoff;
+        return ReadinessWaiter.await(root, timeout, initialBackoff, maxBackoff, () -> false,
+            probe(root.resolve("ISOBURN")));
+    }
+
+    private Supplier<Path> probe(Path volume) {
+        return () -> {
+            probes.incrementAndGet();
+            return Files.isDirectory(volume) ? volume : null;
+        };
+    }
+
+    private void mountLater(Path volume, long delayMillis) {
+        mounter.schedule(() -> {
+            try {
+                return Files.createDirectories(volume);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
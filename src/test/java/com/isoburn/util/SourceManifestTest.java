@@ -0,0 +1,156 @@
+package com.isoburn.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceManifestTest {
+
+    private static final String KEY = "source:1:2";
+
+    @TempDir
+    Path dir;
+
+    private Path root;
+
+    @BeforeEach
+    void createTree() throws IOException {
+        root = dir.resolve("source");
+        write("setup.exe", 100);
+        write("sources/INSTALL.WIM", 5000);
+        write("sources/boot.wim", 3000);
+        write("sources/de-de/setup.exe.mui", 10);
+        write("support/tools/read me.txt", 7);
+        Files.createDirectories(root.resolve("empty"));
+    }
+
+    @Test
+    void scanListsDirectoriesBeforeTheirContents() throws IOException {
+        SourceManifest manifest = scan(PathRules.NONE);
+
+        List<String> paths = paths(manifest);
+        assertThat(paths).hasSize(11).startsWith("");
+        for (int i = 0; i < manifest.size(); i++) {
+            String path = manifest.path(i);
+            if (path.contains("/")) {
+                assertThat(paths.indexOf(path.substring(0, path.lastIndexOf('/')))).isLessThan(i);
+            }
+        }
+        int wim = paths.indexOf("sources/INSTALL.WIM");
+        assertThat(manifest.isInstallWim(wim)).isTrue();
+        assertThat(manifest.size(wim)).isEqualTo(5000);
+        assertThat(manifest.startBlock(wim)).isEqualTo(40);
+        assertThat(manifest.startBlock(paths.indexOf("setup.exe"))).isEqualTo(-1);
+        assertThat(manifest.isDirectory(paths.indexOf("empty"))).isTrue();
+        assertThat(paths).contains("support/tools/read me.txt");
+        assertThat(manifest.totalFileBytes(false)).isEqualTo(8117);
+        assertThat(manifest.totalFileBytes(true)).isEqualTo(3117);
+    }
+
+    @Test
+    void rulesLeaveOutExcludedEntriesAndEmptyDirectories() throws IOException {
+        SourceManifest excluded = scan(PathRules.compile(List.of(), List.of("support", "*.mui")));
+
+        assertThat(paths(excluded)).doesNotContain("support", "support/tools", "sources/de-de/setup.exe.mui")
+            .contains("sources/de-de", "empty");
+
+        SourceManifest included = scan(PathRules.compile(List.of("sources/de-de"), List.of()));
+
+        assertThat(paths(included)).containsExactly("", "sources", "sources/de-de", "sources/de-de/setup.exe.mui");
+    }
+
+    @Test
+    void writtenManifestReadsBackTheSame() throws IOException {
+        SourceManifest manifest = scan(PathRules.NONE);
+        Path file = dir.resolve("index.bin");
+
+        manifest.write(file);
+        SourceManifest read = SourceManifest.read(file, KEY);
+
+        assertSame(read, manifest);
+        // A mapped manifest can be written out again
+        Path copy = dir.resolve("copy.bin");
+        read.write(copy);
+        assertThat(copy).hasSameBinaryContentAs(file);
+    }
+
+    @Test
+    void largeTreeOutgrowsTheInitialArrays() throws IOException {
+        for (int i = 0; i < 1500; i++) {
+            Files.createFile(Files.createDirectories(root.resolve("many")).resolve("file-" + "x".repeat(40) + i));
+        }
+        SourceManifest manifest = scan(PathRules.NONE);
+        Path file = dir.resolve("index.bin");
+        manifest.write(file);
+
+        assertThat(manifest.size()).isEqualTo(1512);
+        assertSame(SourceManifest.read(file, KEY), manifest);
+    }
+
+    @Test
+    void otherSourceOrDamagedFileIsNotRead() throws IOException {
+        Path file = dir.resolve("index.bin");
+        scan(PathRules.NONE).write(file);
+
+        assertThat(SourceManifest.read(file, "other:1:2")).isNull();
+        assertThat(SourceManifest.read(dir.resolve("missing.bin"), KEY)).isNull();
+
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - 1));
+        assertThat(SourceManifest.read(file, KEY)).isNull();
+
+        data[0] ^= 1;
+        Files.write(file, data);
+        assertThat(SourceManifest.read(file, KEY)).isNull();
+    }
+
+    @Test
+    void cancelledScanStops() {
+        assertThatThrownBy(() -> SourceManifest.scan(root, IsoLayout.EMPTY, KEY, PathRules.NONE, () -> true))
+            .isInstanceOf(InterruptedIOException.class);
+    }
+
+    private SourceManifest scan(PathRules rules) throws IOException {
+        IsoLayout layout = new IsoLayout(Map.of("sources/install.wim", 40L));
+        return SourceManifest.scan(root, layout, KEY, rules, () -> false);
+    }
+
+    private static void assertSame(SourceManifest actual, SourceManifest expected) {
+        assertThat(actual).isNotNull();
+        assertThat(actual.getKey()).isEqualTo(expected.getKey());
+        assertThat(actual.size()).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.path(i)).isEqualTo(expected.path(i));
+            assertThat(actual.size(i)).isEqualTo(expected.size(i));
+            assertThat(actual.startBlock(i)).isEqualTo(expected.startBlock(i));
+            assertThat(actual.isDirectory(i)).isEqualTo(expected.isDirectory(i));
+            assertThat(actual.isInstallWim(i)).isEqualTo(expected.isInstallWim(i));
+        }
+    }
+
+    private static List<String> paths(SourceManifest manifest) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < manifest.size(); i++) {
+            paths.add(manifest.path(i));
+        }
+        return paths;
+    }
+
+    private void write(String path, int size) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}